@@ -0,0 +1,117 @@
+package com.example.golfgame.benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.ODE.*;
+import com.example.golfgame.utils.BallState;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Checks that stepping the physics engine allocates no memory, by reading the bytes allocated by
+ * the current thread before and after a long run of steps. Exits with status 1 if any solver
+ * allocates on its hot path.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=AllocationCheck
+ * }</pre>
+ */
+public class AllocationCheck {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))";
+    private static final double STEP_SIZE = 0.001;
+    private static final int WARMUP_STEPS = 200000; // Enough for the JIT to compile and inline the hot path
+    private static final int MEASURED_STEPS = 1000000;
+
+    public static void main(String[] args) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            System.err.println("This JVM does not report per-thread allocations.");
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM does not report per-thread allocations.");
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Function surface = new Function(SURFACE, "x", "y");
+        ODE[] solvers = {new Euler(), new Midpoint(), new Ralston(), new RungeKutta(), new DormandPrince(),
+                new ExplicitRungeKutta(ButcherTableau.HEUN), new ExplicitRungeKutta(ButcherTableau.BOGACKI_SHAMPINE),
+                new ExplicitRungeKutta(ButcherTableau.RK45), new SemiImplicitEuler(), new VelocityVerlet()};
+        PhysicsEngine[] engines = new PhysicsEngine[solvers.length];
+        // Every solver is warmed up before any is measured, so no call site is recompiled during a measurement
+        for (int i = 0; i < solvers.length; i++) {
+            engines[i] = new PhysicsEngine(solvers[i], surface);
+            runArray(engines[i], new double[BallDynamics.STATE_SIZE], WARMUP_STEPS);
+            runBallState(engines[i], new BallState(0, 0, 0, 0), WARMUP_STEPS);
+        }
+
+        boolean allocationFree = true;
+        for (int i = 0; i < solvers.length; i++) {
+            ODE solver = solvers[i];
+            PhysicsEngine engine = engines[i];
+            double[] state = new double[BallDynamics.STATE_SIZE];
+            BallState ballState = new BallState(0, 0, 0, 0);
+
+            long arrayBytes = measure(threads, () -> runArray(engine, state, MEASURED_STEPS));
+            long ballStateBytes = measure(threads, () -> runBallState(engine, ballState, MEASURED_STEPS));
+            // A late recompilation can charge a few hundred bytes to the thread once; allocating on the
+            // hot path shows up again on a second run
+            if (arrayBytes != 0) {
+                arrayBytes = measure(threads, () -> runArray(engine, state, MEASURED_STEPS));
+            }
+            if (ballStateBytes != 0) {
+                ballStateBytes = measure(threads, () -> runBallState(engine, ballState, MEASURED_STEPS));
+            }
+            String name = solver.getClass() == ExplicitRungeKutta.class
+                    ? ((ExplicitRungeKutta) solver).getTableau().getName() : solver.getClass().getSimpleName();
+            System.out.printf("%-17s update(double[]): %d bytes in %d steps, update(BallState): %d bytes in %d steps%n",
+                    name, arrayBytes, MEASURED_STEPS, ballStateBytes, MEASURED_STEPS);
+            allocationFree &= arrayBytes == 0 && ballStateBytes == 0;
+        }
+        if (!allocationFree) {
+            System.err.println("The physics hot path allocates memory.");
+            System.exit(1);
+        }
+        System.out.println("The physics hot path is allocation free.");
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread while running a task, less the cost of measuring.
+     */
+    private static long measure(com.sun.management.ThreadMXBean threads, Runnable task) {
+        long thread = Thread.currentThread().getId();
+        long start = threads.getThreadAllocatedBytes(thread);
+        long overhead = threads.getThreadAllocatedBytes(thread) - start;
+        start = threads.getThreadAllocatedBytes(thread);
+        task.run();
+        return threads.getThreadAllocatedBytes(thread) - start - overhead;
+    }
+
+    private static void runArray(PhysicsEngine engine, double[] state, int steps) {
+        for (int i = 0; i < steps; i++) {
+            if (engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY])) {
+                shoot(state, i);
+            }
+            engine.update(state, STEP_SIZE);
+        }
+    }
+
+    private static void runBallState(PhysicsEngine engine, BallState ballState, int steps) {
+        for (int i = 0; i < steps; i++) {
+            if (engine.isAtRest(ballState)) {
+                ballState.set(-3, 0, 3 + i % 3, 1);
+            }
+            engine.update(ballState, STEP_SIZE);
+        }
+    }
+
+    private static void shoot(double[] state, int seed) {
+        state[BallDynamics.X] = -3;
+        state[BallDynamics.Y] = 0;
+        state[BallDynamics.VX] = 3 + seed % 3;
+        state[BallDynamics.VY] = 1;
+    }
+}
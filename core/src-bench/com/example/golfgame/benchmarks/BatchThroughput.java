@@ -0,0 +1,116 @@
+package com.example.golfgame.benchmarks;
+
+import java.util.Random;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.BatchIntegrator;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.SurfaceLattice;
+import com.example.golfgame.physics.ODE.EventFunction;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Simulates a population of random shots one ball at a time through the physics engine and all at
+ * once through a batch integrator, checks that both give the same landing points, and compares
+ * how long they take, first on the surface function and then on a surface lattice, where the batch
+ * uses the vector lane kernel if the JVM offers one. Shots that reach water end there, as in the
+ * simulator. Exits with status 1 if any landing point differs.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=BatchThroughput
+ * }</pre>
+ */
+public class BatchThroughput {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)-0.1";
+    private static final double MU_K = 0.1;
+    private static final double MU_S = 0.2;
+    private static final double STEP_SIZE = 0.005;
+    private static final int[] POPULATIONS = {5, 64, 512};
+    private static final int ROUNDS = 5; // Timed rounds per population, after one warm-up round
+    private static final int MAX_STEPS = 1000000; // Guards against shots that never come to rest
+    private static final double LATTICE_SPACING = 0.1;
+
+    public static void main(String[] args) {
+        Function surface = new Function(SURFACE, "x", "y");
+        EventFunction water = state -> surface.evaluate(state[BallDynamics.X], state[BallDynamics.Y]);
+        SurfaceLattice lattice = new SurfaceLattice(surface, -10, -10, 10, 10, LATTICE_SPACING);
+        boolean identical = true;
+
+        for (SurfaceLattice backend : new SurfaceLattice[]{null, lattice}) {
+            identical &= compare(surface, backend, water);
+        }
+        if (!identical) {
+            System.err.println("Batched landing points differ from the physics engine.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs every population through the engine and the batch on one surface backend.
+     *
+     * @param lattice the lattice both integrators read the surface from, or null for the surface function
+     * @return true if every landing point agrees
+     */
+    private static boolean compare(Function surface, SurfaceLattice lattice, EventFunction water) {
+        Random random = new Random(2024);
+        boolean identical = true;
+        System.out.println(lattice == null ? "Surface function:" : "Surface lattice:");
+
+        for (int n : POPULATIONS) {
+            double[][] shots = new double[n][];
+            for (int i = 0; i < n; i++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double speed = 1 + random.nextDouble() * 4;
+                shots[i] = new double[]{-3 + random.nextDouble(), random.nextDouble(), speed * Math.cos(angle), speed * Math.sin(angle)};
+            }
+
+            PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface, MU_K, MU_S);
+            engine.addEvent(water);
+            BatchIntegrator batch = new BatchIntegrator(surface, MU_K, MU_S, n);
+            batch.addEvent(water);
+            if (lattice != null) {
+                engine.setSurfaceLattice(lattice);
+                batch.setSurfaceLattice(lattice);
+            }
+
+            double[][] single = new double[n][];
+            long singleNanos = 0;
+            long batchNanos = 0;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    single[i] = shots[i].clone();
+                    for (int step = 0; step < MAX_STEPS; step++) {
+                        engine.update(single[i], STEP_SIZE);
+                        if (engine.getTriggeredEvent() != null || engine.isAtRest(single[i][BallDynamics.VX], single[i][BallDynamics.VY])) {
+                            break;
+                        }
+                    }
+                }
+                long middle = System.nanoTime();
+                batch.clear();
+                for (int i = 0; i < n; i++) {
+                    batch.setBall(i, shots[i][BallDynamics.X], shots[i][BallDynamics.Y], shots[i][BallDynamics.VX], shots[i][BallDynamics.VY]);
+                }
+                batch.run(STEP_SIZE, MAX_STEPS);
+                long end = System.nanoTime();
+                if (round > 0) {
+                    singleNanos += middle - start;
+                    batchNanos += end - middle;
+                }
+            }
+
+            double maxDifference = 0;
+            for (int i = 0; i < n; i++) {
+                maxDifference = Math.max(maxDifference, Math.max(Math.abs(batch.getX(i) - single[i][BallDynamics.X]),
+                        Math.abs(batch.getY(i) - single[i][BallDynamics.Y])));
+            }
+            identical &= maxDifference == 0;
+            System.out.printf("  %4d shots: one at a time %.2f ms, batched with %s %.2f ms (%.2fx), max landing difference %.1e m%n",
+                    n, singleNanos / 1e6 / ROUNDS, batch.getKernel().getClass().getSimpleName(), batchNanos / 1e6 / ROUNDS, (double) singleNanos / batchNanos, maxDifference);
+        }
+        return identical;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.golfgame.benchmarks;
+
+import java.util.Random;
+
+import com.example.golfgame.physics.FixedStepAccumulator;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.BallState;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Plays the same shot at several frame rates, with jittery frame times and with a half-second stall
+ * every second, once stepping the engine by the frame time as the game used to and once through a
+ * {@link FixedStepAccumulator}, and prints where the ball stops and what the fixed steps cost.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=FrameRateIndependence
+ * }</pre>
+ */
+public class FrameRateIndependence {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.3*sin(2*x)*cos(1.5*y)+0.8";
+    private static final double RATE = 1000;
+    private static final int MAX_SUBSTEPS = 100;
+    private static final double[] FRAME_RATES = {15, 30, 60, 144};
+    private static final double MAX_TIME = 60; // Seconds of game time before a shot is given up on
+    private static final BallState SHOT = new BallState(-3, 0, 6, 2);
+    private static final double STALL = 0.5; // Length of a stalled frame in seconds
+    private static final int STALL_EVERY = 60; // Frames between stalls
+
+    public static void main(String[] args) {
+        Function surface = new Function(SURFACE, "x", "y");
+        // Frame times that wander between 5 and 40 ms
+        double[] jitter = new double[97];
+        Random random = new Random(7);
+        for (int i = 0; i < jitter.length; i++) {
+            jitter[i] = 0.005 + random.nextDouble() * 0.035;
+        }
+
+        System.out.println("One step per frame:");
+        for (double fps : FRAME_RATES) {
+            perFrame(String.format("%5.0f fps", fps), surface, new double[]{1 / fps}, 0);
+        }
+        perFrame("  jittery", surface, jitter, 0);
+        perFrame(" stalling", surface, new double[]{1 / 60.0}, STALL_EVERY);
+
+        System.out.println("Fixed steps at " + (int) RATE + " Hz:");
+        for (double fps : FRAME_RATES) {
+            fixedStep(String.format("%5.0f fps", fps), surface, new double[]{1 / fps}, 0);
+        }
+        fixedStep("  jittery", surface, jitter, 0);
+        fixedStep(" stalling", surface, new double[]{1 / 60.0}, STALL_EVERY);
+    }
+
+    /**
+     * Returns the time of a frame, cycling through the given frame times.
+     *
+     * @param stallEvery replaces every so many frames with a stall, or 0 for none
+     */
+    private static double frameTime(double[] frameTimes, int frame, int stallEvery) {
+        return stallEvery > 0 && frame % stallEvery == stallEvery - 1 ? STALL : frameTimes[frame % frameTimes.length];
+    }
+
+    /**
+     * Plays the shot with one engine step per frame, sized by the frame time.
+     */
+    private static void perFrame(String label, Function surface, double[] frameTimes, int stallEvery) {
+        PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+        BallState ball = SHOT.copy();
+        double time = 0;
+        for (int frame = 0; time < MAX_TIME && !engine.isAtRest(ball); frame++) {
+            double frameTime = frameTime(frameTimes, frame, stallEvery);
+            ball = engine.update(ball, frameTime);
+            time += frameTime;
+        }
+        System.out.printf("  %s: stops at (%.4f, %.4f)%n", label, ball.getX(), ball.getY());
+    }
+
+    /**
+     * Plays the shot through an accumulator.
+     */
+    private static void fixedStep(String label, Function surface, double[] frameTimes, int stallEvery) {
+        PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+        FixedStepAccumulator physicsClock = new FixedStepAccumulator(engine, RATE, MAX_SUBSTEPS);
+        BallState ball = SHOT.copy();
+        BallState rendered = SHOT.copy();
+        double time = 0;
+        double maxRenderedLag = 0;
+        int maxSteps = 0;
+        for (int frame = 0; time < MAX_TIME && !engine.isAtRest(ball); frame++) {
+            double frameTime = frameTime(frameTimes, frame, stallEvery);
+            maxSteps = Math.max(maxSteps, physicsClock.advance(ball, frameTime));
+            physicsClock.interpolate(rendered);
+            maxRenderedLag = Math.max(maxRenderedLag, Math.hypot(ball.getX() - rendered.getX(), ball.getY() - rendered.getY()));
+            time += frameTime;
+        }
+        System.out.printf("  %s: stops at (%.4f, %.4f), at most %d steps per frame, %d dropped, drawn at most %.4f m behind%n",
+                label, ball.getX(), ball.getY(), maxSteps, physicsClock.getDroppedSteps(), maxRenderedLag);
+    }
+}
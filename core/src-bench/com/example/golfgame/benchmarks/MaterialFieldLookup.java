@@ -0,0 +1,196 @@
+package com.example.golfgame.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.BatchIntegrator;
+import com.example.golfgame.physics.MaterialField;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.BallState;
+import com.example.golfgame.utils.Function;
+import com.example.golfgame.utils.gameUtils.Sandbox;
+
+/**
+ * Checks that a {@link MaterialField} puts sand exactly where {@link Sandbox#inSandbox} does, on random
+ * points and on points right at the sandbox edges, and times a lookup against scanning the sandbox list.
+ * Then rolls putts across a course with sand on a {@link PhysicsEngine} and a {@link BatchIntegrator}
+ * sharing the field, and checks that both stop every ball at the same place and that sand shortens
+ * rolls. Exits with status 1 if any check fails.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=MaterialFieldLookup
+ * }</pre>
+ */
+public class MaterialFieldLookup {
+    private static final String COURSE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)+0.5";
+    private static final double GRASS_KINETIC = 0.1;
+    private static final double GRASS_STATIC = 0.2;
+    private static final double SAND_KINETIC = 0.7;
+    private static final double SAND_STATIC = 1;
+    private static final int POINTS = 1000000;
+    private static final int SHOTS = 64;
+    private static final double STEP_SIZE = 0.005;
+    private static final int MAX_STEPS = 100000;
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        List<Sandbox> sandboxes = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            float x = -10 + random.nextFloat() * 18;
+            float y = -10 + random.nextFloat() * 18;
+            sandboxes.add(new Sandbox(x, x + 0.3f + random.nextFloat() * 3, y, y + 0.3f + random.nextFloat() * 3));
+        }
+        MaterialField materials = new MaterialField(GRASS_KINETIC, GRASS_STATIC, SAND_KINETIC, SAND_STATIC, sandboxes);
+
+        boolean correct = checkLookups(materials, sandboxes, random);
+        correct &= compareIntegrators(materials, sandboxes, random);
+        if (!correct) {
+            System.err.println("Material field disagrees with the sandboxes.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compares the field with the sandboxes on random points and on their edges, and times both.
+     *
+     * @return true if the field and the sandboxes agree on every point
+     */
+    private static boolean checkLookups(MaterialField materials, List<Sandbox> sandboxes, Random random) {
+        double[] xs = new double[POINTS];
+        double[] ys = new double[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            Sandbox box = sandboxes.get(random.nextInt(sandboxes.size()));
+            double alongX = box.getXLowBound() + random.nextDouble() * (box.getXHighBound() - box.getXLowBound());
+            double alongY = box.getYLowBound() + random.nextDouble() * (box.getYHighBound() - box.getYLowBound());
+            double edgeX = random.nextBoolean() ? box.getXLowBound() : box.getXHighBound();
+            double edgeY = random.nextBoolean() ? box.getYLowBound() : box.getYHighBound();
+            // Every fourth point lies on a vertical edge and every fourth on a horizontal one, where rounding is most likely to go wrong
+            if (i % 4 == 0) {
+                xs[i] = edgeX;
+                ys[i] = i % 8 == 0 ? edgeY : alongY;
+            } else if (i % 4 == 1) {
+                xs[i] = alongX;
+                ys[i] = edgeY;
+            } else {
+                xs[i] = -12 + random.nextDouble() * 24;
+                ys[i] = -12 + random.nextDouble() * 24;
+            }
+        }
+
+        int mismatches = 0;
+        int sand = 0;
+        BallState ball = new BallState(0, 0, 0, 0);
+        for (int i = 0; i < POINTS; i++) {
+            ball.setX(xs[i]);
+            ball.setY(ys[i]);
+            boolean scanned = scan(sandboxes, ball);
+            if (scanned) {
+                sand++;
+            }
+            if (scanned != materials.isSand(xs[i], ys[i])) {
+                mismatches++;
+            }
+        }
+
+        long fieldNanos = 0;
+        long scanNanos = 0;
+        double checksum = 0;
+        for (int round = 0; round < 3; round++) { // The first rounds warm up
+            long start = System.nanoTime();
+            for (int i = 0; i < POINTS; i++) {
+                checksum += materials.getKineticFriction(xs[i], ys[i]);
+            }
+            fieldNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < POINTS; i++) {
+                ball.setX(xs[i]);
+                ball.setY(ys[i]);
+                checksum += scan(sandboxes, ball) ? SAND_KINETIC : GRASS_KINETIC;
+            }
+            scanNanos = System.nanoTime() - start;
+        }
+        System.out.printf("%d points, %d on sand, %d mismatches (checksum %.1f)%n", POINTS, sand, mismatches, checksum);
+        System.out.printf("Field lookup %.1f ns, scan of %d sandboxes %.1f ns%n",
+                (double) fieldNanos / POINTS, sandboxes.size(), (double) scanNanos / POINTS);
+        return mismatches == 0;
+    }
+
+    private static boolean scan(List<Sandbox> sandboxes, BallState ball) {
+        for (Sandbox box : sandboxes) {
+            if (box.inSandbox(ball)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rolls the same putts on an engine and a batch with the field, and on an engine without it.
+     *
+     * @return true if the engine and the batch agree and sand shortens at least one roll
+     */
+    private static boolean compareIntegrators(MaterialField materials, List<Sandbox> sandboxes, Random random) {
+        Function surface = new Function(COURSE, "x", "y");
+        PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+        engine.setFriction(GRASS_KINETIC, GRASS_STATIC);
+        engine.setMaterialField(materials);
+        PhysicsEngine grassOnly = new PhysicsEngine(new RungeKutta(), surface);
+        grassOnly.setFriction(GRASS_KINETIC, GRASS_STATIC);
+        BatchIntegrator batch = new BatchIntegrator(surface, GRASS_KINETIC, GRASS_STATIC, SHOTS);
+        batch.setMaterialField(materials);
+
+        double[][] shots = new double[SHOTS][];
+        for (int i = 0; i < SHOTS; i++) {
+            // Aim every putt through the middle of a sandbox
+            Sandbox box = sandboxes.get(i % sandboxes.size());
+            double targetX = (box.getXLowBound() + box.getXHighBound()) / 2;
+            double targetY = (box.getYLowBound() + box.getYHighBound()) / 2;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double startX = targetX + 2 * Math.cos(angle);
+            double startY = targetY + 2 * Math.sin(angle);
+            double speed = 2 + random.nextDouble() * 2;
+            shots[i] = new double[]{startX, startY, -speed * Math.cos(angle), -speed * Math.sin(angle)};
+            batch.setBall(i, shots[i][0], shots[i][1], shots[i][2], shots[i][3]);
+        }
+        batch.run(STEP_SIZE, MAX_STEPS);
+
+        double worstDifference = 0;
+        int shortened = 0;
+        int lengthened = 0;
+        for (int i = 0; i < SHOTS; i++) {
+            double[] withSand = roll(engine, shots[i]);
+            double[] withoutSand = roll(grassOnly, shots[i]);
+            worstDifference = Math.max(worstDifference, Math.hypot(withSand[BallDynamics.X] - batch.getX(i), withSand[BallDynamics.Y] - batch.getY(i)));
+            double sandDistance = Math.hypot(withSand[BallDynamics.X] - shots[i][0], withSand[BallDynamics.Y] - shots[i][1]);
+            double grassDistance = Math.hypot(withoutSand[BallDynamics.X] - shots[i][0], withoutSand[BallDynamics.Y] - shots[i][1]);
+            if (sandDistance < grassDistance - 1e-6) {
+                shortened++;
+            } else if (sandDistance > grassDistance + 1e-6) {
+                lengthened++;
+            }
+        }
+        System.out.printf("%d putts into sand: engine and batch stop at most %.1e m apart, %d rolls shortened by sand, %d lengthened%n",
+                SHOTS, worstDifference, shortened, lengthened);
+        return worstDifference <= 1e-9 && shortened > 0;
+    }
+
+    /**
+     * Rolls a ball until it stops.
+     *
+     * @return the final state
+     */
+    private static double[] roll(PhysicsEngine engine, double[] shot) {
+        double[] state = shot.clone();
+        for (int step = 0; step < MAX_STEPS; step++) {
+            engine.update(state, STEP_SIZE);
+            if (engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY])) {
+                break;
+            }
+        }
+        return state;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.golfgame.benchmarks;
+
+import com.example.golfgame.physics.BallSnapshot;
+import com.example.golfgame.physics.FixedStepAccumulator;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.PhysicsThread;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.BallState;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Plays a shot on a {@link PhysicsThread} while a stand-in render loop reads snapshots at 60 frames per
+ * second and stalls for a quarter of a second every twenty frames, as a frame busy with bot work would.
+ * Prints how long reading a snapshot takes and checks that the ball stops where the same fixed steps
+ * taken on one thread stop it, whatever the frames did, that the interpolated state to draw trails the
+ * simulated one by less than a step, and that a moved ball shows up in the first snapshot that reports
+ * the move. Exits with status 1 if any check fails.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=PhysicsThreadHandoff
+ * }</pre>
+ */
+public class PhysicsThreadHandoff {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.3*sin(2*x)*cos(1.5*y)+0.8";
+    private static final double RATE = 1000;
+    private static final int MAX_SUBSTEPS = 100;
+    private static final BallState TEE = new BallState(-3, 0, 0, 0);
+    private static final double HIT_VX = 6;
+    private static final double HIT_VY = 2;
+    private static final long FRAME_MILLIS = 16;
+    private static final long STALL_MILLIS = 250; // Length of a busy frame
+    private static final int STALL_EVERY = 20; // Frames between busy frames
+    private static final long TIMEOUT_MILLIS = 60000;
+
+    public static void main(String[] args) throws InterruptedException {
+        Function surface = new Function(SURFACE, "x", "y");
+        PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+        PhysicsThread physicsThread = new PhysicsThread(engine, TEE, RATE, MAX_SUBSTEPS);
+        physicsThread.start();
+
+        long hit = physicsThread.submit(ball -> {
+            ball.setVx(HIT_VX);
+            ball.setVy(HIT_VY);
+        });
+        physicsThread.setSimulating(true);
+
+        int frames = 0;
+        long maxReadNanos = 0;
+        long totalReadNanos = 0;
+        long lastStepCount = 0;
+        boolean ordered = true;
+        double maxLag = 0;
+        BallState simulated = TEE.copy();
+        BallState rendered = TEE.copy();
+        BallSnapshot snapshot = new BallSnapshot();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            long start = System.nanoTime();
+            physicsThread.getSnapshot(snapshot);
+            snapshot.copyTo(simulated);
+            snapshot.copyInterpolatedTo(rendered);
+            long read = System.nanoTime() - start;
+            maxLag = Math.max(maxLag, Math.hypot(simulated.getX() - rendered.getX(), simulated.getY() - rendered.getY()));
+            maxReadNanos = Math.max(maxReadNanos, read);
+            totalReadNanos += read;
+            frames++;
+
+            ordered &= snapshot.getStepCount() >= lastStepCount;
+            lastStepCount = snapshot.getStepCount();
+            if (snapshot.getSequence() >= hit && snapshot.getStepCount() > 0 && engine.isAtRest(simulated)) {
+                break;
+            }
+            Thread.sleep(frames % STALL_EVERY == 0 ? STALL_MILLIS : FRAME_MILLIS);
+        }
+        physicsThread.setSimulating(false);
+        BallSnapshot stopped = awaitSequence(physicsThread, physicsThread.submit(ball -> { }));
+
+        // The same steps on one thread, taken until the ball is at rest and then as many more as the thread took
+        PhysicsEngine reference = new PhysicsEngine(new RungeKutta(), surface);
+        FixedStepAccumulator clock = new FixedStepAccumulator(reference, RATE, MAX_SUBSTEPS);
+        BallState expected = new BallState(TEE.getX(), TEE.getY(), HIT_VX, HIT_VY);
+        clock.advance(expected, 0);
+        for (long step = 0; step < stopped.getStepCount(); step++) {
+            clock.advance(expected, clock.getStepSize());
+        }
+        double difference = Math.hypot(stopped.getX() - expected.getX(), stopped.getY() - expected.getY());
+
+        System.out.printf("%d frames, snapshot read at most %.1f us and %.2f us on average%n",
+                frames, maxReadNanos / 1e3, totalReadNanos / 1e3 / frames);
+        System.out.printf("Ball stopped at (%.4f, %.4f) after %d steps, %d dropped, %.1e m from the single-threaded run%n",
+                stopped.getX(), stopped.getY(), stopped.getStepCount(), stopped.getDroppedSteps(), difference);
+
+        // The drawn state trails by less than one step; slopes may speed the ball up, hence the margin
+        boolean smooth = maxLag < 2 * Math.hypot(HIT_VX, HIT_VY) / RATE;
+        System.out.printf("Interpolated state trails the simulated one by at most %.1e m%n", maxLag);
+
+        // A move must be visible in the first snapshot that reports it, and not undone afterwards
+        long move = physicsThread.setBallState(1, 1, 0, 0);
+        BallSnapshot moved = awaitSequence(physicsThread, move);
+        boolean movedBall = moved.getX() == 1 && moved.getY() == 1;
+        System.out.println("Moved ball seen in snapshot " + moved.getSequence() + ": " + movedBall);
+        physicsThread.stop();
+
+        if (!ordered || !movedBall || !smooth || (stopped.getDroppedSteps() == 0 && difference != 0)) {
+            System.err.println("Physics thread handed over an inconsistent ball.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Waits until the physics thread has applied a command.
+     *
+     * @param sequence the sequence number of the command
+     * @return the first snapshot seen that reflects the command
+     */
+    private static BallSnapshot awaitSequence(PhysicsThread physicsThread, long sequence) throws InterruptedException {
+        BallSnapshot snapshot = physicsThread.getSnapshot();
+        while (snapshot.getSequence() < sequence) {
+            Thread.sleep(1);
+            snapshot = physicsThread.getSnapshot();
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.golfgame.benchmarks;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.ODE.*;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Compares the split-step solvers with {@link RungeKutta} on the landing-point error they buy per
+ * microsecond: every solver plays a set of long, slow shots at several step sizes, and the landing
+ * points are measured against a fine-step reference. Prints the error, the time per shot and the
+ * cheapest configuration within 1 cm. Also rolls a slow ball on flat ground with a coarse step to check
+ * that friction never turns the ball around. Exits with status 1 if a split-step solver reverses the
+ * ball or cannot reach the tolerance at any step size.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=SolverEfficiency
+ * }</pre>
+ */
+public class SolverEfficiency {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)";
+    private static final double G = 9.81;
+    private static final double MU_K = 0.08;
+    private static final double MU_S = 0.2;
+    private static final double REFERENCE_STEP = 0.0001;
+    private static final double[] STEP_SIZES = {0.02, 0.01, 0.005, 0.002, 0.001};
+    private static final double TOLERANCE = 0.01;
+    private static final int ROUNDS = 5;
+    private static final int MAX_STEPS = 10000000; // Guards against shots that never come to rest
+    // Shots as {x, y, vx, vy}: long, low-energy rolls across the slopes
+    private static final double[][] SHOTS = {
+            {-3, 0, 4, 1}, {3, 3, -2, -3}, {0, -4, 1, 5}, {-1, 3, 2.5, -2.5}, {4, -1, -4.5, 0.5}, {-4, -4, 2, 2}
+    };
+
+    public static void main(String[] args) {
+        Function surface = new Function(SURFACE, "x", "y");
+        double[][] reference = new double[SHOTS.length][];
+        for (int i = 0; i < SHOTS.length; i++) {
+            reference[i] = land(new PhysicsEngine(new RungeKutta(), surface, MU_K, MU_S), SHOTS[i], REFERENCE_STEP);
+        }
+
+        ODE[] solvers = {new RungeKutta(), new SemiImplicitEuler(), new VelocityVerlet()};
+        boolean reachable = true;
+        String cheapest = null;
+        double cheapestMicros = Double.POSITIVE_INFINITY;
+        for (ODE solver : solvers) {
+            String name = solver.getClass().getSimpleName();
+            boolean withinTolerance = false;
+            for (double stepSize : STEP_SIZES) {
+                PhysicsEngine engine = new PhysicsEngine(solver, surface, MU_K, MU_S);
+                double[][] landings = new double[SHOTS.length][];
+                long elapsed = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) { // The fastest round counts, the first ones warm up
+                    long start = System.nanoTime();
+                    for (int i = 0; i < SHOTS.length; i++) {
+                        landings[i] = land(engine, SHOTS[i], stepSize);
+                    }
+                    elapsed = Math.min(elapsed, System.nanoTime() - start);
+                }
+                double error = maxError(reference, landings);
+                double micros = elapsed / 1e3 / SHOTS.length;
+                System.out.printf("%-17s step %.3f: max landing error %.2e m, %8.1f us per shot, %.2e m/us%n",
+                        name, stepSize, error, micros, error / micros);
+                if (error <= TOLERANCE) {
+                    withinTolerance = true;
+                    if (micros < cheapestMicros) {
+                        cheapestMicros = micros;
+                        cheapest = String.format("%s at step %.3f", name, stepSize);
+                    }
+                }
+            }
+            reachable &= withinTolerance;
+        }
+        System.out.printf("Cheapest within %.0f cm: %s, %.1f us per shot%n", TOLERANCE * 100, cheapest, cheapestMicros);
+
+        boolean monotone = neverReverses(new SemiImplicitEuler()) & neverReverses(new VelocityVerlet());
+        if (!reachable || !monotone) {
+            System.err.println("A split-step solver reverses the ball or misses the tolerance at every step size.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Rolls a slow ball on flat ground with a step far too coarse for explicit friction, calling the
+     * solver directly so that the engine's stopping rules cannot help.
+     *
+     * @return true if the velocity keeps its direction until the ball is at rest
+     */
+    private static boolean neverReverses(ODE solver) {
+        BallDynamics dynamics = new BallDynamics(G, MU_K, (x, y) -> new double[3]);
+        double[] state = {0, 0, 0.03, -0.01};
+        double stepSize = 0.1;
+        for (int i = 0; i < 1000; i++) {
+            double vx = state[BallDynamics.VX];
+            double vy = state[BallDynamics.VY];
+            solver.integrate(dynamics, state, 0, stepSize, stepSize);
+            if (vx * state[BallDynamics.VX] + vy * state[BallDynamics.VY] < 0) {
+                System.out.printf("%s turned the ball around after %d steps%n", solver.getClass().getSimpleName(), i + 1);
+                return false;
+            }
+        }
+        System.out.printf("%s slows the ball to %.1e m/s without turning it around%n",
+                solver.getClass().getSimpleName(), Math.hypot(state[BallDynamics.VX], state[BallDynamics.VY]));
+        return true;
+    }
+
+    /**
+     * Steps a shot until the ball is at rest and returns where it stopped.
+     */
+    private static double[] land(PhysicsEngine engine, double[] shot, double stepSize) {
+        double[] state = shot.clone();
+        for (int i = 0; i < MAX_STEPS && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); i++) {
+            engine.update(state, stepSize);
+        }
+        return state;
+    }
+
+    private static double maxError(double[][] reference, double[][] landings) {
+        double max = 0;
+        for (int i = 0; i < reference.length; i++) {
+            max = Math.max(max, Math.hypot(landings[i][BallDynamics.X] - reference[i][BallDynamics.X],
+                    landings[i][BallDynamics.Y] - reference[i][BallDynamics.Y]));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.golfgame.benchmarks;
+
+import java.util.List;
+
+import com.example.golfgame.physics.SolverCalibration;
+import com.example.golfgame.physics.ODE.SolverRegistry;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Runs the solver calibration on a test course: every registered solver plays the same shots at every
+ * default step size, and the Pareto front of error against time per shot is printed together with the
+ * configuration chosen for a 1 cm target. Loads the front a second time to show that it comes from the
+ * cache. Exits with status 1 if a configuration on the front is dominated by another, or the chosen one
+ * misses the target.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=SolverSelection
+ * }</pre>
+ */
+public class SolverSelection {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)";
+    private static final double MU_K = 0.08;
+    private static final double MU_S = 0.2;
+    private static final double TARGET_ERROR = 0.01;
+
+    public static void main(String[] args) {
+        SolverCalibration calibration = new SolverCalibration(new Function(SURFACE, "x", "y"), MU_K, MU_S,
+                SolverCalibration.shotsFrom(-2, 1, 8, 1, 10));
+
+        List<SolverCalibration.Configuration> measured = calibration.measure(SolverRegistry.getNames(), SolverCalibration.DEFAULT_STEP_SIZES);
+        for (SolverCalibration.Configuration configuration : measured) {
+            System.out.println(configuration);
+        }
+        List<SolverCalibration.Configuration> front = SolverCalibration.paretoFront(measured);
+        System.out.println("Pareto front:");
+        for (SolverCalibration.Configuration configuration : front) {
+            System.out.println("  " + configuration);
+        }
+
+        boolean dominated = false;
+        for (SolverCalibration.Configuration onFront : front) {
+            for (SolverCalibration.Configuration other : measured) {
+                if (other.getNanosPerShot() < onFront.getNanosPerShot() && other.getError() < onFront.getError()) {
+                    System.out.println(onFront + " is dominated by " + other);
+                    dominated = true;
+                }
+            }
+        }
+
+        SolverCalibration.Configuration chosen = SolverCalibration.fastestWithin(front, TARGET_ERROR);
+        System.out.printf("Fastest within %.0f cm: %s%n", TARGET_ERROR * 100, chosen);
+
+        long start = System.nanoTime();
+        calibration.loadOrMeasureFront(SolverCalibration.DEFAULT_STEP_SIZES);
+        long first = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<SolverCalibration.Configuration> cached = calibration.loadOrMeasureFront(SolverCalibration.DEFAULT_STEP_SIZES);
+        long second = System.nanoTime() - start;
+        System.out.printf("Front loaded in %.1f ms, then in %.1f ms from the cache (%d configurations)%n",
+                first / 1e6, second / 1e6, cached.size());
+
+        if (dominated || chosen == null || chosen.getError() > TARGET_ERROR) {
+            System.err.println("The front holds a dominated configuration or the chosen one misses the target.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.golfgame.benchmarks;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.ODE.*;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Measures how far the landing point of a set of shots drifts from a fine-step reference as the
+ * step size grows, for every solver. The engine samples the slope at every Runge-Kutta stage; as a
+ * baseline the same shots are also run with the slope frozen at the start of each step, which is
+ * how the engine integrated before and why it needed a step of 0.001.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=StepSizeAccuracy
+ * }</pre>
+ */
+public class StepSizeAccuracy {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)";
+    private static final double G = 9.81;
+    private static final double MU_K = 0.08;
+    private static final double MU_S = 0.2;
+    private static final double REFERENCE_STEP = 0.0001;
+    private static final double BASELINE_STEP = 0.001;
+    private static final double[] STEP_SIZES = {0.001, 0.002, 0.005, 0.01, 0.02};
+    private static final int MAX_STEPS = 10000000; // Guards against shots that never come to rest
+    // Shots as {x, y, vx, vy}
+    private static final double[][] SHOTS = {
+            {-3, 0, 4, 1}, {2, 2, -3, -1}, {0, -4, 1, 5}, {-1, 3, 2.5, -2.5}, {4, -1, -4.5, 0.5}
+    };
+
+    public static void main(String[] args) {
+        Function surface = new Function(SURFACE, "x", "y");
+        double[][] reference = new double[SHOTS.length][];
+        for (int i = 0; i < SHOTS.length; i++) {
+            reference[i] = land(new PhysicsEngine(new RungeKutta(), surface, MU_K, MU_S), SHOTS[i], REFERENCE_STEP);
+        }
+
+        ODE[] solvers = {new Euler(), new Midpoint(), new Ralston(), new RungeKutta()};
+        for (ODE solver : solvers) {
+            double baseline = maxError(reference, frozenSlopeLandings(solver, surface, BASELINE_STEP));
+            System.out.printf("%s, frozen slope at step %.3f: max landing error %.2e m%n",
+                    solver.getClass().getSimpleName(), BASELINE_STEP, baseline);
+            for (double stepSize : STEP_SIZES) {
+                PhysicsEngine engine = new PhysicsEngine(solver, surface, MU_K, MU_S);
+                double[][] landings = new double[SHOTS.length][];
+                long start = System.nanoTime();
+                for (int i = 0; i < SHOTS.length; i++) {
+                    landings[i] = land(engine, SHOTS[i], stepSize);
+                }
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("    stage-sampled slope at step %.3f: max landing error %.2e m, %.1f ms for %d shots%n",
+                        stepSize, maxError(reference, landings), elapsed / 1e6, SHOTS.length);
+            }
+        }
+    }
+
+    /**
+     * Steps a shot until the ball is at rest and returns where it stopped.
+     */
+    private static double[] land(PhysicsEngine engine, double[] shot, double stepSize) {
+        double[] state = shot.clone();
+        for (int i = 0; i < MAX_STEPS && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); i++) {
+            engine.update(state, stepSize);
+        }
+        return state;
+    }
+
+    /**
+     * Lands every shot with the slope held at its value at the start of each step.
+     */
+    private static double[][] frozenSlopeLandings(ODE solver, Function surface, double stepSize) {
+        final double[] frozen = new double[3];
+        BallDynamics dynamics = new BallDynamics(G, MU_K, (x, y) -> frozen);
+        double[][] landings = new double[SHOTS.length][];
+        for (int i = 0; i < SHOTS.length; i++) {
+            double[] state = SHOTS[i].clone();
+            for (int j = 0; j < MAX_STEPS && !isAtRest(state); j++) {
+                surface.evaluateWithGradient(state[BallDynamics.X], state[BallDynamics.Y], frozen);
+                solver.integrate(dynamics, state, 0, stepSize, stepSize);
+            }
+            landings[i] = state;
+        }
+        return landings;
+    }
+
+    private static boolean isAtRest(double[] state) {
+        return Math.abs(state[BallDynamics.VX]) < 0.001 && Math.abs(state[BallDynamics.VY]) < 0.001;
+    }
+
+    private static double maxError(double[][] reference, double[][] landings) {
+        double max = 0;
+        for (int i = 0; i < reference.length; i++) {
+            max = Math.max(max, Math.hypot(landings[i][BallDynamics.X] - reference[i][BallDynamics.X],
+                    landings[i][BallDynamics.Y] - reference[i][BallDynamics.Y]));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.golfgame.benchmarks;
+
+import java.util.Random;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.StoppingPredictor;
+import com.example.golfgame.physics.ODE.EventFunction;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Checks the closed-form stopping point of a {@link StoppingPredictor} against fine integration on
+ * planes, then rolls random putts on a course with and without a predictor, at several tolerances, and
+ * prints how many steps and how much time the jumps save and how far both land from a run with a tenth
+ * of the step size. Exits with status 1 if a plane prediction misses by more than the ball rolls below
+ * the rest threshold, or if a predicted landing point is worse than the integrated one by more than ten
+ * times the tolerance.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=StoppingPrediction
+ * }</pre>
+ */
+public class StoppingPrediction {
+    private static final String[] PLANES = {"1", "0.05*x+0.03*y+1", "-0.08*x+0.02*y+2"};
+    private static final String COURSE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)-0.1";
+    private static final double[] TOLERANCES = {1e-4, 1e-3, 1e-2};
+    private static final double STEP_SIZE = 0.005;
+    private static final double FINE_STEP_SIZE = 0.00005;
+    private static final double REFERENCE_STEP_SIZE = 0.0005;
+    private static final double PLANE_TOLERANCE = 1e-5; // Integration stops below 1 mm/s, a few micrometres short of the true stop
+    private static final int SHOTS = 200;
+    private static final int MAX_STEPS = 1000000;
+
+    public static void main(String[] args) {
+        boolean accurate = checkPlanes();
+        accurate &= compareOnCourse();
+        if (!accurate) {
+            System.err.println("Predicted stopping points are off.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Predicts random rolls on planes from their first state and compares with fine integration.
+     *
+     * @return true if every prediction lands within the plane tolerance
+     */
+    private static boolean checkPlanes() {
+        Random random = new Random(11);
+        double worst = 0;
+        for (String plane : PLANES) {
+            Function surface = new Function(plane, "x", "y");
+            PhysicsEngine predicted = new PhysicsEngine(new RungeKutta(), surface);
+            PhysicsEngine integrated = new PhysicsEngine(new RungeKutta(), surface);
+            double planeWorst = 0;
+            for (int i = 0; i < 20; i++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double speed = 0.5 + random.nextDouble() * 2;
+                double[] shot = {random.nextDouble(), random.nextDouble(), speed * Math.cos(angle), speed * Math.sin(angle)};
+                predicted.setStoppingPredictor(new StoppingPredictor(1e-6));
+                double[] jumped = roll(predicted, shot, STEP_SIZE);
+                double[] reference = roll(integrated, shot, FINE_STEP_SIZE);
+                planeWorst = Math.max(planeWorst, Math.hypot(jumped[BallDynamics.X] - reference[BallDynamics.X], jumped[BallDynamics.Y] - reference[BallDynamics.Y]));
+            }
+            System.out.printf("Plane %-18s predicted stops within %.1e m of integration%n", plane, planeWorst);
+            worst = Math.max(worst, planeWorst);
+        }
+        return worst <= PLANE_TOLERANCE;
+    }
+
+    /**
+     * Rolls random putts on the course with and without a predictor, with water as an event.
+     *
+     * @return true if no predicted landing point is worse than the integrated one by more than ten times the tolerance
+     */
+    private static boolean compareOnCourse() {
+        Function surface = new Function(COURSE, "x", "y");
+        EventFunction water = state -> surface.evaluate(state[BallDynamics.X], state[BallDynamics.Y]);
+        Random random = new Random(2024);
+        double[][] shots = new double[SHOTS][];
+        for (int i = 0; i < SHOTS; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed = 1 + random.nextDouble() * 4;
+            shots[i] = new double[]{-3 + random.nextDouble(), random.nextDouble(), speed * Math.cos(angle), speed * Math.sin(angle)};
+        }
+
+        PhysicsEngine fine = new PhysicsEngine(new RungeKutta(), surface);
+        fine.addEvent(water);
+        double[][] reference = new double[SHOTS][];
+        for (int i = 0; i < SHOTS; i++) {
+            reference[i] = roll(fine, shots[i], REFERENCE_STEP_SIZE);
+        }
+
+        PhysicsEngine plain = new PhysicsEngine(new RungeKutta(), surface);
+        plain.addEvent(water);
+        double[] integratedError = new double[SHOTS];
+        double worstIntegrated = 0;
+        long plainNanos = 0;
+        for (int round = 0; round < 2; round++) { // The first round warms up
+            long start = System.nanoTime();
+            for (int i = 0; i < SHOTS; i++) {
+                double[] landed = roll(plain, shots[i], STEP_SIZE);
+                integratedError[i] = Math.hypot(landed[BallDynamics.X] - reference[i][BallDynamics.X], landed[BallDynamics.Y] - reference[i][BallDynamics.Y]);
+                worstIntegrated = Math.max(worstIntegrated, integratedError[i]);
+            }
+            plainNanos = System.nanoTime() - start;
+        }
+        System.out.printf("Course, %d putts: integrated %d steps in %.1f ms, landing %.1e m at most from the reference%n",
+                SHOTS, plain.getStepCount() / 2, plainNanos / 1e6, worstIntegrated);
+
+        boolean accurate = true;
+        for (double tolerance : TOLERANCES) {
+            PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+            engine.addEvent(water);
+            StoppingPredictor predictor = new StoppingPredictor(tolerance);
+            engine.setStoppingPredictor(predictor);
+            double worst = 0;
+            double worstExcess = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < SHOTS; i++) {
+                double[] landed = roll(engine, shots[i], STEP_SIZE);
+                double error = Math.hypot(landed[BallDynamics.X] - reference[i][BallDynamics.X], landed[BallDynamics.Y] - reference[i][BallDynamics.Y]);
+                worst = Math.max(worst, error);
+                worstExcess = Math.max(worstExcess, error - integratedError[i]);
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("  tolerance %.0e m: %d steps in %.1f ms (%.2fx), %d jumps over %.1f s of rolling, landing %.1e m at most from the reference and at most %.1e m worse than integrated%n",
+                    tolerance, engine.getStepCount(), nanos / 1e6, (double) plainNanos / nanos, predictor.getJumpCount(),
+                    predictor.getSkippedTime(), worst, worstExcess);
+            accurate &= worstExcess <= 10 * tolerance;
+        }
+        return accurate;
+    }
+
+    /**
+     * Rolls a ball until it stops or an event ends the roll.
+     *
+     * @return the final state
+     */
+    private static double[] roll(PhysicsEngine engine, double[] shot, double stepSize) {
+        double[] state = shot.clone();
+        for (int step = 0; step < MAX_STEPS; step++) {
+            engine.update(state, stepSize);
+            if (engine.getTriggeredEvent() != null || engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY])) {
+                break;
+            }
+        }
+        return state;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.golfgame.benchmarks;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.SurfaceLattice;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Compares a surface lattice with the surface function it was sampled from, for a range of
+ * spacings: the largest height and slope errors, the cost of a query, and how far the landing
+ * points of a set of shots move when the engine integrates on the lattice.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=SurfaceLatticeAccuracy
+ * }</pre>
+ */
+public class SurfaceLatticeAccuracy {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)+0.05*e^(-((x-3)^2+(y+2)^2)/2)*cos(2*x+y)";
+    private static final double MU_K = 0.08;
+    private static final double MU_S = 0.2;
+    private static final double STEP_SIZE = 0.005;
+    private static final double EXTENT = 8; // The lattice covers [-EXTENT, EXTENT] on both axes
+    private static final double[] SPACINGS = {0.4, 0.2, 0.1, 0.05};
+    private static final int QUERIES = 2000000;
+    private static final int MAX_STEPS = 10000000; // Guards against shots that never come to rest
+    // Shots as {x, y, vx, vy}
+    private static final double[][] SHOTS = {
+            {-3, 0, 4, 1}, {2, 2, -3, -1}, {0, -4, 1, 5}, {-1, 3, 2.5, -2.5}, {4, -1, -4.5, 0.5}
+    };
+
+    public static void main(String[] args) {
+        Function surface = new Function(SURFACE, "x", "y");
+        double[][] reference = new double[SHOTS.length][];
+        for (int i = 0; i < SHOTS.length; i++) {
+            reference[i] = land(new PhysicsEngine(new RungeKutta(), surface, MU_K, MU_S), SHOTS[i]);
+        }
+        double[] out = new double[3];
+        System.out.printf("Surface function: %.1f ns per query%n", timeQueries((x, y) -> surface.evaluateWithGradient(x, y, out)));
+
+        for (double spacing : SPACINGS) {
+            SurfaceLattice lattice = new SurfaceLattice(surface, -EXTENT, -EXTENT, EXTENT, EXTENT, spacing);
+            double nanos = timeQueries((x, y) -> lattice.sample(x, y, out));
+            PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface, MU_K, MU_S);
+            engine.setSurfaceLattice(lattice);
+            double landingError = 0;
+            for (int i = 0; i < SHOTS.length; i++) {
+                double[] landing = land(engine, SHOTS[i]);
+                landingError = Math.max(landingError, Math.hypot(landing[BallDynamics.X] - reference[i][BallDynamics.X],
+                        landing[BallDynamics.Y] - reference[i][BallDynamics.Y]));
+            }
+            System.out.printf("Lattice spacing %.2f: max height error %.2e, max slope error %.2e, %.1f ns per query, max landing error %.2e m%n",
+                    spacing, lattice.getMaxHeightError(), lattice.getMaxSlopeError(), nanos, landingError);
+        }
+    }
+
+    private interface Query {
+        void run(double x, double y);
+    }
+
+    /**
+     * Times queries at pseudo-random points inside the lattice, after a warm-up run.
+     *
+     * @return the average time of a query in nanoseconds
+     */
+    private static double timeQueries(Query query) {
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            double x = 0.5;
+            double y = 0.25;
+            for (int i = 0; i < QUERIES; i++) {
+                query.run((x - 0.5) * 2 * EXTENT, (y - 0.5) * 2 * EXTENT);
+                x = (x + 0.618034) % 1;
+                y = (y + 0.414214) % 1;
+            }
+        }
+        return (System.nanoTime() - start) / (double) QUERIES;
+    }
+
+    /**
+     * Steps a shot until the ball is at rest and returns where it stopped.
+     */
+    private static double[] land(PhysicsEngine engine, double[] shot) {
+        double[] state = shot.clone();
+        for (int i = 0; i < MAX_STEPS && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); i++) {
+            engine.update(state, STEP_SIZE);
+        }
+        return state;
+    }
+}
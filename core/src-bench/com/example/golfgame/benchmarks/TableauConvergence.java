@@ -0,0 +1,62 @@
+package com.example.golfgame.benchmarks;
+
+import com.example.golfgame.physics.ODE.ButcherTableau;
+import com.example.golfgame.physics.ODE.Derivatives;
+import com.example.golfgame.physics.ODE.ExplicitRungeKutta;
+
+/**
+ * Integrates a harmonic oscillator, whose exact solution is known, with every built-in
+ * {@link ButcherTableau} at a sequence of halving step sizes, and prints the error, the observed order
+ * of convergence and the time per step of each method. Exits with status 1 if a method converges more
+ * than half an order slower than its tableau claims.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=TableauConvergence
+ * }</pre>
+ */
+public class TableauConvergence {
+    private static final ButcherTableau[] TABLEAUS = {
+            ButcherTableau.EULER, ButcherTableau.MIDPOINT, ButcherTableau.HEUN, ButcherTableau.RALSTON,
+            ButcherTableau.BOGACKI_SHAMPINE, ButcherTableau.RK4, ButcherTableau.RK45};
+    private static final double END = 2;
+    private static final double[] STEP_SIZES = {0.1, 0.05, 0.025};
+    private static final double ORDER_SLACK = 0.5;
+    private static final int TIMED_STEPS = 2000000;
+
+    public static void main(String[] args) {
+        // x' = v, v' = -x with x(0) = 1, v(0) = 0, so x(t) = cos(t)
+        Derivatives oscillator = (t, state, out) -> {
+            out[0] = state[1];
+            out[1] = -state[0];
+        };
+
+        boolean converges = true;
+        for (ButcherTableau tableau : TABLEAUS) {
+            ExplicitRungeKutta solver = new ExplicitRungeKutta(tableau);
+            double[] errors = new double[STEP_SIZES.length];
+            for (int i = 0; i < STEP_SIZES.length; i++) {
+                double[] state = {1, 0};
+                solver.integrate(oscillator, state, 0, STEP_SIZES[i], END + STEP_SIZES[i] / 2);
+                errors[i] = Math.hypot(state[0] - Math.cos(END), state[1] + Math.sin(END));
+            }
+            double order = Math.log(errors[errors.length - 2] / errors[errors.length - 1]) / Math.log(2);
+
+            double[] state = {1, 0};
+            solver.integrate(oscillator, state, 0, 1e-6, TIMED_STEPS * 1e-6); // Warms up
+            long start = System.nanoTime();
+            solver.integrate(oscillator, state, 0, 1e-6, TIMED_STEPS * 1e-6);
+            double nanosPerStep = (double) (System.nanoTime() - start) / TIMED_STEPS;
+
+            System.out.printf("%-16s %d stages, error %.2e at h=%.3f, observed order %.2f (claimed %d), %.1f ns per step%n",
+                    tableau.getName(), tableau.getStages(), errors[errors.length - 1], STEP_SIZES[STEP_SIZES.length - 1],
+                    order, tableau.getOrder(), nanosPerStep);
+            converges &= order >= tableau.getOrder() - ORDER_SLACK;
+        }
+
+        if (!converges) {
+            System.err.println("A tableau does not reach its order of accuracy.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.golfgame.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.math.Vector2;
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.TrajectoryRecorder;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Records a long shot at 1 ms steps into a list of {@link Vector2}, as the path preview used to, and
+ * into a {@link TrajectoryRecorder} without thinning, with arc-length thinning, with Douglas-Peucker and
+ * through a sink, and prints the points kept, the bytes allocated and the time of each. Exits with
+ * status 1 if a thinned path strays from the raw one by more than its tolerance, if the sink sees
+ * different points from the buffer, or if recording into a warmed-up recorder allocates.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=TrajectoryRecording
+ * }</pre>
+ */
+public class TrajectoryRecording {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)+0.5";
+    private static final double[] SHOT = {-6, -2, 8, 3};
+    private static final double STEP_SIZE = 0.001;
+    private static final double TOLERANCE = 0.01;
+    private static final int MAX_STEPS = 1000000;
+    private static final int ROUNDS = 20;
+    private static final double[] state = new double[BallDynamics.STATE_SIZE]; // Reused so that recording allocates nothing of its own
+
+    public static void main(String[] args) {
+        Function surface = new Function(SURFACE, "x", "y");
+        PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+        TrajectoryRecorder raw = new TrajectoryRecorder();
+        record(engine, raw);
+        float[] rawPoints = raw.getPoints().clone();
+        int rawCount = raw.size();
+
+        // Spaced as PhysicsSimulator.createPathRecorder spaces them, which must still stay within the tolerance
+        TrajectoryRecorder arcLength = new TrajectoryRecorder();
+        arcLength.setDecimation(TrajectoryRecorder.Decimation.ARC_LENGTH, 2 * TOLERANCE);
+        TrajectoryRecorder douglasPeucker = new TrajectoryRecorder();
+        douglasPeucker.setDecimation(TrajectoryRecorder.Decimation.DOUGLAS_PEUCKER, TOLERANCE);
+        List<float[]> streamed = new ArrayList<>();
+        TrajectoryRecorder sink = new TrajectoryRecorder((x, y) -> streamed.add(new float[]{x, y}));
+        sink.setDecimation(TrajectoryRecorder.Decimation.ARC_LENGTH, 2 * TOLERANCE);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long[] listCost = measure(threads, () -> recordList(engine).size());
+        long[] rawCost = measure(threads, () -> record(engine, raw));
+        long[] arcCost = measure(threads, () -> record(engine, arcLength));
+        long[] douglasCost = measure(threads, () -> record(engine, douglasPeucker));
+        System.out.printf("List of Vector2:  %6d points, %9d bytes, %.2f ms per shot%n", rawCount, listCost[0], listCost[1] / 1e6);
+        System.out.printf("Recorder:         %6d points, %9d bytes, %.2f ms per shot%n", raw.size(), rawCost[0], rawCost[1] / 1e6);
+        System.out.printf("Arc length:       %6d points, %9d bytes, %.2f ms per shot%n", arcLength.size(), arcCost[0], arcCost[1] / 1e6);
+        System.out.printf("Douglas-Peucker:  %6d points, %9d bytes, %.2f ms per shot%n", douglasPeucker.size(), douglasCost[0], douglasCost[1] / 1e6);
+
+        double arcError = deviation(rawPoints, rawCount, arcLength);
+        double douglasError = deviation(rawPoints, rawCount, douglasPeucker);
+        record(engine, sink);
+        boolean sameStream = streamed.size() == arcLength.size();
+        for (int i = 0; sameStream && i < streamed.size(); i++) {
+            sameStream = streamed.get(i)[0] == arcLength.getX(i) && streamed.get(i)[1] == arcLength.getY(i);
+        }
+        System.out.printf("Largest distance from the raw path: arc length %.1e m, Douglas-Peucker %.1e m; sink matches buffer: %b%n",
+                arcError, douglasError, sameStream);
+
+        if (arcError > TOLERANCE || douglasError > TOLERANCE || !sameStream || rawCost[0] != 0 || douglasCost[0] != 0) {
+            System.err.println("Trajectory recording is inaccurate or allocates.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the shot and records every step.
+     */
+    private static void record(PhysicsEngine engine, TrajectoryRecorder recorder) {
+        System.arraycopy(SHOT, 0, state, 0, SHOT.length);
+        recorder.clear();
+        recorder.record(state[BallDynamics.X], state[BallDynamics.Y]);
+        for (int step = 0; step < MAX_STEPS && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); step++) {
+            engine.update(state, STEP_SIZE);
+            recorder.record(state[BallDynamics.X], state[BallDynamics.Y]);
+        }
+        recorder.finish();
+    }
+
+    /**
+     * Plays the shot and collects every step as a new point, as the path preview used to.
+     */
+    private static List<Vector2> recordList(PhysicsEngine engine) {
+        System.arraycopy(SHOT, 0, state, 0, SHOT.length);
+        List<Vector2> path = new ArrayList<>();
+        path.add(new Vector2((float) state[BallDynamics.X], (float) state[BallDynamics.Y]));
+        for (int step = 0; step < MAX_STEPS && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); step++) {
+            engine.update(state, STEP_SIZE);
+            path.add(new Vector2((float) state[BallDynamics.X], (float) state[BallDynamics.Y]));
+        }
+        return path;
+    }
+
+    /**
+     * Returns the largest distance from a raw point to the thinned line.
+     */
+    private static double deviation(float[] rawPoints, int rawCount, TrajectoryRecorder thinned) {
+        double worst = 0;
+        for (int i = 0; i < rawCount; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 0; k + 1 < thinned.size(); k++) {
+                best = Math.min(best, segmentDistance(rawPoints[2 * i], rawPoints[2 * i + 1],
+                        thinned.getX(k), thinned.getY(k), thinned.getX(k + 1), thinned.getY(k + 1)));
+            }
+            worst = Math.max(worst, best);
+        }
+        return worst;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.min(1, Math.max(0, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+
+    /**
+     * Runs a recording after warming it up.
+     *
+     * @return the bytes allocated by the last round and its time in nanoseconds
+     */
+    private static long[] measure(com.sun.management.ThreadMXBean threads, Runnable run) {
+        for (int i = 0; i < ROUNDS; i++) {
+            run.run();
+        }
+        long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        run.run();
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes;
+        return new long[]{bytes, nanos};
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.golfgame.benchmarks;
+
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.BatchIntegrator;
+import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.WindField;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Plays the same shot in a wind at several frame rates, once with the wind added to the velocity every
+ * frame as the game used to do, and once with a {@link WindField} inside the equations of motion at
+ * several step sizes, and prints how far apart the landing points are. Then rolls putts through a gusty
+ * wind on a {@link PhysicsEngine} and a {@link BatchIntegrator} and checks that they land together, and
+ * times a gust lookup. Exits with status 1 if the wind field's landing points depend on the step size by
+ * more than a millimetre, or if the engine and the batch disagree.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:bench -Pcheck=WindStepIndependence
+ * }</pre>
+ */
+public class WindStepIndependence {
+    private static final String COURSE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)+0.5";
+    private static final double[] SHOT = {-3, 0, 4, 1};
+    private static final double WIND_PER_FRAME = 0.001; // Largest wind setting of the game, a velocity added every frame
+    private static final double TUNED_FRAME_RATE = 60;
+    private static final double[] FRAME_RATES = {30, 60, 144};
+    private static final double[] STEP_SIZES = {0.01, 0.005, 0.001};
+    private static final double TOLERANCE = 1e-3;
+    private static final int SHOTS = 64;
+    private static final int LOOKUPS = 1000000;
+    private static final int MAX_STEPS = 1000000;
+
+    public static void main(String[] args) {
+        Function surface = new Function(COURSE, "x", "y");
+        boolean consistent = compareWithFrameWind(surface);
+        consistent &= compareIntegrators(surface);
+        if (!consistent) {
+            System.err.println("Wind makes the landing point depend on how the shot is stepped.");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Plays the shot with a per-frame push and with the wind field.
+     *
+     * @return true if the wind field lands within the tolerance at every step size
+     */
+    private static boolean compareWithFrameWind(Function surface) {
+        double windX = WIND_PER_FRAME * 0.6;
+        double windY = -WIND_PER_FRAME * 0.8;
+        double[] first = null;
+        double frameSpread = 0;
+        for (double frameRate : FRAME_RATES) {
+            PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+            double[] state = SHOT.clone();
+            double frameTime = 1 / frameRate;
+            for (int frame = 0; frame < MAX_STEPS && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); frame++) {
+                engine.update(state, frameTime);
+                if (Math.abs(state[BallDynamics.VX]) > 0.01 || Math.abs(state[BallDynamics.VY]) > 0.01) {
+                    state[BallDynamics.VX] += windX;
+                    state[BallDynamics.VY] += windY;
+                }
+            }
+            first = first == null ? state : first;
+            double distance = Math.hypot(state[BallDynamics.X] - first[BallDynamics.X], state[BallDynamics.Y] - first[BallDynamics.Y]);
+            frameSpread = Math.max(frameSpread, distance);
+            System.out.printf("Wind per frame at %3.0f fps: stops at (%.4f, %.4f)%n", frameRate, state[BallDynamics.X], state[BallDynamics.Y]);
+        }
+
+        WindField wind = new WindField(windX * TUNED_FRAME_RATE, windY * TUNED_FRAME_RATE);
+        first = null;
+        double fieldSpread = 0;
+        for (double stepSize : STEP_SIZES) {
+            PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+            engine.setWindField(wind);
+            double[] state = roll(engine, SHOT, stepSize);
+            first = first == null ? state : first;
+            double distance = Math.hypot(state[BallDynamics.X] - first[BallDynamics.X], state[BallDynamics.Y] - first[BallDynamics.Y]);
+            fieldSpread = Math.max(fieldSpread, distance);
+            System.out.printf("Wind field at step %.3f s:  stops at (%.4f, %.4f)%n", stepSize, state[BallDynamics.X], state[BallDynamics.Y]);
+        }
+        System.out.printf("Landing points spread %.1e m with a per-frame push and %.1e m with the wind field%n", frameSpread, fieldSpread);
+        return fieldSpread <= TOLERANCE;
+    }
+
+    /**
+     * Rolls putts through gusts on an engine and a batch, and times a lookup.
+     *
+     * @return true if the engine and the batch stop every ball at the same place
+     */
+    private static boolean compareIntegrators(Function surface) {
+        WindField gusts = new WindField(0.04, -0.02, 0.05, 1.5, -10, -10, 10, 10, 2024);
+        PhysicsEngine engine = new PhysicsEngine(new RungeKutta(), surface);
+        engine.setWindField(gusts);
+        BatchIntegrator batch = new BatchIntegrator(surface, engine.getKineticFriction(), engine.getStaticFriction(), SHOTS);
+        batch.setWindField(gusts);
+
+        double[][] shots = new double[SHOTS][];
+        for (int i = 0; i < SHOTS; i++) {
+            double angle = 2 * Math.PI * i / SHOTS;
+            shots[i] = new double[]{-3 + 0.05 * i, 0, 3 * Math.cos(angle), 3 * Math.sin(angle)};
+            batch.setBall(i, shots[i][0], shots[i][1], shots[i][2], shots[i][3]);
+        }
+        batch.run(STEP_SIZES[1], MAX_STEPS);
+        double worst = 0;
+        for (int i = 0; i < SHOTS; i++) {
+            double[] landed = roll(engine, shots[i], STEP_SIZES[1]);
+            worst = Math.max(worst, Math.hypot(landed[BallDynamics.X] - batch.getX(i), landed[BallDynamics.Y] - batch.getY(i)));
+        }
+
+        long nanos = 0;
+        double checksum = 0;
+        for (int round = 0; round < 3; round++) { // The first rounds warm up
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                double x = -12 + 24.0 * i / LOOKUPS;
+                double y = 12 - 24.0 * i / LOOKUPS;
+                checksum += gusts.getAccelerationX(x, y) + gusts.getAccelerationY(x, y);
+            }
+            nanos = System.nanoTime() - start;
+        }
+        System.out.printf("%d putts through gusts: engine and batch stop at most %.1e m apart; gust lookup %.1f ns (checksum %.3f)%n",
+                SHOTS, worst, (double) nanos / LOOKUPS, checksum);
+        return worst <= 1e-9;
+    }
+
+    /**
+     * Rolls a ball until it stops.
+     *
+     * @return the final state
+     */
+    private static double[] roll(PhysicsEngine engine, double[] shot, double stepSize) {
+        double[] state = shot.clone();
+        for (int step = 0; step < MAX_STEPS; step++) {
+            engine.update(state, stepSize);
+            if (engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY])) {
+                break;
+            }
+        }
+        return state;
+    }
+}
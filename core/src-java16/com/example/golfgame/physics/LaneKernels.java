@@ -0,0 +1,51 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * Chooses the fastest lane kernel the running JVM supports. This is the Java 16 version from the
+ * multi-release jar: surfaces backed by a lattice get the Vector API kernel when the
+ * {@code jdk.incubator.vector} module is present (run with {@code --add-modules jdk.incubator.vector}),
+ * and everything else gets the scalar kernel.
+ */
+public final class LaneKernels {
+
+    private LaneKernels() {
+    }
+
+    /**
+     * Creates a lane kernel for a surface.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param surfaceLattice a precomputed lattice of the surface, or null to evaluate the function
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction
+     * @return the lane kernel
+     */
+    public static LaneKernel create(Function surface, SurfaceLattice surfaceLattice, double g, double mu_k) {
+        return create(surface, surfaceLattice, null, null, g, mu_k);
+    }
+
+    /**
+     * Creates a lane kernel for a surface whose friction depends on the ground, under a wind. The
+     * vector kernel looks up the friction and wind of every ball before its vector sweeps.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param surfaceLattice a precomputed lattice of the surface, or null to evaluate the function
+     * @param materials the friction of the ground, or null to use mu_k everywhere
+     * @param wind the wind, or null for still air
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction where there is no material field
+     * @return the lane kernel
+     */
+    public static LaneKernel create(Function surface, SurfaceLattice surfaceLattice, MaterialField materials, WindField wind, double g, double mu_k) {
+        if (surfaceLattice != null && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorLaneKernel(surfaceLattice, materials, wind, g, mu_k);
+            } catch (LinkageError e) {
+                System.err.println("Vector lane kernel unavailable, using the scalar kernel: " + e);
+            }
+        }
+        return new ScalarLaneKernel(surface, surfaceLattice, materials, wind, g, mu_k);
+    }
+}
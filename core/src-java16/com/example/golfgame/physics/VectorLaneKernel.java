@@ -0,0 +1,324 @@
+package com.example.golfgame.physics;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A lane kernel that interpolates a surface lattice and applies the ball dynamics to several balls
+ * per instruction with the JDK Vector API. The node values of every lane are copied out of the
+ * lattice first, together with the friction of the ground and the push of the wind under it, which
+ * are looked up one ball at a time. The arithmetic follows {@link SurfaceLattice#sample} and
+ * {@link ScalarLaneKernel} operation by operation, so the accelerations agree with the scalar kernel
+ * to the last bit. Balls outside the lattice, and the lanes left over after the last full vector, are
+ * handled one at a time.
+ *
+ * <p>The vector width is the JVM's preferred one, which {@code -XX:MaxVectorSize=32} or {@code =64}
+ * caps at 256 or 512 bits. It has to be a constant for the JIT to compile the vector operations to
+ * instructions, so it cannot be chosen per kernel.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * LaneKernel kernel = new VectorLaneKernel(lattice, materials, wind, 9.81, 0.1);
+ * kernel.accelerate(x, y, vx, vy, ax, ay, count);
+ * }</pre>
+ */
+public class VectorLaneKernel implements LaneKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int VALUES_PER_NODE = 4; // Matches the node layout of SurfaceLattice
+    private static final int CORNER_VALUES = 4 * VALUES_PER_NODE;
+    // Below two full vectors, copying out the node values costs more than the vector sweeps save
+    private static final int MIN_VECTOR_LANES = 2 * SPECIES.length();
+
+    private final ScalarLaneKernel scalar;
+    private final double[] nodes;
+    private final double xMin;
+    private final double yMin;
+    private final double xMax;
+    private final double yMax;
+    private final double spacing;
+    private final int nx;
+    private final int ny;
+    private final int rowOffset; // Distance in the node array from a node to the one above it
+    private final double g;
+    private final double frictionScale; // mu_k * g, as the scalar kernel computes it
+    private final MaterialField materials; // Friction per position, or null to use mu_k everywhere
+    private final WindField wind; // Push of the wind, or null for still air
+    private final double[] sample = new double[3];
+    // Per lane: offset in the node array of the lower-left node of its cell, and its position within the cell
+    private int[] cells = new int[0];
+    private double[] cellX = new double[0];
+    private double[] cellY = new double[0];
+    private boolean[] outside = new boolean[0];
+    // The values of the four nodes around every lane, stored value by value as runs of one entry per lane
+    // so that they load as vectors; h, hx, hy, hxy of the lower-left node, then the lower-right, upper-left
+    // and upper-right nodes
+    private double[] corners = new double[0];
+    private int stride; // Distance between the runs in the corner array
+    // Per lane: the rows of its cell interpolated along x, as in SurfaceLattice#sample, and the slopes
+    private double[] lowerRow = new double[0];
+    private double[] upperRow = new double[0];
+    private double[] lowerRowDy = new double[0];
+    private double[] upperRowDy = new double[0];
+    private double[] lowerRowDx = new double[0];
+    private double[] upperRowDx = new double[0];
+    private double[] lowerRowDxy = new double[0];
+    private double[] upperRowDxy = new double[0];
+    private double[] slopeX = new double[0];
+    private double[] slopeY = new double[0];
+    // Per lane: the kinetic friction of the ground times g, and the acceleration of the wind
+    private double[] frictionScales = new double[0];
+    private double[] windX = new double[0];
+    private double[] windY = new double[0];
+
+    /**
+     * Constructs a vector kernel.
+     *
+     * @param surfaceLattice the lattice to interpolate
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction
+     */
+    public VectorLaneKernel(SurfaceLattice surfaceLattice, double g, double mu_k) {
+        this(surfaceLattice, null, null, g, mu_k);
+    }
+
+    /**
+     * Constructs a vector kernel whose kinetic friction may depend on the ground under each ball, and
+     * whose balls may be pushed by the wind.
+     *
+     * @param surfaceLattice the lattice to interpolate
+     * @param materials the friction of the ground, or null to use mu_k everywhere
+     * @param wind the wind, or null for still air
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction where there is no material field
+     */
+    public VectorLaneKernel(SurfaceLattice surfaceLattice, MaterialField materials, WindField wind, double g, double mu_k) {
+        this.scalar = new ScalarLaneKernel(surfaceLattice.getSurfaceFunction(), surfaceLattice, materials, wind, g, mu_k);
+        this.materials = materials;
+        this.wind = wind;
+        this.nodes = surfaceLattice.nodes();
+        this.xMin = surfaceLattice.xMin();
+        this.yMin = surfaceLattice.yMin();
+        this.xMax = surfaceLattice.xMax();
+        this.yMax = surfaceLattice.yMax();
+        this.spacing = surfaceLattice.getSpacing();
+        this.nx = surfaceLattice.columns();
+        this.ny = surfaceLattice.rows();
+        this.rowOffset = nx * VALUES_PER_NODE;
+        this.g = g;
+        this.frictionScale = mu_k * g;
+    }
+
+    /**
+     * Returns the number of balls processed per instruction.
+     *
+     * @return the vector length in lanes
+     */
+    public static int getLaneCount() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Computes the accelerations in four sweeps over the full vectors, each small enough for the JIT to
+     * compile whole into vector instructions, and then handles the remaining lanes one at a time. A
+     * batch with only a few balls left is handled one ball at a time throughout.
+     */
+    @Override
+    public void accelerate(double[] x, double[] y, double[] vx, double[] vy, double[] ax, double[] ay, int count) {
+        if (count < MIN_VECTOR_LANES) {
+            scalar.accelerate(x, y, vx, vy, ax, ay, count);
+            return;
+        }
+        locateCells(x, y, count);
+        int vectorEnd = SPECIES.loopBound(count);
+        interpolateRow(0, lowerRow, lowerRowDy, lowerRowDx, lowerRowDxy, vectorEnd);
+        interpolateRow(1, upperRow, upperRowDy, upperRowDx, upperRowDxy, vectorEnd);
+        interpolateColumns(vectorEnd);
+        dynamics(vx, vy, ax, ay, vectorEnd);
+        for (int k = 0; k < count; k++) {
+            if (k >= vectorEnd || outside[k]) {
+                scalar.accelerate(x, y, vx, vy, ax, ay, k, sample);
+            }
+        }
+    }
+
+    /**
+     * Finds the lattice cell of every lane, as {@link SurfaceLattice#sample} does, and copies out the
+     * values of its four nodes, and looks up the friction and wind under it. Lanes outside the lattice
+     * are flagged and given the first cell; what the vector sweeps compute for them is overwritten
+     * afterwards.
+     */
+    private void locateCells(double[] x, double[] y, int count) {
+        if (cells.length < count) {
+            cells = new int[count];
+            cellX = new double[count];
+            cellY = new double[count];
+            outside = new boolean[count];
+            lowerRow = new double[count];
+            upperRow = new double[count];
+            lowerRowDy = new double[count];
+            upperRowDy = new double[count];
+            lowerRowDx = new double[count];
+            upperRowDx = new double[count];
+            lowerRowDxy = new double[count];
+            upperRowDxy = new double[count];
+            slopeX = new double[count];
+            slopeY = new double[count];
+            frictionScales = new double[count];
+            windX = new double[count];
+            windY = new double[count];
+            // Padded so that the runs do not start a multiple of 4 KiB apart, where their stores would
+            // alias in the L1 cache
+            stride = count + 8;
+            if (stride % 512 == 0) {
+                stride += 8;
+            }
+            corners = new double[CORNER_VALUES * stride];
+        }
+        for (int k = 0; k < count; k++) {
+            double px = x[k];
+            double py = y[k];
+            outside[k] = !(px >= xMin && px <= xMax && py >= yMin && py <= yMax);
+            if (outside[k]) {
+                cells[k] = 0;
+                cellX[k] = 0;
+                cellY[k] = 0;
+                continue;
+            }
+            double gx = (px - xMin) / spacing;
+            double gy = (py - yMin) / spacing;
+            int i = Math.min((int) gx, nx - 2);
+            int j = Math.min((int) gy, ny - 2);
+            cells[k] = (j * nx + i) * VALUES_PER_NODE;
+            cellX[k] = gx - i;
+            cellY[k] = gy - j;
+        }
+        if (materials != null) {
+            for (int k = 0; k < count; k++) {
+                frictionScales[k] = materials.getKineticFriction(x[k], y[k]) * g;
+            }
+        }
+        if (wind != null) {
+            for (int k = 0; k < count; k++) {
+                windX[k] = wind.getAccelerationX(x[k], y[k]);
+                windY[k] = wind.getAccelerationY(x[k], y[k]);
+            }
+        }
+        // One run at a time, so the stores stream through memory
+        for (int value = 0; value < CORNER_VALUES; value++) {
+            int node = value / VALUES_PER_NODE;
+            int offset = (node / 2) * rowOffset + (node % 2) * VALUES_PER_NODE + value % VALUES_PER_NODE;
+            int run = value * stride;
+            for (int k = 0; k < count; k++) {
+                corners[run + k] = nodes[cells[k] + offset];
+            }
+        }
+    }
+
+    /**
+     * Interpolates along x between the two nodes of one row of every lane's cell: the height and the
+     * y-slope of the row, and both differentiated along x.
+     *
+     * @param row 0 for the lower row of the cell, 1 for the upper row
+     */
+    private void interpolateRow(int row, double[] value, double[] dy, double[] dx, double[] dxy, int vectorEnd) {
+        int left = 2 * row * VALUES_PER_NODE;
+        int right = left + VALUES_PER_NODE;
+        for (int k = 0; k < vectorEnd; k += SPECIES.length()) {
+            DoubleVector u = DoubleVector.fromArray(SPECIES, cellX, k);
+            // Hermite basis along x: value weights a, slope weights b, and their derivatives with respect to x
+            DoubleVector u2 = u.mul(u);
+            DoubleVector u3 = u2.mul(u);
+            DoubleVector a0 = u3.mul(2).sub(u2.mul(3)).add(1);
+            DoubleVector a1 = u2.mul(3).sub(u3.mul(2));
+            DoubleVector b0 = u3.sub(u2.mul(2)).add(u).mul(spacing);
+            DoubleVector b1 = u3.sub(u2).mul(spacing);
+            DoubleVector da0 = u2.mul(6).sub(u.mul(6)).div(spacing);
+            DoubleVector da1 = da0.neg();
+            DoubleVector db0 = u2.mul(3).sub(u.mul(4)).add(1);
+            DoubleVector db1 = u2.mul(3).sub(u.mul(2));
+
+            DoubleVector h0 = corner(left, k);
+            DoubleVector hx0 = corner(left + 1, k);
+            DoubleVector hy0 = corner(left + 2, k);
+            DoubleVector hxy0 = corner(left + 3, k);
+            DoubleVector h1 = corner(right, k);
+            DoubleVector hx1 = corner(right + 1, k);
+            DoubleVector hy1 = corner(right + 2, k);
+            DoubleVector hxy1 = corner(right + 3, k);
+            a0.mul(h0).add(a1.mul(h1)).add(b0.mul(hx0)).add(b1.mul(hx1)).intoArray(value, k);
+            a0.mul(hy0).add(a1.mul(hy1)).add(b0.mul(hxy0)).add(b1.mul(hxy1)).intoArray(dy, k);
+            da0.mul(h0).add(da1.mul(h1)).add(db0.mul(hx0)).add(db1.mul(hx1)).intoArray(dx, k);
+            da0.mul(hy0).add(da1.mul(hy1)).add(db0.mul(hxy0)).add(db1.mul(hxy1)).intoArray(dxy, k);
+        }
+    }
+
+    /**
+     * Interpolates the rows along y into the slopes of every lane.
+     */
+    private void interpolateColumns(int vectorEnd) {
+        for (int k = 0; k < vectorEnd; k += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, cellY, k);
+            // Hermite basis along y and its derivatives with respect to y
+            DoubleVector v2 = v.mul(v);
+            DoubleVector v3 = v2.mul(v);
+            DoubleVector c0 = v3.mul(2).sub(v2.mul(3)).add(1);
+            DoubleVector c1 = v2.mul(3).sub(v3.mul(2));
+            DoubleVector d0 = v3.sub(v2.mul(2)).add(v).mul(spacing);
+            DoubleVector d1 = v3.sub(v2).mul(spacing);
+            DoubleVector dc0 = v2.mul(6).sub(v.mul(6)).div(spacing);
+            DoubleVector dc1 = dc0.neg();
+            DoubleVector dd0 = v2.mul(3).sub(v.mul(4)).add(1);
+            DoubleVector dd1 = v2.mul(3).sub(v.mul(2));
+
+            DoubleVector lower = DoubleVector.fromArray(SPECIES, lowerRow, k);
+            DoubleVector upper = DoubleVector.fromArray(SPECIES, upperRow, k);
+            DoubleVector lowerDy = DoubleVector.fromArray(SPECIES, lowerRowDy, k);
+            DoubleVector upperDy = DoubleVector.fromArray(SPECIES, upperRowDy, k);
+            DoubleVector lowerDx = DoubleVector.fromArray(SPECIES, lowerRowDx, k);
+            DoubleVector upperDx = DoubleVector.fromArray(SPECIES, upperRowDx, k);
+            DoubleVector lowerDxy = DoubleVector.fromArray(SPECIES, lowerRowDxy, k);
+            DoubleVector upperDxy = DoubleVector.fromArray(SPECIES, upperRowDxy, k);
+            c0.mul(lowerDx).add(c1.mul(upperDx)).add(d0.mul(lowerDxy)).add(d1.mul(upperDxy)).intoArray(slopeX, k);
+            dc0.mul(lower).add(dc1.mul(upper)).add(dd0.mul(lowerDy)).add(dd1.mul(upperDy)).intoArray(slopeY, k);
+        }
+    }
+
+    /**
+     * Applies the ball dynamics to the interpolated slopes, in the order of {@link ScalarLaneKernel}.
+     */
+    private void dynamics(double[] vx, double[] vy, double[] ax, double[] ay, int vectorEnd) {
+        DoubleVector uniformScale = DoubleVector.broadcast(SPECIES, frictionScale);
+        for (int k = 0; k < vectorEnd; k += SPECIES.length()) {
+            DoubleVector sx = DoubleVector.fromArray(SPECIES, slopeX, k);
+            DoubleVector sy = DoubleVector.fromArray(SPECIES, slopeY, k);
+            DoubleVector pvx = DoubleVector.fromArray(SPECIES, vx, k);
+            DoubleVector pvy = DoubleVector.fromArray(SPECIES, vy, k);
+            DoubleVector gradientSquared = sx.mul(sx).add(sy.mul(sy));
+            DoubleVector slopeFactor = gradientSquared.add(1);
+            DoubleVector verticalVelocity = sx.mul(pvx).add(sy.mul(pvy));
+            DoubleVector speed = pvx.mul(pvx).add(pvy.mul(pvy)).add(verticalVelocity.mul(verticalVelocity)).sqrt();
+            VectorMask<Double> resting = speed.compare(VectorOperators.EQ, 0);
+            DoubleVector scale = materials == null ? uniformScale : DoubleVector.fromArray(SPECIES, frictionScales, k);
+            DoubleVector friction = scale.div(slopeFactor.sqrt().mul(speed)).blend(0, resting);
+            DoubleVector accelerationX = sx.mul(-g).div(slopeFactor).sub(friction.mul(pvx));
+            DoubleVector accelerationY = sy.mul(-g).div(slopeFactor).sub(friction.mul(pvy));
+            if (wind != null) {
+                accelerationX = accelerationX.add(DoubleVector.fromArray(SPECIES, windX, k));
+                accelerationY = accelerationY.add(DoubleVector.fromArray(SPECIES, windY, k));
+            }
+            accelerationX.intoArray(ax, k);
+            accelerationY.intoArray(ay, k);
+        }
+    }
+
+    /**
+     * Loads one node value for every lane of the vector starting at index k.
+     *
+     * @param value the index of the value among the sixteen around each lane
+     */
+    private DoubleVector corner(int value, int k) {
+        return DoubleVector.fromArray(SPECIES, corners, value * stride + k);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.golfgame.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.golfgame.physics.LaneKernel;
+import com.example.golfgame.physics.ScalarLaneKernel;
+import com.example.golfgame.physics.SurfaceLattice;
+import com.example.golfgame.physics.VectorLaneKernel;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Measures how many lanes per second the scalar lane kernel and the vector lane kernel push through
+ * one acceleration sweep on a lattice-backed surface, with the vector kernel capped at 256 and at
+ * 512 bits. A score is lanes per microsecond.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ./gradlew :core:jmh
+ * }</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class LaneKernelBenchmark {
+    private static final String SURFACE = "0.4*(0.9-e^(-(x^2+y^2)/8))+0.1*sin(x)*cos(y)-0.1";
+    private static final int LANES = 512;
+    private static final double MU_K = 0.1;
+    private static final double G = 9.81;
+
+    private LaneKernel scalarKernel;
+    private LaneKernel vectorKernel;
+    private final double[] x = new double[LANES];
+    private final double[] y = new double[LANES];
+    private final double[] vx = new double[LANES];
+    private final double[] vy = new double[LANES];
+    private final double[] ax = new double[LANES];
+    private final double[] ay = new double[LANES];
+
+    @Setup
+    public void setup() {
+        Function surface = new Function(SURFACE, "x", "y");
+        SurfaceLattice lattice = new SurfaceLattice(surface, -10, -10, 10, 10, 0.1);
+        scalarKernel = new ScalarLaneKernel(surface, lattice, G, MU_K);
+        vectorKernel = new VectorLaneKernel(lattice, G, MU_K);
+        Random random = new Random(2024);
+        for (int k = 0; k < LANES; k++) {
+            x[k] = -8 + random.nextDouble() * 16;
+            y[k] = -8 + random.nextDouble() * 16;
+            vx[k] = -4 + random.nextDouble() * 8;
+            vy[k] = -4 + random.nextDouble() * 8;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LANES)
+    public double[] scalar() {
+        scalarKernel.accelerate(x, y, vx, vy, ax, ay, LANES);
+        return ax;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LANES)
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-XX:MaxVectorSize=32"})
+    public double[] vector256() {
+        vectorKernel.accelerate(x, y, vx, vy, ax, ay, LANES);
+        return ax;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LANES)
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-XX:MaxVectorSize=64"})
+    public double[] vector512() {
+        vectorKernel.accelerate(x, y, vx, vy, ax, ay, LANES);
+        return ax;
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.golfgame.bot.botsbehaviors;
 
-import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -9,9 +8,10 @@ import java.util.concurrent.Future;
 import java.util.Random;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.math.Vector2;
 import com.example.golfgame.GolfGame;
 import com.example.golfgame.bot.BotBehavior;
+import com.example.golfgame.physics.SurfaceLattice;
+import com.example.golfgame.physics.TrajectoryRecorder;
 import com.example.golfgame.physics.ODE.RungeKutta;
 import com.example.golfgame.screens.GolfGameScreen;
 import com.example.golfgame.simulator.PhysicsSimulator;
@@ -34,6 +34,8 @@ public class HillClimbingBot implements BotBehavior {
 
     private static final float MAX_FORCE = 10.0f; // Maximum force
     private static final float MIN_FORCE = 1.0f;  // Minimum force
+    private static final double LATTICE_MARGIN = 20; // Distance the surface lattice reaches beyond the ball and goal, in metres
+    private static final double LATTICE_SPACING = 0.1; // Distance between lattice nodes, in metres
     
     private boolean isDirectionSet = false;
 
@@ -130,6 +132,19 @@ public class HillClimbingBot implements BotBehavior {
     private void climb(GolfGame game) {
         BallState goal = game.getGolfGameScreen().getGoalState();
         PhysicsSimulator simulator = new PhysicsSimulator(game.getGolfGameScreen().getHeightFunction(), goal, new RungeKutta());
+        simulator.setMaterialField(game.getGolfGameScreen().getMaterialField());
+        simulator.setWindField(game.getGolfGameScreen().getWindField());
+        BallState ball = game.getGolfGameScreen().getBallState();
+        try {
+            // Every climb simulates many shots over the same stretch of course, which the lattice answers
+            // at a fixed cost per query and which lets batches use vector instructions
+            simulator.setSurfaceLattice(new SurfaceLattice(game.getGolfGameScreen().getHeightFunction(),
+                    Math.min(ball.getX(), goal.getX()) - LATTICE_MARGIN, Math.min(ball.getY(), goal.getY()) - LATTICE_MARGIN,
+                    Math.max(ball.getX(), goal.getX()) + LATTICE_MARGIN, Math.max(ball.getY(), goal.getY()) + LATTICE_MARGIN,
+                    LATTICE_SPACING));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Simulating without a surface lattice: " + e.getMessage());
+        }
         Random random = new Random();
 
         if (hillClimb(simulator, game, goal)) return;
@@ -149,7 +164,11 @@ public class HillClimbingBot implements BotBehavior {
         boolean improved = true;
         while (running && improved) {
             improved = false;
-            BallState curSimResult = simulator.singleHit(hitPower, angle, game.getGolfGameScreen().getBallState());
+            // The current shot and its four neighbours are simulated together in one batch
+            float[] powers = {hitPower + DELTAHITPOWER, Math.max(0.1f, hitPower - DELTAHITPOWER), hitPower, hitPower, hitPower};
+            float[] angles = {angle, angle, angle + DELTAANGLE, angle - DELTAANGLE, angle};
+            BallState[] neighbors = simulator.hitBatch(powers, angles, game.getGolfGameScreen().getBallState());
+            BallState curSimResult = neighbors[4];
             System.out.printf("Current Sim Result: (%.2f, %.2f) with force %.2f and angle %.2f\n", curSimResult.getX(), curSimResult.getY(), hitPower, angle);
 
             // Check if the current result is within the goal tolerance
@@ -158,14 +177,6 @@ public class HillClimbingBot implements BotBehavior {
                 return true;
             }
 
-            BallState[] neighbors = {
-                simulator.singleHit(hitPower + DELTAHITPOWER, angle, game.getGolfGameScreen().getBallState()),
-                simulator.singleHit(Math.max(0.1f, hitPower - DELTAHITPOWER), angle, game.getGolfGameScreen().getBallState()),
-                simulator.singleHit(hitPower, angle + DELTAANGLE, game.getGolfGameScreen().getBallState()),
-                simulator.singleHit(hitPower, angle - DELTAANGLE, game.getGolfGameScreen().getBallState()),
-                curSimResult
-            };
-
             BallState bestState = bestState(neighbors, goal, game);
 
             if (!bestState.equals(curSimResult)) {
@@ -186,13 +197,7 @@ public class HillClimbingBot implements BotBehavior {
                 break;
             }
 
-            // Use Gdx.app.postRunnable to ensure OpenGL calls are made in the rendering thread
-            Gdx.app.postRunnable(new Runnable() {
-                @Override
-                public void run() {
-                    game.getGolfGameScreen().setLineInstance(game.getGolfGameScreen().getTerrainManager().createRedLineModel(simulator.hitWithPath(hitPower, angle).getValue()));
-                }
-            });
+            showPath(simulator, game, hitPower, angle);
         }
         return false;
     }
@@ -215,13 +220,7 @@ public class HillClimbingBot implements BotBehavior {
                 if (deltaPower == 0 && deltaAngle == 0) continue;
 
                 BallState newState = simulator.singleHit(Math.max(0.1f, originalHitPower + deltaPower), originalAngle + deltaAngle, game.getGolfGameScreen().getBallState());
-                List<Vector2> path = simulator.hitWithPath(Math.max(0.1f, originalHitPower + deltaAngle), originalAngle + deltaAngle).getValue();
-                Gdx.app.postRunnable(new Runnable() {
-                    @Override
-                    public void run() {
-                        game.getGolfGameScreen().setLineInstance(game.getGolfGameScreen().getTerrainManager().createRedLineModel(path));
-                    }
-                });
+                showPath(simulator, game, Math.max(0.1f, originalHitPower + deltaAngle), originalAngle + deltaAngle);
                 if (newState.distanceTo(goal) < simulator.singleHit(hitPower, angle, game.getGolfGameScreen().getBallState()).distanceTo(goal)) {
                     hitPower = Math.max(0.1f, originalHitPower + deltaPower);
                     angle = originalAngle + deltaAngle;
@@ -239,15 +238,31 @@ public class HillClimbingBot implements BotBehavior {
                 hitPower = randomHitPower;
                 angle = randomAngle;
             }
-            Gdx.app.postRunnable(new Runnable() {
-                @Override
-                public void run() {
-                    game.getGolfGameScreen().setLineInstance(game.getGolfGameScreen().getTerrainManager().createRedLineModel(simulator.hitWithPath(hitPower, angle).getValue()));
-                }
-            });
+            showPath(simulator, game, hitPower, angle);
         }
     }
 
+    /**
+     * Simulates a hit and shows its path. The path is recorded and thinned here, and only
+     * the line model is built on the rendering thread.
+     *
+     * @param simulator the PhysicsSimulator instance
+     * @param game the GolfGame instance
+     * @param power the hit power
+     * @param hitAngle the hit angle
+     */
+    private void showPath(PhysicsSimulator simulator, GolfGame game, float power, float hitAngle) {
+        TrajectoryRecorder path = PhysicsSimulator.createPathRecorder();
+        simulator.hitWithPath(power, hitAngle, path);
+        // Use Gdx.app.postRunnable to ensure OpenGL calls are made in the rendering thread
+        Gdx.app.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                game.getGolfGameScreen().setLineInstance(game.getGolfGameScreen().getTerrainManager().createRedLineModel(path));
+            }
+        });
+    }
+
     /**
      * Checks if the direction is set.
      *
@@ -0,0 +1,130 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.physics.ODE.DampedDerivatives;
+
+/**
+ * The equations of motion of a ball rolling on a height surface with kinetic friction, written out in closed form.
+ * The state is {@code {x, y, vx, vy}}; the derivative is {@code {vx, vy, ax, ay}} with
+ * <pre>
+ * a = -g * grad(h) / (1 + |grad(h)|^2) - mu_k * g / sqrt(1 + |grad(h)|^2) * v / sqrt(|v|^2 + (grad(h) . v)^2) + w
+ * </pre>
+ * where {@code w} is the acceleration from a {@link WindField}, if one is set. The slope, the friction
+ * if a {@link MaterialField} is set, and the wind are sampled at the position of every state the solver
+ * evaluates, so each Runge-Kutta stage sees the ground and the wind at its own stage position rather
+ * than at the start of the step. Friction is the damping of {@link DampedDerivatives}: its rate is
+ * {@code mu_k * g / (sqrt(1 + |grad(h)|^2) * sqrt(|v|^2 + (grad(h) . v)^2))}.
+ */
+public class BallDynamics implements DampedDerivatives {
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int VX = 2;
+    public static final int VY = 3;
+    public static final int STATE_SIZE = 4;
+
+    /**
+     * Samples the surface under the ball.
+     */
+    public interface SurfaceSampler {
+
+        /**
+         * Evaluates the height and both slopes of the surface at a point.
+         *
+         * @param x the x-coordinate of the point
+         * @param y the y-coordinate of the point
+         * @return an array holding the height, the x-slope and the y-slope, which may be reused by the next call
+         */
+        double[] sample(double x, double y);
+    }
+
+    private final double g;
+    private double mu_k;
+    private MaterialField materials; // Friction per position, or null to use mu_k everywhere
+    private WindField wind; // Push of the wind, or null for still air
+    private final SurfaceSampler surface;
+
+    /**
+     * Constructs the dynamics for a given gravity, kinetic friction and surface.
+     *
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction
+     * @param surface samples the slope of the surface at the ball's position
+     */
+    public BallDynamics(double g, double mu_k, SurfaceSampler surface) {
+        this.g = g;
+        this.mu_k = mu_k;
+        this.surface = surface;
+    }
+
+    /**
+     * Sets the coefficient of kinetic friction.
+     *
+     * @param mu_k the coefficient of kinetic friction
+     */
+    public void setFriction(double mu_k) {
+        this.mu_k = mu_k;
+    }
+
+    /**
+     * Makes the kinetic friction depend on where the ball is, looked up at the position of every state.
+     *
+     * @param materials the friction of the ground, or null to use the coefficient from {@link #setFriction(double)}
+     */
+    public void setMaterialField(MaterialField materials) {
+        this.materials = materials;
+    }
+
+    /**
+     * Adds the push of the wind to the acceleration, looked up at the position of every state.
+     *
+     * @param wind the wind, or null for still air
+     */
+    public void setWindField(WindField wind) {
+        this.wind = wind;
+    }
+
+    @Override
+    public void evaluate(double time, double[] state, double[] out) {
+        double[] sample = surface.sample(state[X], state[Y]);
+        double slopeX = sample[1];
+        double slopeY = sample[2];
+        double vx = state[VX];
+        double vy = state[VY];
+        double gradientSquared = slopeX * slopeX + slopeY * slopeY;
+        double slopeFactor = 1 + gradientSquared;
+        double verticalVelocity = slopeX * vx + slopeY * vy;
+        double speed = Math.sqrt(vx * vx + vy * vy + verticalVelocity * verticalVelocity);
+        double kinetic = materials == null ? mu_k : materials.getKineticFriction(state[X], state[Y]);
+        // A ball without velocity has no direction to rub against, so only gravity acts on it
+        double friction = speed == 0 ? 0 : kinetic * g / (Math.sqrt(slopeFactor) * speed);
+
+        out[X] = vx;
+        out[Y] = vy;
+        out[VX] = -g * slopeX / slopeFactor - friction * vx;
+        out[VY] = -g * slopeY / slopeFactor - friction * vy;
+        if (wind != null) {
+            out[VX] += wind.getAccelerationX(state[X], state[Y]);
+            out[VY] += wind.getAccelerationY(state[X], state[Y]);
+        }
+    }
+
+    @Override
+    public double evaluateUndamped(double time, double[] state, double[] out) {
+        double[] sample = surface.sample(state[X], state[Y]);
+        double slopeX = sample[1];
+        double slopeY = sample[2];
+        double vx = state[VX];
+        double vy = state[VY];
+        double slopeFactor = 1 + slopeX * slopeX + slopeY * slopeY;
+        double verticalVelocity = slopeX * vx + slopeY * vy;
+        double speed = Math.sqrt(vx * vx + vy * vy + verticalVelocity * verticalVelocity);
+        double kinetic = materials == null ? mu_k : materials.getKineticFriction(state[X], state[Y]);
+
+        out[VX] = -g * slopeX / slopeFactor;
+        out[VY] = -g * slopeY / slopeFactor;
+        if (wind != null) {
+            out[VX] += wind.getAccelerationX(state[X], state[Y]);
+            out[VY] += wind.getAccelerationY(state[X], state[Y]);
+        }
+        return speed == 0 ? 0 : kinetic * g / (Math.sqrt(slopeFactor) * speed);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.utils.BallState;
+
+/**
+ * A copy of the ball as simulated by a {@link PhysicsThread}. The physics thread publishes the ball into
+ * a snapshot of its own under a sequence lock, and a reader copies it whole into a snapshot it owns with
+ * {@link PhysicsThread#getSnapshot(BallSnapshot)}, so a reader never sees the position of one step next to
+ * the velocity of another and neither side allocates. Besides the simulated state, a snapshot carries the
+ * state to draw, interpolated between the last two fixed steps.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * BallSnapshot snapshot = new BallSnapshot();
+ * // Every frame
+ * physicsThread.getSnapshot(snapshot);
+ * snapshot.copyTo(currentBallState);
+ * snapshot.copyInterpolatedTo(renderedBallState);
+ * }</pre>
+ */
+public final class BallSnapshot {
+    // Volatile so that a copy made under the sequence lock of the physics thread reads no value early
+    private volatile double x;
+    private volatile double y;
+    private volatile double vx;
+    private volatile double vy;
+    // State to draw, trailing the simulated one by less than a step
+    private volatile double interpolatedX;
+    private volatile double interpolatedY;
+    private volatile double interpolatedVx;
+    private volatile double interpolatedVy;
+    private volatile long sequence; // Number of the last command applied before the snapshot was taken
+    private volatile long stepCount;
+    private volatile long droppedSteps;
+    private volatile boolean simulating;
+
+    /**
+     * Constructs an empty snapshot, to be filled by {@link PhysicsThread#getSnapshot(BallSnapshot)}.
+     */
+    public BallSnapshot() {
+    }
+
+    /**
+     * Sets every value of the snapshot.
+     *
+     * @param ball the simulated ball
+     * @param interpolated the state to draw
+     * @param sequence the number of the last command applied to the ball
+     * @param stepCount the number of physics steps taken so far
+     * @param droppedSteps the number of physics steps skipped so far
+     * @param simulating whether the ball was being simulated
+     */
+    void set(BallState ball, BallState interpolated, long sequence, long stepCount, long droppedSteps, boolean simulating) {
+        this.x = ball.getX();
+        this.y = ball.getY();
+        this.vx = ball.getVx();
+        this.vy = ball.getVy();
+        this.interpolatedX = interpolated.getX();
+        this.interpolatedY = interpolated.getY();
+        this.interpolatedVx = interpolated.getVx();
+        this.interpolatedVy = interpolated.getVy();
+        this.sequence = sequence;
+        this.stepCount = stepCount;
+        this.droppedSteps = droppedSteps;
+        this.simulating = simulating;
+    }
+
+    /**
+     * Copies every value of another snapshot into this one.
+     *
+     * @param other the snapshot to copy
+     */
+    void set(BallSnapshot other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.vx = other.vx;
+        this.vy = other.vy;
+        this.interpolatedX = other.interpolatedX;
+        this.interpolatedY = other.interpolatedY;
+        this.interpolatedVx = other.interpolatedVx;
+        this.interpolatedVy = other.interpolatedVy;
+        this.sequence = other.sequence;
+        this.stepCount = other.stepCount;
+        this.droppedSteps = other.droppedSteps;
+        this.simulating = other.simulating;
+    }
+
+    /**
+     * Writes the position and velocity of the snapshot into a ball state.
+     *
+     * @param out receives the state
+     * @return the state passed in
+     */
+    public BallState copyTo(BallState out) {
+        out.setAllComponents(x, y, vx, vy);
+        return out;
+    }
+
+    /**
+     * Writes the state to draw into a ball state: the simulated state interpolated between the last two
+     * steps by the time left over when the snapshot was taken, so the ball moves smoothly on screen.
+     *
+     * @param out receives the interpolated state
+     * @return the state passed in
+     */
+    public BallState copyInterpolatedTo(BallState out) {
+        out.setAllComponents(interpolatedX, interpolatedY, interpolatedVx, interpolatedVy);
+        return out;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getVx() {
+        return vx;
+    }
+
+    public double getVy() {
+        return vy;
+    }
+
+    /**
+     * Returns the number of the last command applied before the snapshot was taken, as returned by
+     * {@link PhysicsThread#submit}. A snapshot reflects a command once this is at least its number.
+     *
+     * @return the command sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    public boolean isSimulating() {
+        return simulating;
+    }
+}
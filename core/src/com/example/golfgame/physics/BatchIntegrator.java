@@ -0,0 +1,436 @@
+package com.example.golfgame.physics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.golfgame.physics.ODE.EventFunction;
+import com.example.golfgame.utils.Function;
+
+/**
+ * Advances many independent balls on the same surface in lockstep with the classical Runge-Kutta
+ * method. Positions and velocities are kept in one primitive array per component, and every stage
+ * of a step sweeps all moving balls before the next stage begins, so a population of shots is
+ * evaluated in tight loops without creating objects. A ball drops out of the batch once it comes
+ * to rest or one of the events happens; the rest of the batch carries on.
+ *
+ * <p>Each ball takes the same steps a {@link PhysicsEngine} with a {@link com.example.golfgame.physics.ODE.RungeKutta}
+ * solver would take, with the same slope sampling and the same rules for coming to rest and for
+ * locating events within a step. The batch integrates every roll to the end, whereas an engine with a
+ * {@link StoppingPredictor} lets the predictor finish it, so a ball may then end up to about the
+ * predictor's tolerance away from where that engine leaves it.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * BatchIntegrator batch = new BatchIntegrator(heightFunction, 0.1, 0.2, shots.length);
+ * for (int i = 0; i < shots.length; i++) {
+ *     batch.setBall(i, startX, startY, shots[i][0], shots[i][1]);
+ * }
+ * batch.run(0.005, 100000);
+ * double landingX = batch.getX(0);
+ * }</pre>
+ */
+public class BatchIntegrator {
+    private final double g = 9.81; // Acceleration due to gravity, m/s^2
+    private final double mu_k; // Coefficient of kinetic friction
+    private final Function surface;
+    private SurfaceLattice surfaceLattice;
+    private MaterialField materials; // Friction per position, overriding mu_k and mu_s, or null
+    private WindField wind; // Push of the wind, or null for still air
+    private final int capacity;
+
+    // State of every lane
+    private final double[] x;
+    private final double[] y;
+    private final double[] vx;
+    private final double[] vy;
+    private final boolean[] active;
+    private final EventFunction[] laneEvents; // The event that ended each lane, or null
+    // Indices of the active lanes, compacted so the stage loops touch no finished lanes
+    private final int[] lanes;
+    private int activeCount;
+
+    // Per active lane, in the order of the lane list: the state at the start of the step, the stage
+    // state, the acceleration at the stage and the weighted sums of the slopes, packed so every stage
+    // is a contiguous sweep that the lane kernel can vectorise
+    private final double[] startX;
+    private final double[] startY;
+    private final double[] startVx;
+    private final double[] startVy;
+    private final double[] stageX;
+    private final double[] stageY;
+    private final double[] stageVx;
+    private final double[] stageVy;
+    private final double[] sumX;
+    private final double[] sumY;
+    private final double[] sumVx;
+    private final double[] sumVy;
+    private final double[] ax;
+    private final double[] ay;
+    private LaneKernel kernel; // Computes the acceleration of every packed lane at once
+
+    private final List<EventFunction> events = new ArrayList<>();
+    // Value of every event at the start of the step, the events of each lane side by side
+    private double[] eventValues = new double[0];
+    private final double[] sample = new double[3];
+    // Rest, static friction and event rules shared with the engine, applied to one lane at a time
+    private final StepRules rules;
+    // State of the lane being examined at the start and at the end of its step
+    private final double[] laneStart = new double[BallDynamics.STATE_SIZE];
+    private final double[] laneEnd = new double[BallDynamics.STATE_SIZE];
+
+    /**
+     * Constructs an empty batch.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param mu_k the coefficient of kinetic friction
+     * @param mu_s the coefficient of static friction
+     * @param capacity the number of lanes
+     *
+     * @throws IllegalArgumentException if the capacity is negative or the surface has no symbolic gradient
+     */
+    public BatchIntegrator(Function surface, double mu_k, double mu_s, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative.");
+        }
+        if (surface.derivative("x") == null) {
+            throw new IllegalArgumentException("Surface function has no symbolic form to differentiate.");
+        }
+        this.surface = surface;
+        this.mu_k = mu_k;
+        this.rules = new StepRules(g, mu_k, mu_s, this::sampleSurface);
+        this.capacity = capacity;
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        active = new boolean[capacity];
+        laneEvents = new EventFunction[capacity];
+        lanes = new int[capacity];
+        startX = new double[capacity];
+        startY = new double[capacity];
+        startVx = new double[capacity];
+        startVy = new double[capacity];
+        stageX = new double[capacity];
+        stageY = new double[capacity];
+        stageVx = new double[capacity];
+        stageVy = new double[capacity];
+        sumX = new double[capacity];
+        sumY = new double[capacity];
+        sumVx = new double[capacity];
+        sumVy = new double[capacity];
+        ax = new double[capacity];
+        ay = new double[capacity];
+        kernel = LaneKernels.create(surface, null, g, mu_k);
+    }
+
+    /**
+     * Places a ball in a lane and makes the lane active.
+     *
+     * @param lane the lane index
+     * @param x the x-coordinate of the ball
+     * @param y the y-coordinate of the ball
+     * @param vx the velocity along the x-axis
+     * @param vy the velocity along the y-axis
+     */
+    public void setBall(int lane, double x, double y, double vx, double vy) {
+        this.x[lane] = x;
+        this.y[lane] = y;
+        this.vx[lane] = vx;
+        this.vy[lane] = vy;
+        laneEvents[lane] = null;
+        if (!active[lane]) {
+            active[lane] = true;
+            lanes[activeCount++] = lane;
+        }
+    }
+
+    /**
+     * Deactivates every lane.
+     */
+    public void clear() {
+        for (int k = 0; k < activeCount; k++) {
+            active[lanes[k]] = false;
+        }
+        activeCount = 0;
+    }
+
+    /**
+     * Adds an event that ends a lane at the moment its function crosses zero, as in {@link PhysicsEngine#addEvent(EventFunction)}.
+     *
+     * @param event the event function, positive until the event happens
+     */
+    public void addEvent(EventFunction event) {
+        events.add(event);
+        eventValues = new double[events.size() * capacity];
+    }
+
+    /**
+     * Makes the batch read heights and slopes from a precomputed lattice instead of evaluating the surface function.
+     *
+     * @param surfaceLattice the lattice, or null to evaluate the surface function again
+     */
+    public void setSurfaceLattice(SurfaceLattice surfaceLattice) {
+        this.surfaceLattice = surfaceLattice;
+        kernel = LaneKernels.create(surface, surfaceLattice, materials, wind, g, mu_k);
+    }
+
+    /**
+     * Makes friction depend on the ground under each ball, as {@link PhysicsEngine#setMaterialField} does.
+     *
+     * @param materials the friction of the ground, or null to use the same coefficients everywhere
+     */
+    public void setMaterialField(MaterialField materials) {
+        this.materials = materials;
+        rules.setMaterialField(materials);
+        kernel = LaneKernels.create(surface, surfaceLattice, materials, wind, g, mu_k);
+    }
+
+    /**
+     * Makes the wind push every ball, as {@link PhysicsEngine#setWindField} does.
+     *
+     * @param wind the wind, or null for still air
+     */
+    public void setWindField(WindField wind) {
+        this.wind = wind;
+        rules.setWindField(wind);
+        kernel = LaneKernels.create(surface, surfaceLattice, materials, wind, g, mu_k);
+    }
+
+    /**
+     * Returns the kernel that computes the accelerations of the lanes, which depends on the surface
+     * backend and on whether the JVM supports vector instructions.
+     *
+     * @return the lane kernel
+     */
+    public LaneKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Steps the batch until every lane has finished or the step limit is reached.
+     *
+     * @param stepSize the time step size
+     * @param maxSteps the largest number of steps to take
+     * @return the number of steps taken
+     */
+    public int run(double stepSize, int maxSteps) {
+        int steps = 0;
+        while (activeCount > 0 && steps < maxSteps) {
+            step(stepSize);
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Advances every active lane by one step. Lanes that are at rest and held by static friction,
+     * come to rest during the step, or reach an event become inactive.
+     *
+     * @param stepSize the time step size
+     * @return the number of lanes still active
+     */
+    public int step(double stepSize) {
+        for (int k = 0; k < activeCount; k++) {
+            int i = lanes[k];
+            if (StepRules.isAtRest(vx[i], vy[i]) && !rules.canOvercomeStaticFriction(x[i], y[i])) {
+                active[i] = false;
+            }
+        }
+        compact();
+        beginStep();
+        advance(stepSize);
+        for (int k = 0; k < activeCount; k++) {
+            int i = lanes[k];
+            if (endStep(i, k, stepSize) || StepRules.isAtRest(vx[i], vy[i])) {
+                active[i] = false;
+            }
+        }
+        compact();
+        return activeCount;
+    }
+
+    /**
+     * Takes one classical Runge-Kutta step for every active lane, one stage at a time. The arithmetic is
+     * ordered as in {@link com.example.golfgame.physics.ODE.RungeKutta}, so each step agrees to the last bit
+     * with the step a {@link PhysicsEngine} would take from the same state.
+     */
+    private void advance(double h) {
+        int n = activeCount;
+        for (int k = 0; k < n; k++) {
+            int i = lanes[k];
+            startX[k] = x[i];
+            startY[k] = y[i];
+            startVx[k] = vx[i];
+            startVy[k] = vy[i];
+        }
+        double half = h * 0.5;
+        kernel.accelerate(startX, startY, startVx, startVy, ax, ay, n);
+        for (int k = 0; k < n; k++) {
+            sumX[k] = startVx[k];
+            sumY[k] = startVy[k];
+            sumVx[k] = ax[k];
+            sumVy[k] = ay[k];
+            stageX[k] = startX[k] + half * startVx[k];
+            stageY[k] = startY[k] + half * startVy[k];
+            stageVx[k] = startVx[k] + half * ax[k];
+            stageVy[k] = startVy[k] + half * ay[k];
+        }
+        kernel.accelerate(stageX, stageY, stageVx, stageVy, ax, ay, n);
+        for (int k = 0; k < n; k++) {
+            sumX[k] += 2 * stageVx[k];
+            sumY[k] += 2 * stageVy[k];
+            sumVx[k] += 2 * ax[k];
+            sumVy[k] += 2 * ay[k];
+            stageX[k] = startX[k] + half * stageVx[k];
+            stageY[k] = startY[k] + half * stageVy[k];
+            stageVx[k] = startVx[k] + half * ax[k];
+            stageVy[k] = startVy[k] + half * ay[k];
+        }
+        kernel.accelerate(stageX, stageY, stageVx, stageVy, ax, ay, n);
+        for (int k = 0; k < n; k++) {
+            sumX[k] += 2 * stageVx[k];
+            sumY[k] += 2 * stageVy[k];
+            sumVx[k] += 2 * ax[k];
+            sumVy[k] += 2 * ay[k];
+            stageX[k] = startX[k] + h * stageVx[k];
+            stageY[k] = startY[k] + h * stageVy[k];
+            stageVx[k] = startVx[k] + h * ax[k];
+            stageVy[k] = startVy[k] + h * ay[k];
+        }
+        kernel.accelerate(stageX, stageY, stageVx, stageVy, ax, ay, n);
+        double sixth = h / 6.0;
+        for (int k = 0; k < n; k++) {
+            int i = lanes[k];
+            x[i] = startX[k] + sixth * (sumX[k] + stageVx[k]);
+            y[i] = startY[k] + sixth * (sumY[k] + stageVy[k]);
+            vx[i] = startVx[k] + sixth * (sumVx[k] + ax[k]);
+            vy[i] = startVy[k] + sixth * (sumVy[k] + ay[k]);
+        }
+    }
+
+    // Samples the surface for the rules, into a buffer that is valid until the next call
+    private double[] sampleSurface(double px, double py) {
+        if (surfaceLattice != null) {
+            surfaceLattice.sample(px, py, sample);
+        } else {
+            surface.evaluateWithGradient(px, py, sample);
+        }
+        return sample;
+    }
+
+    /**
+     * Removes inactive lanes from the list of active lanes, keeping the order of the rest.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int k = 0; k < activeCount; k++) {
+            if (active[lanes[k]]) {
+                lanes[kept++] = lanes[k];
+            }
+        }
+        activeCount = kept;
+    }
+
+    /**
+     * Records the value of every event for every active lane at the start of a step.
+     */
+    private void beginStep() {
+        int count = events.size();
+        for (int k = 0; k < activeCount; k++) {
+            int i = lanes[k];
+            gather(i, x, y, vx, vy, laneStart);
+            for (int e = 0; e < count; e++) {
+                eventValues[i * count + e] = events.get(e).value(laneStart);
+            }
+        }
+    }
+
+    /**
+     * Applies the rules of {@link PhysicsEngine} to the step a lane just took: the ball stops at the
+     * earliest event that happened during the step, or where it came to rest.
+     *
+     * @param i the lane
+     * @param k the position of the lane in the packed arrays
+     * @param stepSize the size of the step
+     * @return true if an event happened or the ball was stopped
+     */
+    private boolean endStep(int i, int k, double stepSize) {
+        gather(k, startX, startY, startVx, startVy, laneStart);
+        gather(i, x, y, vx, vy, laneEnd);
+        if (!events.isEmpty()) {
+            laneEvents[i] = rules.stopAtEvent(events, eventValues, i * events.size(), laneStart, laneEnd, null, stepSize);
+        }
+        if (laneEvents[i] == null && !rules.settle(laneStart, laneEnd, null, stepSize)) {
+            return false;
+        }
+        x[i] = laneEnd[BallDynamics.X];
+        y[i] = laneEnd[BallDynamics.Y];
+        vx[i] = laneEnd[BallDynamics.VX];
+        vy[i] = laneEnd[BallDynamics.VY];
+        return true;
+    }
+
+    /**
+     * Gathers the state of one lane from a set of component arrays.
+     */
+    private static void gather(int i, double[] px, double[] py, double[] pvx, double[] pvy, double[] out) {
+        out[BallDynamics.X] = px[i];
+        out[BallDynamics.Y] = py[i];
+        out[BallDynamics.VX] = pvx[i];
+        out[BallDynamics.VY] = pvy[i];
+    }
+
+    public double getX(int lane) {
+        return x[lane];
+    }
+
+    public double getY(int lane) {
+        return y[lane];
+    }
+
+    public double getVx(int lane) {
+        return vx[lane];
+    }
+
+    public double getVy(int lane) {
+        return vy[lane];
+    }
+
+    /**
+     * Checks if a lane is still being advanced.
+     *
+     * @param lane the lane index
+     * @return true if the ball in the lane is still moving
+     */
+    public boolean isActive(int lane) {
+        return active[lane];
+    }
+
+    /**
+     * Returns the event that ended a lane.
+     *
+     * @param lane the lane index
+     * @return the event, or null if the lane is still active or its ball came to rest
+     */
+    public EventFunction getTriggeredEvent(int lane) {
+        return laneEvents[lane];
+    }
+
+    /**
+     * Returns the number of lanes still being advanced.
+     *
+     * @return the number of active lanes
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
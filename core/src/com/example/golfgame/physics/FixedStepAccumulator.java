@@ -0,0 +1,152 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.utils.BallState;
+
+/**
+ * Runs a physics engine at a fixed rate, whatever the frame rate. The time of every frame goes into an
+ * accumulator that is spent in whole steps, so the ball follows the same path at 30 and at 144 frames
+ * per second. The state to draw is interpolated between the last two steps, and the number of steps per
+ * frame is capped so that a long stall cannot make the game fall further and further behind.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * FixedStepAccumulator physicsClock = new FixedStepAccumulator(engine, 1000, 100);
+ * // Every frame
+ * physicsClock.advance(ballState, delta);
+ * physicsClock.interpolate(renderedState);
+ * }</pre>
+ */
+public class FixedStepAccumulator {
+    private final PhysicsEngine engine;
+    private final double stepSize;
+    private final int maxSubsteps;
+    private final double[] previous = new double[BallDynamics.STATE_SIZE]; // State before the last step
+    private final double[] current = new double[BallDynamics.STATE_SIZE]; // State after the last step
+    private double accumulator; // Frame time not yet spent on steps, less than one step after every frame
+    private boolean started;
+    private long stepCount;
+    private long droppedSteps; // Steps skipped because a frame reached the cap
+
+    /**
+     * Constructs an accumulator for an engine.
+     *
+     * @param engine the physics engine to step
+     * @param rate the number of steps per second of game time
+     * @param maxSubsteps the largest number of steps taken in one frame
+     *
+     * @throws IllegalArgumentException if the rate is not positive or the cap is less than one
+     */
+    public FixedStepAccumulator(PhysicsEngine engine, double rate, int maxSubsteps) {
+        if (!(rate > 0) || maxSubsteps < 1) {
+            throw new IllegalArgumentException("Physics rate must be positive and at least one substep allowed per frame.");
+        }
+        this.engine = engine;
+        this.stepSize = 1 / rate;
+        this.maxSubsteps = maxSubsteps;
+    }
+
+    /**
+     * Spends the time of a frame on fixed steps of the ball. If the ball was moved since the last frame,
+     * for instance put back after leaving the course, interpolation starts afresh from the new position.
+     * Time that would need more than the allowed number of steps is dropped, so the game slows down
+     * instead of stalling when frames take too long.
+     *
+     * @param ballState the state of the ball, updated in place to the state after the last step
+     * @param frameTime the time since the last frame in seconds
+     * @return the number of steps taken
+     */
+    public int advance(BallState ballState, double frameTime) {
+        boolean moved = !started || ballState.getX() != current[BallDynamics.X] || ballState.getY() != current[BallDynamics.Y];
+        load(ballState, current);
+        if (moved) {
+            System.arraycopy(current, 0, previous, 0, BallDynamics.STATE_SIZE);
+            accumulator = 0;
+            started = true;
+        }
+
+        accumulator += Math.max(frameTime, 0);
+        int steps = 0;
+        while (accumulator >= stepSize && steps < maxSubsteps) {
+            System.arraycopy(current, 0, previous, 0, BallDynamics.STATE_SIZE);
+            engine.update(current, stepSize);
+            accumulator -= stepSize;
+            steps++;
+        }
+        if (accumulator >= stepSize) {
+            long behind = (long) (accumulator / stepSize);
+            droppedSteps += behind;
+            accumulator -= behind * stepSize;
+        }
+        stepCount += steps;
+
+        ballState.setAllComponents(current[BallDynamics.X], current[BallDynamics.Y], current[BallDynamics.VX], current[BallDynamics.VY]);
+        return steps;
+    }
+
+    /**
+     * Writes the state to draw for the current frame, interpolated between the last two steps by the time
+     * left over in the accumulator. It trails the simulated state by less than one step.
+     *
+     * @param out receives the interpolated state
+     * @return the state passed in
+     */
+    public BallState interpolate(BallState out) {
+        double alpha = getAlpha();
+        out.setAllComponents(
+                previous[BallDynamics.X] + alpha * (current[BallDynamics.X] - previous[BallDynamics.X]),
+                previous[BallDynamics.Y] + alpha * (current[BallDynamics.Y] - previous[BallDynamics.Y]),
+                previous[BallDynamics.VX] + alpha * (current[BallDynamics.VX] - previous[BallDynamics.VX]),
+                previous[BallDynamics.VY] + alpha * (current[BallDynamics.VY] - previous[BallDynamics.VY]));
+        return out;
+    }
+
+    /**
+     * Forgets the accumulated time and the previous step, for instance after a new course is loaded.
+     */
+    public void reset() {
+        accumulator = 0;
+        started = false;
+    }
+
+    private static void load(BallState ballState, double[] state) {
+        state[BallDynamics.X] = ballState.getX();
+        state[BallDynamics.Y] = ballState.getY();
+        state[BallDynamics.VX] = ballState.getVx();
+        state[BallDynamics.VY] = ballState.getVy();
+    }
+
+    /**
+     * Returns how far the time left in the accumulator reaches into the next step.
+     *
+     * @return the interpolation factor, from 0 to just below 1
+     */
+    public double getAlpha() {
+        return accumulator / stepSize;
+    }
+
+    public double getStepSize() {
+        return stepSize;
+    }
+
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    /**
+     * Returns the number of steps taken since the accumulator was created.
+     *
+     * @return the step count
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Returns the number of steps skipped because frames took longer than the cap allows.
+     *
+     * @return the number of dropped steps
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.golfgame.physics;
+
+/**
+ * Computes the acceleration of many balls at once, for the {@link BatchIntegrator}. The balls are
+ * given as parallel arrays of their positions and velocities, so an implementation can process
+ * several of them per instruction.
+ */
+public interface LaneKernel {
+
+    /**
+     * Computes the acceleration of the first {@code count} balls, as {@link BallDynamics} would for each.
+     *
+     * @param x the x-coordinates of the balls
+     * @param y the y-coordinates of the balls
+     * @param vx the velocities along the x-axis
+     * @param vy the velocities along the y-axis
+     * @param ax receives the accelerations along the x-axis
+     * @param ay receives the accelerations along the y-axis
+     * @param count the number of balls
+     */
+    void accelerate(double[] x, double[] y, double[] vx, double[] vy, double[] ax, double[] ay, int count);
+}
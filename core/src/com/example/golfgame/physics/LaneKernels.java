@@ -0,0 +1,45 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * Chooses the fastest lane kernel the running JVM supports. This is the Java 8 version, which always
+ * chooses the scalar kernel; the multi-release jar replaces it on Java 16 and later with a version
+ * that uses the Vector API for surfaces backed by a lattice.
+ */
+public final class LaneKernels {
+
+    private LaneKernels() {
+    }
+
+    /**
+     * Creates a lane kernel for a surface.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param surfaceLattice a precomputed lattice of the surface, or null to evaluate the function
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction
+     * @return the lane kernel
+     */
+    public static LaneKernel create(Function surface, SurfaceLattice surfaceLattice, double g, double mu_k) {
+        return new ScalarLaneKernel(surface, surfaceLattice, g, mu_k);
+    }
+
+    /**
+     * Creates a lane kernel for a surface whose friction depends on the ground, under a wind.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param surfaceLattice a precomputed lattice of the surface, or null to evaluate the function
+     * @param materials the friction of the ground, or null to use mu_k everywhere
+     * @param wind the wind, or null for still air
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction where there is no material field
+     * @return the lane kernel
+     */
+    public static LaneKernel create(Function surface, SurfaceLattice surfaceLattice, MaterialField materials, WindField wind, double g, double mu_k) {
+        if (materials != null || wind != null) {
+            return new ScalarLaneKernel(surface, surfaceLattice, materials, wind, g, mu_k);
+        }
+        return create(surface, surfaceLattice, g, mu_k);
+    }
+}
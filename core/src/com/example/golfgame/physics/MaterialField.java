@@ -0,0 +1,200 @@
+package com.example.golfgame.physics;
+
+import java.util.List;
+
+import com.example.golfgame.utils.gameUtils.Sandbox;
+
+/**
+ * The friction of the ground everywhere on the course: grass by default and sand inside the sandboxes.
+ * The sandboxes are rasterized once onto square cells covering them, so finding the friction under the
+ * ball is a single array lookup, cheap enough for every stage of every step. Cells that a sandbox edge
+ * runs through are marked as mixed and answered by testing the sandboxes themselves, so the result is
+ * the same as {@link Sandbox#inSandbox} on every point.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * MaterialField materials = new MaterialField(0.1, 0.2, 0.7, 1, game.getSandboxes());
+ * engine.setMaterialField(materials);
+ * double mu_k = materials.getKineticFriction(x, y);
+ * }</pre>
+ */
+public class MaterialField {
+    private static final double CELL_SIZE = 0.25; // Cell edge in metres, widened if the raster would get too large
+    private static final int MAX_CELLS = 1 << 22;
+    private static final byte GRASS = 0;
+    private static final byte SAND = 1;
+    private static final byte MIXED = -1; // A sandbox edge runs through the cell
+
+    private final double[] kinetic; // Coefficient of kinetic friction per material
+    private final double[] statics; // Coefficient of static friction per material
+    private final double[] boxes; // Bounds of every sandbox as xLow, yLow, xHigh, yHigh
+    private final double xMin;
+    private final double yMin;
+    private final double xMax; // Upper bounds of the raster, exclusive
+    private final double yMax;
+    private final double cellSize;
+    private final int nx; // Number of cells along the x-axis
+    private final int ny; // Number of cells along the y-axis
+    private final byte[] cells;
+
+    /**
+     * Constructs the field for a course.
+     *
+     * @param grassKinetic the coefficient of kinetic friction on grass
+     * @param grassStatic the coefficient of static friction on grass
+     * @param sandKinetic the coefficient of kinetic friction on sand
+     * @param sandStatic the coefficient of static friction on sand
+     * @param sandboxes the sand areas of the course, copied
+     */
+    public MaterialField(double grassKinetic, double grassStatic, double sandKinetic, double sandStatic, List<Sandbox> sandboxes) {
+        this.kinetic = new double[]{grassKinetic, sandKinetic};
+        this.statics = new double[]{grassStatic, sandStatic};
+        this.boxes = new double[sandboxes.size() * 4];
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        for (int b = 0; b < sandboxes.size(); b++) {
+            Sandbox box = sandboxes.get(b);
+            boxes[4 * b] = box.getXLowBound();
+            boxes[4 * b + 1] = box.getYLowBound();
+            boxes[4 * b + 2] = box.getXHighBound();
+            boxes[4 * b + 3] = box.getYHighBound();
+            lowX = Math.min(lowX, boxes[4 * b]);
+            lowY = Math.min(lowY, boxes[4 * b + 1]);
+            highX = Math.max(highX, boxes[4 * b + 2]);
+            highY = Math.max(highY, boxes[4 * b + 3]);
+        }
+        if (!(highX >= lowX && highY >= lowY)) {
+            // No sand anywhere, so every lookup falls outside an empty raster
+            this.xMin = this.yMin = this.xMax = this.yMax = 0;
+            this.cellSize = CELL_SIZE;
+            this.nx = this.ny = 0;
+            this.cells = new byte[0];
+            return;
+        }
+
+        double size = CELL_SIZE;
+        while (((long) ((highX - lowX) / size) + 1) * ((long) ((highY - lowY) / size) + 1) > MAX_CELLS) {
+            size *= 2;
+        }
+        this.cellSize = size;
+        this.nx = (int) ((highX - lowX) / size) + 1;
+        this.ny = (int) ((highY - lowY) / size) + 1;
+        this.xMin = lowX;
+        this.yMin = lowY;
+        this.xMax = lowX + nx * size;
+        this.yMax = lowY + ny * size;
+        this.cells = new byte[nx * ny];
+        rasterize();
+    }
+
+    /**
+     * Marks the cells that lie wholly inside a sandbox as sand and the ones a sandbox only partly covers
+     * as mixed. A cell covers {@code [x, x + cellSize)} along each axis.
+     */
+    private void rasterize() {
+        for (int b = 0; b < boxes.length; b += 4) {
+            int i0 = column(boxes[b]);
+            int j0 = row(boxes[b + 1]);
+            int i1 = column(boxes[b + 2]);
+            int j1 = row(boxes[b + 3]);
+            for (int j = j0; j <= j1; j++) {
+                double cellY = yMin + j * cellSize;
+                for (int i = i0; i <= i1; i++) {
+                    double cellX = xMin + i * cellSize;
+                    boolean inside = boxes[b] <= cellX && cellX + cellSize <= boxes[b + 2]
+                            && boxes[b + 1] <= cellY && cellY + cellSize <= boxes[b + 3];
+                    int cell = j * nx + i;
+                    if (inside) {
+                        cells[cell] = SAND;
+                    } else if (cells[cell] != SAND) {
+                        cells[cell] = MIXED;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the material at a point.
+     *
+     * @return {@link #GRASS} or {@link #SAND}
+     */
+    private int material(double x, double y) {
+        if (!(x >= xMin && x < xMax && y >= yMin && y < yMax)) {
+            return GRASS;
+        }
+        byte cell = cells[row(y) * nx + column(x)];
+        if (cell != MIXED) {
+            return cell;
+        }
+        for (int b = 0; b < boxes.length; b += 4) {
+            if (x >= boxes[b] && x <= boxes[b + 2] && y >= boxes[b + 1] && y <= boxes[b + 3]) {
+                return SAND;
+            }
+        }
+        return GRASS;
+    }
+
+    /**
+     * Returns the column of the cell that holds an x-coordinate. The division may round a coordinate
+     * next to a cell edge into the neighbouring cell, or past the last one, so the index is clamped to
+     * the raster and corrected against the edges {@link #rasterize()} uses.
+     */
+    private int column(double x) {
+        int i = Math.max(0, Math.min(nx - 1, (int) ((x - xMin) / cellSize)));
+        if (i > 0 && x < xMin + i * cellSize) {
+            i--;
+        } else if (i < nx - 1 && x >= xMin + (i + 1) * cellSize) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the row of the cell that holds a y-coordinate, corrected like {@link #column(double)}.
+     */
+    private int row(double y) {
+        int j = Math.max(0, Math.min(ny - 1, (int) ((y - yMin) / cellSize)));
+        if (j > 0 && y < yMin + j * cellSize) {
+            j--;
+        } else if (j < ny - 1 && y >= yMin + (j + 1) * cellSize) {
+            j++;
+        }
+        return j;
+    }
+
+    /**
+     * Returns the coefficient of kinetic friction at a point.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the coefficient of kinetic friction
+     */
+    public double getKineticFriction(double x, double y) {
+        return kinetic[material(x, y)];
+    }
+
+    /**
+     * Returns the coefficient of static friction at a point.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the coefficient of static friction
+     */
+    public double getStaticFriction(double x, double y) {
+        return statics[material(x, y)];
+    }
+
+    /**
+     * Checks if a point is on sand.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return true if the point lies in a sandbox
+     */
+    public boolean isSand(double x, double y) {
+        return material(x, y) == SAND;
+    }
+}
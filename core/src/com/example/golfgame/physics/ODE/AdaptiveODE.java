@@ -0,0 +1,35 @@
+package com.example.golfgame.physics.ODE;
+
+/**
+ * An ODE solver that chooses its own step size by estimating the local error of every step.
+ * Callers can either integrate to a stopping point as with any {@link ODE}, or take one step at a
+ * time to inspect the state between steps.
+ */
+public interface AdaptiveODE extends ODE {
+
+    /**
+     * Advances the state in place by a single accepted step. The step is as large as the error
+     * tolerances allow, but never larger than {@code maxStepSize}; rejected attempts are retried
+     * with a smaller step before this method returns.
+     *
+     * @param derivatives computes the derivative of every dependent variable from the current state
+     * @param state the values of the dependent variables; overwritten with the state after the step
+     * @param time the value of the independent variable at the start of the step
+     * @param maxStepSize the largest step that may be taken; must be positive
+     * @return the size of the step that was taken
+     *
+     * @throws IllegalArgumentException if maxStepSize is non-positive
+     */
+    double step(Derivatives derivatives, double[] state, double time, double maxStepSize);
+
+    /**
+     * Evaluates the dense output of the last accepted step: a polynomial through the states at both
+     * ends of the step that is accurate anywhere in between, at no extra cost in derivative evaluations.
+     *
+     * @param fraction the point in the step, from 0 at its start to 1 at its end
+     * @param out receives the interpolated value of each dependent variable
+     *
+     * @throws IllegalStateException if no step has been taken yet
+     */
+    void interpolate(double fraction, double[] out);
+}
@@ -0,0 +1,214 @@
+package com.example.golfgame.physics.ODE;
+
+/**
+ * The coefficients of an explicit Runge-Kutta method: the nodes {@code c}, the coupling coefficients
+ * {@code a} below the diagonal and the weights {@code b}. {@link ExplicitRungeKutta} runs every tableau
+ * with the same loop, so adding a method means adding a table. Weights may be given as numerators over
+ * a common denominator, which keeps rational tableaus exact and lets the classical methods round
+ * exactly as their hand-written versions did.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ODE solver = new ExplicitRungeKutta(ButcherTableau.BOGACKI_SHAMPINE);
+ * PhysicsEngine engine = new PhysicsEngine(solver, heightFunction);
+ * }</pre>
+ */
+public final class ButcherTableau {
+    private static final double CONSISTENCY_TOLERANCE = 1e-12; // Rounding allowed when checking rows and weights
+
+    /** The forward Euler method, first order. */
+    public static final ButcherTableau EULER = new ButcherTableau("Euler", 1,
+            new double[]{0},
+            new double[][]{{}},
+            new double[]{1});
+
+    /** The explicit midpoint method, second order. */
+    public static final ButcherTableau MIDPOINT = new ButcherTableau("Midpoint", 2,
+            new double[]{0, 0.5},
+            new double[][]{{}, {0.5}},
+            new double[]{0, 1});
+
+    /** Heun's method, the explicit trapezoidal rule, second order. */
+    public static final ButcherTableau HEUN = new ButcherTableau("Heun", 2,
+            new double[]{0, 1},
+            new double[][]{{}, {1}},
+            new double[]{1, 1}, 2);
+
+    /** Ralston's method, the second-order method with the smallest error bound. */
+    public static final ButcherTableau RALSTON = new ButcherTableau("Ralston", 2,
+            new double[]{0, 0.75},
+            new double[][]{{}, {0.75}},
+            new double[]{1.0 / 3.0, 2.0 / 3.0});
+
+    /**
+     * The third-order solution of the Bogacki-Shampine pair. Its fourth stage only serves the error
+     * estimate, so at a fixed step it is left out.
+     */
+    public static final ButcherTableau BOGACKI_SHAMPINE = new ButcherTableau("Bogacki-Shampine", 3,
+            new double[]{0, 0.5, 0.75},
+            new double[][]{{}, {0.5}, {0, 0.75}},
+            new double[]{4, 6, 8}, 18);
+
+    /** The classical fourth-order Runge-Kutta method. */
+    public static final ButcherTableau RK4 = new ButcherTableau("Runge-Kutta", 4,
+            new double[]{0, 0.5, 0.5, 1},
+            new double[][]{{}, {0.5}, {0, 0.5}, {0, 0, 1}},
+            new double[]{1, 2, 2, 1}, 6);
+
+    /**
+     * The fifth-order solution of the Dormand-Prince pair, known as RK45, taken at a fixed step. Its
+     * seventh stage only serves the error estimate; {@link DormandPrince} uses it to adapt the step.
+     */
+    public static final ButcherTableau RK45 = new ButcherTableau("RK45", 5,
+            new double[]{0, 1.0 / 5, 3.0 / 10, 4.0 / 5, 8.0 / 9, 1},
+            new double[][]{
+                    {},
+                    {1.0 / 5},
+                    {3.0 / 40, 9.0 / 40},
+                    {44.0 / 45, -56.0 / 15, 32.0 / 9},
+                    {19372.0 / 6561, -25360.0 / 2187, 64448.0 / 6561, -212.0 / 729},
+                    {9017.0 / 3168, -355.0 / 33, 46732.0 / 5247, 49.0 / 176, -5103.0 / 18656}},
+            new double[]{12985, 0, 64000, 92750, -45927, 18656}, 142464);
+
+    private final String name;
+    private final int order;
+    private final double[] nodes;
+    private final double[][] coupling;
+    private final double[] weights;
+    private final double weightDenominator;
+
+    /**
+     * Constructs a tableau with weights that sum to one.
+     *
+     * @param name the name of the method
+     * @param order the order of accuracy of the method
+     * @param nodes the node of every stage, the fraction of the step at which it is evaluated
+     * @param coupling for every stage, the coefficients of the earlier stages, so row {@code i} has {@code i} entries
+     * @param weights the weight of every stage in the step
+     *
+     * @throws IllegalArgumentException if the arrays do not fit together or the tableau is inconsistent
+     */
+    public ButcherTableau(String name, int order, double[] nodes, double[][] coupling, double[] weights) {
+        this(name, order, nodes, coupling, weights, 1);
+    }
+
+    /**
+     * Constructs a tableau whose weights are numerators over a common denominator.
+     *
+     * @param name the name of the method
+     * @param order the order of accuracy of the method
+     * @param nodes the node of every stage, the fraction of the step at which it is evaluated
+     * @param coupling for every stage, the coefficients of the earlier stages, so row {@code i} has {@code i} entries
+     * @param weights the numerator of the weight of every stage in the step
+     * @param weightDenominator the common denominator of the weights
+     *
+     * @throws IllegalArgumentException if the arrays do not fit together or the tableau is inconsistent
+     */
+    public ButcherTableau(String name, int order, double[] nodes, double[][] coupling, double[] weights, double weightDenominator) {
+        int stages = nodes.length;
+        if (stages == 0 || coupling.length != stages || weights.length != stages) {
+            throw new IllegalArgumentException("A tableau needs a node, a row of coupling coefficients and a weight for every stage.");
+        }
+        if (order < 1 || !(weightDenominator > 0)) {
+            throw new IllegalArgumentException("Order and weight denominator must be positive.");
+        }
+        double weightSum = 0;
+        for (int i = 0; i < stages; i++) {
+            if (coupling[i].length != i) {
+                throw new IllegalArgumentException("Row " + i + " of an explicit tableau must have " + i + " coefficients.");
+            }
+            double rowSum = 0;
+            for (double a : coupling[i]) {
+                rowSum += a;
+            }
+            if (Math.abs(rowSum - nodes[i]) > CONSISTENCY_TOLERANCE) {
+                throw new IllegalArgumentException("Row " + i + " of the tableau does not sum to its node.");
+            }
+            weightSum += weights[i];
+        }
+        if (Math.abs(weightSum / weightDenominator - 1) > CONSISTENCY_TOLERANCE) {
+            throw new IllegalArgumentException("Weights of the tableau must sum to one.");
+        }
+        this.name = name;
+        this.order = order;
+        this.nodes = nodes.clone();
+        this.coupling = new double[stages][];
+        for (int i = 0; i < stages; i++) {
+            this.coupling[i] = coupling[i].clone();
+        }
+        this.weights = weights.clone();
+        this.weightDenominator = weightDenominator;
+    }
+
+    /**
+     * Returns the name of the method.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the order of accuracy of the method.
+     *
+     * @return the order
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the number of stages, which is the number of derivative evaluations per step.
+     *
+     * @return the number of stages
+     */
+    public int getStages() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the node of a stage.
+     *
+     * @param stage the stage
+     * @return the fraction of the step at which the stage is evaluated
+     */
+    public double getNode(int stage) {
+        return nodes[stage];
+    }
+
+    /**
+     * Returns the coefficient of an earlier stage in the state of a later one.
+     *
+     * @param stage the later stage
+     * @param earlier the earlier stage, below {@code stage}
+     * @return the coupling coefficient
+     */
+    public double getCoupling(int stage, int earlier) {
+        return coupling[stage][earlier];
+    }
+
+    /**
+     * Returns the numerator of the weight of a stage.
+     *
+     * @param stage the stage
+     * @return the numerator of the weight, to be divided by {@link #getWeightDenominator()}
+     */
+    public double getWeight(int stage) {
+        return weights[stage];
+    }
+
+    /**
+     * Returns the common denominator of the weights.
+     *
+     * @return the denominator
+     */
+    public double getWeightDenominator() {
+        return weightDenominator;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.golfgame.physics.ODE;
+
+/**
+ * The equations of motion of a mechanical system whose state holds the positions in its first half and
+ * the velocities in its second half. Besides the full derivative, they give the acceleration split into
+ * a part that does not oppose the velocity and a damping rate, so that a solver can apply the damping as
+ * a force that slows the motion at most to a standstill, rather than letting an explicit friction step
+ * larger than the remaining speed carry the velocity through zero.
+ */
+public interface DampedDerivatives extends Derivatives {
+
+    /**
+     * Computes the acceleration without the damping, and the damping rate.
+     *
+     * @param time the value of the independent variable
+     * @param state the positions followed by the velocities; must not be modified
+     * @param out receives the acceleration without the damping in its velocity half; the position half is left as it is
+     * @return the damping rate {@code r >= 0}, which adds {@code -r * v} to the acceleration
+     */
+    double evaluateUndamped(double time, double[] state, double[] out);
+}
@@ -0,0 +1,18 @@
+package com.example.golfgame.physics.ODE;
+
+/**
+ * The right-hand side of a system of ordinary differential equations written against primitive arrays.
+ * Implementations compute the time derivative of every state component directly, without building
+ * maps or parsing expressions, so solvers can call them in tight loops.
+ */
+public interface Derivatives {
+
+    /**
+     * Computes the derivative of the state at a point in time.
+     *
+     * @param time the value of the independent variable
+     * @param state the current values of the dependent variables; must not be modified
+     * @param out receives the derivative of each dependent variable at the same index
+     */
+    void evaluate(double time, double[] state, double[] out);
+}
@@ -0,0 +1,329 @@
+package com.example.golfgame.physics.ODE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * This class implements the ODE interface with the adaptive Dormand-Prince method (RK45). Every step
+ * computes a fifth-order solution together with an embedded fourth-order one; their difference
+ * estimates the local error, which decides whether the step is accepted and how large the next step
+ * should be. Gentle motion is therefore covered in a few long steps, while steep or fast motion gets
+ * short ones. A step that starts at the time and state where the last accepted step ended, with the
+ * same equations, reuses the derivative evaluated there (first same as last), so it costs six
+ * evaluations rather than seven; callers that change the equations in between must change the time too.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ODE solver = new DormandPrince(1e-6, 1e-6);
+ * PhysicsEngine engine = new PhysicsEngine(solver, heightFunction);
+ * }</pre>
+ */
+public class DormandPrince implements AdaptiveODE {
+    private static final double SAFETY = 0.9; // Keeps the proposed step a little below the predicted optimum
+    private static final double MIN_STEP_SIZE = 1e-7; // Steps are accepted regardless of error below this size
+
+    // Nodes, coupling coefficients and weights of the Dormand-Prince tableau
+    private static final double C2 = 1.0 / 5, C3 = 3.0 / 10, C4 = 4.0 / 5, C5 = 8.0 / 9;
+    private static final double A21 = 1.0 / 5;
+    private static final double A31 = 3.0 / 40, A32 = 9.0 / 40;
+    private static final double A41 = 44.0 / 45, A42 = -56.0 / 15, A43 = 32.0 / 9;
+    private static final double A51 = 19372.0 / 6561, A52 = -25360.0 / 2187, A53 = 64448.0 / 6561, A54 = -212.0 / 729;
+    private static final double A61 = 9017.0 / 3168, A62 = -355.0 / 33, A63 = 46732.0 / 5247, A64 = 49.0 / 176,
+            A65 = -5103.0 / 18656;
+    private static final double B1 = 35.0 / 384, B3 = 500.0 / 1113, B4 = 125.0 / 192, B5 = -2187.0 / 6784, B6 = 11.0 / 84;
+    // Differences between the fifth- and fourth-order weights
+    private static final double E1 = 71.0 / 57600, E3 = -71.0 / 16695, E4 = 71.0 / 1920, E5 = -17253.0 / 339200,
+            E6 = 22.0 / 525, E7 = -1.0 / 40;
+    // Coefficients of the fourth-order continuous extension used for dense output
+    private static final double D1 = -12715105075.0 / 11282082432.0, D3 = 87487479700.0 / 32700410799.0,
+            D4 = -10690763975.0 / 1880347072, D5 = 701980252875.0 / 199316789632.0, D6 = -1453857185.0 / 822651844,
+            D7 = 69997945.0 / 29380423;
+
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
+    private final double minScale;
+    private final double maxScale;
+    // Step size proposed by the error estimate of the last accepted step, or NaN before the first step
+    private double nextStepSize = Double.NaN;
+    // Size of the last accepted step, or 0 before the first step
+    private double lastStepSize;
+    // Equations and end time of the last accepted step, whose k7 is the derivative at its end state
+    private Derivatives lastDerivatives;
+    private double lastEndTime;
+
+    // Scratch buffers, reused across calls so a step allocates nothing
+    private double[] k1 = new double[0];
+    private double[] k2 = new double[0];
+    private double[] k3 = new double[0];
+    private double[] k4 = new double[0];
+    private double[] k5 = new double[0];
+    private double[] k6 = new double[0];
+    private double[] k7 = new double[0];
+    private double[] stage = new double[0];
+    private double[] next = new double[0];
+    private double[] start = new double[0]; // State at the start of the last accepted step
+
+    /**
+     * Constructs a Dormand-Prince solver with absolute and relative tolerances of 1e-6.
+     */
+    public DormandPrince() {
+        this(1e-6, 1e-6);
+    }
+
+    /**
+     * Constructs a Dormand-Prince solver with the given tolerances. A step is accepted when the error
+     * of every variable is within {@code absoluteTolerance + relativeTolerance * |value|}, on average.
+     *
+     * @param absoluteTolerance the error allowed regardless of the magnitude of a variable
+     * @param relativeTolerance the error allowed per unit of magnitude of a variable
+     */
+    public DormandPrince(double absoluteTolerance, double relativeTolerance) {
+        this(absoluteTolerance, relativeTolerance, 0.2, 5.0);
+    }
+
+    /**
+     * Constructs a Dormand-Prince solver with the given tolerances and limits on how quickly the step size may change.
+     *
+     * @param absoluteTolerance the error allowed regardless of the magnitude of a variable
+     * @param relativeTolerance the error allowed per unit of magnitude of a variable
+     * @param minScale the smallest factor a step may shrink by after a rejected step, between 0 and 1
+     * @param maxScale the largest factor a step may grow by after an accepted step, at least 1
+     *
+     * @throws IllegalArgumentException if a tolerance is negative, both are zero, or a limit is out of range
+     */
+    public DormandPrince(double absoluteTolerance, double relativeTolerance, double minScale, double maxScale) {
+        if (absoluteTolerance < 0 || relativeTolerance < 0 || absoluteTolerance + relativeTolerance == 0) {
+            throw new IllegalArgumentException("Tolerances must be non-negative and not both zero.");
+        }
+        if (minScale <= 0 || minScale >= 1 || maxScale < 1) {
+            throw new IllegalArgumentException("Step size limits must satisfy 0 < minScale < 1 <= maxScale.");
+        }
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+    }
+
+    /**
+     * Solves the differential equations with the Dormand-Prince method. The step size adapts to the
+     * error estimate, so the recorded states are not evenly spaced; the last one lies exactly on the
+     * stopping point.
+     *
+     * @param differentials A map of functions representing the differential equations for each dependent variable.
+     * @param initial_state Initial values for all variables including the independent variable.
+     * @param step_size The largest step the solver may take; should be a positive number.
+     * @param stopping_point The value of the independent variable at which to stop the calculations.
+     * @param independent_variable The variable considered as independent, commonly time.
+     * @return A list of maps, each representing the state of the system after an accepted step.
+     *
+     * @throws IllegalArgumentException if step_size is non-positive, or if the initial state does not contain the
+     *                                  independent variable.
+     */
+    @Override
+    public List<Map<String, Double>> solve(Map<String, Function> differentials, Map<String, Double> initial_state, double step_size, double stopping_point, String independent_variable) {
+        if (step_size <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+        if (!initial_state.containsKey(independent_variable)) {
+            throw new IllegalArgumentException("Initial state must include the independent variable.");
+        }
+
+        List<String> dependentVariables = new ArrayList<>();
+        for (String var : differentials.keySet()) {
+            if (!var.equals(independent_variable)) {
+                dependentVariables.add(var);
+            }
+        }
+        double[] state = new double[dependentVariables.size()];
+        for (int j = 0; j < state.length; j++) {
+            state[j] = initial_state.get(dependentVariables.get(j));
+        }
+        Map<String, Double> evaluationState = new HashMap<>(initial_state);
+        Derivatives derivatives = (t, values, out) -> {
+            evaluationState.put(independent_variable, t);
+            for (int j = 0; j < values.length; j++) {
+                evaluationState.put(dependentVariables.get(j), values[j]);
+            }
+            for (int j = 0; j < values.length; j++) {
+                out[j] = differentials.get(dependentVariables.get(j)).evaluate(evaluationState);
+            }
+        };
+
+        List<Map<String, Double>> values = new ArrayList<>();
+        double current_time = initial_state.get(independent_variable);
+        while (stopping_point - current_time > MIN_STEP_SIZE) {
+            current_time += step(derivatives, state, current_time, Math.min(step_size, stopping_point - current_time));
+            Map<String, Double> newState = new HashMap<>();
+            for (int j = 0; j < state.length; j++) {
+                newState.put(dependentVariables.get(j), state[j]);
+            }
+            newState.put(independent_variable, current_time);
+            values.add(newState);
+        }
+        return values;
+    }
+
+    /**
+     * Advances the state in place to the stopping point with as few steps as the tolerances allow.
+     *
+     * @param derivatives computes the derivative of every dependent variable from the current state
+     * @param state the values of the dependent variables; overwritten with the state at the stopping point
+     * @param time the initial value of the independent variable
+     * @param stepSize the largest step the solver may take; must be positive
+     * @param stoppingPoint the value of the independent variable at which to stop
+     * @return the number of accepted steps
+     *
+     * @throws IllegalArgumentException if stepSize is non-positive
+     */
+    @Override
+    public int integrate(Derivatives derivatives, double[] state, double time, double stepSize, double stoppingPoint) {
+        if (stepSize <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+
+        int steps = 0;
+        while (stoppingPoint - time > MIN_STEP_SIZE) {
+            time += step(derivatives, state, time, Math.min(stepSize, stoppingPoint - time));
+            steps++;
+        }
+        return steps;
+    }
+
+    @Override
+    public double step(Derivatives derivatives, double[] state, double time, double maxStepSize) {
+        if (maxStepSize <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+        int n = state.length;
+        ensureScratch(n);
+
+        double proposed = Double.isNaN(nextStepSize) ? maxStepSize : nextStepSize;
+        boolean capped = maxStepSize < proposed;
+        boolean rejected = false;
+        double h = Math.min(proposed, maxStepSize);
+        if (derivatives == lastDerivatives && time == lastEndTime && Arrays.equals(state, next)) {
+            // First same as last: the step continues from where the last one ended, where k7 was evaluated
+            double[] swap = k1;
+            k1 = k7;
+            k7 = swap;
+        } else {
+            derivatives.evaluate(time, state, k1);
+        }
+        while (true) {
+            double error = attempt(derivatives, state, time, h);
+            if (error <= 1 || h <= MIN_STEP_SIZE) {
+                System.arraycopy(state, 0, start, 0, n);
+                System.arraycopy(next, 0, state, 0, n);
+                lastStepSize = h;
+                lastDerivatives = derivatives;
+                lastEndTime = time + h;
+                double scale = error == 0 ? maxScale : Math.min(maxScale, Math.max(1, SAFETY * Math.pow(error, -0.2)));
+                if (rejected) {
+                    // Growing right after a rejection tends to be rejected again
+                    nextStepSize = h;
+                } else if (capped) {
+                    // A step cut short by maxStepSize says nothing about how large the next one may be
+                    nextStepSize = Math.max(h * scale, proposed);
+                } else {
+                    nextStepSize = h * scale;
+                }
+                return h;
+            }
+            double scale = Double.isNaN(error) ? minScale : Math.max(minScale, SAFETY * Math.pow(error, -0.2));
+            h = Math.max(h * scale, MIN_STEP_SIZE);
+            rejected = true;
+        }
+    }
+
+    /**
+     * Evaluates the continuous extension of the last accepted step. It reuses the stages of the step,
+     * matches the states and derivatives at both ends, and is fourth-order accurate in between.
+     *
+     * @param fraction the point in the step, from 0 at its start to 1 at its end
+     * @param out receives the interpolated value of each dependent variable
+     *
+     * @throws IllegalStateException if no step has been taken yet
+     */
+    @Override
+    public void interpolate(double fraction, double[] out) {
+        if (lastStepSize == 0) {
+            throw new IllegalStateException("No step has been taken to interpolate.");
+        }
+        double h = lastStepSize;
+        double rest = 1 - fraction;
+        for (int j = 0; j < start.length; j++) {
+            double change = next[j] - start[j];
+            double startSlope = h * k1[j] - change;
+            double endSlope = change - h * k7[j] - startSlope;
+            double correction = h * (D1 * k1[j] + D3 * k3[j] + D4 * k4[j] + D5 * k5[j] + D6 * k6[j] + D7 * k7[j]);
+            out[j] = start[j] + fraction * (change + rest * (startSlope + fraction * (endSlope + rest * correction)));
+        }
+    }
+
+    /**
+     * Computes a fifth-order step of size {@code h} into the {@code next} buffer, assuming {@code k1}
+     * holds the derivative at the start of the step.
+     *
+     * @return the root mean square of the estimated error of each variable divided by its tolerance
+     */
+    private double attempt(Derivatives derivatives, double[] state, double time, double h) {
+        int n = state.length;
+        for (int j = 0; j < n; j++) {
+            stage[j] = state[j] + h * A21 * k1[j];
+        }
+        derivatives.evaluate(time + C2 * h, stage, k2);
+        for (int j = 0; j < n; j++) {
+            stage[j] = state[j] + h * (A31 * k1[j] + A32 * k2[j]);
+        }
+        derivatives.evaluate(time + C3 * h, stage, k3);
+        for (int j = 0; j < n; j++) {
+            stage[j] = state[j] + h * (A41 * k1[j] + A42 * k2[j] + A43 * k3[j]);
+        }
+        derivatives.evaluate(time + C4 * h, stage, k4);
+        for (int j = 0; j < n; j++) {
+            stage[j] = state[j] + h * (A51 * k1[j] + A52 * k2[j] + A53 * k3[j] + A54 * k4[j]);
+        }
+        derivatives.evaluate(time + C5 * h, stage, k5);
+        for (int j = 0; j < n; j++) {
+            stage[j] = state[j] + h * (A61 * k1[j] + A62 * k2[j] + A63 * k3[j] + A64 * k4[j] + A65 * k5[j]);
+        }
+        derivatives.evaluate(time + h, stage, k6);
+        for (int j = 0; j < n; j++) {
+            next[j] = state[j] + h * (B1 * k1[j] + B3 * k3[j] + B4 * k4[j] + B5 * k5[j] + B6 * k6[j]);
+        }
+        derivatives.evaluate(time + h, next, k7);
+
+        double sum = 0;
+        for (int j = 0; j < n; j++) {
+            double error = h * (E1 * k1[j] + E3 * k3[j] + E4 * k4[j] + E5 * k5[j] + E6 * k6[j] + E7 * k7[j]);
+            double tolerance = absoluteTolerance + relativeTolerance * Math.max(Math.abs(state[j]), Math.abs(next[j]));
+            sum += (error / tolerance) * (error / tolerance);
+        }
+        return Math.sqrt(sum / n);
+    }
+
+    /**
+     * Resizes the scratch buffers if the state length has changed since the last call.
+     *
+     * @param n the number of dependent variables
+     */
+    private void ensureScratch(int n) {
+        if (k1.length != n) {
+            k1 = new double[n];
+            k2 = new double[n];
+            k3 = new double[n];
+            k4 = new double[n];
+            k5 = new double[n];
+            k6 = new double[n];
+            k7 = new double[n];
+            stage = new double[n];
+            next = new double[n];
+            start = new double[n];
+        }
+    }
+}
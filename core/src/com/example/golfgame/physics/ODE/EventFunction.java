@@ -0,0 +1,17 @@
+package com.example.golfgame.physics.ODE;
+
+/**
+ * A continuous function of the state that marks an event, such as the ball entering water or the hole,
+ * by crossing zero. It stays positive while the event has not happened and is zero or negative once it has,
+ * so the moment of the event can be found by root finding within a step instead of by polling every step.
+ */
+public interface EventFunction {
+
+    /**
+     * Evaluates the event function.
+     *
+     * @param state the values of the dependent variables; must not be modified
+     * @return a positive value before the event, zero or negative once it has happened
+     */
+    double value(double[] state);
+}
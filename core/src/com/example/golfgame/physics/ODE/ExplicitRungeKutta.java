@@ -0,0 +1,228 @@
+package com.example.golfgame.physics.ODE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * This class implements the ODE interface with any explicit Runge-Kutta method given by its
+ * {@link ButcherTableau}. Every step evaluates the stages one after another into buffers that are
+ * allocated once and reused, skipping the coefficients of the tableau that are zero, so a step creates
+ * no objects whatever the method.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ODE solver = new ExplicitRungeKutta(ButcherTableau.HEUN);
+ * int steps = solver.integrate(derivatives, state, 0, 0.01, 1);
+ * }</pre>
+ */
+public class ExplicitRungeKutta implements ODE {
+    private final ButcherTableau tableau;
+    private final int stages;
+    private final double[] nodes;
+    // For every stage, the earlier stages with a non-zero coupling coefficient and those coefficients
+    private final int[][] couplingStages;
+    private final double[][] couplingCoefficients;
+    // The stages with a non-zero weight and the numerators of those weights
+    private final int[] weightStages;
+    private final double[] weights;
+    private final double weightDenominator;
+    private final double[][] scaledCoupling; // Coupling coefficients times the step size of the current call
+
+    // Scratch buffers of integrate, reused across calls so a step allocates nothing
+    private double[][] slopes = new double[0][0];
+    private double[] stage = new double[0];
+
+    /**
+     * Constructs a solver for the method of a tableau.
+     *
+     * @param tableau the coefficients of the method
+     */
+    public ExplicitRungeKutta(ButcherTableau tableau) {
+        this.tableau = tableau;
+        this.stages = tableau.getStages();
+        this.nodes = new double[stages];
+        this.couplingStages = new int[stages][];
+        this.couplingCoefficients = new double[stages][];
+        this.scaledCoupling = new double[stages][];
+        for (int i = 0; i < stages; i++) {
+            nodes[i] = tableau.getNode(i);
+            int nonZero = 0;
+            for (int m = 0; m < i; m++) {
+                if (tableau.getCoupling(i, m) != 0) {
+                    nonZero++;
+                }
+            }
+            couplingStages[i] = new int[nonZero];
+            couplingCoefficients[i] = new double[nonZero];
+            scaledCoupling[i] = new double[nonZero];
+            nonZero = 0;
+            for (int m = 0; m < i; m++) {
+                if (tableau.getCoupling(i, m) != 0) {
+                    couplingStages[i][nonZero] = m;
+                    couplingCoefficients[i][nonZero] = tableau.getCoupling(i, m);
+                    nonZero++;
+                }
+            }
+        }
+
+        int nonZero = 0;
+        for (int i = 0; i < stages; i++) {
+            if (tableau.getWeight(i) != 0) {
+                nonZero++;
+            }
+        }
+        this.weightStages = new int[nonZero];
+        this.weights = new double[nonZero];
+        nonZero = 0;
+        for (int i = 0; i < stages; i++) {
+            if (tableau.getWeight(i) != 0) {
+                weightStages[nonZero] = i;
+                weights[nonZero] = tableau.getWeight(i);
+                nonZero++;
+            }
+        }
+        this.weightDenominator = tableau.getWeightDenominator();
+    }
+
+    /**
+     * Returns the tableau of the method.
+     *
+     * @return the tableau
+     */
+    public ButcherTableau getTableau() {
+        return tableau;
+    }
+
+    /**
+     * Solves the differential equations with the method of the tableau, recording the state of the
+     * system after every step.
+     *
+     * @param differentials A map of functions representing the differential equations for each dependent variable.
+     * @param initial_state Initial values for all variables including the independent variable.
+     * @param step_size The change in the independent variable for each step; should be a positive number.
+     * @param stopping_point The value of the independent variable at which to stop the calculations.
+     * @param independent_variable The variable considered as independent, commonly time.
+     * @return A list of maps, each representing the state of the system at successive time steps,
+     *         showing updated values for each dependent and independent variable.
+     *
+     * @throws IllegalArgumentException if step_size is zero or negative, or if the initial state does not contain the
+     *                                  independent variable.
+     */
+    @Override
+    public List<Map<String, Double>> solve(Map<String, Function> differentials, Map<String, Double> initial_state, double step_size, double stopping_point, String independent_variable) {
+        if (step_size <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+        if (!initial_state.containsKey(independent_variable)) {
+            throw new IllegalArgumentException("Initial state must include the independent variable.");
+        }
+
+        List<String> dependentVariables = new ArrayList<>();
+        for (String var : differentials.keySet()) {
+            if (!var.equals(independent_variable)) {
+                dependentVariables.add(var);
+            }
+        }
+        double[] state = new double[dependentVariables.size()];
+        for (int j = 0; j < state.length; j++) {
+            state[j] = initial_state.get(dependentVariables.get(j));
+        }
+        Map<String, Double> evaluationState = new HashMap<>(initial_state);
+        Derivatives derivatives = (t, values, out) -> {
+            evaluationState.put(independent_variable, t);
+            for (int j = 0; j < values.length; j++) {
+                evaluationState.put(dependentVariables.get(j), values[j]);
+            }
+            for (int j = 0; j < values.length; j++) {
+                out[j] = differentials.get(dependentVariables.get(j)).evaluate(evaluationState);
+            }
+        };
+
+        int steps = (int) ((stopping_point - initial_state.get(independent_variable)) / step_size);
+        List<Map<String, Double>> values = new ArrayList<>();
+        double current_time = initial_state.get(independent_variable);
+        for (int i = 0; i < steps; i++) {
+            integrate(derivatives, state, current_time, step_size, current_time + step_size);
+            current_time += step_size;
+            Map<String, Double> newState = new HashMap<>();
+            for (int j = 0; j < state.length; j++) {
+                newState.put(dependentVariables.get(j), state[j]);
+            }
+            newState.put(independent_variable, current_time);
+            values.add(newState);
+        }
+        return values;
+    }
+
+    /**
+     * Advances the state in place with the method of the tableau.
+     *
+     * @param derivatives computes the derivative of every dependent variable from the current state
+     * @param state the values of the dependent variables; overwritten with the state at the last step
+     * @param time the initial value of the independent variable
+     * @param stepSize the increment of the independent variable on each step; must be positive
+     * @param stoppingPoint the value of the independent variable at which to stop
+     * @return the number of steps taken
+     *
+     * @throws IllegalArgumentException if stepSize is non-positive
+     */
+    @Override
+    public int integrate(Derivatives derivatives, double[] state, double time, double stepSize, double stoppingPoint) {
+        if (stepSize <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+
+        int steps = (int) ((stoppingPoint - time) / stepSize);
+        int n = state.length;
+        ensureScratch(n);
+        for (int i = 1; i < stages; i++) {
+            for (int m = 0; m < scaledCoupling[i].length; m++) {
+                scaledCoupling[i][m] = stepSize * couplingCoefficients[i][m];
+            }
+        }
+        double weightScale = stepSize / weightDenominator;
+
+        for (int step = 0; step < steps; step++) {
+            derivatives.evaluate(time, state, slopes[0]);
+            for (int i = 1; i < stages; i++) {
+                int[] earlier = couplingStages[i];
+                double[] coefficients = scaledCoupling[i];
+                for (int j = 0; j < n; j++) {
+                    double value = state[j];
+                    for (int m = 0; m < earlier.length; m++) {
+                        value += coefficients[m] * slopes[earlier[m]][j];
+                    }
+                    stage[j] = value;
+                }
+                derivatives.evaluate(time + nodes[i] * stepSize, stage, slopes[i]);
+            }
+
+            // Combine the slopes with the weights of the tableau to calculate the next state
+            for (int j = 0; j < n; j++) {
+                double sum = weights[0] * slopes[weightStages[0]][j];
+                for (int m = 1; m < weights.length; m++) {
+                    sum += weights[m] * slopes[weightStages[m]][j];
+                }
+                state[j] += weightScale * sum;
+            }
+            time += stepSize;
+        }
+        return Math.max(steps, 0);
+    }
+
+    /**
+     * Resizes the scratch buffers if the state length has changed since the last call.
+     *
+     * @param n the number of dependent variables
+     */
+    private void ensureScratch(int n) {
+        if (stage.length != n || slopes.length != stages) {
+            slopes = new double[stages][n];
+            stage = new double[n];
+        }
+    }
+}
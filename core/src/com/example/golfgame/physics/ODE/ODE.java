@@ -31,4 +31,20 @@ public interface ODE {
      *                                 Such checks ensure that the parameters are valid and meaningful for the numerical solution process.
      */
     public abstract List<Map<String, Double>> solve(Map<String, Function> differentials, Map<String, Double> initial_state, double step_size, double stopping_point, String independent_variable);
+
+    /**
+     * Advances a system of ordinary differential equations in place, without recording intermediate states.
+     * This is the allocation-free counterpart of {@link #solve} for callers that only need the final state.
+     * Implementations reuse scratch buffers between calls, so a solver must not integrate on several threads at once.
+     *
+     * @param derivatives computes the derivative of every dependent variable from the current state
+     * @param state the values of the dependent variables; overwritten with the state at the last step
+     * @param time the initial value of the independent variable
+     * @param stepSize the increment of the independent variable on each step; must be positive
+     * @param stoppingPoint the value of the independent variable at which the calculation will cease
+     * @return the number of steps taken, which is 0 if the stopping point is less than one step away
+     *
+     * @throws IllegalArgumentException if the step size is non-positive
+     */
+    public abstract int integrate(Derivatives derivatives, double[] state, double time, double stepSize, double stoppingPoint);
 }
@@ -0,0 +1,27 @@
+package com.example.golfgame.physics.ODE;
+
+/**
+ * This class implements the ODE interface with the semi-implicit (symplectic) Euler method. Every step
+ * first updates the velocities from the acceleration at the start of the step, with the damping
+ * stopping short of reversing them, and then moves the positions with the new velocities. It costs one
+ * evaluation of the equations per step, a quarter of {@link RungeKutta}, and unlike the explicit Euler
+ * method it does not pump energy into an oscillation, so long slow rolls stay stable.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ODE solver = new SemiImplicitEuler();
+ * PhysicsEngine engine = new PhysicsEngine(solver, heightFunction);
+ * }</pre>
+ */
+public class SemiImplicitEuler extends SplitStepODE {
+
+    @Override
+    protected void step(Derivatives derivatives, DampedDerivatives damped, double[] state, double time, double stepSize) {
+        int half = state.length / 2;
+        double rate = evaluateAcceleration(derivatives, damped, time, state);
+        kick(state, state, state, half, rate, stepSize);
+        for (int j = 0; j < half; j++) {
+            state[j] += stepSize * state[j + half];
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.golfgame.physics.ODE;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The solvers the game can choose from, by name. Solvers keep scratch buffers and cannot be shared
+ * between engines, so the registry holds a factory per name and hands out a new solver on every call.
+ * Every built-in method is registered; a solver registered later takes part in
+ * {@link com.example.golfgame.physics.SolverCalibration} like the built-in ones.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * SolverRegistry.register("Heun", () -> new ExplicitRungeKutta(ButcherTableau.HEUN));
+ * ODE solver = SolverRegistry.create("VelocityVerlet");
+ * }</pre>
+ */
+public final class SolverRegistry {
+    private static final Map<String, Supplier<ODE>> factories = new LinkedHashMap<>();
+
+    static {
+        register("Euler", Euler::new);
+        register("Midpoint", Midpoint::new);
+        register("Heun", () -> new ExplicitRungeKutta(ButcherTableau.HEUN));
+        register("Ralston", Ralston::new);
+        register("Bogacki-Shampine", () -> new ExplicitRungeKutta(ButcherTableau.BOGACKI_SHAMPINE));
+        register("RungeKutta", RungeKutta::new);
+        register("RK45", () -> new ExplicitRungeKutta(ButcherTableau.RK45));
+        register("DormandPrince", DormandPrince::new);
+        register("SemiImplicitEuler", SemiImplicitEuler::new);
+        register("VelocityVerlet", VelocityVerlet::new);
+    }
+
+    private SolverRegistry() {
+    }
+
+    /**
+     * Registers a solver under a name.
+     *
+     * @param name the name of the solver
+     * @param factory creates a new solver on every call
+     *
+     * @throws IllegalArgumentException if the name is already taken
+     */
+    public static synchronized void register(String name, Supplier<ODE> factory) {
+        if (factories.containsKey(name)) {
+            throw new IllegalArgumentException("A solver is already registered as " + name + ".");
+        }
+        factories.put(name, factory);
+    }
+
+    /**
+     * Creates a new solver.
+     *
+     * @param name the name the solver was registered under
+     * @return the solver
+     *
+     * @throws IllegalArgumentException if no solver is registered under the name
+     */
+    public static synchronized ODE create(String name) {
+        Supplier<ODE> factory = factories.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("No solver is registered as " + name + ".");
+        }
+        return factory.get();
+    }
+
+    /**
+     * Returns the names of the registered solvers, in the order they were registered.
+     *
+     * @return a copy of the names
+     */
+    public static synchronized List<String> getNames() {
+        return new ArrayList<>(factories.keySet());
+    }
+}
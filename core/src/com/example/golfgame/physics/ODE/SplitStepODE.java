@@ -0,0 +1,191 @@
+package com.example.golfgame.physics.ODE;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * The base of solvers that update the velocities and the positions of a mechanical system in separate
+ * substeps instead of moving the whole state along a weighted slope. The state holds the positions in
+ * its first half and the matching velocities in its second half. When the equations are
+ * {@link DampedDerivatives}, a kick applies the damping as a force against the motion that can at most
+ * cancel it, so friction brings a ball to rest instead of turning it around; other equations are
+ * taken as undamped.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ODE solver = new SemiImplicitEuler();
+ * PhysicsEngine engine = new PhysicsEngine(solver, heightFunction);
+ * }</pre>
+ */
+public abstract class SplitStepODE implements ODE {
+    protected double[] acceleration = new double[0]; // Velocity half holds the undamped acceleration of the last evaluation
+
+    /**
+     * Solves the differential equations, recording the state of the system after every step. The
+     * dependent variables are read in the iteration order of {@code differentials}, which must list
+     * the positions first and then the velocities in the same order, as a {@link java.util.LinkedHashMap} can.
+     *
+     * @param differentials A map of functions representing the differential equations for each dependent variable.
+     * @param initial_state Initial values for all variables including the independent variable.
+     * @param step_size The change in the independent variable for each step; should be a positive number.
+     * @param stopping_point The value of the independent variable at which to stop the calculations.
+     * @param independent_variable The variable considered as independent, commonly time.
+     * @return A list of maps, each representing the state of the system at successive time steps.
+     *
+     * @throws IllegalArgumentException if step_size is zero or negative, if the initial state does not contain the
+     *                                  independent variable, or if the dependent variables cannot be split in halves.
+     */
+    @Override
+    public List<Map<String, Double>> solve(Map<String, Function> differentials, Map<String, Double> initial_state, double step_size, double stopping_point, String independent_variable) {
+        if (step_size <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+        if (!initial_state.containsKey(independent_variable)) {
+            throw new IllegalArgumentException("Initial state must include the independent variable.");
+        }
+
+        List<String> dependentVariables = new ArrayList<>();
+        for (String var : differentials.keySet()) {
+            if (!var.equals(independent_variable)) {
+                dependentVariables.add(var);
+            }
+        }
+        double[] state = new double[dependentVariables.size()];
+        for (int j = 0; j < state.length; j++) {
+            state[j] = initial_state.get(dependentVariables.get(j));
+        }
+        Map<String, Double> evaluationState = new HashMap<>(initial_state);
+        Derivatives derivatives = (t, values, out) -> {
+            evaluationState.put(independent_variable, t);
+            for (int j = 0; j < values.length; j++) {
+                evaluationState.put(dependentVariables.get(j), values[j]);
+            }
+            for (int j = 0; j < values.length; j++) {
+                out[j] = differentials.get(dependentVariables.get(j)).evaluate(evaluationState);
+            }
+        };
+
+        int steps = (int) ((stopping_point - initial_state.get(independent_variable)) / step_size);
+        List<Map<String, Double>> values = new ArrayList<>();
+        double current_time = initial_state.get(independent_variable);
+        for (int i = 0; i < steps; i++) {
+            integrate(derivatives, state, current_time, step_size, current_time + step_size);
+            current_time += step_size;
+            Map<String, Double> newState = new HashMap<>();
+            for (int j = 0; j < state.length; j++) {
+                newState.put(dependentVariables.get(j), state[j]);
+            }
+            newState.put(independent_variable, current_time);
+            values.add(newState);
+        }
+        return values;
+    }
+
+    /**
+     * Advances the state in place, one split step at a time.
+     *
+     * @param derivatives computes the derivative of every dependent variable from the current state
+     * @param state the positions followed by the velocities; overwritten with the state at the last step
+     * @param time the initial value of the independent variable
+     * @param stepSize the increment of the independent variable on each step; must be positive
+     * @param stoppingPoint the value of the independent variable at which to stop
+     * @return the number of steps taken
+     *
+     * @throws IllegalArgumentException if stepSize is non-positive or the state has an odd length
+     */
+    @Override
+    public int integrate(Derivatives derivatives, double[] state, double time, double stepSize, double stoppingPoint) {
+        if (stepSize <= 0) {
+            throw new IllegalArgumentException("Step size must be positive.");
+        }
+        if (state.length % 2 != 0) {
+            throw new IllegalArgumentException("State must hold the positions followed by as many velocities.");
+        }
+
+        int steps = (int) ((stoppingPoint - time) / stepSize);
+        int n = state.length;
+        if (acceleration.length != n) {
+            acceleration = new double[n];
+            resizeScratch(n);
+        }
+        DampedDerivatives damped = derivatives instanceof DampedDerivatives ? (DampedDerivatives) derivatives : null;
+        for (int i = 0; i < steps; i++) {
+            step(derivatives, damped, state, time, stepSize);
+            time += stepSize;
+        }
+        return Math.max(steps, 0);
+    }
+
+    /**
+     * Evaluates the undamped acceleration into the velocity half of {@link #acceleration}.
+     *
+     * @param derivatives the equations of motion
+     * @param damped the same equations if they separate the damping, or null
+     * @param time the value of the independent variable
+     * @param state the positions followed by the velocities
+     * @return the damping rate, or 0 if the equations do not separate it
+     */
+    protected double evaluateAcceleration(Derivatives derivatives, DampedDerivatives damped, double time, double[] state) {
+        if (damped != null) {
+            return damped.evaluateUndamped(time, state, acceleration);
+        }
+        derivatives.evaluate(time, state, acceleration);
+        return 0;
+    }
+
+    /**
+     * Kicks the velocities with the acceleration in the velocity half of {@link #acceleration} and a
+     * damping of {@code -rate * reference}. If the damping over the kick is at least the speed the
+     * acceleration leaves, the velocities stop at zero instead of passing through it.
+     *
+     * @param velocities the array whose second half receives the kicked velocities
+     * @param from the array holding the velocities before the kick in its second half; may be {@code velocities}
+     * @param reference the array holding the velocities the damping opposes in its second half; may be either of the others
+     * @param half the number of positions, where the velocities start
+     * @param rate the damping rate
+     * @param duration the length of the kick
+     */
+    protected void kick(double[] velocities, double[] from, double[] reference, int half, double rate, double duration) {
+        if (rate != 0) {
+            double kickedSquared = 0;
+            double referenceSquared = 0;
+            for (int j = half; j < velocities.length; j++) {
+                double kicked = from[j] + duration * acceleration[j];
+                kickedSquared += kicked * kicked;
+                referenceSquared += reference[j] * reference[j];
+            }
+            if (duration * rate * Math.sqrt(referenceSquared) >= Math.sqrt(kickedSquared)) {
+                for (int j = half; j < velocities.length; j++) {
+                    velocities[j] = 0;
+                }
+                return;
+            }
+        }
+        for (int j = half; j < velocities.length; j++) {
+            velocities[j] = from[j] + duration * (acceleration[j] - rate * reference[j]);
+        }
+    }
+
+    /**
+     * Resizes the buffers of a subclass when the state length changes.
+     *
+     * @param n the number of dependent variables
+     */
+    protected void resizeScratch(int n) {
+    }
+
+    /**
+     * Advances the state in place by one step.
+     *
+     * @param derivatives the equations of motion
+     * @param damped the same equations if they separate the damping, or null
+     * @param state the positions followed by the velocities; overwritten with the state after the step
+     * @param time the value of the independent variable at the start of the step
+     * @param stepSize the size of the step
+     */
+    protected abstract void step(Derivatives derivatives, DampedDerivatives damped, double[] state, double time, double stepSize);
+}
@@ -1,8 +1,10 @@
 package com.example.golfgame.physics;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.example.golfgame.physics.ODE.*;
 import com.example.golfgame.utils.BallState;
@@ -14,6 +16,8 @@ import com.example.golfgame.utils.Function;
  * and kinetic friction.
  */
 public class PhysicsEngine {
+    // Whether an engine has reported falling back to numerical derivatives, which is only worth saying once
+    private static final AtomicBoolean numericalFallbackReported = new AtomicBoolean();
     private ODE solver;
     private Function surfaceFunction;
     private double g = 9.81; // Acceleration due to gravity, m/s^2
@@ -22,6 +26,39 @@ public class PhysicsEngine {
     private double deltaX = 0.01; // Increment for numerical derivative in x-direction
     private double deltaY = 0.01; // Increment for numerical derivative in y-direction
     private double deltaDirection = 0.01; // Increment for numerical derivative in given direction
+    // Whether the surface gradient is evaluated symbolically instead of with finite differences
+    private boolean symbolicGradient;
+    // Friction of the ground per position, overriding mu_k and mu_s, or null
+    private MaterialField materialField;
+    private WindField windField;
+    // Precomputed surface answering slope queries instead of the surface function, or null
+    private SurfaceLattice surfaceLattice;
+    // Height and gradient (h, hx, hy) from the last call to sampleSurface
+    private final double[] surfaceSample = new double[3];
+    // Symbolic second partial derivatives of the surface, or null where only finite differences are possible
+    private Function surfaceDxx;
+    private Function surfaceDxy;
+    private Function surfaceDyy;
+    // Rest, static friction and event rules shared with the batch integrator
+    private final StepRules rules;
+    // Closed-form equations of motion handed to the solver
+    private final BallDynamics dynamics;
+    // State {x, y, vx, vy} that BallState updates are integrated in
+    private final double[] stateBuffer = new double[BallDynamics.STATE_SIZE];
+    // Number of solver steps taken so far
+    private long stepCount;
+    // Time handed to an adaptive solver, running on across updates so a step can start where the last one ended
+    private double solverTime;
+    // Finishes rolls on near-planar ground without stepping, or null to always integrate
+    private StoppingPredictor stoppingPredictor;
+    // Events that end an update at the moment their function crosses zero
+    private final List<EventFunction> events = new ArrayList<>();
+    // Value of every event function at the start of the current step
+    private double[] eventValues = new double[0];
+    // The event that ended the last update, or null if none did
+    private EventFunction triggeredEvent;
+    // State at the start of the current step
+    private final double[] stepStart = new double[BallDynamics.STATE_SIZE];
 
     /**
      * Constructs a PhysicsEngine with a specific ODE solver and a surface function.
@@ -32,6 +69,9 @@ public class PhysicsEngine {
     public PhysicsEngine(ODE solver, Function surfaceFunction) {
         this.solver = solver;
         this.surfaceFunction = surfaceFunction;
+        this.rules = new StepRules(g, mu_k, mu_s, this::sampleSurface);
+        this.dynamics = rules.getDynamics();
+        initializeDerivatives();
     }
 
     /**
@@ -47,6 +87,31 @@ public class PhysicsEngine {
         this.surfaceFunction = surfaceFunction;
         this.mu_k = mu_k;
         this.mu_s = mu_s;
+        this.rules = new StepRules(g, mu_k, mu_s, this::sampleSurface);
+        this.dynamics = rules.getDynamics();
+        initializeDerivatives();
+    }
+
+    /**
+     * Differentiates the surface function symbolically, so slopes and curvatures are exact
+     * instead of finite-difference estimates. Surfaces that cannot be differentiated keep
+     * using the numerical stencils.
+     */
+    private void initializeDerivatives() {
+        Function surfaceDx = null;
+        Function surfaceDy = null;
+        try {
+            surfaceDx = surfaceFunction.derivative("x");
+            surfaceDy = surfaceFunction.derivative("y");
+        } catch (IllegalArgumentException e) {
+            if (numericalFallbackReported.compareAndSet(false, true)) {
+                System.err.println("Surface function is not a function of x and y, using numerical derivatives.");
+            }
+        }
+        symbolicGradient = surfaceDx != null && surfaceDy != null;
+        surfaceDxx = surfaceDx == null ? null : surfaceDx.derivative("x");
+        surfaceDxy = surfaceDx == null ? null : surfaceDx.derivative("y");
+        surfaceDyy = surfaceDy == null ? null : surfaceDy.derivative("y");
     }
 
     /**
@@ -58,6 +123,58 @@ public class PhysicsEngine {
     public void setFriction(double mu_k, double mu_s) {
         this.mu_k = mu_k;
         this.mu_s = mu_s;
+        rules.setFriction(mu_k, mu_s);
+        restartSolverTime();
+    }
+
+    /**
+     * Returns the coefficient of kinetic friction.
+     *
+     * @return the coefficient of kinetic friction
+     */
+    public double getKineticFriction() {
+        return mu_k;
+    }
+
+    /**
+     * Returns the coefficient of static friction.
+     *
+     * @return the coefficient of static friction
+     */
+    public double getStaticFriction() {
+        return mu_s;
+    }
+
+    /**
+     * Evaluates the height and both slopes of the surface at a point. With a surface lattice this is
+     * an interpolation between precomputed nodes; with a symbolic gradient it is one fused pass over
+     * the surface expression; otherwise the slopes come from the finite-difference stencils.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the engine's sample buffer holding the height, the x-slope and the y-slope, valid until the next call
+     */
+    double[] sampleSurface(double x, double y) {
+        sampleSurface(x, y, surfaceSample);
+        return surfaceSample;
+    }
+
+    /**
+     * Evaluates the height and both slopes of the surface at a point into a buffer of the caller's. It
+     * only reads the surface, so it is safe to call from any thread.
+     *
+     * @param out receives the height, the x-slope and the y-slope
+     */
+    private void sampleSurface(double x, double y, double[] out) {
+        if (surfaceLattice != null) {
+            surfaceLattice.sample(x, y, out);
+        } else if (symbolicGradient) {
+            surfaceFunction.evaluateWithGradient(x, y, out);
+        } else {
+            out[0] = surfaceFunction.evaluate(x, y);
+            out[1] = derivativeX(x, y);
+            out[2] = derivativeY(x, y);
+        }
     }
 
     /**
@@ -68,28 +185,17 @@ public class PhysicsEngine {
      * @return the derivative value along the x-axis
      */
     private double derivativeX(double x, double y) {
-        Map<String, Double> valuesOneStepAhead = new HashMap<>();
-        Map<String, Double> valuesOneStepBehind = new HashMap<>();
-        Map<String, Double> valuesTwoStepsAhead = new HashMap<>();
-        Map<String, Double> valuesTwoStepsBehind = new HashMap<>();
-        
+        if (symbolicGradient) {
+            return sampleSurface(x, y)[1];
+        }
         double h = deltaX;
-    
-        valuesOneStepAhead.put("x", x + h);
-        valuesOneStepAhead.put("y", y);
-        valuesOneStepBehind.put("x", x - h);
-        valuesOneStepBehind.put("y", y);
-        valuesTwoStepsAhead.put("x", x + 2 * h);
-        valuesTwoStepsAhead.put("y", y);
-        valuesTwoStepsBehind.put("x", x - 2 * h);
-        valuesTwoStepsBehind.put("y", y);
-    
-        double derivative = (-surfaceFunction.evaluate(valuesTwoStepsAhead) 
-                             + 8 * surfaceFunction.evaluate(valuesOneStepAhead)
-                             - 8 * surfaceFunction.evaluate(valuesOneStepBehind)
-                             + surfaceFunction.evaluate(valuesTwoStepsBehind)) 
+
+        double derivative = (-surfaceFunction.evaluate(x + 2 * h, y)
+                             + 8 * surfaceFunction.evaluate(x + h, y)
+                             - 8 * surfaceFunction.evaluate(x - h, y)
+                             + surfaceFunction.evaluate(x - 2 * h, y))
                             / (12 * h);
-    
+
         return derivative;
     }
 
@@ -101,33 +207,24 @@ public class PhysicsEngine {
      * @return the derivative value along the y-axis
      */
     private double derivativeY(double x, double y) {
-        Map<String, Double> valuesOneStepAhead = new HashMap<>();
-        Map<String, Double> valuesOneStepBehind = new HashMap<>();
-        Map<String, Double> valuesTwoStepsAhead = new HashMap<>();
-        Map<String, Double> valuesTwoStepsBehind = new HashMap<>();
-        
+        if (symbolicGradient) {
+            return sampleSurface(x, y)[2];
+        }
         double h = deltaY;
-    
-        valuesOneStepAhead.put("x", x);
-        valuesOneStepAhead.put("y", y + h);
-        valuesOneStepBehind.put("x", x);
-        valuesOneStepBehind.put("y", y - h);
-        valuesTwoStepsAhead.put("x", x);
-        valuesTwoStepsAhead.put("y", y + 2 * h);
-        valuesTwoStepsBehind.put("x", x);
-        valuesTwoStepsBehind.put("y", y - 2 * h);
-    
-        double derivative = (-surfaceFunction.evaluate(valuesTwoStepsAhead) 
-                             + 8 * surfaceFunction.evaluate(valuesOneStepAhead)
-                             - 8 * surfaceFunction.evaluate(valuesOneStepBehind)
-                             + surfaceFunction.evaluate(valuesTwoStepsBehind)) 
+
+        double derivative = (-surfaceFunction.evaluate(x, y + 2 * h)
+                             + 8 * surfaceFunction.evaluate(x, y + h)
+                             - 8 * surfaceFunction.evaluate(x, y - h)
+                             + surfaceFunction.evaluate(x, y - 2 * h))
                             / (12 * h);
-    
+
         return derivative;
     }
 
     /**
      * Calculates the derivative of the surface function along the direction vector at a given point.
+     * Unlike the rest of the engine this only reads the surface, so bots may call it from their own
+     * threads while the engine is stepped elsewhere.
      * 
      * @param x the x-coordinate at which to calculate the derivative
      * @param y the y-coordinate at which to calculate the derivative
@@ -136,25 +233,19 @@ public class PhysicsEngine {
      * @return the derivative along the direction axis
      */
     public double derivative(double x, double y, double xDirection, double yDirection){
-        Map<String, Double> valuesOneStepAhead = new HashMap<>();
-        Map<String, Double> valuesOneStepBehind = new HashMap<>();
-        Map<String, Double> valuesTwoStepsAhead = new HashMap<>();
-        Map<String, Double> valuesTwoStepsBehind = new HashMap<>();
-        
+        if (symbolicGradient) {
+            // Directional derivative: gradient dotted with the direction, sampled into a buffer of this call
+            // since the engine's own buffer belongs to the thread that steps it
+            double[] sample = new double[3];
+            sampleSurface(x, y, sample);
+            return sample[1] * xDirection + sample[2] * yDirection;
+        }
         double h = deltaDirection;
-        valuesOneStepAhead.put("x", x + xDirection * h);
-        valuesOneStepAhead.put("y", y + yDirection * h);
-        valuesOneStepBehind.put("x", x - xDirection * h);
-        valuesOneStepBehind.put("y", y - yDirection * h);
-        valuesTwoStepsAhead.put("x", x + xDirection * 2 * h);
-        valuesTwoStepsAhead.put("y", y + yDirection * 2 * h);
-        valuesTwoStepsBehind.put("x", x - xDirection * 2 * h);
-        valuesTwoStepsBehind.put("y", y - yDirection * 2 * h);
-
-        double derivative = (-surfaceFunction.evaluate(valuesTwoStepsAhead) 
-                             + 8 * surfaceFunction.evaluate(valuesOneStepAhead)
-                             - 8 * surfaceFunction.evaluate(valuesOneStepBehind)
-                             + surfaceFunction.evaluate(valuesTwoStepsBehind)) 
+
+        double derivative = (-surfaceFunction.evaluate(x + xDirection * 2 * h, y + yDirection * 2 * h)
+                             + 8 * surfaceFunction.evaluate(x + xDirection * h, y + yDirection * h)
+                             - 8 * surfaceFunction.evaluate(x - xDirection * h, y - yDirection * h)
+                             + surfaceFunction.evaluate(x - xDirection * 2 * h, y - yDirection * 2 * h))
                             / (12 * h);
 
         return derivative;
@@ -162,6 +253,7 @@ public class PhysicsEngine {
 
     /**
      * Calculates the second derivative of the surface function along the direction vector at a given point.
+     * Like {@link #derivative(double, double, double, double)} it is safe to call from any thread.
      * 
      * @param x the x-coordinate at which to calculate the second derivative
      * @param y the y-coordinate at which to calculate the second derivative
@@ -170,29 +262,19 @@ public class PhysicsEngine {
      * @return the second derivative along the direction axis
      */
     public double secondDerivative(double x, double y, double xDirection, double yDirection){
-        Map<String, Double> valuesOneStepAhead = new HashMap<>();
-        Map<String, Double> valuesOneStepBehind = new HashMap<>();
-        Map<String, Double> valuesTwoStepsAhead = new HashMap<>();
-        Map<String, Double> valuesTwoStepsBehind = new HashMap<>();
-        Map<String, Double> currentValues = new HashMap<>();
-        
+        if (surfaceDxx != null && surfaceDxy != null && surfaceDyy != null) {
+            // Curvature along the direction: d^T H d with the Hessian of the surface
+            return xDirection * xDirection * surfaceDxx.evaluate(x, y)
+                    + 2 * xDirection * yDirection * surfaceDxy.evaluate(x, y)
+                    + yDirection * yDirection * surfaceDyy.evaluate(x, y);
+        }
         double h = deltaDirection;
-        valuesOneStepAhead.put("x", x + xDirection * h);
-        valuesOneStepAhead.put("y", y + yDirection * h);
-        valuesOneStepBehind.put("x", x - xDirection * h);
-        valuesOneStepBehind.put("y", y - yDirection * h);
-        valuesTwoStepsAhead.put("x", x + xDirection * 2 * h);
-        valuesTwoStepsAhead.put("y", y + yDirection * 2 * h);
-        valuesTwoStepsBehind.put("x", x - xDirection * 2 * h);
-        valuesTwoStepsBehind.put("y", y - yDirection * 2 * h);
-        currentValues.put("x", x);
-        currentValues.put("y", y);
-
-        double derivative = (-surfaceFunction.evaluate(valuesTwoStepsAhead) 
-                             + 16 * surfaceFunction.evaluate(valuesOneStepAhead)
-                             - 30 * surfaceFunction.evaluate(currentValues)
-                             + 16 * surfaceFunction.evaluate(valuesOneStepBehind)
-                             - surfaceFunction.evaluate(valuesTwoStepsBehind)) 
+
+        double derivative = (-surfaceFunction.evaluate(x + xDirection * 2 * h, y + yDirection * 2 * h)
+                             + 16 * surfaceFunction.evaluate(x + xDirection * h, y + yDirection * h)
+                             - 30 * surfaceFunction.evaluate(x, y)
+                             + 16 * surfaceFunction.evaluate(x - xDirection * h, y - yDirection * h)
+                             - surfaceFunction.evaluate(x - xDirection * 2 * h, y - yDirection * 2 * h))
                             / (12 * Math.pow(h, 2));
 
         return derivative;
@@ -200,13 +282,15 @@ public class PhysicsEngine {
 
     /**
      * Generates a map of differential equations representing the dynamics of the ball based on its current state.
+     * The engine itself integrates {@link BallDynamics}; this form is kept for callers of the map-based solvers.
      *
      * @param ballState the current state of the ball including position and velocity
      * @return a map of differential equations for each state variable
      */
     public Map<String, Function> getDifferentialEquations(BallState ballState) {
-        double dx = derivativeX(ballState.getX(), ballState.getY());
-        double dy = derivativeY(ballState.getX(), ballState.getY());
+        double[] sample = sampleSurface(ballState.getX(), ballState.getY());
+        double dx = sample[1];
+        double dy = sample[2];
 
         String expressionVx = ((-g * dx) / (1 + Math.pow(dx, 2) + Math.pow(dy, 2))) + "-"
                 + ((mu_k * g) / (Math.sqrt(1 + Math.pow(dx, 2) + Math.pow(dy, 2)))) + "*(vx/sqrt(vx^2 + vy^2 + (" + dx
@@ -232,6 +316,7 @@ public class PhysicsEngine {
      * @return the final state of the ball after simulation
      */
     public BallState update(BallState ballState, double stepSize) {
+        triggeredEvent = null;
         if (isAtRest(ballState)) {
             if (canOvercomeStaticFriction(ballState)) {
                 return updateWithKineticFriction(ballState, stepSize);
@@ -251,6 +336,7 @@ public class PhysicsEngine {
      * @return the final state of the ball after simulation
      */
     public BallState updateToCertaintTime(BallState ballState, double stepSize, double time) {
+        triggeredEvent = null;
         if (isAtRest(ballState)) {
             if (canOvercomeStaticFriction(ballState)) {
                 return updateWithKineticFriction(ballState, stepSize, time);
@@ -261,6 +347,25 @@ public class PhysicsEngine {
         }
     }
 
+    /**
+     * Updates a ball state held in an array in place, using the specified step size. Unlike
+     * {@link #update(BallState, double)} this creates no objects, so it suits long rollouts
+     * and searches that step the ball millions of times.
+     *
+     * @param state the state {@code {x, y, vx, vy}} of the ball, overwritten with the new state
+     * @param stepSize the time step size for the simulation
+     * @return the state array
+     */
+    public double[] update(double[] state, double stepSize) {
+        triggeredEvent = null;
+        if (isAtRest(state[BallDynamics.VX], state[BallDynamics.VY])
+                && !canOvercomeStaticFriction(state[BallDynamics.X], state[BallDynamics.Y])) {
+            return state;
+        }
+        integrate(state, stepSize, stepSize);
+        return state;
+    }
+
     /**
      * Checks if the ball is at rest based on its velocity.
      *
@@ -268,7 +373,18 @@ public class PhysicsEngine {
      * @return true if the ball is at rest, false otherwise
      */
     public boolean isAtRest(BallState ballState) {
-        return Math.abs(ballState.getVx()) < 0.001 && Math.abs(ballState.getVy()) < 0.001;
+        return isAtRest(ballState.getVx(), ballState.getVy());
+    }
+
+    /**
+     * Checks if a ball with the given velocity is at rest.
+     *
+     * @param vx the velocity along the x-axis
+     * @param vy the velocity along the y-axis
+     * @return true if the ball is at rest, false otherwise
+     */
+    public boolean isAtRest(double vx, double vy) {
+        return StepRules.isAtRest(vx, vy);
     }
 
     /**
@@ -278,13 +394,11 @@ public class PhysicsEngine {
      * @return true if the ball can overcome static friction, false otherwise
      */
     private boolean canOvercomeStaticFriction(BallState ballState) {
-        double dx = derivativeX(ballState.getX(), ballState.getY());
-        double dy = derivativeY(ballState.getX(), ballState.getY());
-        double normalForce = g * (1 + Math.pow(dx, 2) + Math.pow(dy, 2));
-        double staticFrictionForce = mu_s * normalForce;
-        double gravitationalComponent = g * Math.sqrt(dx * dx + dy * dy);
+        return canOvercomeStaticFriction(ballState.getX(), ballState.getY());
+    }
 
-        return gravitationalComponent > staticFrictionForce;
+    boolean canOvercomeStaticFriction(double x, double y) {
+        return rules.canOvercomeStaticFriction(x, y);
     }
 
     /**
@@ -295,59 +409,130 @@ public class PhysicsEngine {
      * @return the final state of the ball after simulation
      */
     private BallState updateWithKineticFriction(BallState ballState, double stepSize) {
-        Map<String, Function> differentials = getDifferentialEquations(ballState);
-        Map<String, Double> initialState = new HashMap<>();
-        initialState.put("x", ballState.getX());
-        initialState.put("y", ballState.getY());
-        initialState.put("vx", ballState.getVx());
-        initialState.put("vy", ballState.getVy());
-        initialState.put("t", 0.0);
+        return updateWithKineticFriction(ballState, stepSize, stepSize);
+    }
 
-        List<Map<String, Double>> results = solver.solve(differentials, initialState, stepSize, stepSize, "t");
+    /**
+     * Updates the state of the ball with kinetic friction to a certain time using the specified step size.
+     * The equations of motion are evaluated by the closed-form {@link BallDynamics} kernel.
+     *
+     * @param ballState the initial state of the ball
+     * @param stepSize the time step size for the simulation
+     * @param time the total time duration for the simulation
+     * @return the final state of the ball after simulation
+     */
+    private BallState updateWithKineticFriction(BallState ballState, double stepSize, double time) {
+        stateBuffer[BallDynamics.X] = ballState.getX();
+        stateBuffer[BallDynamics.Y] = ballState.getY();
+        stateBuffer[BallDynamics.VX] = ballState.getVx();
+        stateBuffer[BallDynamics.VY] = ballState.getVy();
 
-        if (results.isEmpty()) {
-            System.err.println("No states were returned by the ODE solver.");
+        if (integrate(stateBuffer, stepSize, time) == 0) {
             return ballState;
         }
 
-        Map<String, Double> finalState = results.get(results.size() - 1);
-        ballState.setX(finalState.get("x"));
-        ballState.setY(finalState.get("y"));
-        ballState.setVx(finalState.get("vx"));
-        ballState.setVy(finalState.get("vy"));
+        ballState.setX(stateBuffer[BallDynamics.X]);
+        ballState.setY(stateBuffer[BallDynamics.Y]);
+        ballState.setVx(stateBuffer[BallDynamics.VX]);
+        ballState.setVy(stateBuffer[BallDynamics.VY]);
         return ballState;
     }
 
     /**
-     * Updates the state of the ball with kinetic friction to a certain time using the specified step size.
+     * Integrates the equations of motion in place. The solver samples the slope at every stage position.
+     * An adaptive solver is stepped one accepted step at a time, with {@code stepSize} as the largest
+     * step it may take, until the full duration is covered.
      *
-     * @param ballState the initial state of the ball
+     * <p>Steps that bring the ball to rest stop it: small steps always land inside the rest threshold,
+     * but a larger step can jump from one side of zero velocity to the other, and kinetic friction would
+     * then flip the velocity back and forth instead of stopping the ball. A step in which an event
+     * function crosses zero ends the integration at the moment of the crossing.</p>
+     *
+     * @param state the state {@code {x, y, vx, vy}} of the ball, overwritten with the new state
      * @param stepSize the time step size for the simulation
      * @param time the total time duration for the simulation
-     * @return the final state of the ball after simulation
+     * @return the number of steps the solver took
      */
-    private BallState updateWithKineticFriction(BallState ballState, double stepSize, double time) {
-        Map<String, Function> differentials = getDifferentialEquations(ballState);
-        Map<String, Double> initialState = new HashMap<>();
-        initialState.put("x", ballState.getX());
-        initialState.put("y", ballState.getY());
-        initialState.put("vx", ballState.getVx());
-        initialState.put("vy", ballState.getVy());
-        initialState.put("t", 0.0);
+    private int integrate(double[] state, double stepSize, double time) {
+        if (solver instanceof AdaptiveODE) {
+            return integrateAdaptive((AdaptiveODE) solver, state, stepSize, time);
+        }
+        int steps = (int) (time / stepSize);
+        if (steps <= 0) {
+            System.err.println("No states were returned by the ODE solver.");
+            return 0;
+        }
+        for (int i = 0; i < steps; i++) {
+            if (stoppingPredictor != null && stoppingPredictor.tryStop(this, state)) {
+                return i + 1;
+            }
+            beginStep(state);
+            solver.integrate(dynamics, state, 0.0, stepSize, stepSize);
+            stepCount++;
+            if (stopAtEvent(state, null, stepSize) || rules.settle(stepStart, state, null, stepSize)) {
+                return i + 1;
+            }
+        }
+        return steps;
+    }
 
-        List<Map<String, Double>> results = solver.solve(differentials, initialState, stepSize, time, "t");
+    /**
+     * Steps an adaptive solver until the duration is covered, the ball comes to rest or an event happens.
+     *
+     * @param adaptive the solver
+     * @param state the state {@code {x, y, vx, vy}} of the ball, overwritten with the new state
+     * @param maxStepSize the largest step the solver may take
+     * @param time the total time duration for the simulation
+     * @return the number of steps the solver took
+     */
+    private int integrateAdaptive(AdaptiveODE adaptive, double[] state, double maxStepSize, double time) {
+        int steps = 0;
+        double elapsed = 0;
+        while (time - elapsed > 1e-9) {
+            if (stoppingPredictor != null && stoppingPredictor.tryStop(this, state)) {
+                steps++;
+                break;
+            }
+            beginStep(state);
+            double h = adaptive.step(dynamics, state, solverTime, Math.min(maxStepSize, time - elapsed));
+            solverTime += h;
+            elapsed += h;
+            steps++;
+            if (stopAtEvent(state, adaptive, h) || rules.settle(stepStart, state, adaptive, h)) {
+                break;
+            }
+        }
+        stepCount += steps;
+        return steps;
+    }
 
-        if (results.isEmpty()) {
-            System.err.println("No states were returned by the ODE solver.");
-            return ballState;
+    /**
+     * Records the state and the value of every event function at the start of a step.
+     *
+     * @param state the state {@code {x, y, vx, vy}} at the start of the step
+     */
+    private void beginStep(double[] state) {
+        System.arraycopy(state, 0, stepStart, 0, BallDynamics.STATE_SIZE);
+        for (int i = 0; i < events.size(); i++) {
+            eventValues[i] = events.get(i).value(state);
         }
+    }
 
-        Map<String, Double> finalState = results.get(results.size() - 1);
-        ballState.setX(finalState.get("x"));
-        ballState.setY(finalState.get("y"));
-        ballState.setVx(finalState.get("vx"));
-        ballState.setVy(finalState.get("vy"));
-        return ballState;
+    /**
+     * Checks whether any event function reached zero during the step just taken, and if so moves the
+     * ball back to the earliest such moment and records the event.
+     *
+     * @param state the state {@code {x, y, vx, vy}} at the end of the step, overwritten if an event happened
+     * @param adaptive the solver whose dense output covers the step, or null to interpolate between the ends
+     * @param stepSize the size of the step
+     * @return true if an event happened
+     */
+    private boolean stopAtEvent(double[] state, AdaptiveODE adaptive, double stepSize) {
+        if (events.isEmpty()) {
+            return false;
+        }
+        triggeredEvent = rules.stopAtEvent(events, eventValues, 0, stepStart, state, adaptive, stepSize);
+        return triggeredEvent != null;
     }
 
     /**
@@ -380,4 +565,175 @@ public class PhysicsEngine {
     public Function getSurfaceFunction() {
         return surfaceFunction;
     }
+
+    /**
+     * Makes the engine read heights and slopes from a precomputed lattice instead of evaluating the
+     * surface function, which pays off for complex surfaces and long rollouts. The lattice may be
+     * shared by several engines.
+     *
+     * @param surfaceLattice the lattice, or null to evaluate the surface function again
+     *
+     * @throws IllegalArgumentException if the lattice was sampled from a different surface
+     */
+    public void setSurfaceLattice(SurfaceLattice surfaceLattice) {
+        if (surfaceLattice != null && !surfaceLattice.getSurfaceFunction().getNormalizedExpression()
+                .equals(surfaceFunction.getNormalizedExpression())) {
+            throw new IllegalArgumentException("Surface lattice was sampled from a different surface.");
+        }
+        this.surfaceLattice = surfaceLattice;
+        restartSolverTime();
+    }
+
+    /**
+     * Makes friction depend on the ground under the ball, such as sand, looked up at every stage of every
+     * step. The coefficients from {@link #setFriction(double, double)} are ignored while a field is set.
+     *
+     * @param materialField the friction of the ground, or null to use the same coefficients everywhere
+     */
+    public void setMaterialField(MaterialField materialField) {
+        this.materialField = materialField;
+        rules.setMaterialField(materialField);
+        restartSolverTime();
+    }
+
+    /**
+     * Returns the material field.
+     *
+     * @return the friction of the ground, or null if it is the same everywhere
+     */
+    public MaterialField getMaterialField() {
+        return materialField;
+    }
+
+    /**
+     * Makes the wind push the ball, as an acceleration inside the equations of motion, so the push over
+     * a roll does not depend on the step size or on how often the ball is updated. Like the wind of the
+     * game before it, the field only moves a rolling ball; a ball held by static friction stays put.
+     *
+     * @param windField the wind, or null for still air
+     */
+    public void setWindField(WindField windField) {
+        this.windField = windField;
+        rules.setWindField(windField);
+        restartSolverTime();
+    }
+
+    /**
+     * Returns the wind field.
+     *
+     * @return the wind, or null for still air
+     */
+    public WindField getWindField() {
+        return windField;
+    }
+
+    // Coefficients of friction under a point, from the material field if there is one
+    double kineticFrictionAt(double x, double y) {
+        return rules.kineticFrictionAt(x, y);
+    }
+
+    /**
+     * Replaces the differential equation solver.
+     *
+     * @param solver the differential equation solver to use
+     */
+    public void setSolver(ODE solver) {
+        this.solver = solver;
+        restartSolverTime();
+    }
+
+    /**
+     * Starts the time of the adaptive solver over after the equations of motion changed. No step ends
+     * at time 0, so {@link DormandPrince} evaluates the derivative afresh instead of reusing the one from
+     * the end of its last step.
+     */
+    private void restartSolverTime() {
+        solverTime = 0;
+    }
+
+    /**
+     * Returns the differential equation solver.
+     *
+     * @return the solver
+     */
+    public ODE getSolver() {
+        return solver;
+    }
+
+    /**
+     * Adds an event that ends an update at the moment its function crosses zero, such as the ball
+     * entering water or the hole. The ball is left at the first point where the function is at or
+     * below zero, and {@link #getTriggeredEvent()} reports which event happened. Events are found by
+     * the sign of the function at the ends of each step, so the step should be short enough that the
+     * ball cannot enter and leave a region within one step.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * EventFunction water = state -> surface.evaluate(state[BallDynamics.X], state[BallDynamics.Y]);
+     * engine.addEvent(water);
+     * engine.update(ballState, 0.05);
+     * boolean inWater = engine.getTriggeredEvent() == water;
+     * }</pre>
+     *
+     * @param event the event function, positive until the event happens
+     */
+    public void addEvent(EventFunction event) {
+        events.add(event);
+        eventValues = new double[events.size()];
+    }
+
+    /**
+     * Removes all events.
+     */
+    public void clearEvents() {
+        events.clear();
+        eventValues = new double[0];
+    }
+
+    /**
+     * Returns the event that ended the last update.
+     *
+     * @return the event, or null if the last update ran its full duration or until the ball came to rest
+     */
+    public EventFunction getTriggeredEvent() {
+        return triggeredEvent;
+    }
+
+    /**
+     * Lets a predictor finish rolls in one jump where the ground is close to a plane, instead of stepping
+     * the ball until it stops. Only suited to engines whose callers want where the ball ends up, since
+     * the ball skips the rest of its path.
+     *
+     * @param stoppingPredictor the predictor, not shared with other engines, or null to always integrate
+     */
+    public void setStoppingPredictor(StoppingPredictor stoppingPredictor) {
+        this.stoppingPredictor = stoppingPredictor;
+    }
+
+    /**
+     * Returns the stopping predictor.
+     *
+     * @return the predictor, or null if the engine always integrates
+     */
+    public StoppingPredictor getStoppingPredictor() {
+        return stoppingPredictor;
+    }
+
+    // Used by the stopping predictor
+    double gravity() {
+        return g;
+    }
+
+    List<EventFunction> events() {
+        return events;
+    }
+
+    /**
+     * Returns the number of solver steps taken since this engine was created.
+     *
+     * @return the number of steps
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
 }
@@ -0,0 +1,256 @@
+package com.example.golfgame.physics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import com.example.golfgame.utils.BallState;
+
+/**
+ * Simulates the ball on a thread of its own, stepping a physics engine at a fixed rate of wall-clock
+ * time. After every batch of steps, and after commands change the ball, the ball is published into a
+ * preallocated {@link BallSnapshot} together with the state to draw interpolated by the
+ * {@link FixedStepAccumulator}. The snapshot is guarded by a sequence lock: readers copy it and retry if
+ * a write overlapped, so the render thread picks up the latest state without locking, never waits for
+ * physics, and nothing is allocated per step. Changes to the ball or the engine are queued as commands
+ * and applied by the physics thread between steps, since the engine itself is not safe to share between
+ * threads. While the ball is not simulated the thread sleeps until a command arrives.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * PhysicsThread physicsThread = new PhysicsThread(engine, ballState, 1000, 100);
+ * physicsThread.start();
+ * long hit = physicsThread.submit(ball -> ball.setVx(3));
+ * physicsThread.setSimulating(true);
+ * BallSnapshot snapshot = new BallSnapshot();
+ * // Every frame
+ * physicsThread.getSnapshot(snapshot);
+ * if (snapshot.getSequence() >= hit) {
+ *     snapshot.copyInterpolatedTo(renderedBallState);
+ * }
+ * }</pre>
+ */
+public class PhysicsThread {
+    private static final long JOIN_TIMEOUT_MILLIS = 1000;
+
+    private final PhysicsEngine engine;
+    private final FixedStepAccumulator clock;
+    private final long stepNanos;
+    private final BallState ball; // Only touched by the physics thread once started
+    private final Queue<Consumer<BallState>> commands = new ConcurrentLinkedQueue<>();
+    private final BallSnapshot published = new BallSnapshot(); // Written by the physics thread only, under version
+    private volatile long version; // Odd while the published snapshot is being written
+    private long submitted; // Number of the last command queued, guarded by this
+    private long applied; // Number of the last command applied, physics thread only
+    private boolean simulating; // Physics thread only
+    private boolean stepped; // Whether the ball is where the last step left it, so it can be interpolated; physics thread only
+    private final BallState interpolatedBall = new BallState(0, 0, 0, 0); // Physics thread only
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Constructs a physics thread for an engine. The thread does not run until {@link #start()} is called,
+     * and the ball is not simulated until {@link #setSimulating(boolean)} turns it on.
+     *
+     * @param engine the physics engine to step, not to be used by other threads afterwards
+     * @param initialState the state the ball starts in, copied
+     * @param rate the number of steps per second
+     * @param maxSubsteps the largest number of steps taken before the next snapshot
+     *
+     * @throws IllegalArgumentException if the rate is not positive or the cap is less than one
+     */
+    public PhysicsThread(PhysicsEngine engine, BallState initialState, double rate, int maxSubsteps) {
+        this.engine = engine;
+        this.clock = new FixedStepAccumulator(engine, rate, maxSubsteps);
+        this.stepNanos = Math.max(1, Math.round(1e9 / rate));
+        this.ball = initialState.copy();
+        publish();
+    }
+
+    /**
+     * Starts the physics thread.
+     *
+     * @throws IllegalStateException if the thread has already been started
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Physics thread has already been started.");
+        }
+        running = true;
+        thread = new Thread(this::run, "physics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the physics thread and waits briefly for it to finish. Commands still queued are dropped.
+     */
+    public void stop() {
+        Thread stopping;
+        synchronized (this) {
+            running = false;
+            stopping = thread;
+        }
+        if (stopping == null || stopping == Thread.currentThread()) {
+            return;
+        }
+        LockSupport.unpark(stopping);
+        try {
+            stopping.join(JOIN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long last = System.nanoTime();
+        while (running) {
+            boolean wasSimulating = simulating;
+            boolean changed = applyCommands();
+            long now = System.nanoTime();
+            if (simulating) {
+                // Time spent asleep while the ball was not simulated does not count
+                clock.advance(ball, wasSimulating ? (now - last) / 1e9 : 0);
+                stepped = true;
+                changed = true;
+            }
+            last = now;
+            if (changed) {
+                publish();
+            }
+
+            // Sleep until the next step is due, or until a command arrives while the ball is not simulated
+            if (simulating) {
+                long wait = Math.round((1 - clock.getAlpha()) * stepNanos);
+                LockSupport.parkNanos(this, Math.max(wait, TimeUnit.MICROSECONDS.toNanos(50)));
+            } else if (commands.isEmpty()) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Applies the queued commands.
+     *
+     * @return true if any command was applied
+     */
+    private boolean applyCommands() {
+        boolean any = false;
+        Consumer<BallState> command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.accept(ball);
+            } catch (RuntimeException e) {
+                System.err.println("Physics command failed: " + e.getMessage());
+            }
+            // The command may have moved the ball away from the steps the clock would interpolate
+            stepped = false;
+            applied++;
+            any = true;
+        }
+        return any;
+    }
+
+    /**
+     * Writes the ball into the published snapshot under the sequence lock.
+     */
+    private void publish() {
+        BallState drawn = stepped ? clock.interpolate(interpolatedBall) : ball;
+        version++;
+        published.set(ball, drawn, applied, clock.getStepCount(), clock.getDroppedSteps(), simulating);
+        version++;
+    }
+
+    /**
+     * Queues a command to run on the physics thread before its next step. Commands run in the order they
+     * were submitted, and may change the ball they are given or the engine.
+     *
+     * @param command the command, given the simulated ball
+     * @return the sequence number of the command, reflected by every snapshot whose sequence is at least this
+     */
+    public long submit(Consumer<BallState> command) {
+        long sequence;
+        Thread waiting;
+        synchronized (this) {
+            commands.add(command);
+            sequence = ++submitted;
+            waiting = thread;
+        }
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+        return sequence;
+    }
+
+    /**
+     * Queues a command that moves the ball to a new state.
+     *
+     * @param x the new x-coordinate
+     * @param y the new y-coordinate
+     * @param vx the new velocity along the x-axis
+     * @param vy the new velocity along the y-axis
+     * @return the sequence number of the command
+     */
+    public long setBallState(double x, double y, double vx, double vy) {
+        return submit(target -> target.setAllComponents(x, y, vx, vy));
+    }
+
+    /**
+     * Queues a command that starts or stops simulating the ball. While stopped, commands are still applied
+     * and snapshots still published, but no time passes for the ball.
+     *
+     * @param simulate true to simulate the ball
+     * @return the sequence number of the command
+     */
+    public long setSimulating(boolean simulate) {
+        return submit(target -> {
+            if (simulate && !simulating) {
+                clock.reset();
+            }
+            simulating = simulate;
+        });
+    }
+
+    /**
+     * Copies the latest snapshot of the ball. Never blocks; if the physics thread publishes a new one
+     * during the copy, the copy is made again.
+     *
+     * @param out receives the snapshot
+     * @return the snapshot passed in
+     */
+    public BallSnapshot getSnapshot(BallSnapshot out) {
+        while (true) {
+            long before = version;
+            if ((before & 1) == 0) {
+                out.set(published);
+                if (version == before) {
+                    return out;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the latest snapshot of the ball. Never blocks.
+     *
+     * @return a new snapshot
+     */
+    public BallSnapshot getSnapshot() {
+        return getSnapshot(new BallSnapshot());
+    }
+
+    /**
+     * Returns the engine stepped by this thread. It may only be changed through {@link #submit}.
+     *
+     * @return the physics engine
+     */
+    public PhysicsEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
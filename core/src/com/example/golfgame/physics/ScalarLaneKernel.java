@@ -0,0 +1,86 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * A lane kernel that handles one ball at a time. It works with any surface and on every JVM, and is
+ * the fallback whenever vector instructions are not available.
+ */
+public class ScalarLaneKernel implements LaneKernel {
+    private final Function surface;
+    private final SurfaceLattice surfaceLattice;
+    private final double g;
+    private final double mu_k;
+    private final MaterialField materials; // Friction per position, or null to use mu_k everywhere
+    private final WindField wind; // Push of the wind, or null for still air
+    private final double[] sample = new double[3];
+
+    /**
+     * Constructs a scalar kernel.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param surfaceLattice a precomputed lattice of the surface, or null to evaluate the function
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction
+     */
+    public ScalarLaneKernel(Function surface, SurfaceLattice surfaceLattice, double g, double mu_k) {
+        this(surface, surfaceLattice, null, null, g, mu_k);
+    }
+
+    /**
+     * Constructs a scalar kernel whose kinetic friction may depend on the ground under each ball, and
+     * whose balls may be pushed by the wind.
+     *
+     * @param surface the function representing the surface's height as a function of x and y
+     * @param surfaceLattice a precomputed lattice of the surface, or null to evaluate the function
+     * @param materials the friction of the ground, or null to use mu_k everywhere
+     * @param wind the wind, or null for still air
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction where there is no material field
+     */
+    public ScalarLaneKernel(Function surface, SurfaceLattice surfaceLattice, MaterialField materials, WindField wind, double g, double mu_k) {
+        this.surface = surface;
+        this.surfaceLattice = surfaceLattice;
+        this.materials = materials;
+        this.wind = wind;
+        this.g = g;
+        this.mu_k = mu_k;
+    }
+
+    @Override
+    public void accelerate(double[] x, double[] y, double[] vx, double[] vy, double[] ax, double[] ay, int count) {
+        for (int k = 0; k < count; k++) {
+            accelerate(x, y, vx, vy, ax, ay, k, sample);
+        }
+    }
+
+    /**
+     * Computes the acceleration of the ball at one index of the arrays.
+     *
+     * @param k the index of the ball
+     * @param sample scratch buffer of length 3 for the height and slopes
+     */
+    void accelerate(double[] x, double[] y, double[] vx, double[] vy, double[] ax, double[] ay, int k, double[] sample) {
+        if (surfaceLattice != null) {
+            surfaceLattice.sample(x[k], y[k], sample);
+        } else {
+            surface.evaluateWithGradient(x[k], y[k], sample);
+        }
+        double slopeX = sample[1];
+        double slopeY = sample[2];
+        double pvx = vx[k];
+        double pvy = vy[k];
+        double gradientSquared = slopeX * slopeX + slopeY * slopeY;
+        double slopeFactor = 1 + gradientSquared;
+        double verticalVelocity = slopeX * pvx + slopeY * pvy;
+        double speed = Math.sqrt(pvx * pvx + pvy * pvy + verticalVelocity * verticalVelocity);
+        double kinetic = materials == null ? mu_k : materials.getKineticFriction(x[k], y[k]);
+        double friction = speed == 0 ? 0 : kinetic * g / (Math.sqrt(slopeFactor) * speed);
+        ax[k] = -g * slopeX / slopeFactor - friction * pvx;
+        ay[k] = -g * slopeY / slopeFactor - friction * pvy;
+        if (wind != null) {
+            ax[k] += wind.getAccelerationX(x[k], y[k]);
+            ay[k] += wind.getAccelerationY(x[k], y[k]);
+        }
+    }
+}
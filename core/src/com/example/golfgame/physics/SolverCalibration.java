@@ -0,0 +1,325 @@
+package com.example.golfgame.physics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.example.golfgame.physics.ODE.ODE;
+import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.physics.ODE.SolverRegistry;
+import com.example.golfgame.utils.Function;
+import com.example.golfgame.utils.gameUtils.TerrainCache;
+
+/**
+ * Measures, for one course, what every registered solver costs and how accurate it is at every step
+ * size: a set of shots is played to rest with each configuration, and the largest distance from the
+ * landing points of a fine-step reference is set against the time per shot. The configurations that
+ * no other beats on both counts form the Pareto front, which is kept in the shared {@link TerrainCache}
+ * so a course is only measured once per machine; the fastest configuration on the front within a
+ * target error is the one to play with.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * SolverCalibration calibration = new SolverCalibration(surface, 0.1, 0.2, SolverCalibration.shotsFrom(0, 0, 8, 1, 10));
+ * List<SolverCalibration.Configuration> front = calibration.loadOrMeasureFront(SolverCalibration.DEFAULT_STEP_SIZES);
+ * SolverCalibration.Configuration best = SolverCalibration.fastestWithin(front, 0.01);
+ * engine.setSolver(SolverRegistry.create(best.getSolver()));
+ * }</pre>
+ */
+public class SolverCalibration {
+    public static final double[] DEFAULT_STEP_SIZES = {0.02, 0.01, 0.005, 0.002, 0.001};
+    private static final double REFERENCE_STEP_SIZE = 0.0001; // Landing points of RungeKutta agree to about 1e-7 m here, see StepSizeAccuracy
+    private static final double MAX_SHOT_TIME = 120; // Seconds a shot may roll before it is cut off
+    private static final int ROUNDS = 3; // The fastest of these rounds is timed, so the first may warm up
+    private static final double GOLDEN_RATIO = (Math.sqrt(5) - 1) / 2; // Spreads shot speeds evenly over the range
+
+    /**
+     * A solver at a step size, with its measured error and cost.
+     */
+    public static class Configuration {
+        private final String solver;
+        private final double stepSize;
+        private final double error;
+        private final double nanosPerShot;
+
+        /**
+         * Constructs a measured configuration.
+         *
+         * @param solver the name of the solver in the {@link SolverRegistry}
+         * @param stepSize the step size, or the largest step of an adaptive solver
+         * @param error the largest distance between a landing point and the reference, in metres
+         * @param nanosPerShot the time to play a shot to rest, in nanoseconds
+         */
+        public Configuration(String solver, double stepSize, double error, double nanosPerShot) {
+            this.solver = solver;
+            this.stepSize = stepSize;
+            this.error = error;
+            this.nanosPerShot = nanosPerShot;
+        }
+
+        /**
+         * Returns the name of the solver.
+         *
+         * @return the name in the {@link SolverRegistry}
+         */
+        public String getSolver() {
+            return solver;
+        }
+
+        /**
+         * Returns the step size.
+         *
+         * @return the step size, or the largest step of an adaptive solver
+         */
+        public double getStepSize() {
+            return stepSize;
+        }
+
+        /**
+         * Returns the largest distance between a landing point and the reference.
+         *
+         * @return the error, in metres
+         */
+        public double getError() {
+            return error;
+        }
+
+        /**
+         * Returns the time to play a shot to rest.
+         *
+         * @return the time, in nanoseconds
+         */
+        public double getNanosPerShot() {
+            return nanosPerShot;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s at step %.4f: error %.2e m, %.1f us per shot", solver, stepSize, error, nanosPerShot / 1e3);
+        }
+    }
+
+    private final Function surface;
+    private final double mu_k;
+    private final double mu_s;
+    private final double[][] shots;
+    private MaterialField materialField; // Friction of grass and sand, or null for mu_k and mu_s everywhere
+    private WindField windField; // Wind, or null for still air
+    private double[][] reference; // Landing points of the reference, computed on first use
+
+    /**
+     * Constructs a calibration for a course.
+     *
+     * @param surface the height function of the course
+     * @param mu_k the coefficient of kinetic friction
+     * @param mu_s the coefficient of static friction
+     * @param shots the shots to play, each as {@code {x, y, vx, vy}}
+     *
+     * @throws IllegalArgumentException if there are no shots
+     */
+    public SolverCalibration(Function surface, double mu_k, double mu_s, double[][] shots) {
+        if (shots.length == 0) {
+            throw new IllegalArgumentException("Calibration needs at least one shot.");
+        }
+        this.surface = surface;
+        this.mu_k = mu_k;
+        this.mu_s = mu_s;
+        this.shots = new double[shots.length][];
+        for (int i = 0; i < shots.length; i++) {
+            this.shots[i] = shots[i].clone();
+        }
+    }
+
+    /**
+     * Creates shots from one point in evenly spread directions, with speeds spread over a range.
+     *
+     * @param x the x-coordinate of the ball
+     * @param y the y-coordinate of the ball
+     * @param count the number of shots
+     * @param minSpeed the lowest speed, m/s
+     * @param maxSpeed the highest speed, m/s
+     * @return the shots, each as {@code {x, y, vx, vy}}
+     */
+    public static double[][] shotsFrom(double x, double y, int count, double minSpeed, double maxSpeed) {
+        double[][] shots = new double[count][];
+        for (int i = 0; i < count; i++) {
+            double angle = 2 * Math.PI * i / count;
+            double speed = minSpeed + (maxSpeed - minSpeed) * ((i * GOLDEN_RATIO) % 1);
+            shots[i] = new double[]{x, y, speed * Math.cos(angle), speed * Math.sin(angle)};
+        }
+        return shots;
+    }
+
+    /**
+     * Makes the shots feel the grass and sand of the course.
+     *
+     * @param materialField the friction of the ground, or null to use the coefficients of the constructor everywhere
+     */
+    public void setMaterialField(MaterialField materialField) {
+        this.materialField = materialField;
+        this.reference = null;
+    }
+
+    /**
+     * Makes the shots feel the wind of the course.
+     *
+     * @param windField the wind, or null for still air
+     */
+    public void setWindField(WindField windField) {
+        this.windField = windField;
+        this.reference = null;
+    }
+
+    /**
+     * Measures every named solver at every step size.
+     *
+     * @param solvers the names of the solvers in the {@link SolverRegistry}
+     * @param stepSizes the step sizes to try
+     * @return a configuration per solver and step size
+     */
+    public List<Configuration> measure(List<String> solvers, double[] stepSizes) {
+        if (reference == null) {
+            reference = new double[shots.length][];
+            PhysicsEngine engine = createEngine(new RungeKutta());
+            for (int i = 0; i < shots.length; i++) {
+                reference[i] = land(engine, shots[i], REFERENCE_STEP_SIZE);
+            }
+        }
+
+        List<Configuration> configurations = new ArrayList<>();
+        for (String name : solvers) {
+            for (double stepSize : stepSizes) {
+                PhysicsEngine engine = createEngine(SolverRegistry.create(name));
+                double error = 0;
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < shots.length; i++) {
+                        double[] landing = land(engine, shots[i], stepSize);
+                        error = Math.max(error, Math.hypot(landing[BallDynamics.X] - reference[i][BallDynamics.X],
+                                landing[BallDynamics.Y] - reference[i][BallDynamics.Y]));
+                    }
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                configurations.add(new Configuration(name, stepSize, error, (double) best / shots.length));
+            }
+        }
+        return configurations;
+    }
+
+    /**
+     * Returns the Pareto front of the course, measuring every registered solver at the given step sizes
+     * unless a front for the same course, shots, step sizes and solvers was stored before. The course is
+     * told apart by its height expression, its friction and whether it has sand and wind; the layout of
+     * the sand and the gusts are left out, as they hardly change how the solvers rank.
+     *
+     * @param stepSizes the step sizes to try
+     * @return the configurations on the front, fastest first
+     */
+    public List<Configuration> loadOrMeasureFront(double[] stepSizes) {
+        return loadOrMeasureFront(SolverRegistry.getNames(), stepSizes);
+    }
+
+    /**
+     * Returns the Pareto front of the course among some of the registered solvers, measuring them
+     * unless a front for the same course, shots, step sizes and solvers was stored before.
+     *
+     * @param solvers the names of the solvers in the {@link SolverRegistry}
+     * @param stepSizes the step sizes to try
+     * @return the configurations on the front, fastest first
+     */
+    public List<Configuration> loadOrMeasureFront(List<String> solvers, double[] stepSizes) {
+        List<Object> parameters = new ArrayList<>();
+        parameters.add(mu_k);
+        parameters.add(mu_s);
+        parameters.add(materialField != null);
+        parameters.add(windField == null ? 0.0 : windField.getMaxAcceleration());
+        for (double[] shot : shots) {
+            for (double value : shot) {
+                parameters.add(value);
+            }
+        }
+        for (double stepSize : stepSizes) {
+            parameters.add(stepSize);
+        }
+        parameters.addAll(solvers);
+        String key = TerrainCache.fingerprint("solver-front", surface, null, parameters.toArray());
+
+        double[] stored = TerrainCache.getShared().computeIfAbsentReadOnly(key, () -> {
+            List<Configuration> front = paretoFront(measure(solvers, stepSizes));
+            double[] encoded = new double[4 * front.size()];
+            for (int i = 0; i < front.size(); i++) {
+                Configuration configuration = front.get(i);
+                encoded[4 * i] = solvers.indexOf(configuration.getSolver());
+                encoded[4 * i + 1] = configuration.getStepSize();
+                encoded[4 * i + 2] = configuration.getError();
+                encoded[4 * i + 3] = configuration.getNanosPerShot();
+            }
+            return encoded;
+        });
+        List<Configuration> front = new ArrayList<>();
+        for (int i = 0; i + 3 < stored.length; i += 4) {
+            front.add(new Configuration(solvers.get((int) stored[i]), stored[i + 1], stored[i + 2], stored[i + 3]));
+        }
+        return front;
+    }
+
+    /**
+     * Keeps the configurations that no other is both faster and more accurate than.
+     *
+     * @param configurations the measured configurations
+     * @return the front, fastest first, each more accurate than the one before
+     */
+    public static List<Configuration> paretoFront(List<Configuration> configurations) {
+        List<Configuration> sorted = new ArrayList<>(configurations);
+        sorted.sort(Comparator.comparingDouble(Configuration::getNanosPerShot).thenComparingDouble(Configuration::getError));
+        List<Configuration> front = new ArrayList<>();
+        double bestError = Double.POSITIVE_INFINITY;
+        for (Configuration configuration : sorted) {
+            if (configuration.getError() < bestError) {
+                front.add(configuration);
+                bestError = configuration.getError();
+            }
+        }
+        return front;
+    }
+
+    /**
+     * Returns the fastest configuration within a target error.
+     *
+     * @param configurations the configurations to choose from, such as a Pareto front
+     * @param targetError the largest distance from the reference landing points allowed, in metres
+     * @return the fastest configuration within the target, or null if none reaches it
+     */
+    public static Configuration fastestWithin(List<Configuration> configurations, double targetError) {
+        Configuration fastest = null;
+        for (Configuration configuration : configurations) {
+            if (configuration.getError() <= targetError
+                    && (fastest == null || configuration.getNanosPerShot() < fastest.getNanosPerShot())) {
+                fastest = configuration;
+            }
+        }
+        return fastest;
+    }
+
+    private PhysicsEngine createEngine(ODE solver) {
+        PhysicsEngine engine = new PhysicsEngine(solver, surface, mu_k, mu_s);
+        engine.setMaterialField(materialField);
+        engine.setWindField(windField);
+        return engine;
+    }
+
+    /**
+     * Plays a shot until the ball is at rest or the shot has run for too long.
+     *
+     * @return the final state
+     */
+    private static double[] land(PhysicsEngine engine, double[] shot, double stepSize) {
+        double[] state = shot.clone();
+        long maxSteps = (long) (MAX_SHOT_TIME / stepSize);
+        for (long step = 0; step < maxSteps && !engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY]); step++) {
+            engine.update(state, stepSize);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.golfgame.physics;
+
+import java.util.List;
+
+import com.example.golfgame.physics.ODE.AdaptiveODE;
+import com.example.golfgame.physics.ODE.EventFunction;
+
+/**
+ * The rules that decide how a step of the ball ends, shared by the {@link PhysicsEngine} and the
+ * {@link BatchIntegrator} so that both treat a ball the same way: whether a ball at rest breaks free of
+ * static friction, whether a moving ball comes to rest within a step, and at which point of a step an
+ * event function first reaches zero. The equations of motion are the {@link BallDynamics} it holds,
+ * which sample the surface through the same sampler as the rules.
+ *
+ * <p>The rules keep scratch buffers for interpolating within a step, so they are not safe to share
+ * between threads.</p>
+ */
+final class StepRules {
+    private final double g; // Acceleration due to gravity, m/s^2
+    private double mu_k; // Coefficient of kinetic friction
+    private double mu_s; // Coefficient of static friction
+    private MaterialField materials; // Friction per position, overriding mu_k and mu_s, or null
+    private WindField wind; // Push of the wind, or null for still air
+    private final BallDynamics.SurfaceSampler surface;
+    private final BallDynamics dynamics;
+    // Scratch buffers for interpolating within the step being examined
+    private double[] stepStart; // The caller's state at the start of the step
+    private final double[] stepEnd = new double[BallDynamics.STATE_SIZE];
+    private final double[] startDerivative = new double[BallDynamics.STATE_SIZE];
+    private final double[] endDerivative = new double[BallDynamics.STATE_SIZE];
+    private final double[] interpolated = new double[BallDynamics.STATE_SIZE];
+    // Velocity at the start of a step in which friction halts the ball, and the speed along it, which
+    // falls to zero where the ball stops
+    private double haltVx;
+    private double haltVy;
+    private final EventFunction speedAlongStart = state -> state[BallDynamics.VX] * haltVx + state[BallDynamics.VY] * haltVy;
+
+    /**
+     * Constructs the rules for a surface.
+     *
+     * @param g the acceleration due to gravity, m/s^2
+     * @param mu_k the coefficient of kinetic friction
+     * @param mu_s the coefficient of static friction
+     * @param surface samples the slope of the surface under the ball
+     */
+    StepRules(double g, double mu_k, double mu_s, BallDynamics.SurfaceSampler surface) {
+        this.g = g;
+        this.mu_k = mu_k;
+        this.mu_s = mu_s;
+        this.surface = surface;
+        this.dynamics = new BallDynamics(g, mu_k, surface);
+    }
+
+    /**
+     * Returns the equations of motion the rules interpolate with, to be handed to the solver.
+     *
+     * @return the ball dynamics
+     */
+    BallDynamics getDynamics() {
+        return dynamics;
+    }
+
+    void setFriction(double mu_k, double mu_s) {
+        this.mu_k = mu_k;
+        this.mu_s = mu_s;
+        dynamics.setFriction(mu_k);
+    }
+
+    void setMaterialField(MaterialField materials) {
+        this.materials = materials;
+        dynamics.setMaterialField(materials);
+    }
+
+    void setWindField(WindField wind) {
+        this.wind = wind;
+        dynamics.setWindField(wind);
+    }
+
+    // Coefficients of friction under a point, from the material field if there is one
+    double kineticFrictionAt(double x, double y) {
+        return materials == null ? mu_k : materials.getKineticFriction(x, y);
+    }
+
+    double staticFrictionAt(double x, double y) {
+        return materials == null ? mu_s : materials.getStaticFriction(x, y);
+    }
+
+    /**
+     * Checks if a ball with the given velocity is at rest.
+     *
+     * @param vx the velocity along the x-axis
+     * @param vy the velocity along the y-axis
+     * @return true if the ball is at rest
+     */
+    static boolean isAtRest(double vx, double vy) {
+        return Math.abs(vx) < 0.001 && Math.abs(vy) < 0.001;
+    }
+
+    /**
+     * Checks if a ball at rest at a point is pulled hard enough to overcome static friction. Only the
+     * slope counts: the wind pushes a rolling ball but does not start one at rest.
+     *
+     * @param x the x-coordinate of the ball
+     * @param y the y-coordinate of the ball
+     * @return true if the ball starts to move
+     */
+    boolean canOvercomeStaticFriction(double x, double y) {
+        double[] sample = surface.sample(x, y);
+        double dx = sample[1];
+        double dy = sample[2];
+        double normalForce = g * (1 + Math.pow(dx, 2) + Math.pow(dy, 2));
+        double staticFrictionForce = staticFrictionAt(x, y) * normalForce;
+        double gravitationalComponent = g * Math.sqrt(dx * dx + dy * dy);
+
+        return gravitationalComponent > staticFrictionForce;
+    }
+
+    /**
+     * Stops the ball if it came to rest during a step: either friction was certain to halt it, or its
+     * velocity, taken to change linearly over the step, passed through the rest threshold.
+     *
+     * @param start the state {@code {x, y, vx, vy}} at the start of the step
+     * @param state the state at the end of the step, overwritten if the ball stops
+     * @param adaptive the solver whose dense output covers the step, or null to interpolate between the ends
+     * @param stepSize the size of the step
+     * @return true if the ball was stopped
+     */
+    boolean settle(double[] start, double[] state, AdaptiveODE adaptive, double stepSize) {
+        if (haltsWithinStep(start, stepSize)) {
+            stopWhereHalted(start, state, adaptive, stepSize);
+            return true;
+        }
+        return stopWithinStep(start, state, stepSize);
+    }
+
+    /**
+     * Stops a ball that friction halts within a step at the point where it halts: the first point of
+     * the interpolated step at which the velocity no longer points the way it did at the start, found
+     * as an event is. A ball still moving forward at the end of the step stops there.
+     *
+     * @param start the state {@code {x, y, vx, vy}} at the start of the step
+     * @param state the state at the end of the step, overwritten with the resting ball
+     * @param adaptive the solver whose dense output covers the step, or null to interpolate between the ends
+     * @param stepSize the size of the step
+     */
+    private void stopWhereHalted(double[] start, double[] state, AdaptiveODE adaptive, double stepSize) {
+        haltVx = start[BallDynamics.VX];
+        haltVy = start[BallDynamics.VY];
+        double startValue = haltVx * haltVx + haltVy * haltVy;
+        double endValue = speedAlongStart.value(state);
+        if (startValue == 0) {
+            state[BallDynamics.X] = start[BallDynamics.X];
+            state[BallDynamics.Y] = start[BallDynamics.Y];
+        } else if (endValue <= 0) {
+            System.arraycopy(state, 0, stepEnd, 0, BallDynamics.STATE_SIZE);
+            stepStart = start;
+            if (adaptive == null) {
+                dynamics.evaluate(0, stepStart, startDerivative);
+                dynamics.evaluate(0, stepEnd, endDerivative);
+            }
+            interpolate(locateEvent(speedAlongStart, startValue, endValue, adaptive, stepSize), adaptive, stepSize);
+            state[BallDynamics.X] = interpolated[BallDynamics.X];
+            state[BallDynamics.Y] = interpolated[BallDynamics.Y];
+        }
+        state[BallDynamics.VX] = 0;
+        state[BallDynamics.VY] = 0;
+    }
+
+    /**
+     * Checks if kinetic friction is certain to bring the ball to rest within one step. Where the slope
+     * is below the friction coefficient, friction outweighs gravity in every direction, so the speed
+     * drops by at least {@code (mu_k - |grad h|) * g / (1 + |grad h|^2)} per unit of time, less the
+     * strongest push of the wind.
+     *
+     * @param start the state {@code {x, y, vx, vy}} at the start of the step
+     * @param stepSize the size of the step
+     * @return true if the ball comes to rest during the step
+     */
+    private boolean haltsWithinStep(double[] start, double stepSize) {
+        double x = start[BallDynamics.X];
+        double y = start[BallDynamics.Y];
+        double speed = Math.hypot(start[BallDynamics.VX], start[BallDynamics.VY]);
+        double kinetic = kineticFrictionAt(x, y);
+        if (speed > kinetic * g * stepSize) {
+            return false;
+        }
+        double[] sample = surface.sample(x, y);
+        double gradientSquared = sample[1] * sample[1] + sample[2] * sample[2];
+        double deceleration = (kinetic - Math.sqrt(gradientSquared)) * g / (1 + gradientSquared);
+        if (wind != null) {
+            deceleration -= wind.getMaxAcceleration();
+        }
+        return speed <= deceleration * stepSize;
+    }
+
+    /**
+     * Stops the ball at the point of a step where its velocity comes closest to zero, if the ball is at rest there.
+     *
+     * @param start the state {@code {x, y, vx, vy}} at the start of the step
+     * @param state the state at the end of the step, overwritten if the ball stops
+     * @param stepSize the size of the step
+     * @return true if the ball was stopped
+     */
+    private boolean stopWithinStep(double[] start, double[] state, double stepSize) {
+        double vx = start[BallDynamics.VX];
+        double vy = start[BallDynamics.VY];
+        double dvx = state[BallDynamics.VX] - vx;
+        double dvy = state[BallDynamics.VY] - vy;
+        double lengthSquared = dvx * dvx + dvy * dvy;
+        if (lengthSquared == 0) {
+            return false;
+        }
+        double fraction = -(vx * dvx + vy * dvy) / lengthSquared;
+        if (fraction <= 0 || fraction >= 1) {
+            return false;
+        }
+        double restVx = vx + fraction * dvx;
+        double restVy = vy + fraction * dvy;
+        if (!isAtRest(restVx, restVy)) {
+            return false;
+        }
+        double elapsed = fraction * stepSize;
+        state[BallDynamics.X] = start[BallDynamics.X] + (vx + restVx) / 2 * elapsed;
+        state[BallDynamics.Y] = start[BallDynamics.Y] + (vy + restVy) / 2 * elapsed;
+        state[BallDynamics.VX] = 0;
+        state[BallDynamics.VY] = 0;
+        return true;
+    }
+
+    /**
+     * Checks whether any event function reached zero during a step, and if so moves the ball back to
+     * the earliest such moment. Events that were already at or below zero when the step began happen
+     * at its start.
+     *
+     * @param events the event functions, positive until their event happens
+     * @param startValues the value of every event function at the start of the step
+     * @param offset the index in {@code startValues} of the value of the first event function
+     * @param start the state {@code {x, y, vx, vy}} at the start of the step
+     * @param state the state at the end of the step, overwritten if an event happened
+     * @param adaptive the solver whose dense output covers the step, or null to interpolate between the ends
+     * @param stepSize the size of the step
+     * @return the earliest event that happened, or null if none did
+     */
+    EventFunction stopAtEvent(List<EventFunction> events, double[] startValues, int offset, double[] start,
+                              double[] state, AdaptiveODE adaptive, double stepSize) {
+        EventFunction first = null;
+        double firstFraction = 1;
+        boolean hermiteReady = false;
+        for (int i = 0; i < events.size(); i++) {
+            EventFunction event = events.get(i);
+            double endValue = event.value(state);
+            if (endValue > 0) {
+                continue;
+            }
+            if (first == null) {
+                // Keep the end of the step, since the caller may reuse the state buffer
+                System.arraycopy(state, 0, stepEnd, 0, BallDynamics.STATE_SIZE);
+                stepStart = start;
+            }
+            if (adaptive == null && !hermiteReady) {
+                dynamics.evaluate(0, stepStart, startDerivative);
+                dynamics.evaluate(0, stepEnd, endDerivative);
+                hermiteReady = true;
+            }
+            double startValue = startValues[offset + i];
+            double fraction = startValue > 0 ? locateEvent(event, startValue, endValue, adaptive, stepSize) : 0;
+            if (first == null || fraction < firstFraction) {
+                first = event;
+                firstFraction = fraction;
+            }
+        }
+        if (first == null) {
+            return null;
+        }
+        interpolate(firstFraction, adaptive, stepSize);
+        System.arraycopy(interpolated, 0, state, 0, BallDynamics.STATE_SIZE);
+        return first;
+    }
+
+    /**
+     * Finds the point in a step where an event function crosses zero, with the Illinois variant of
+     * regula falsi on the interpolated trajectory.
+     *
+     * @param event the event function
+     * @param startValue the positive value of the function at the start of the step
+     * @param endValue the non-positive value of the function at the end of the step
+     * @param adaptive the solver whose dense output covers the step, or null to interpolate between the ends
+     * @param stepSize the size of the step
+     * @return the fraction of the step at which the function first reaches zero or below
+     */
+    private double locateEvent(EventFunction event, double startValue, double endValue, AdaptiveODE adaptive, double stepSize) {
+        double low = 0;
+        double high = 1;
+        double lowValue = startValue;
+        double highValue = endValue;
+        int side = 0;
+        for (int i = 0; i < 60 && (high - low) * stepSize > 1e-10; i++) {
+            double fraction = low + (high - low) * lowValue / (lowValue - highValue);
+            interpolate(fraction, adaptive, stepSize);
+            double value = event.value(interpolated);
+            if (value > 0) {
+                low = fraction;
+                lowValue = value;
+                if (side == 1) {
+                    highValue /= 2;
+                }
+                side = 1;
+            } else {
+                high = fraction;
+                highValue = value;
+                if (side == -1) {
+                    lowValue /= 2;
+                }
+                side = -1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Evaluates the state at a point in the step being examined into the interpolation buffer. Adaptive
+     * solvers supply their own dense output; otherwise a cubic Hermite polynomial matches the states and
+     * derivatives at both ends of the step.
+     *
+     * @param fraction the point in the step, from 0 at its start to 1 at its end
+     * @param adaptive the solver whose dense output covers the step, or null to interpolate between the ends
+     * @param stepSize the size of the step
+     */
+    private void interpolate(double fraction, AdaptiveODE adaptive, double stepSize) {
+        if (adaptive != null) {
+            adaptive.interpolate(fraction, interpolated);
+            return;
+        }
+        double f2 = fraction * fraction;
+        double f3 = f2 * fraction;
+        double startWeight = 2 * f3 - 3 * f2 + 1;
+        double endWeight = 3 * f2 - 2 * f3;
+        double startSlopeWeight = (f3 - 2 * f2 + fraction) * stepSize;
+        double endSlopeWeight = (f3 - f2) * stepSize;
+        for (int j = 0; j < BallDynamics.STATE_SIZE; j++) {
+            interpolated[j] = startWeight * stepStart[j] + endWeight * stepEnd[j]
+                    + startSlopeWeight * startDerivative[j] + endSlopeWeight * endDerivative[j];
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.golfgame.physics;
+
+import java.util.List;
+
+import com.example.golfgame.physics.ODE.EventFunction;
+
+/**
+ * Finishes a roll in one jump where the ground ahead of the ball is close enough to a plane. On a plane
+ * with kinetic friction stronger than the pull of the slope, the ball turns steadily downhill while it
+ * slows, and its stopping point and stopping time follow in closed form from the speed and the angle
+ * between the velocity and the downhill direction. The ground the ball can still cross is sampled
+ * first, and the roll is left to the integrator if the slope there differs enough from the tangent plane
+ * to move the stopping point by more than a tolerance, if the friction changes, if the ball would not
+ * stay at rest, or if an event such as water or the hole lies in the way. Wind is not part of the
+ * closed form, so an engine with a wind field always integrates.
+ *
+ * <p>Each engine needs a predictor of its own, since the predictor remembers when it last gave up:</p>
+ * <pre>{@code
+ * engine.setStoppingPredictor(new StoppingPredictor(1e-4));
+ * while (!engine.isAtRest(state[BallDynamics.VX], state[BallDynamics.VY])) {
+ *     engine.update(state, 0.005);
+ * }
+ * }</pre>
+ */
+public class StoppingPredictor {
+    private static final double SAMPLE_SPACING = 0.25; // Largest distance between neighbouring points where the ground is checked
+    private static final int MAX_DIVISIONS = 16; // Longer rolls than 16 spacings are left to the integrator for now
+    private static final int RETRY_STEPS = 32; // Steps to wait after giving up before trying again
+
+    private final double tolerance;
+    private final double[] atRest = new double[BallDynamics.STATE_SIZE]; // State handed to event functions at sample points
+    private int cooldown;
+    private long jumps;
+    private double skippedTime;
+
+    /**
+     * Constructs a predictor.
+     *
+     * @param tolerance the largest estimated distance, in metres, between the predicted stopping point and
+     *                  the one integration would find
+     *
+     * @throws IllegalArgumentException if the tolerance is not positive
+     */
+    public StoppingPredictor(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Stopping tolerance must be positive.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Moves a rolling ball straight to where it stops, if the ground allows a prediction.
+     *
+     * @param engine the engine the ball rolls in, whose surface, friction and events apply
+     * @param state the state {@code {x, y, vx, vy}} of the ball, overwritten with the state at rest on success
+     * @return true if the ball was moved to its stopping point
+     */
+    boolean tryStop(PhysicsEngine engine, double[] state) {
+        if (cooldown > 0) {
+            cooldown--;
+            return false;
+        }
+        if (predict(engine, state)) {
+            return true;
+        }
+        cooldown = RETRY_STEPS;
+        return false;
+    }
+
+    private boolean predict(PhysicsEngine engine, double[] state) {
+        double x = state[BallDynamics.X];
+        double y = state[BallDynamics.Y];
+        double vx = state[BallDynamics.VX];
+        double vy = state[BallDynamics.VY];
+        double horizontalSpeed = Math.hypot(vx, vy);
+        if (horizontalSpeed == 0 || engine.getWindField() != null) {
+            return false;
+        }
+        double g = engine.gravity();
+        double[] sample = engine.sampleSurface(x, y);
+        double slopeX = sample[1];
+        double slopeY = sample[2];
+        double gradient = Math.hypot(slopeX, slopeY);
+
+        // Gravity along the plane and kinetic friction, both per unit mass
+        double cosTheta = 1 / Math.sqrt(1 + gradient * gradient);
+        double sinTheta = gradient * cosTheta;
+        double pull = g * sinTheta;
+        double kinetic = engine.kineticFrictionAt(x, y);
+        double friction = kinetic * g * cosTheta;
+        if (!(friction > pull)) {
+            return false; // The slope is too steep for the ball to stop
+        }
+
+        // Horizontal downhill direction d and the level direction across it, turned towards the velocity
+        double dx = gradient == 0 ? vx / horizontalSpeed : -slopeX / gradient;
+        double dy = gradient == 0 ? vy / horizontalSpeed : -slopeY / gradient;
+        double acrossX = -dy;
+        double acrossY = dx;
+        double across = vx * acrossX + vy * acrossY;
+        if (across < 0) {
+            acrossX = -acrossX;
+            acrossY = -acrossY;
+            across = -across;
+        }
+        // Speed along the plane, and the half angle between the velocity and the downhill direction
+        double downhill = (vx * dx + vy * dy) / cosTheta;
+        double speed = Math.hypot(downhill, across);
+        double cosAngle = downhill / speed;
+        double c = Math.sqrt(Math.max(0, (1 + cosAngle) / 2));
+        double s = Math.sqrt(Math.max(0, (1 - cosAngle) / 2));
+        double c2 = c * c;
+        double s2 = s * s;
+
+        double speed2 = speed * speed;
+        double alongPlane = speed2 * (c2 * c2 / (2 * (friction - pull)) - s2 * s2 / (2 * (friction + pull)));
+        double acrossPlane = 2 * speed2 * (s * c2 * c / (2 * friction - pull) + s2 * s * c / (2 * friction + pull));
+        double time = speed * (c2 / (friction - pull) + s2 / (friction + pull));
+        double stopX = x + alongPlane * cosTheta * dx + acrossPlane * acrossX;
+        double stopY = y + alongPlane * cosTheta * dy + acrossPlane * acrossY;
+
+        // The path bends one way only, so it stays in the triangle between its end points and the
+        // intersection of the lines along the first and last directions of travel
+        double cornerX = stopX;
+        double cornerY = stopY;
+        double turn = vx * dy - vy * dx;
+        if (Math.abs(turn) > 1e-12 * horizontalSpeed) {
+            double a = ((stopX - x) * dy - (stopY - y) * dx) / turn;
+            if (a > 0) {
+                cornerX = x + a * vx;
+                cornerY = y + a * vy;
+            }
+        }
+        double size = Math.max(Math.hypot(cornerX - x, cornerY - y), Math.max(Math.hypot(stopX - x, stopY - y), Math.hypot(stopX - cornerX, stopY - cornerY)));
+        int divisions = Math.max(2, (int) Math.ceil(size / SAMPLE_SPACING));
+        if (divisions > MAX_DIVISIONS) {
+            return false;
+        }
+
+        // The largest slope error that keeps the stopping point within tolerance, from ground error g*e*t^2/2
+        double slopeTolerance = 2 * tolerance / (g * time * time);
+        List<EventFunction> events = engine.events();
+        for (int i = 0; i <= divisions; i++) {
+            for (int j = 0; i + j <= divisions; j++) {
+                double u = (double) i / divisions;
+                double v = (double) j / divisions;
+                double px = x + u * (cornerX - x) + v * (stopX - x);
+                double py = y + u * (cornerY - y) + v * (stopY - y);
+                double[] ground = engine.sampleSurface(px, py);
+                if (Math.hypot(ground[1] - slopeX, ground[2] - slopeY) > slopeTolerance || engine.kineticFrictionAt(px, py) != kinetic) {
+                    return false;
+                }
+                if (!events.isEmpty()) {
+                    atRest[BallDynamics.X] = px;
+                    atRest[BallDynamics.Y] = py;
+                    for (EventFunction event : events) {
+                        if (!(event.value(atRest) > 0)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        if (engine.canOvercomeStaticFriction(stopX, stopY)) {
+            return false;
+        }
+
+        state[BallDynamics.X] = stopX;
+        state[BallDynamics.Y] = stopY;
+        state[BallDynamics.VX] = 0;
+        state[BallDynamics.VY] = 0;
+        jumps++;
+        skippedTime += time;
+        return true;
+    }
+
+    /**
+     * Returns the largest estimated distance between a predicted stopping point and the integrated one.
+     *
+     * @return the tolerance in metres
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the number of rolls finished by a jump.
+     *
+     * @return the number of jumps
+     */
+    public long getJumpCount() {
+        return jumps;
+    }
+
+    /**
+     * Returns the total time of rolling that jumps skipped over.
+     *
+     * @return the skipped time in seconds
+     */
+    public double getSkippedTime() {
+        return skippedTime;
+    }
+}
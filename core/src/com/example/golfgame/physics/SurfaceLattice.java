@@ -0,0 +1,255 @@
+package com.example.golfgame.physics;
+
+import com.example.golfgame.utils.Function;
+import com.example.golfgame.utils.gameUtils.TerrainCache;
+
+/**
+ * A precomputed stand-in for a surface function. The height, both slopes and the cross derivative are
+ * sampled once on a square lattice, and queries are answered by bicubic Hermite interpolation between
+ * the four surrounding nodes. The result is continuous in height and slope across cell borders, and a
+ * query costs the same hundred or so flops however complex the height expression is. Points outside
+ * the lattice fall back to the function itself.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * SurfaceLattice lattice = new SurfaceLattice(heightFunction, -50, -50, 50, 50, 0.1);
+ * System.out.println("Max height error: " + lattice.getMaxHeightError());
+ * engine.setSurfaceLattice(lattice);
+ * }</pre>
+ */
+public class SurfaceLattice {
+    private static final int VALUES_PER_NODE = 4; // h, hx, hy and hxy, stored together per node
+
+    private final Function surface;
+    private final double xMin;
+    private final double yMin;
+    private final double xMax;
+    private final double yMax;
+    private final double spacing;
+    private final int nx; // Number of nodes along the x-axis
+    private final int ny; // Number of nodes along the y-axis
+    private final double[] nodes;
+    // Largest interpolation errors found by measureError, or NaN before it has run
+    private double maxHeightError = Double.NaN;
+    private double maxSlopeError = Double.NaN;
+
+    /**
+     * Constructs a lattice over a rectangle. The rectangle is widened to a whole number of cells if needed.
+     * Lattices are cached by the shared {@link TerrainCache}, so a surface seen before is not sampled again
+     * and lattices of the same surface share one array of node values.
+     *
+     * @param surface the surface function of x and y
+     * @param xMin the lower x-coordinate of the rectangle
+     * @param yMin the lower y-coordinate of the rectangle
+     * @param xMax the upper x-coordinate of the rectangle
+     * @param yMax the upper y-coordinate of the rectangle
+     * @param spacing the distance between neighbouring nodes
+     *
+     * @throws IllegalArgumentException if the rectangle is empty, the spacing is not positive, the lattice
+     *                                  would be too large, or the surface has no symbolic form to differentiate
+     */
+    public SurfaceLattice(Function surface, double xMin, double yMin, double xMax, double yMax, double spacing) {
+        if (!(spacing > 0) || !(xMax > xMin) || !(yMax > yMin)) {
+            throw new IllegalArgumentException("Lattice needs a non-empty rectangle and a positive spacing.");
+        }
+        long columns = (long) Math.ceil((xMax - xMin) / spacing) + 1;
+        long rows = (long) Math.ceil((yMax - yMin) / spacing) + 1;
+        if (columns * rows * VALUES_PER_NODE > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Lattice of " + columns + "x" + rows + " nodes is too large.");
+        }
+        this.surface = surface;
+        this.xMin = xMin;
+        this.yMin = yMin;
+        this.spacing = spacing;
+        this.nx = (int) columns;
+        this.ny = (int) rows;
+        this.xMax = xMin + (nx - 1) * spacing;
+        this.yMax = yMin + (ny - 1) * spacing;
+
+        String key = TerrainCache.fingerprint("surface-lattice", surface, null, xMin, yMin, spacing, nx, ny);
+        this.nodes = TerrainCache.getShared().computeIfAbsentReadOnly(key, this::computeNodes);
+    }
+
+    /**
+     * Samples the height and its derivatives at every node, interleaved per node.
+     *
+     * @return the node values
+     */
+    private double[] computeNodes() {
+        Function surfaceDx = surface.derivative("x");
+        Function surfaceDy = surface.derivative("y");
+        if (surfaceDx == null || surfaceDy == null) {
+            throw new IllegalArgumentException("Surface function has no symbolic form to differentiate.");
+        }
+        Function[] layers = {surface, surfaceDx, surfaceDy, surfaceDx.derivative("y")};
+        double[] layer = new double[nx * ny];
+        double[] values = new double[nx * ny * VALUES_PER_NODE];
+        for (int k = 0; k < VALUES_PER_NODE; k++) {
+            layers[k].evaluateGrid(xMin, yMin, spacing, spacing, nx, ny, layer);
+            for (int i = 0; i < layer.length; i++) {
+                values[i * VALUES_PER_NODE + k] = layer[i];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Evaluates the height and both slopes at a point. Safe to call from several threads at once.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @param out receives the height at index 0 and the slopes along x and y at indices 1 and 2
+     */
+    public void sample(double x, double y, double[] out) {
+        if (!(x >= xMin && x <= xMax && y >= yMin && y <= yMax)) {
+            surface.evaluateWithGradient(x, y, out);
+            return;
+        }
+        double gx = (x - xMin) / spacing;
+        double gy = (y - yMin) / spacing;
+        int i = Math.min((int) gx, nx - 2);
+        int j = Math.min((int) gy, ny - 2);
+        double u = gx - i;
+        double v = gy - j;
+
+        // Hermite basis along x: value weights a, slope weights b, and their derivatives with respect to x
+        double u2 = u * u;
+        double u3 = u2 * u;
+        double a0 = 2 * u3 - 3 * u2 + 1;
+        double a1 = 3 * u2 - 2 * u3;
+        double b0 = (u3 - 2 * u2 + u) * spacing;
+        double b1 = (u3 - u2) * spacing;
+        double da0 = (6 * u2 - 6 * u) / spacing;
+        double da1 = -da0;
+        double db0 = 3 * u2 - 4 * u + 1;
+        double db1 = 3 * u2 - 2 * u;
+        // The same along y
+        double v2 = v * v;
+        double v3 = v2 * v;
+        double c0 = 2 * v3 - 3 * v2 + 1;
+        double c1 = 3 * v2 - 2 * v3;
+        double d0 = (v3 - 2 * v2 + v) * spacing;
+        double d1 = (v3 - v2) * spacing;
+        double dc0 = (6 * v2 - 6 * v) / spacing;
+        double dc1 = -dc0;
+        double dd0 = 3 * v2 - 4 * v + 1;
+        double dd1 = 3 * v2 - 2 * v;
+
+        int n00 = (j * nx + i) * VALUES_PER_NODE;
+        int n10 = n00 + VALUES_PER_NODE;
+        int n01 = n00 + nx * VALUES_PER_NODE;
+        int n11 = n01 + VALUES_PER_NODE;
+
+        // Interpolate along x on the lower and upper rows, for the value and the y-slope of each row
+        double lower = a0 * nodes[n00] + a1 * nodes[n10] + b0 * nodes[n00 + 1] + b1 * nodes[n10 + 1];
+        double upper = a0 * nodes[n01] + a1 * nodes[n11] + b0 * nodes[n01 + 1] + b1 * nodes[n11 + 1];
+        double lowerDy = a0 * nodes[n00 + 2] + a1 * nodes[n10 + 2] + b0 * nodes[n00 + 3] + b1 * nodes[n10 + 3];
+        double upperDy = a0 * nodes[n01 + 2] + a1 * nodes[n11 + 2] + b0 * nodes[n01 + 3] + b1 * nodes[n11 + 3];
+        // The same rows differentiated along x
+        double lowerDx = da0 * nodes[n00] + da1 * nodes[n10] + db0 * nodes[n00 + 1] + db1 * nodes[n10 + 1];
+        double upperDx = da0 * nodes[n01] + da1 * nodes[n11] + db0 * nodes[n01 + 1] + db1 * nodes[n11 + 1];
+        double lowerDxy = da0 * nodes[n00 + 2] + da1 * nodes[n10 + 2] + db0 * nodes[n00 + 3] + db1 * nodes[n10 + 3];
+        double upperDxy = da0 * nodes[n01 + 2] + da1 * nodes[n11 + 2] + db0 * nodes[n01 + 3] + db1 * nodes[n11 + 3];
+
+        out[0] = c0 * lower + c1 * upper + d0 * lowerDy + d1 * upperDy;
+        out[1] = c0 * lowerDx + c1 * upperDx + d0 * lowerDxy + d1 * upperDxy;
+        out[2] = dc0 * lower + dc1 * upper + dd0 * lowerDy + dd1 * upperDy;
+    }
+
+    /**
+     * Returns the largest difference in height between the lattice and the surface function, measured
+     * on a grid of quarter points inside every cell.
+     *
+     * @return the maximum height error
+     */
+    public double getMaxHeightError() {
+        measureError();
+        return maxHeightError;
+    }
+
+    /**
+     * Returns the largest difference in slope, along either axis, between the lattice and the surface
+     * function, measured like {@link #getMaxHeightError()}.
+     *
+     * @return the maximum slope error
+     */
+    public double getMaxSlopeError() {
+        measureError();
+        return maxSlopeError;
+    }
+
+    /**
+     * Compares the lattice with the surface function at the quarter points of every cell, the first
+     * time an error is asked for.
+     */
+    private synchronized void measureError() {
+        if (!Double.isNaN(maxHeightError)) {
+            return;
+        }
+        double[] exact = new double[3];
+        double[] interpolated = new double[3];
+        double heightError = 0;
+        double slopeError = 0;
+        for (int j = 0; j < ny - 1; j++) {
+            for (int i = 0; i < nx - 1; i++) {
+                for (int q = 0; q < 16; q++) {
+                    double x = xMin + (i + (q % 4) / 4.0) * spacing;
+                    double y = yMin + (j + (q / 4) / 4.0) * spacing;
+                    surface.evaluateWithGradient(x, y, exact);
+                    sample(x, y, interpolated);
+                    heightError = Math.max(heightError, Math.abs(interpolated[0] - exact[0]));
+                    slopeError = Math.max(slopeError, Math.max(Math.abs(interpolated[1] - exact[1]), Math.abs(interpolated[2] - exact[2])));
+                }
+            }
+        }
+        maxSlopeError = slopeError;
+        maxHeightError = heightError;
+    }
+
+    /**
+     * Returns the surface function the lattice was sampled from.
+     *
+     * @return the surface function
+     */
+    public Function getSurfaceFunction() {
+        return surface;
+    }
+
+    /**
+     * Returns the distance between neighbouring nodes.
+     *
+     * @return the spacing
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    // Raw layout for lane kernels that interpolate many points at once, in the same order as sample
+    double[] nodes() {
+        return nodes;
+    }
+
+    double xMin() {
+        return xMin;
+    }
+
+    double yMin() {
+        return yMin;
+    }
+
+    double xMax() {
+        return xMax;
+    }
+
+    double yMax() {
+        return yMax;
+    }
+
+    int columns() {
+        return nx;
+    }
+
+    int rows() {
+        return ny;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.golfgame.physics;
+
+import java.util.Arrays;
+
+/**
+ * Records the path of a ball as x, y pairs in a primitive buffer that is kept and grown between shots,
+ * so recording a step creates no objects. The path can be thinned while it is recorded, keeping a point
+ * only once the ball has travelled a given distance along the path, or afterwards with the
+ * Douglas-Peucker algorithm, which keeps every point the line through the rest would miss by more than
+ * a tolerance. A recorder built with a {@link PointSink} hands its points on as they come instead of
+ * storing them.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * TrajectoryRecorder recorder = new TrajectoryRecorder();
+ * recorder.setDecimation(TrajectoryRecorder.Decimation.DOUGLAS_PEUCKER, 0.01);
+ * simulator.hitWithPath(10, angle, recorder);
+ * for (int i = 0; i < recorder.size(); i++) {
+ *     drawPoint(recorder.getX(i), recorder.getY(i));
+ * }
+ * }</pre>
+ */
+public class TrajectoryRecorder {
+    private static final int INITIAL_CAPACITY = 256; // Points held before the buffer first grows
+
+    /**
+     * How a recorder thins the path.
+     */
+    public enum Decimation {
+        NONE,
+        ARC_LENGTH, // Keep a point once the path since the last kept point is longer than the tolerance
+        DOUGLAS_PEUCKER // Keep the points the simplified line would otherwise miss by more than the tolerance
+    }
+
+    /**
+     * Receives the points of a path as they are recorded.
+     */
+    public interface PointSink {
+
+        /**
+         * Accepts the next point of the path.
+         *
+         * @param x the x-coordinate of the point
+         * @param y the y-coordinate of the point
+         */
+        void accept(float x, float y);
+    }
+
+    private final PointSink sink; // Receives points instead of the buffer, or null to store them
+    private float[] points = new float[2 * INITIAL_CAPACITY]; // x0, y0, x1, y1, ...
+    private int size;
+    private Decimation decimation = Decimation.NONE;
+    private double tolerance;
+    private boolean started;
+    private boolean lastKept; // Whether the latest recorded point was kept
+    private float lastX; // Latest recorded point, kept or not
+    private float lastY;
+    private double pendingLength; // Length of the path since the last kept point
+    private int[] stack = new int[64]; // Index ranges still to be simplified by Douglas-Peucker
+    private boolean[] keep = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * Constructs a recorder that stores the points.
+     */
+    public TrajectoryRecorder() {
+        this(null);
+    }
+
+    /**
+     * Constructs a recorder that hands every point to a sink as soon as it is kept, without storing it.
+     *
+     * @param sink the receiver of the points, or null to store them
+     */
+    public TrajectoryRecorder(PointSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Chooses how paths are thinned. Call it before recording a path.
+     *
+     * @param decimation the way of thinning the path
+     * @param tolerance the distance along the path between kept points for {@link Decimation#ARC_LENGTH},
+     *                  or the largest distance from the simplified line for {@link Decimation#DOUGLAS_PEUCKER}, in metres
+     *
+     * @throws IllegalArgumentException if the tolerance is negative
+     * @throws IllegalStateException if Douglas-Peucker is asked of a recorder with a sink, since it needs the whole path
+     */
+    public void setDecimation(Decimation decimation, double tolerance) {
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Decimation tolerance must not be negative.");
+        }
+        if (decimation == Decimation.DOUGLAS_PEUCKER && sink != null) {
+            throw new IllegalStateException("Douglas-Peucker decimation needs the whole path and cannot stream to a sink.");
+        }
+        this.decimation = decimation;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Forgets the recorded path, keeping the buffer for the next one.
+     */
+    public void clear() {
+        size = 0;
+        started = false;
+        pendingLength = 0;
+    }
+
+    /**
+     * Records the next position of the ball.
+     *
+     * @param x the x-coordinate of the ball
+     * @param y the y-coordinate of the ball
+     */
+    public void record(double x, double y) {
+        float px = (float) x;
+        float py = (float) y;
+        boolean kept = true;
+        if (started && decimation == Decimation.ARC_LENGTH) {
+            pendingLength += Math.hypot(px - lastX, py - lastY);
+            kept = pendingLength >= tolerance;
+        }
+        if (kept) {
+            emit(px, py);
+            pendingLength = 0;
+        }
+        started = true;
+        lastKept = kept;
+        lastX = px;
+        lastY = py;
+    }
+
+    /**
+     * Ends the path: adds its last point if thinning held it back, and simplifies the stored path if
+     * Douglas-Peucker was chosen.
+     */
+    public void finish() {
+        if (started && !lastKept) {
+            emit(lastX, lastY);
+            lastKept = true;
+            pendingLength = 0;
+        }
+        if (decimation == Decimation.DOUGLAS_PEUCKER && size > 2) {
+            simplify();
+        }
+    }
+
+    private void emit(float x, float y) {
+        if (sink != null) {
+            sink.accept(x, y);
+            size++;
+            return;
+        }
+        if (2 * size == points.length) {
+            points = Arrays.copyOf(points, 2 * points.length);
+        }
+        points[2 * size] = x;
+        points[2 * size + 1] = y;
+        size++;
+    }
+
+    /**
+     * Simplifies the stored path in place with the Douglas-Peucker algorithm, using an explicit stack
+     * so that long paths cannot overflow the call stack.
+     */
+    private void simplify() {
+        if (keep.length < size) {
+            keep = new boolean[Math.max(size, 2 * keep.length)];
+        }
+        Arrays.fill(keep, 0, size, false);
+        keep[0] = true;
+        keep[size - 1] = true;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            float ax = points[2 * first];
+            float ay = points[2 * first + 1];
+            double dx = points[2 * last] - ax;
+            double dy = points[2 * last + 1] - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double inverseLengthSquared = lengthSquared == 0 ? 0 : 1 / lengthSquared;
+            int farthest = -1;
+            // Squared distances compare like distances and need no square root per point
+            double farthestDistanceSquared = tolerance * tolerance;
+            for (int i = first + 1; i < last; i++) {
+                double px = points[2 * i] - ax;
+                double py = points[2 * i + 1] - ay;
+                // Distance to the segment between the ends rather than the line through them, since a ball
+                // rolling back down a slope doubles back on its own path
+                double t = Math.min(1, Math.max(0, (px * dx + py * dy) * inverseLengthSquared));
+                double ex = px - t * dx;
+                double ey = py - t * dy;
+                double distanceSquared = ex * ex + ey * ey;
+                if (distanceSquared > farthestDistanceSquared) {
+                    farthestDistanceSquared = distanceSquared;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) {
+                continue;
+            }
+            keep[farthest] = true;
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                points[2 * kept] = points[2 * i];
+                points[2 * kept + 1] = points[2 * i + 1];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Returns the number of points kept, including those handed to a sink.
+     *
+     * @return the number of points
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x-coordinate of a stored point.
+     *
+     * @param i the index of the point
+     * @return the x-coordinate
+     */
+    public float getX(int i) {
+        return points[2 * i];
+    }
+
+    /**
+     * Returns the y-coordinate of a stored point.
+     *
+     * @param i the index of the point
+     * @return the y-coordinate
+     */
+    public float getY(int i) {
+        return points[2 * i + 1];
+    }
+
+    /**
+     * Returns the buffer holding the stored points as x, y pairs. Only the first {@code 2 * size()}
+     * values belong to the path, and the buffer is reused by the next path.
+     *
+     * @return the buffer
+     */
+    public float[] getPoints() {
+        return points;
+    }
+}
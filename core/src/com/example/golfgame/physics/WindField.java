@@ -0,0 +1,144 @@
+package com.example.golfgame.physics;
+
+import java.util.Random;
+
+/**
+ * The push of the wind on the ball, as a horizontal acceleration added to the equations of motion.
+ * The wind may be the same everywhere or carry gusts: random deviations drawn once on a square lattice
+ * over the course and interpolated bilinearly between the nodes, so sampling the wind under the ball
+ * takes constant time at every stage of every step. Outside the lattice the gusts of its nearest edge
+ * continue.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * WindField wind = new WindField(0.05, -0.02, 0.03, 2, -20, -20, 20, 20, 2024);
+ * engine.setWindField(wind);
+ * double ax = wind.getAccelerationX(x, y);
+ * }</pre>
+ */
+public class WindField {
+    private final double windX; // Mean acceleration along the x-axis, m/s^2
+    private final double windY; // Mean acceleration along the y-axis, m/s^2
+    private final double[] gustX; // Deviation from the mean at each lattice node, or null without gusts
+    private final double[] gustY;
+    private final double xMin;
+    private final double yMin;
+    private final double spacing;
+    private final int nx; // Number of nodes along the x-axis
+    private final int ny; // Number of nodes along the y-axis
+    private final double maxAcceleration;
+
+    /**
+     * Constructs a wind that blows the same everywhere.
+     *
+     * @param windX the acceleration along the x-axis, m/s^2
+     * @param windY the acceleration along the y-axis, m/s^2
+     */
+    public WindField(double windX, double windY) {
+        this.windX = windX;
+        this.windY = windY;
+        this.gustX = null;
+        this.gustY = null;
+        this.xMin = this.yMin = 0;
+        this.spacing = 1;
+        this.nx = this.ny = 0;
+        this.maxAcceleration = Math.hypot(windX, windY);
+    }
+
+    /**
+     * Constructs a gusty wind over a rectangle of the course.
+     *
+     * @param windX the mean acceleration along the x-axis, m/s^2
+     * @param windY the mean acceleration along the y-axis, m/s^2
+     * @param gustStrength the largest deviation of either component from the mean, m/s^2
+     * @param spacing the distance between lattice nodes, roughly the size of a gust
+     * @param xMin the lowest x-coordinate of the lattice
+     * @param yMin the lowest y-coordinate of the lattice
+     * @param xMax the highest x-coordinate of the lattice
+     * @param yMax the highest y-coordinate of the lattice
+     * @param seed the seed of the random gusts, so that the game and the simulator can draw the same ones
+     *
+     * @throws IllegalArgumentException if the gust strength is negative, the spacing is not positive or the rectangle is empty
+     */
+    public WindField(double windX, double windY, double gustStrength, double spacing,
+                     double xMin, double yMin, double xMax, double yMax, long seed) {
+        if (!(gustStrength >= 0) || !(spacing > 0)) {
+            throw new IllegalArgumentException("Gust strength must not be negative and spacing must be positive.");
+        }
+        if (!(xMax > xMin && yMax > yMin)) {
+            throw new IllegalArgumentException("Gust lattice must cover a non-empty rectangle.");
+        }
+        this.windX = windX;
+        this.windY = windY;
+        this.xMin = xMin;
+        this.yMin = yMin;
+        this.spacing = spacing;
+        this.nx = (int) Math.ceil((xMax - xMin) / spacing) + 1;
+        this.ny = (int) Math.ceil((yMax - yMin) / spacing) + 1;
+        this.gustX = new double[nx * ny];
+        this.gustY = new double[nx * ny];
+
+        Random random = new Random(seed);
+        double strongest = 0;
+        for (int node = 0; node < gustX.length; node++) {
+            gustX[node] = (random.nextDouble() * 2 - 1) * gustStrength;
+            gustY[node] = (random.nextDouble() * 2 - 1) * gustStrength;
+            strongest = Math.max(strongest, Math.hypot(windX + gustX[node], windY + gustY[node]));
+        }
+        // Interpolation mixes the nodes, so no point is windier than the windiest node
+        this.maxAcceleration = strongest;
+    }
+
+    /**
+     * Returns the acceleration of the wind along the x-axis at a point.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the acceleration, m/s^2
+     */
+    public double getAccelerationX(double x, double y) {
+        return gustX == null ? windX : windX + interpolate(gustX, x, y);
+    }
+
+    /**
+     * Returns the acceleration of the wind along the y-axis at a point.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the acceleration, m/s^2
+     */
+    public double getAccelerationY(double x, double y) {
+        return gustY == null ? windY : windY + interpolate(gustY, x, y);
+    }
+
+    /**
+     * Returns the strongest acceleration of the wind anywhere.
+     *
+     * @return the largest magnitude of the acceleration, m/s^2
+     */
+    public double getMaxAcceleration() {
+        return maxAcceleration;
+    }
+
+    /**
+     * Checks if the wind has gusts.
+     *
+     * @return true if the wind changes from place to place
+     */
+    public boolean hasGusts() {
+        return gustX != null;
+    }
+
+    private double interpolate(double[] nodes, double x, double y) {
+        double u = Math.min(Math.max((x - xMin) / spacing, 0), nx - 1);
+        double v = Math.min(Math.max((y - yMin) / spacing, 0), ny - 1);
+        int i = Math.min((int) u, nx - 2);
+        int j = Math.min((int) v, ny - 2);
+        double fu = u - i;
+        double fv = v - j;
+        int node = j * nx + i;
+        double bottom = nodes[node] + fu * (nodes[node + 1] - nodes[node]);
+        double top = nodes[node + nx] + fu * (nodes[node + nx + 1] - nodes[node + nx]);
+        return bottom + fv * (top - bottom);
+    }
+}
@@ -36,11 +36,11 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import com.example.golfgame.GolfGame;
 import com.example.golfgame.bot.WallE;
@@ -73,6 +73,11 @@ public class GolfGameScreen implements Screen, Disposable {
     private static final float LOW_SPEED_THRESHOLD_SAND = 1.0f;
     private static final float MIN_SPEED = 1f;
     private static final float MAX_SPEED = 10f;
+    private static final double PHYSICS_RATE = 1000; // Physics steps per second of game time
+    private static final double SOLVER_TARGET_ERROR = 0.01; // Largest landing error of the selected solver at PHYSICS_RATE, in metres
+    private static final int CALIBRATION_SHOTS = 8; // Shots played by every solver when the game's solver is selected
+    private static final int MAX_PHYSICS_SUBSTEPS = 100; // If the physics thread falls 100 ms behind, the game slows down instead
+    private static final double WIND_FRAME_RATE = 60; // The wind setting is a velocity per frame, tuned at 60 frames per second
 
     // Core game objects
     private final GolfGame mainGame;
@@ -95,14 +100,23 @@ public class GolfGameScreen implements Screen, Disposable {
 
     // Physics and terrain
     private PhysicsEngine gamePhysicsEngine;
+    private PhysicsThread physicsThread; // Steps the engine at PHYSICS_RATE, off the render thread
+    private volatile long ballChangeSequence; // Command number of the last change made to the ball outside the physics thread
+    private boolean ballSimulated; // Whether the physics thread was last told to simulate the ball
     private TerrainManager terrainManager;
     private WaterSurfaceManager waterSurfaceManager;
     private Function terrainHeightFunction;
     private BallState currentBallState, lastValidState, goalState = new BallState(-20, 20, 0, 0);
+    private volatile Thread renderThread; // Thread the screen is shown and rendered on; bot threads post their ball changes to it
+    private final BallState renderedBallState = new BallState(0, 0, 0, 0); // Interpolated ball state from the latest physics snapshot, for drawing
+    private final BallSnapshot physicsSnapshot = new BallSnapshot(); // Reused every frame to copy the ball out of the physics thread
     private static float GOAL_TOLERANCE = 1.5f;
     private double grassFrictionKinetic, grassFrictionStatic;
     private double sandFrictionKinetic = 0.7;
     private double sandFrictionStatic = 1;
+    private MaterialField materialField; // Grass and sand of the course, rebuilt whenever the game starts
+    private WindField windField; // Wind of the weather as the ball feels it, or null for still air
+    private final TrajectoryRecorder pathRecorder = PhysicsSimulator.createPathRecorder(); // Reused by every press of the path button
     private float lowSpeedThreshold = LOW_SPEED_THRESHOLD_GRASS;
     private List<BallState> ballPositionsWhenSlow;
 
@@ -128,6 +142,8 @@ public class GolfGameScreen implements Screen, Disposable {
     private float cameraDistance = DEFAULT_CAMERA_DISTANCE;
     private float cameraViewAngle = 0;
     private boolean ruleBasedBotActive = false;
+    private boolean adaptiveSolver = false; // Whether the ball is integrated with Dormand-Prince instead of the fixed-step solver
+    private volatile String fixedStepSolver = "RungeKutta"; // Registered name of the fixed-step solver, until one is selected for the course
     private boolean hillClimbingBotActive = false;
     private float ballRotationAngleX = 0f;
     private float ballRotationAngleY = 0f;
@@ -145,6 +161,13 @@ public class GolfGameScreen implements Screen, Disposable {
     // Bots
     private WallE wallE;
     private ExecutorService executorService = Executors.newSingleThreadExecutor();
+    // Measures solvers for a new course without holding up the bot; a low-priority daemon, so it yields to the game
+    private final ExecutorService calibrationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "solver-calibration");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
     private Future<?> hillClimbingBotFuture = null;
 
     /**
@@ -257,19 +280,82 @@ public class GolfGameScreen implements Screen, Disposable {
      */
     private void initializePhysicsAndGameState() {
         terrainHeightFunction = mainGame.getSettingsScreen().getCurHeightFunction();
-        ODE solver = new RungeKutta();
-        gamePhysicsEngine = new PhysicsEngine(solver, terrainHeightFunction);
+        grassFrictionKinetic = 0.1;
+        grassFrictionStatic = 0.2;
+        materialField = new MaterialField(grassFrictionKinetic, grassFrictionStatic, sandFrictionKinetic, sandFrictionStatic, mainGame.getSandboxes());
+        gamePhysicsEngine = new PhysicsEngine(createSolver(), terrainHeightFunction);
+        gamePhysicsEngine.setMaterialField(materialField);
+        windField = createWindField();
+        gamePhysicsEngine.setWindField(windField);
+        if (physicsThread != null) {
+            physicsThread.stop();
+        }
+        physicsThread = new PhysicsThread(gamePhysicsEngine, currentBallState, PHYSICS_RATE, MAX_PHYSICS_SUBSTEPS);
+        physicsThread.start();
+        selectFixedStepSolver();
+        ballChangeSequence = 0;
+        ballSimulated = false;
+        renderedBallState.setAllComponents(currentBallState.getX(), currentBallState.getY(), currentBallState.getVx(), currentBallState.getVy());
         score = 0;
         lastScore = -1;
         ballPositionsWhenSlow = new ArrayList<>();
         ballPositionsWhenSlow.clear();
         lastValidState = currentBallState.copy();
-        grassFrictionKinetic = 0.1;
-        grassFrictionStatic = 0.2;
         ballRotationAngleX = 0f;
         ballRotationAngleY = 0f;
     }
 
+    /**
+     * Selects the fastest fixed-step solver that lands within {@link #SOLVER_TARGET_ERROR} of a fine-step
+     * reference at the physics rate on this course. A course seen for the first time takes a few seconds
+     * to measure, so the calibration runs on an executor of its own and the solver is swapped on the
+     * physics thread once it is known; until then, and if no solver reaches the target, Runge-Kutta is kept.
+     */
+    private void selectFixedStepSolver() {
+        PhysicsEngine engine = gamePhysicsEngine;
+        PhysicsThread thread = physicsThread;
+        SolverCalibration calibration = new SolverCalibration(terrainHeightFunction, grassFrictionKinetic, grassFrictionStatic,
+                SolverCalibration.shotsFrom(currentBallState.getX(), currentBallState.getY(), CALIBRATION_SHOTS, MIN_SPEED, MAX_SPEED));
+        calibration.setMaterialField(materialField);
+        calibration.setWindField(windField);
+        calibrationExecutor.submit(() -> {
+            List<String> fixedStep = new ArrayList<>();
+            for (String name : SolverRegistry.getNames()) {
+                if (!(SolverRegistry.create(name) instanceof AdaptiveODE)) {
+                    fixedStep.add(name);
+                }
+            }
+            SolverCalibration.Configuration fastest = SolverCalibration.fastestWithin(
+                    calibration.loadOrMeasureFront(fixedStep, new double[]{1 / PHYSICS_RATE}), SOLVER_TARGET_ERROR);
+            if (fastest == null) {
+                return;
+            }
+            fixedStepSolver = fastest.getSolver();
+            ODE solver = SolverRegistry.create(fastest.getSolver());
+            thread.submit(ball -> {
+                // The player may have switched to the adaptive solver in the meantime
+                if (!(engine.getSolver() instanceof AdaptiveODE)) {
+                    engine.setSolver(solver);
+                }
+            });
+        });
+    }
+
+    /**
+     * Turns the wind of the weather into an acceleration of the ball. The wind setting was once added to
+     * the velocity every frame, so it is scaled by the frame rate it was tuned at.
+     *
+     * @return the wind field, or null if there is no wind
+     */
+    private WindField createWindField() {
+        double windX = weather.getWind()[0] * WIND_FRAME_RATE;
+        double windY = weather.getWind()[1] * WIND_FRAME_RATE;
+        if (windX == 0 && windY == 0) {
+            return null;
+        }
+        return new WindField(windX, windY);
+    }
+
     /**
      * Initializes the terrain for the game.
      */
@@ -303,7 +389,7 @@ public class GolfGameScreen implements Screen, Disposable {
      */
     private void initializeGameEnvironment() {
         for (Sandbox box : mainGame.getSandboxes()) {
-            terrainManager.addSandArea(new float[]{box.getXLowBound(), box.getXLowBound(), box.getXHighBound(), box.getYHighBound()});
+            terrainManager.addSandArea(new float[]{box.getXLowBound(), box.getYLowBound(), box.getXHighBound(), box.getYHighBound()});
         }
         terrainManager.setHoleArea(new float[]{(float) goalState.getX(), (float) goalState.getY()});
 
@@ -373,19 +459,14 @@ public class GolfGameScreen implements Screen, Disposable {
      * Sets the position for the flag and stem instances.
      */
     private void setPositionForFlagAndStemInstances() {
-        flagInstance.transform.setToTranslation((float) goalState.getX(), (float) terrainHeightFunction.evaluate(new HashMap<String, Double>() {{
-            put("x", goalState.getX());
-            put("y", goalState.getY());
-        }}), (float) goalState.getY());
-
-        flagStemInstance.transform.setToTranslation((float) goalState.getX(), (float) terrainHeightFunction.evaluate(new HashMap<String, Double>() {{
-            put("x", goalState.getX());
-            put("y", goalState.getY());
-        }}), (float) goalState.getY());
+        float goalHeight = (float) terrainHeightFunction.evaluate(goalState.getX(), goalState.getY());
+        flagInstance.transform.setToTranslation((float) goalState.getX(), goalHeight, (float) goalState.getY());
+        flagStemInstance.transform.setToTranslation((float) goalState.getX(), goalHeight, (float) goalState.getY());
     }
 
     @Override
     public void show() {
+        renderThread = Thread.currentThread();
         // Stop any previously playing music to prevent overlapping
         if (music.isPlaying()) {
             music.stop();
@@ -518,9 +599,11 @@ public class GolfGameScreen implements Screen, Disposable {
             @Override
             public void clicked(InputEvent event, float x, float y) {
                 PhysicsSimulator simulator = new PhysicsSimulator(terrainHeightFunction, goalState);
+                simulator.setMaterialField(materialField);
+                simulator.setWindField(windField);
                 simulator.setPosition((float)currentBallState.getX(), (float)currentBallState.getY());
-                List<Vector2> result = simulator.hitWithPath(10, cameraViewAngle).getValue();
-                lineInstance = terrainManager.createRedLineModel(result);
+                simulator.hitWithPath(10, cameraViewAngle, pathRecorder);
+                lineInstance = terrainManager.createRedLineModel(pathRecorder);
             }
         });
         return pathButton;
@@ -639,7 +722,7 @@ public class GolfGameScreen implements Screen, Disposable {
      * Resets the game state to initial conditions.
      */
     public void resetGameState() {
-        currentBallState.setAllComponents(0, 0, 0.001, 0.001);
+        setBallState(0, 0, 0.001, 0.001);
         reloadTerrain(0, 0);
         isBallAllowedToMove = false;
         ballRotationAngleX = 0f;
@@ -720,9 +803,11 @@ public class GolfGameScreen implements Screen, Disposable {
      * @param speed the speed to hit the ball with
      */
     public void performHit(float speed) {
+        if (postToRenderThread(() -> performHit(speed))) {
+            return;
+        }
         isBallAllowedToMove = true;
-        currentBallState.setVx(-speed * Math.cos(cameraViewAngle));
-        currentBallState.setVy(-speed * Math.sin(cameraViewAngle));
+        setBallVelocity(-speed * Math.cos(cameraViewAngle), -speed * Math.sin(cameraViewAngle));
         isBallInWater = false;
     }
 
@@ -733,9 +818,11 @@ public class GolfGameScreen implements Screen, Disposable {
      * @param vy the y velocity to hit the ball with
      */
     public void performHitWithVelocity(double vx, double vy) {
+        if (postToRenderThread(() -> performHitWithVelocity(vx, vy))) {
+            return;
+        }
         isBallAllowedToMove = true;
-        currentBallState.setVx(-vx);
-        currentBallState.setVy(-vy);
+        setBallVelocity(-vx, -vy);
         isBallInWater = false;
     }
 
@@ -750,10 +837,12 @@ public class GolfGameScreen implements Screen, Disposable {
 
     @Override
     public void render(float delta) {
+        loadPhysicsSnapshot();
         handleInput();
         if (!isPaused) {
             update(delta);
         }
+        updateBallSimulation();
         draw();
         stage.act(Math.min(Gdx.graphics.getDeltaTime(), 1 / 30f));
         stage.draw();
@@ -777,9 +866,8 @@ public class GolfGameScreen implements Screen, Disposable {
             handleGoalReached();
         }
     
-        // Update ball state if allowed to move
+        // The ball itself is moved by the physics thread
         if (isBallAllowedToMove) {
-            currentBallState = gamePhysicsEngine.update(currentBallState, deltaTime);
             updateBallRotation(deltaTime);
         }
     
@@ -787,9 +875,6 @@ public class GolfGameScreen implements Screen, Disposable {
     
         setPositionForFlagAndStemInstances();
     
-        // Apply wind effects to the ball's velocity
-        applyWindEffect();
-    
         // Update the ball's position in the world
         updateBallPosition();
     
@@ -805,13 +890,93 @@ public class GolfGameScreen implements Screen, Disposable {
         // Handle ball falling below ground level
         handleBallFallingBelowGround();
     
-        // Set friction based on the terrain type
-        setTerrainFriction();
-    
         // Check and handle if the ball is out of bounds
         checkAndHandleBallOutOfBounds();
     }
 
+    /**
+     * Takes the latest ball state published by the physics thread, and the interpolated state to draw,
+     * unless a change made to the ball since has not reached the physics thread yet, in which case the
+     * local state is newer and is both kept and drawn.
+     */
+    private void loadPhysicsSnapshot() {
+        BallSnapshot snapshot = physicsThread.getSnapshot(physicsSnapshot);
+        if (snapshot.getSequence() >= ballChangeSequence) {
+            snapshot.copyTo(currentBallState);
+            snapshot.copyInterpolatedTo(renderedBallState);
+        } else {
+            renderedBallState.setAllComponents(currentBallState.getX(), currentBallState.getY(), currentBallState.getVx(), currentBallState.getVy());
+        }
+    }
+
+    /**
+     * Tells the physics thread whether the ball should move, which it does while it is allowed to and
+     * the game is not paused.
+     */
+    private void updateBallSimulation() {
+        boolean simulate = isBallAllowedToMove && !isPaused;
+        if (simulate != ballSimulated) {
+            physicsThread.setSimulating(simulate);
+            ballSimulated = simulate;
+        }
+    }
+
+    /**
+     * Changes the ball, both here and on the physics thread that simulates it. Called from a bot thread,
+     * the change is posted to the render thread, which owns the local copy of the ball.
+     *
+     * @param change the change to make, applied to both copies of the ball
+     */
+    private void changeBallState(Consumer<BallState> change) {
+        if (postToRenderThread(() -> changeBallState(change))) {
+            return;
+        }
+        if (physicsThread != null) {
+            ballChangeSequence = physicsThread.submit(change);
+        }
+        change.accept(currentBallState);
+    }
+
+    /**
+     * Posts an action to the render thread if called from any other thread, such as a bot's.
+     *
+     * @param action the action to run on the render thread
+     * @return true if the action was posted, false if the caller is the render thread and should go on itself
+     */
+    private boolean postToRenderThread(Runnable action) {
+        Thread owner = renderThread;
+        if (owner == null || owner == Thread.currentThread()) {
+            return false;
+        }
+        Gdx.app.postRunnable(action);
+        return true;
+    }
+
+    /**
+     * Moves the ball to a new state.
+     *
+     * @param x the new x-coordinate
+     * @param y the new y-coordinate
+     * @param vx the new velocity along the x-axis
+     * @param vy the new velocity along the y-axis
+     */
+    private void setBallState(double x, double y, double vx, double vy) {
+        changeBallState(ball -> ball.setAllComponents(x, y, vx, vy));
+    }
+
+    /**
+     * Gives the ball a new velocity where it lies.
+     *
+     * @param vx the new velocity along the x-axis
+     * @param vy the new velocity along the y-axis
+     */
+    private void setBallVelocity(double vx, double vy) {
+        changeBallState(ball -> {
+            ball.setVx(vx);
+            ball.setVy(vy);
+        });
+    }
+
     /**
      * Updates the behavior of the bot based on its current state.
      */
@@ -881,6 +1046,23 @@ public class GolfGameScreen implements Screen, Disposable {
         return ball.epsilonPositionEquals(goal, GOAL_TOLERANCE-0.5)&&Math.abs(ball.getVx())<3.5&&Math.abs(ball.getVy())<3.5;
     }
 
+    /**
+     * Measures how far a ball is from reaching the goal in the simulator, as a continuous function that
+     * the physics engine can locate the moment of capture with.
+     *
+     * @param x the x-coordinate of the ball
+     * @param y the y-coordinate of the ball
+     * @param vx the velocity of the ball along the x-axis
+     * @param vy the velocity of the ball along the y-axis
+     * @param goal the goal state
+     * @return a positive value while {@link #validSimulatorGoal(BallState, BallState)} does not hold, zero or negative once it does
+     */
+    public static double simulatorGoalMargin(double x, double y, double vx, double vy, BallState goal){
+        double positionMargin = Math.max(Math.abs(x - goal.getX()), Math.abs(y - goal.getY())) - (GOAL_TOLERANCE - 0.5);
+        double speedMargin = Math.max(Math.abs(vx), Math.abs(vy)) - 3.5;
+        return Math.max(positionMargin, speedMargin);
+    }
+
     /**
      * Checks if the ball is out of bounds and handles it accordingly.
      */
@@ -890,21 +1072,11 @@ public class GolfGameScreen implements Screen, Disposable {
             scoreChange();
     
             // Возврат мяча на последнее корректное положение
-            currentBallState.setAllComponents(lastValidState.getX(), lastValidState.getY(), lastValidState.getVx(), lastValidState.getVy());
+            setBallState(lastValidState.getX(), lastValidState.getY(), lastValidState.getVx(), lastValidState.getVy());
             System.out.println("Ball is out of bounds. Returning to last valid position.");
         }
     }
 
-    /**
-     * Applies wind effect to the ball's velocity.
-     */
-    private void applyWindEffect() {
-        if (Math.abs(currentBallState.getVx()) > 0.01 || Math.abs(currentBallState.getVy()) > 0.01) {
-            currentBallState.setVx(weather.getWind()[0] + currentBallState.getVx());
-            currentBallState.setVy(weather.getWind()[1] + currentBallState.getVy());
-        }
-    }
-
     /**
      * Updates the animations for the game.
      *
@@ -918,11 +1090,11 @@ public class GolfGameScreen implements Screen, Disposable {
     }
 
     /**
-     * Updates the ball's position in the world.
+     * Updates the ball's position in the world, drawn between the last two physics steps.
      */
     private void updateBallPosition() {
-        float ballZ = terrainManager.getTerrainHeight((float) currentBallState.getX(), (float) currentBallState.getY()) + BALL_HEIGHT_OFFSET;
-        golfBallInstance.transform.setToTranslation((float) currentBallState.getX(), ballZ, (float) currentBallState.getY());
+        float ballZ = terrainManager.getTerrainHeight((float) renderedBallState.getX(), (float) renderedBallState.getY()) + BALL_HEIGHT_OFFSET;
+        golfBallInstance.transform.setToTranslation((float) renderedBallState.getX(), ballZ, (float) renderedBallState.getY());
         
         golfBallInstance.transform.rotate(Vector3.X, ballRotationAngleY);
         golfBallInstance.transform.rotate(Vector3.Z, ballRotationAngleX);
@@ -932,9 +1104,7 @@ public class GolfGameScreen implements Screen, Disposable {
      * Handles the ball movement when it is moving slowly.
      */
     private void handleLowSpeedBallMovement() {
-        Vector3 ballPosition = new Vector3((float) currentBallState.getX(), (float) currentBallState.getY(), 0);
-        ballPosition.z = terrainManager.getTerrainHeight(ballPosition.x, ballPosition.y);
-        boolean onSand = terrainManager.isBallOnSand(ballPosition);
+        boolean onSand = materialField.isSand(currentBallState.getX(), currentBallState.getY());
 
         lowSpeedThreshold = onSand ? LOW_SPEED_THRESHOLD_SAND : LOW_SPEED_THRESHOLD_GRASS;
 
@@ -963,7 +1133,7 @@ public class GolfGameScreen implements Screen, Disposable {
         if (ballZ - BALL_HEIGHT_OFFSET < 0) {
             scoreChange();
             isBallInWater = true;
-            currentBallState.setAllComponents(lastValidState.getX(), lastValidState.getY(), lastValidState.getVx(), lastValidState.getVy());
+            setBallState(lastValidState.getX(), lastValidState.getY(), lastValidState.getVx(), lastValidState.getVy());
             ballRotationAngleX = 0f;
             ballRotationAngleY = 0f;
             System.out.println("Ball has fallen below ground level. Resetting to last valid position.");
@@ -984,20 +1154,6 @@ public class GolfGameScreen implements Screen, Disposable {
         }
     }
 
-    /**
-     * Sets the terrain friction based on the ball's position.
-     */
-    private void setTerrainFriction() {
-        Vector3 ballPosition = new Vector3((float) currentBallState.getX(), (float) currentBallState.getY(), 0);
-        boolean onSand = terrainManager.isBallOnSand(ballPosition);
-
-        if (onSand) {
-            gamePhysicsEngine.setFriction(sandFrictionKinetic, sandFrictionStatic);
-        } else {
-            gamePhysicsEngine.setFriction(grassFrictionKinetic, grassFrictionStatic);
-        }
-    }
-
     /**
      * Executes the rule-based bot logic for playing the game.
      */
@@ -1052,11 +1208,11 @@ public class GolfGameScreen implements Screen, Disposable {
      * @param delta the time elapsed since the last frame
      */
     public void updateCameraPosition(float delta) {
-        float ballZ = terrainManager.getTerrainHeight((float) currentBallState.getX(), (float) currentBallState.getY()) + BALL_HEIGHT_OFFSET;
-        float cameraX = (float) (currentBallState.getX() + cameraDistance * Math.cos(cameraViewAngle));
-        float cameraY = (float) (currentBallState.getY() + cameraDistance * Math.sin(cameraViewAngle));
+        float ballZ = terrainManager.getTerrainHeight((float) renderedBallState.getX(), (float) renderedBallState.getY()) + BALL_HEIGHT_OFFSET;
+        float cameraX = (float) (renderedBallState.getX() + cameraDistance * Math.cos(cameraViewAngle));
+        float cameraY = (float) (renderedBallState.getY() + cameraDistance * Math.sin(cameraViewAngle));
         mainCamera.position.set(cameraX, ballZ + CAMERA_HEIGHT, cameraY);
-        mainCamera.lookAt((float) currentBallState.getX(), ballZ + 1f, (float) currentBallState.getY());
+        mainCamera.lookAt((float) renderedBallState.getX(), ballZ + 1f, (float) renderedBallState.getY());
         mainCamera.up.set(Vector3.Y);
         mainCamera.update();
     }
@@ -1210,8 +1366,12 @@ public class GolfGameScreen implements Screen, Disposable {
      * @param coords the new ball coordinates
      */
     public void setBallCoords(float[] coords) {
-        currentBallState.setX(coords[0]);
-        currentBallState.setY(coords[1]);
+        double x = coords[0];
+        double y = coords[1];
+        changeBallState(ball -> {
+            ball.setX(x);
+            ball.setY(y);
+        });
     }
 
     /**
@@ -1295,7 +1455,9 @@ public class GolfGameScreen implements Screen, Disposable {
     }
 
     /**
-     * Gets the physics engine.
+     * Gets the physics engine. It is stepped by the physics thread, so other threads may only ask it for
+     * slopes through {@link PhysicsEngine#derivative} and {@link PhysicsEngine#secondDerivative}, which
+     * only read the surface; anything that changes it goes through the physics thread.
      *
      * @return the physics engine
      */
@@ -1329,8 +1491,25 @@ public class GolfGameScreen implements Screen, Disposable {
      * @return the friction value
      */
     public float getFriction(float x, float y) {
-        Vector3 position = new Vector3(x, y, terrainManager.getTerrainHeight(x, y));
-        return terrainManager.isBallOnSand(position) ? (float) sandFrictionKinetic : (float) grassFrictionKinetic;
+        return (float) materialField.getKineticFriction(x, y);
+    }
+
+    /**
+     * Gets the grass and sand of the current course, as the physics engine sees them.
+     *
+     * @return the material field
+     */
+    public MaterialField getMaterialField() {
+        return materialField;
+    }
+
+    /**
+     * Gets the wind of the current game, as the physics engine applies it.
+     *
+     * @return the wind field, or null for still air
+     */
+    public WindField getWindField() {
+        return windField;
     }
 
     /**
@@ -1381,6 +1560,36 @@ public class GolfGameScreen implements Screen, Disposable {
         }
     }
 
+    /**
+     * Creates the ODE solver selected in the settings.
+     *
+     * @return a Dormand-Prince solver if the adaptive solver is enabled, the fixed-step solver selected for the course otherwise
+     */
+    private ODE createSolver() {
+        return adaptiveSolver ? new DormandPrince() : SolverRegistry.create(fixedStepSolver);
+    }
+
+    /**
+     * Toggles between the adaptive Dormand-Prince solver and the fixed-step solver.
+     */
+    public void toggleAdaptiveSolver() {
+        adaptiveSolver = !adaptiveSolver;
+        if (gamePhysicsEngine != null) {
+            PhysicsEngine engine = gamePhysicsEngine;
+            ODE solver = createSolver();
+            physicsThread.submit(ball -> engine.setSolver(solver));
+        }
+    }
+
+    /**
+     * Returns whether the adaptive solver is used.
+     *
+     * @return true if the ball is integrated with Dormand-Prince
+     */
+    public boolean isAdaptiveSolver() {
+        return adaptiveSolver;
+    }
+
     /**
      * Toggles the rule-based bot activeness.
      */
@@ -1466,6 +1675,9 @@ public class GolfGameScreen implements Screen, Disposable {
     @Override
     public void dispose() {
         Gdx.app.log("GolfGameScreen", "Disposing screen");
+        if (physicsThread != null) {
+            physicsThread.stop();
+        }
         mainModelBatch.dispose();
         mainShadowLight.dispose();
         shadowModelBatch.dispose();
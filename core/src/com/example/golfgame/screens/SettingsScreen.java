@@ -18,6 +18,7 @@ import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.example.golfgame.utils.Function;
+import com.example.golfgame.utils.gameUtils.TerrainManager;
 import com.example.golfgame.GolfGame;
 
 /**
@@ -91,8 +92,14 @@ public class SettingsScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 try {
-                    game.getGolfGameScreen().setGoalCoords(new float[]{Float.parseFloat(goalXPosition.getText()), Float.parseFloat(goalYPosition.getText())});
-                    goalPositionLabel.setText("Goal Position (X, Y):");
+                    float goalX = Float.parseFloat(goalXPosition.getText());
+                    float goalY = Float.parseFloat(goalYPosition.getText());
+                    if (isGoalInWater(goalX, goalY)) {
+                        goalPositionLabel.setText("Goal is in water");
+                    } else {
+                        game.getGolfGameScreen().setGoalCoords(new float[]{goalX, goalY});
+                        goalPositionLabel.setText("Goal Position (X, Y):");
+                    }
                 } catch (Exception e) {
                     goalPositionLabel.setText("Invalid X Position");
                 }
@@ -103,8 +110,14 @@ public class SettingsScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 try {
-                    game.getGolfGameScreen().setGoalCoords(new float[]{Float.parseFloat(goalXPosition.getText()), Float.parseFloat(goalYPosition.getText())});
-                    goalPositionLabel.setText("Goal Position (X, Y):");
+                    float goalX = Float.parseFloat(goalXPosition.getText());
+                    float goalY = Float.parseFloat(goalYPosition.getText());
+                    if (isGoalInWater(goalX, goalY)) {
+                        goalPositionLabel.setText("Goal is in water");
+                    } else {
+                        game.getGolfGameScreen().setGoalCoords(new float[]{goalX, goalY});
+                        goalPositionLabel.setText("Goal Position (X, Y):");
+                    }
                 } catch (Exception e) {
                     goalPositionLabel.setText("Invalid Y Position");
                 }
@@ -226,6 +239,17 @@ public class SettingsScreen implements Screen {
             }
         });
 
+        // Add the solver UI
+        Label solverStatus = new Label("Adaptive Solver: Off", skin);
+        TextButton toggleSolver = new TextButton("Toggle Adaptive Solver", skin);
+        toggleSolver.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                game.getGolfGameScreen().toggleAdaptiveSolver();
+                solverStatus.setText(game.getGolfGameScreen().isAdaptiveSolver() ? "Adaptive Solver: On" : "Adaptive Solver: Off");
+            }
+        });
+
         // Create root table
         Table rootTable = new Table();
         rootTable.setFillParent(true);
@@ -270,6 +294,12 @@ public class SettingsScreen implements Screen {
         botTable.add(toggleHillClimbingBot).pad(10).row();
         middleTable.add(botTable).pad(10).row();
 
+        // Add solver toggle button and label to middle table
+        Table solverTable = new Table();
+        solverTable.add(solverStatus).pad(10);
+        solverTable.add(toggleSolver).pad(10).row();
+        middleTable.add(solverTable).pad(10).row();
+
         // Add components to root table
         rootTable.add(mainMenuButton).width(200).height(50).bottom().left().pad(20);
         rootTable.add(middleTable).expand().center();
@@ -326,6 +356,19 @@ public class SettingsScreen implements Screen {
         skin.dispose(); // Ensure all resources are properly disposed to prevent memory leaks
     }
 
+    /**
+     * Checks whether any part of the hole around a goal position would lie in water on the
+     * currently configured terrain.
+     *
+     * @param goalX The x-coordinate of the goal.
+     * @param goalY The y-coordinate of the goal.
+     * @return True if the hole would touch water.
+     */
+    private boolean isGoalInWater(float goalX, float goalY) {
+        float radius = GolfGameScreen.getGoalTolerance();
+        return new TerrainManager(curHeightFunction).isWaterInRegion(goalX - radius, goalY - radius, goalX + radius, goalY + radius);
+    }
+
     /**
      * Retrieves the currently configured height function for terrain generation.
      *
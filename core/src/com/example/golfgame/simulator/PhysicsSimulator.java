@@ -3,14 +3,27 @@ package com.example.golfgame.simulator;
 import com.badlogic.gdx.math.Vector2;
 import com.example.golfgame.bot.agents.PPOAgent;
 import com.example.golfgame.utils.*;
+import com.example.golfgame.utils.gameUtils.TerrainCache;
 import com.example.golfgame.utils.gameUtils.TerrainManager;
 import com.example.golfgame.utils.ppoUtils.Action;
 import com.example.golfgame.utils.ppoUtils.Batch;
 import com.example.golfgame.utils.ppoUtils.State;
 import com.example.golfgame.utils.ppoUtils.Transition;
+import com.example.golfgame.physics.BallDynamics;
+import com.example.golfgame.physics.BatchIntegrator;
+import com.example.golfgame.physics.MaterialField;
 import com.example.golfgame.physics.PhysicsEngine;
+import com.example.golfgame.physics.SolverCalibration;
+import com.example.golfgame.physics.StoppingPredictor;
+import com.example.golfgame.physics.SurfaceLattice;
+import com.example.golfgame.physics.TrajectoryRecorder;
+import com.example.golfgame.physics.WindField;
+import com.example.golfgame.physics.ODE.AdaptiveODE;
+import com.example.golfgame.physics.ODE.ButcherTableau;
+import com.example.golfgame.physics.ODE.EventFunction;
+import com.example.golfgame.physics.ODE.ExplicitRungeKutta;
 import com.example.golfgame.physics.ODE.ODE;
-import com.example.golfgame.physics.ODE.RungeKutta;
+import com.example.golfgame.physics.ODE.SolverRegistry;
 import com.example.golfgame.screens.GolfGameScreen;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,38 +42,64 @@ public class PhysicsSimulator {
     private TerrainManager terrainManager;
     private List<Batch> data = new ArrayList<>();
     private List<Function> functions = new ArrayList<>();
+    // Terrain height, which drops to zero where the ball enters water
+    private final EventFunction waterEvent = state -> terrainManager.getTerrainHeight((float) state[BallDynamics.X], (float) state[BallDynamics.Y]);
+    // Margin to the simulator's goal condition, which drops to zero where the ball is captured
+    private final EventFunction goalEvent = state -> GolfGameScreen.simulatorGoalMargin(state[BallDynamics.X],
+            state[BallDynamics.Y], state[BallDynamics.VX], state[BallDynamics.VY], goal);
+    private BatchIntegrator batch; // Reused by batched hits, rebuilt when the surface changes or more lanes are needed
+    private MaterialField materialField; // Friction of grass and sand on the course, or null for grass everywhere
+    private String solverName = defaultSolver; // Registered name of the solver, so parallel workers can create their own; null if unregistered
+    private float engineStepSize = defaultEngineStepSize; // Step of a fixed-step solver, changed when a solver is selected
+    private float adaptiveStepSize = defaultAdaptiveStepSize; // Longest step of an adaptive solver, changed when a solver is selected
+    private WindField windField; // Wind of the game, or null for still air
+    private SurfaceLattice surfaceLattice; // Precomputed heights and slopes of the current surface, or null
+    private boolean trainingSolverPending; // Whether training still has to select its solver before the first episode
 
     private static final double GOAL_RADIUS = 1.5; // Radius for goal reward
     private static final double PENALTY_WATER = -3; // Penalty for hitting water
     private static final double PENALTY_SAND = -1; // Penalty for being on sand
     private static final double REWARD_GOAL = 5; // Reward for reaching the goal
 
-    private static final float engineStepSize = 0.001f;
+    private static final String defaultSolver = "RungeKutta"; // Until setSolver or selectSolver choose another
+    private static final double trainingTargetError = 0.01; // Largest landing error of the solver chosen for training, in metres
+    private static final float defaultEngineStepSize = 0.005f; // Landing points agree with a 0.0001 reference to about 1e-5 m, see StepSizeAccuracy
+    private static final float defaultAdaptiveStepSize = 0.05f; // Longest step of an adaptive solver, so the ball cannot skip over a narrow stretch of water
+    private static final int calibrationShots = 8; // Shots played from the ball by every solver when one is selected
+    private static final double calibrationMinSpeed = 1; // Speed range of the calibration shots, that of the game, m/s
+    private static final double calibrationMaxSpeed = 10;
+    private static final double stoppingTolerance = 1e-4; // Largest estimated error of a predicted stopping point, in the order of the step size error
+    private static final double pathTolerance = 0.01; // Largest distance between a drawn path and the simulated one, in metres
 
     /**
-     * Constructs a PhysicsSimulator with specified height function and agent.
+     * Constructs a PhysicsSimulator for training an agent. Training plays many shots on one course, so the
+     * fastest solver within 1 cm on it is selected before the first episode, see {@link #selectSolver(double)},
+     * unless a solver was chosen by then. Measuring the solvers on a new course takes seconds, so it is
+     * left to the first training run rather than done here.
      *
      * @param heightFunction the function defining the terrain height.
      * @param agent the PPOAgent used for the simulation.
      */
     public PhysicsSimulator(String heightFunction, PPOAgent agent) {
         addFunction(heightFunction);
-        Function fheightFunction = new Function(heightFunction, "x","y");
-        this.engine = new PhysicsEngine(new RungeKutta(), fheightFunction);
+        Function fheightFunction = TerrainCache.getShared().getFunction(heightFunction);
+        this.engine = createEngine(SolverRegistry.create(defaultSolver), fheightFunction);
         this.ball = new BallState(0, 0, 0, 0);
         this.terrainManager = new TerrainManager(fheightFunction);
         this.agent = agent;
         this.goal = new BallState(-7, 7, 0, 0);
+        this.trainingSolverPending = true;
     }
     
     /**
-     * Constructs a PhysicsSimulator with specified height function and goal state.
+     * Constructs a PhysicsSimulator with specified height function and goal state. It simulates with
+     * Runge-Kutta until {@link #selectSolver(double)} or {@link #setSolver} choose another solver.
      *
      * @param heightFunction the function defining the terrain height.
      * @param goal the target goal state.
      */
     public PhysicsSimulator(Function heightFunction, BallState goal) {
-        this.engine = new PhysicsEngine(new RungeKutta(), heightFunction);
+        this.engine = createEngine(SolverRegistry.create(defaultSolver), heightFunction);
         this.ball = new BallState(0, 0, 0, 0);
         this.terrainManager = new TerrainManager(heightFunction);
         this.goal = goal;
@@ -74,7 +113,8 @@ public class PhysicsSimulator {
      * @param solver the ODE solver used for the simulation.
      */
     public PhysicsSimulator(Function heightFunction, BallState goal, ODE solver){
-        this.engine = new PhysicsEngine(solver, heightFunction);
+        this.engine = createEngine(solver, heightFunction);
+        this.solverName = null;
         this.ball = new BallState(0, 0, 0.001, 0.001);
         this.terrainManager = new TerrainManager(heightFunction);
         this.goal = goal;
@@ -86,8 +126,152 @@ public class PhysicsSimulator {
      * @param heightFunction the new function defining the terrain height.
      */
     public void changeHeightFunction(Function heightFunction){
-        this.engine = new PhysicsEngine(new RungeKutta(), heightFunction);
+        this.surfaceLattice = null;
+        this.engine = createEngine(engine.getSolver(), heightFunction);
         this.terrainManager = new TerrainManager(heightFunction);
+        this.batch = null;
+    }
+
+    /**
+     * Makes the simulated ball feel the same grass and sand as the game, with the friction looked up
+     * under the ball at every step. The field is kept when the height function changes.
+     *
+     * @param materialField the friction of the ground, or null to simulate grass everywhere
+     */
+    public void setMaterialField(MaterialField materialField) {
+        this.materialField = materialField;
+        engine.setMaterialField(materialField);
+        if (batch != null) {
+            batch.setMaterialField(materialField);
+        }
+    }
+
+    /**
+     * Makes single and batched hits read heights and slopes from a precomputed lattice of the current
+     * surface. On Java 16 and later, batches over a lattice are advanced with vector instructions. The
+     * lattice is dropped when the height function changes.
+     *
+     * @param surfaceLattice the lattice, or null to evaluate the height function again
+     *
+     * @throws IllegalArgumentException if the lattice was sampled from a different surface
+     */
+    public void setSurfaceLattice(SurfaceLattice surfaceLattice) {
+        engine.setSurfaceLattice(surfaceLattice);
+        this.surfaceLattice = surfaceLattice;
+        if (batch != null) {
+            batch.setSurfaceLattice(surfaceLattice);
+        }
+    }
+
+    /**
+     * Makes the simulated ball feel the same wind as the game. The field is kept when the height
+     * function changes.
+     *
+     * @param windField the wind, or null for still air
+     */
+    public void setWindField(WindField windField) {
+        this.windField = windField;
+        engine.setWindField(windField);
+        if (batch != null) {
+            batch.setWindField(windField);
+        }
+    }
+
+    /**
+     * Creates a physics engine that stops the ball the moment it enters water or is captured by the goal,
+     * and finishes rolls on near-planar ground without stepping through them.
+     *
+     * @param solver the ODE solver used for the simulation.
+     * @param heightFunction the function defining the terrain height.
+     * @return the physics engine.
+     */
+    private PhysicsEngine createEngine(ODE solver, Function heightFunction) {
+        PhysicsEngine physicsEngine = new PhysicsEngine(solver, heightFunction);
+        physicsEngine.addEvent(waterEvent);
+        physicsEngine.addEvent(goalEvent);
+        physicsEngine.setStoppingPredictor(new StoppingPredictor(stoppingTolerance));
+        physicsEngine.setMaterialField(materialField);
+        physicsEngine.setWindField(windField);
+        physicsEngine.setSurfaceLattice(surfaceLattice);
+        return physicsEngine;
+    }
+
+    /**
+     * Changes the ODE solver used in the simulation. An {@link AdaptiveODE} such as
+     * {@link com.example.golfgame.physics.ODE.DormandPrince} chooses its own step sizes. Parallel
+     * training workers cannot share the instance and fall back to Runge-Kutta; use
+     * {@link #setSolver(String)} for a solver they should use as well.
+     *
+     * @param solver the ODE solver used for the simulation.
+     */
+    public void setSolver(ODE solver) {
+        engine.setSolver(solver);
+        solverName = null;
+        trainingSolverPending = false;
+    }
+
+    /**
+     * Changes the ODE solver to a new instance of a registered one, which parallel training workers use too.
+     *
+     * @param name the name of the solver in the {@link SolverRegistry}
+     *
+     * @throws IllegalArgumentException if no solver is registered under the name
+     */
+    public void setSolver(String name) {
+        engine.setSolver(SolverRegistry.create(name));
+        solverName = name;
+        trainingSolverPending = false;
+    }
+
+    /**
+     * Chooses the fastest registered solver and step size that land the ball within a target error of
+     * a fine-step reference on this course, from the Pareto front of {@link SolverCalibration}. The
+     * front is measured with shots from the current ball position the first time a course is seen and
+     * is read back from the terrain cache after that. The current solver is kept if none reaches the target.
+     * Parallel training workers take over the choice.
+     *
+     * @param targetError the largest distance from the reference landing points allowed, in metres
+     * @return the chosen configuration, or null if none reaches the target
+     */
+    public SolverCalibration.Configuration selectSolver(double targetError) {
+        trainingSolverPending = false;
+        SolverCalibration calibration = new SolverCalibration(engine.getSurfaceFunction(), engine.getKineticFriction(),
+                engine.getStaticFriction(), SolverCalibration.shotsFrom(ball.getX(), ball.getY(), calibrationShots,
+                calibrationMinSpeed, calibrationMaxSpeed));
+        calibration.setMaterialField(materialField);
+        calibration.setWindField(windField);
+        List<SolverCalibration.Configuration> front = calibration.loadOrMeasureFront(SolverCalibration.DEFAULT_STEP_SIZES);
+        SolverCalibration.Configuration fastest = SolverCalibration.fastestWithin(front, targetError);
+        if (fastest == null) {
+            System.err.printf("No solver lands within %.3f m on this course; keeping the current one.%n", targetError);
+            return null;
+        }
+        setSolver(fastest.getSolver());
+        if (engine.getSolver() instanceof AdaptiveODE) {
+            adaptiveStepSize = (float) fastest.getStepSize();
+        } else {
+            engineStepSize = (float) fastest.getStepSize();
+        }
+        return fastest;
+    }
+
+    /**
+     * Selects the solver for training if the training constructor left it to be chosen and no solver was
+     * chosen since.
+     */
+    private void selectTrainingSolver() {
+        if (trainingSolverPending) {
+            selectSolver(trainingTargetError);
+        }
+    }
+
+    /**
+     * Returns the time the engine advances per update. Adaptive solvers may cover it in fewer, longer steps.
+     *
+     * @return the step size in seconds.
+     */
+    private float stepSize() {
+        return engine.getSolver() instanceof AdaptiveODE ? adaptiveStepSize : engineStepSize;
     }
 
     /**
@@ -104,34 +288,20 @@ public class PhysicsSimulator {
         ballCopy.setVx(-velocityMagnitude * Math.cos(angle));
         ballCopy.setVy(-velocityMagnitude * Math.sin(angle));
 
-        Map<String, Double> functionVals = new HashMap<>();
-        BallState lastBallState = ballCopy.deepCopy(); // Use ballCopy directly
-
         while (true) {
-            functionVals.put("x", ballCopy.getX());
-            functionVals.put("y", ballCopy.getY());
-
-            // Check if the ball is in water
-            if (terrainManager.isWater((float) ballCopy.getX(), (float) ballCopy.getY())) {
+            // The engine stops the ball where it enters water or the goal
+            engine.update(ballCopy, stepSize());
+            EventFunction event = engine.getTriggeredEvent();
+            if (event == waterEvent) {
                 System.out.println("Ball in water!");
                 inWater = true;
-                ballCopy.setX(lastBallState.getX());
-                ballCopy.setY(lastBallState.getY());
                 return ballCopy;
             }
-
-            // Check if the ball has reached the goal
-            if (GolfGameScreen.validSimulatorGoal(ballCopy, goal)) {
+            if (event == goalEvent) {
                 System.out.println("Goal reached in simulator!");
                 return ballCopy;
             }
 
-            // Update the last ball state before updating the current ball state
-            lastBallState.set(ballCopy.getX(), ballCopy.getY(), ballCopy.getVx(), ballCopy.getVy());
-
-            // Update the ball state
-            engine.update(ballCopy, engineStepSize);
-
             // Check if the ball is at rest
             if (engine.isAtRest(ballCopy)) {
                 break;
@@ -139,7 +309,7 @@ public class PhysicsSimulator {
         }
 
         // Check if the ball is on sand
-        if (terrainManager.isBallOnSand((float) ballCopy.getX(), (float) ballCopy.getY())) {
+        if (onSand(ballCopy.getX(), ballCopy.getY())) {
             System.out.println("Ball on sand!");
         }
 
@@ -148,42 +318,81 @@ public class PhysicsSimulator {
     }
 
     /**
-     * Performs a hit simulation and returns the path.
+     * Performs a hit simulation and returns the path, thinned to the points needed to draw it.
      *
      * @param velocityMagnitude the magnitude of the velocity
      * @param angle the angle of the hit
      * @return a Pair containing the final BallState and the path of the ball as a list of Vector2 points
      */
     public Pair<BallState, List<Vector2>> hitWithPath(float velocityMagnitude, float angle) {
+        TrajectoryRecorder recorder = createPathRecorder();
+        BallState finalState = hitWithPath(velocityMagnitude, angle, recorder);
+        List<Vector2> path = new ArrayList<>(recorder.size());
+        for (int i = 0; i < recorder.size(); i++) {
+            path.add(new Vector2(recorder.getX(i), recorder.getY(i)));
+        }
+        return new Pair<>(finalState, path);
+    }
+
+    /**
+     * Performs a hit simulation and writes the path to a recorder. The steps are taken on a primitive
+     * state, so apart from the final state no objects are created however long the shot.
+     *
+     * @param velocityMagnitude the magnitude of the velocity
+     * @param angle the angle of the hit
+     * @param recorder the recorder the path is written to, cleared before and finished after the shot
+     * @return the final ball state
+     */
+    public BallState hitWithPath(float velocityMagnitude, float angle, TrajectoryRecorder recorder) {
         inWater = false;
-        BallState lastPosition = ball.deepCopy();
-        BallState ballCopy = ball.deepCopy();
         System.out.printf("Hitting with force: %.2f and angle: %.2f\n", velocityMagnitude, angle);
-        ballCopy.setVx(-velocityMagnitude * Math.cos(angle));
-        ballCopy.setVy(-velocityMagnitude * Math.sin(angle));
-        List<Vector2> path = new ArrayList<>();
-        path.add(new Vector2((float)ballCopy.getX(), (float)ballCopy.getY()));
+        double[] state = {ball.getX(), ball.getY(), -velocityMagnitude * Math.cos(angle), -velocityMagnitude * Math.sin(angle)};
+        recorder.clear();
+        recorder.record(state[BallDynamics.X], state[BallDynamics.Y]);
 
-        BallState lastBallState = null;
+        double lastX, lastY, lastVx, lastVy;
         do {
-            if (terrainManager.isWater((float) ballCopy.getX(), (float) ballCopy.getY())) { // Water
+            lastX = state[BallDynamics.X];
+            lastY = state[BallDynamics.Y];
+            lastVx = state[BallDynamics.VX];
+            lastVy = state[BallDynamics.VY];
+            engine.update(state, stepSize());
+            if (engine.getTriggeredEvent() == waterEvent) { // Water
                 System.out.println("Ball in water!");
                 inWater = true;
-                ballCopy.setX(lastPosition.getX());
-                ballCopy.setY(lastPosition.getY());
-                return new Pair<>(ballCopy, path);
+                recorder.finish();
+                return new BallState(ball.getX(), ball.getY(), state[BallDynamics.VX], state[BallDynamics.VY]);
+            }
+            recorder.record(state[BallDynamics.X], state[BallDynamics.Y]);
+            if (engine.getTriggeredEvent() == goalEvent) { // Goal
+                System.out.println("Goal reached in simulator!");
+                break;
             }
-            lastBallState = new BallState(ballCopy.getX(), ballCopy.getY(), ballCopy.getVx(), ballCopy.getVy());
-            engine.update(ballCopy, engineStepSize);
-            path.add(new Vector2((float)ballCopy.getX(), (float)ballCopy.getY()));
-        } while (!ballCopy.epsilonEquals(lastBallState, 0));
+        } while (state[BallDynamics.X] != lastX || state[BallDynamics.Y] != lastY
+                || state[BallDynamics.VX] != lastVx || state[BallDynamics.VY] != lastVy);
+        recorder.finish();
 
-        if (terrainManager.isBallOnSand((float) ballCopy.getX(), (float) ballCopy.getY())) { // Sand
+        if (onSand(state[BallDynamics.X], state[BallDynamics.Y])) { // Sand
             System.out.println("Ball on sand!");
         }
 
-        System.out.printf("New ball position: (%.2f, %.2f)\n", ballCopy.getX(), ballCopy.getY());
-        return new Pair<>(ballCopy, path);
+        System.out.printf("New ball position: (%.2f, %.2f)\n", state[BallDynamics.X], state[BallDynamics.Y]);
+        return new BallState(state[BallDynamics.X], state[BallDynamics.Y], state[BallDynamics.VX], state[BallDynamics.VY]);
+    }
+
+    /**
+     * Creates a recorder that keeps enough of a path to draw it within a centimetre of the simulated one.
+     * It thins the path by arc length as it is recorded, which costs next to nothing per step; callers
+     * that want the fewest points can switch it to Douglas-Peucker, which simplifies the whole path at
+     * the end of the shot.
+     *
+     * @return the recorder
+     */
+    public static TrajectoryRecorder createPathRecorder() {
+        TrajectoryRecorder recorder = new TrajectoryRecorder();
+        // Every point of a stretch of path is within half its length of the chord that replaces it
+        recorder.setDecimation(TrajectoryRecorder.Decimation.ARC_LENGTH, 2 * pathTolerance);
+        return recorder;
     }
 
     /**
@@ -224,7 +433,7 @@ public class PhysicsSimulator {
         if (isBallInWater) {
             return reward + PENALTY_WATER;
         }
-        if (terrainManager.isBallOnSand((float) currentBall.getX(), (float) currentBall.getY())) {
+        if (onSand(currentBall.getX(), currentBall.getY())) {
             return reward + PENALTY_SAND;
         }
         if (reward < 0) {
@@ -235,21 +444,116 @@ public class PhysicsSimulator {
     }
 
     /**
-     * Performs multiple hit simulations.
+     * Performs multiple hit simulations from the current ball position.
      *
      * @param velocityMagnitudes array of velocity magnitudes
      * @param angles array of angles
      * @return array of resulting ball states
      */
     public BallState[] hit(float[] velocityMagnitudes, float[] angles) {
-        BallState[] res = new BallState[velocityMagnitudes.length];
-        for (int i = 0; i < velocityMagnitudes.length; i++) {
-            res[i] = hit(velocityMagnitudes[i], angles[i]);
-            resetBallPosition();
+        BallState[] res = hitBatch(velocityMagnitudes, angles, ball);
+        resetBallPosition();
+        return res;
+    }
+
+    /**
+     * Performs multiple hit simulations from the same position at once. With the Runge-Kutta solver
+     * the shots are advanced together by a {@link BatchIntegrator} at a fraction of the cost; other
+     * solvers hit them one by one. The batch integrates every roll to the end, whereas a single hit lets
+     * the {@link StoppingPredictor} finish it, so a batched shot may land up to about the predictor's
+     * tolerance away from the same shot hit on its own.
+     *
+     * @param velocityMagnitudes array of velocity magnitudes
+     * @param angles array of angles
+     * @param ballPosition the position every shot starts from
+     * @return array of resulting ball states
+     */
+    public BallState[] hitBatch(float[] velocityMagnitudes, float[] angles, BallState ballPosition) {
+        resetBallPosition(ballPosition);
+        double[] startX = new double[velocityMagnitudes.length];
+        double[] startY = new double[velocityMagnitudes.length];
+        Arrays.fill(startX, ball.getX());
+        Arrays.fill(startY, ball.getY());
+        return hitLanes(startX, startY, velocityMagnitudes, angles);
+    }
+
+    /**
+     * Hits a ball from each start position, in one batch where the solver allows it.
+     *
+     * @param startX the x-coordinate each shot starts from
+     * @param startY the y-coordinate each shot starts from
+     * @param velocityMagnitudes the magnitude of the velocity of each shot
+     * @param angles the angle of each shot
+     * @return the resulting ball states
+     */
+    private BallState[] hitLanes(double[] startX, double[] startY, float[] velocityMagnitudes, float[] angles) {
+        int n = velocityMagnitudes.length;
+        BallState[] res = new BallState[n];
+        BatchIntegrator integrator = getBatch(n);
+        if (integrator == null) {
+            for (int i = 0; i < n; i++) {
+                ball.setX(startX[i]);
+                ball.setY(startY[i]);
+                res[i] = hit(velocityMagnitudes[i], angles[i]);
+            }
+            return res;
+        }
+
+        System.out.printf("Hitting a batch of %d shots\n", n);
+        integrator.clear();
+        for (int i = 0; i < n; i++) {
+            integrator.setBall(i, startX[i], startY[i], -velocityMagnitudes[i] * Math.cos(angles[i]), -velocityMagnitudes[i] * Math.sin(angles[i]));
+        }
+        integrator.run(stepSize(), Integer.MAX_VALUE);
+        for (int i = 0; i < n; i++) {
+            res[i] = new BallState(integrator.getX(i), integrator.getY(i), integrator.getVx(i), integrator.getVy(i));
+            inWater = integrator.getTriggeredEvent(i) == waterEvent;
         }
         return res;
     }
 
+    /**
+     * Returns a batch integrator with at least the given number of lanes, or null if shots cannot be
+     * batched because the solver does not run the classical Runge-Kutta tableau or the surface has no
+     * symbolic gradient.
+     *
+     * @param lanes the number of lanes needed
+     * @return the batch integrator, or null
+     */
+    private BatchIntegrator getBatch(int lanes) {
+        if (!(engine.getSolver() instanceof ExplicitRungeKutta)
+                || ((ExplicitRungeKutta) engine.getSolver()).getTableau() != ButcherTableau.RK4) {
+            return null;
+        }
+        if (batch == null || batch.getCapacity() < lanes) {
+            try {
+                batch = new BatchIntegrator(engine.getSurfaceFunction(), engine.getKineticFriction(), engine.getStaticFriction(), lanes);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            batch.addEvent(waterEvent);
+            batch.addEvent(goalEvent);
+            batch.setMaterialField(materialField);
+            batch.setWindField(windField);
+            batch.setSurfaceLattice(surfaceLattice);
+        }
+        return batch;
+    }
+
+    /**
+     * Checks if a point is on sand, from the material field where one is set.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return true if the point is on sand
+     */
+    private boolean onSand(double x, double y) {
+        if (materialField != null) {
+            return materialField.isSand(x, y);
+        }
+        return terrainManager.isBallOnSand((float) x, (float) y);
+    }
+
     /**
      * Resets the ball position to the initial state.
      */
@@ -277,17 +581,22 @@ public class PhysicsSimulator {
      * @return array of resulting ball states
      */
     public BallState[] randomHits(int n, BallState goal, float radius) {
-        BallState[] res = new BallState[n];
+        double[] startX = new double[n];
+        double[] startY = new double[n];
+        float[] velocityMagnitudes = new float[n];
+        float[] angles = new float[n];
         for (int i = 0; i < n; i++) {
             float ballX = random.nextFloat() * (2 * radius) - radius;
             float ballY = random.nextBoolean() ? (float) Math.sqrt(radius * radius - ballX * ballX) : -(float) Math.sqrt(radius * radius - ballX * ballX);
-            ballX += goal.getX();
-            ballY += goal.getY();
-            ball.setX(ballX);
-            ball.setY(ballY);
-            float velocityMagnitude = random.nextFloat() * (5 - 1) + 1;
-            float angle = random.nextFloat() * (2 * (float) Math.PI);
-            res[i] = hit(velocityMagnitude, angle);
+            startX[i] = (float) (ballX + goal.getX());
+            startY[i] = (float) (ballY + goal.getY());
+            velocityMagnitudes[i] = random.nextFloat() * (5 - 1) + 1;
+            angles[i] = random.nextFloat() * (2 * (float) Math.PI);
+        }
+        BallState[] res = hitLanes(startX, startY, velocityMagnitudes, angles);
+        if (n > 0) {
+            ball.setX(startX[n - 1]);
+            ball.setY(startY[n - 1]);
         }
         return res;
     }
@@ -326,7 +635,7 @@ public class PhysicsSimulator {
      * @param function the function to add
      */
     public void addFunction(String function){
-        functions.add(new Function(function, "x","y"));
+        functions.add(TerrainCache.getShared().getFunction(function));
     }
 
     /**
@@ -337,6 +646,7 @@ public class PhysicsSimulator {
      * @param steps the number of steps in each episode
      */
     public void runSimulation(int episodes, float radius, int steps) {
+        selectTrainingSolver();
         for(Function function : functions){
             changeHeightFunction(function);
             for (int episode = 0; episode < episodes; episode++) {
@@ -350,25 +660,27 @@ public class PhysicsSimulator {
 
     /**
      * Runs a parallel simulation for a specified number of episodes.
+     * Every episode runs on its own worker simulator, so the workers share only the
+     * immutable height function, the goal and the agent.
      *
      * @param episodes the number of episodes to run
      * @param radius the radius around the goal
      * @param steps the number of steps in each episode
      */
     public void runSimulationParallel(int episodes, float radius, int steps) {
+        selectTrainingSolver();
         ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         List<Future<Batch>> futures = new ArrayList<>();
         
         for (Function function : functions) {
-            changeHeightFunction(function);
-            
             for (int episode = 0; episode < episodes; episode++) {
                 final int ep = episode; // For lambda expression
+                final PhysicsSimulator worker = createWorker(function);
                 Callable<Batch> task = () -> {
                     if (ep % 2 == 0) {
-                        return runSingleEpisode(radius, (int) Math.round(steps * 0.2), true);
+                        return worker.runSingleEpisode(radius, (int) Math.round(steps * 0.2), true);
                     } else {
-                        return runSingleEpisode(radius, (int) Math.round(steps * 0.8), false);
+                        return worker.runSingleEpisode(radius, (int) Math.round(steps * 0.8), false);
                     }
                 };
                 futures.add(executor.submit(task));
@@ -387,6 +699,30 @@ public class PhysicsSimulator {
         agent.trainOnData(data);
     }
 
+    /**
+     * Creates a simulator for a single parallel worker. It shares the height function,
+     * goal, agent, solver choice, step sizes and, on the same surface, the lattice with this
+     * simulator but has its own ball, engine, solver and terrain manager.
+     *
+     * @param heightFunction the function defining the terrain height for the worker
+     * @return the worker simulator
+     */
+    private PhysicsSimulator createWorker(Function heightFunction) {
+        PhysicsSimulator worker = new PhysicsSimulator(heightFunction, goal);
+        worker.agent = agent;
+        if (solverName != null) {
+            worker.setSolver(solverName);
+        }
+        worker.engineStepSize = engineStepSize;
+        worker.adaptiveStepSize = adaptiveStepSize;
+        worker.setMaterialField(materialField);
+        worker.setWindField(windField);
+        if (surfaceLattice != null && surfaceLattice.getSurfaceFunction() == heightFunction) {
+            worker.setSurfaceLattice(surfaceLattice);
+        }
+        return worker;
+    }
+
     /**
      * Runs a single episode of the simulation.
      *
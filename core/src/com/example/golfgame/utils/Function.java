@@ -3,15 +3,41 @@ package com.example.golfgame.utils;
 import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.example.golfgame.utils.functionUtils.CompiledFunction;
+import com.example.golfgame.utils.functionUtils.ExpressionDifferentiator;
+import com.example.golfgame.utils.functionUtils.ExpressionNode;
+import com.example.golfgame.utils.functionUtils.ExpressionOptimizer;
+import com.example.golfgame.utils.functionUtils.ExpressionParser;
+import com.example.golfgame.utils.functionUtils.FunctionCompiler;
+import com.example.golfgame.utils.functionUtils.Interval;
+import com.example.golfgame.utils.functionUtils.RangeQuery;
 
 /**
  * Represents a mathematical function that can be evaluated dynamically.
  * This class utilizes the exp4j library to parse and evaluate string expressions
- * based on the values provided for the variables involved.
+ * based on the values provided for the variables involved. Where possible the
+ * expression is additionally compiled to JVM bytecode, and exp4j is only used
+ * as a fallback for expressions the compiler does not understand.
+ *
+ * <p>Instances are immutable and safe to share between threads: the compiled form and
+ * the parsed tree are stateless, and the exp4j fallback, whose {@code setVariable}
+ * mutates the expression, is kept in a separate copy per thread.</p>
  */
 public class Function {
-    private Expression expression;
-    private String[] variables;
+    // Grids with fewer points than this are evaluated on the calling thread
+    private static final int GRID_TILE_SIZE = 4096;
+
+    private final ThreadLocal<Expression> expression;
+    private final String expressionString;
+    private final String[] variables;
+    private final ExpressionNode tree;
+    private final CompiledFunction compiled;
+    private final Map<String, Function> derivatives = new ConcurrentHashMap<>();
+    private volatile CompiledFunction gradient;
 
     /**
      * Constructs a new {@code Function} object from a given mathematical expression
@@ -30,12 +56,51 @@ public class Function {
      * }</pre>
      */
     public Function(String expressionString, String... variables) {
-        this.variables = variables;
-        this.expression = new ExpressionBuilder(expressionString)
+        this.expressionString = expressionString;
+        this.variables = variables.clone();
+        Expression validated = buildExpression(expressionString, this.variables);
+        this.expression = ThreadLocal.withInitial(() -> buildExpression(expressionString, this.variables));
+        this.expression.set(validated);
+        this.tree = parse(expressionString, this.variables);
+        this.compiled = tree == null ? null : compile(tree, this.variables.length);
+    }
+
+    private static Expression buildExpression(String expressionString, String[] variables) {
+        return new ExpressionBuilder(expressionString)
                 .variables(variables)  // Declare all variables used in the expression
                 .build();
     }
 
+    /**
+     * Parses the expression into a tree.
+     *
+     * @param expressionString the expression to parse
+     * @param variables the variable names, in slot order
+     * @return the simplified tree, or {@code null} if the expression can only be evaluated by exp4j
+     */
+    private static ExpressionNode parse(String expressionString, String[] variables) {
+        try {
+            return ExpressionOptimizer.optimize(ExpressionParser.parse(expressionString, variables));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the parsed expression to bytecode.
+     *
+     * @param tree the parsed expression
+     * @param variableCount the number of variable slots
+     * @return the compiled function, or {@code null} if the tree has to be interpreted
+     */
+    private static CompiledFunction compile(ExpressionNode tree, int variableCount) {
+        try {
+            return FunctionCompiler.compile(tree, variableCount);
+        } catch (RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
     /**
      * Evaluates the function based on the values provided for its variables.
      *
@@ -43,17 +108,360 @@ public class Function {
      *               are their corresponding numerical values.
      * @return the computed result of the function as a double.
      * @throws IllegalArgumentException if any variable value is missing in the input map.
-     * 
+     *
      * <p>The {@code values} map must include entries for all variables used in the function.
      * If any variable is omitted, an {@code IllegalArgumentException} will be thrown.</p>
      */
     public double evaluate(Map<String, Double> values) {
-        for (String variable : variables) {
-            if (!values.containsKey(variable)) {
-                throw new IllegalArgumentException("No value provided for variable: " + variable);
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Double value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value provided for variable: " + variables[i]);
+            }
+            slots[i] = value;
+        }
+        return evaluate(slots);
+    }
+
+    /**
+     * Evaluates the function with its variables bound by position, in the order they
+     * were passed to the constructor. No map is built and nothing is boxed.
+     *
+     * @param values the variable values, one per declared variable.
+     * @return the computed result of the function as a double.
+     * @throws IllegalArgumentException if fewer values than variables are given.
+     */
+    public double evaluate(double[] values) {
+        if (values.length < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values but got " + values.length);
+        }
+        if (compiled != null) {
+            return compiled.apply(values);
+        }
+        if (tree != null) {
+            return tree.evaluate(values);
+        }
+        Expression local = expression.get();
+        for (int i = 0; i < variables.length; i++) {
+            local.setVariable(variables[i], values[i]);
+        }
+        return local.evaluate();
+    }
+
+    /**
+     * Evaluates a function of at most two variables, binding the first declared variable
+     * to {@code x} and the second to {@code y}. This is the allocation-free path used for
+     * terrain height functions declared as {@code new Function(expr, "x", "y")}.
+     *
+     * @param x the value of the first variable.
+     * @param y the value of the second variable.
+     * @return the computed result of the function as a double.
+     * @throws IllegalArgumentException if the function has more than two variables.
+     */
+    public double evaluate(double x, double y) {
+        if (variables.length > 2) {
+            throw new IllegalArgumentException("Function has " + variables.length + " variables, expected at most 2");
+        }
+        if (compiled != null) {
+            return compiled.apply(x, y);
+        }
+        if (tree != null) {
+            return tree.evaluate(new double[]{x, y});
+        }
+        Expression local = expression.get();
+        if (variables.length > 0) {
+            local.setVariable(variables[0], x);
+        }
+        if (variables.length > 1) {
+            local.setVariable(variables[1], y);
+        }
+        return local.evaluate();
+    }
+
+    /**
+     * Evaluates a function of at most two variables on a regular grid. Point {@code (i, j)}
+     * is {@code (x0 + i * dx, y0 + j * dy)} and its value is written row by row to
+     * {@code out[j * nx + i]}. Large grids are split into bands of rows that are evaluated
+     * in parallel on the common fork-join pool.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * double[] heights = new double[200 * 200];
+     * heightFunction.evaluateGrid(-100, -100, 1, 1, 200, 200, heights);
+     * double heightAtOrigin = heights[100 * 200 + 100];
+     * }</pre>
+     *
+     * @param x0 the value of the first variable in the first column.
+     * @param y0 the value of the second variable in the first row.
+     * @param dx the spacing between columns.
+     * @param dy the spacing between rows.
+     * @param nx the number of columns.
+     * @param ny the number of rows.
+     * @param out receives the values; must have room for {@code nx * ny} values.
+     * @throws IllegalArgumentException if the function has more than two variables or {@code out} is too small.
+     */
+    public void evaluateGrid(double x0, double y0, double dx, double dy, int nx, int ny, double[] out) {
+        if (variables.length > 2) {
+            throw new IllegalArgumentException("Function has " + variables.length + " variables, expected at most 2");
+        }
+        if (nx < 0 || ny < 0 || (long) nx * ny > out.length) {
+            throw new IllegalArgumentException("Output array of length " + out.length + " cannot hold a " + nx + "x" + ny + " grid");
+        }
+        if ((long) nx * ny <= GRID_TILE_SIZE) {
+            evaluateRows(x0, y0, dx, dy, nx, 0, ny, out);
+        } else {
+            ForkJoinPool.commonPool().invoke(new GridTask(x0, y0, dx, dy, nx, 0, ny, out));
+        }
+    }
+
+    /**
+     * Evaluates rows {@code [fromRow, toRow)} of a grid, see {@link #evaluateGrid}.
+     */
+    private void evaluateRows(double x0, double y0, double dx, double dy, int nx, int fromRow, int toRow, double[] out) {
+        for (int j = fromRow; j < toRow; j++) {
+            double y = y0 + j * dy;
+            int offset = j * nx;
+            if (compiled != null) {
+                for (int i = 0; i < nx; i++) {
+                    out[offset + i] = compiled.apply(x0 + i * dx, y);
+                }
+            } else {
+                for (int i = 0; i < nx; i++) {
+                    out[offset + i] = evaluate(x0 + i * dx, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a grid into bands of rows until each band is small enough to evaluate directly.
+     */
+    private final class GridTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final double x0, y0, dx, dy;
+        private final int nx, fromRow, toRow;
+        private final double[] out;
+
+        GridTask(double x0, double y0, double dx, double dy, int nx, int fromRow, int toRow, double[] out) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.dx = dx;
+            this.dy = dy;
+            this.nx = nx;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.out = out;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = toRow - fromRow;
+            if (rows <= 1 || (long) rows * nx <= GRID_TILE_SIZE) {
+                evaluateRows(x0, y0, dx, dy, nx, fromRow, toRow, out);
+                return;
+            }
+            int middle = fromRow + rows / 2;
+            invokeAll(new GridTask(x0, y0, dx, dy, nx, fromRow, middle, out),
+                    new GridTask(x0, y0, dx, dy, nx, middle, toRow, out));
+        }
+    }
+
+    /**
+     * Returns guaranteed bounds on a function of at most two variables over a rectangle,
+     * computed in interval arithmetic. The bounds may be wider than the true range; use
+     * {@link #findRange} for tight ones.
+     *
+     * @param xMin the lower bound of the first variable.
+     * @param yMin the lower bound of the second variable.
+     * @param xMax the upper bound of the first variable.
+     * @param yMax the upper bound of the second variable.
+     * @return an interval containing every value of the function on the rectangle, or
+     *         {@link Interval#ENTIRE} if the expression can only be evaluated by exp4j.
+     * @throws IllegalArgumentException if the function has more than two variables.
+     */
+    public Interval evaluateRange(double xMin, double yMin, double xMax, double yMax) {
+        if (variables.length > 2) {
+            throw new IllegalArgumentException("Function has " + variables.length + " variables, expected at most 2");
+        }
+        return tree == null ? Interval.ENTIRE : RangeQuery.bounds(tree, xMin, yMin, xMax, yMax);
+    }
+
+    /**
+     * Returns the range of a function of at most two variables over a rectangle, refined by
+     * quadtree subdivision until each end is within {@code tolerance} of the true minimum
+     * or maximum. The result always contains the true range.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * Interval heights = heightFunction.findRange(-100, -100, 100, 100, 1e-3);
+     * double lowest = heights.getLower();
+     * }</pre>
+     *
+     * @param xMin the lower bound of the first variable.
+     * @param yMin the lower bound of the second variable.
+     * @param xMax the upper bound of the first variable.
+     * @param yMax the upper bound of the second variable.
+     * @param tolerance how far each end may lie outside the true range.
+     * @return an interval containing every value of the function on the rectangle, or
+     *         {@link Interval#ENTIRE} if the expression can only be evaluated by exp4j.
+     * @throws IllegalArgumentException if the function has more than two variables.
+     */
+    public Interval findRange(double xMin, double yMin, double xMax, double yMax, double tolerance) {
+        if (variables.length > 2) {
+            throw new IllegalArgumentException("Function has " + variables.length + " variables, expected at most 2");
+        }
+        return tree == null ? Interval.ENTIRE : RangeQuery.range(tree, xMin, yMin, xMax, yMax, tolerance);
+    }
+
+    /**
+     * Checks whether a function of at most two variables drops below a level anywhere on a
+     * rectangle. Regions whose interval bounds lie entirely above or below the level are
+     * decided without being sampled, so the cost grows with the length of the level curve
+     * rather than with the area.
+     *
+     * @param level the level to compare against.
+     * @param xMin the lower bound of the first variable.
+     * @param yMin the lower bound of the second variable.
+     * @param xMax the upper bound of the first variable.
+     * @param yMax the upper bound of the second variable.
+     * @param resolution the size below which regions are not subdivided further.
+     * @return true if some point is below the level; also true if the expression can only be
+     *         evaluated by exp4j, or is too rough to decide within the refinement budget, as
+     *         nothing can be ruled out then.
+     * @throws IllegalArgumentException if the function has more than two variables.
+     */
+    public boolean anyBelow(double level, double xMin, double yMin, double xMax, double yMax, double resolution) {
+        if (variables.length > 2) {
+            throw new IllegalArgumentException("Function has " + variables.length + " variables, expected at most 2");
+        }
+        return tree == null || RangeQuery.anyBelow(tree, level, xMin, yMin, xMax, yMax, resolution);
+    }
+
+    /**
+     * Evaluates the function and its gradient at once, for functions of at most two variables.
+     * The value and both partial derivatives come from a single compiled pass in which their
+     * shared sub-expressions, such as the exponentials of a terrain formula, are computed once.
+     *
+     * @param x the value of the first variable.
+     * @param y the value of the second variable.
+     * @param out receives the value at index 0 and the partial derivatives with respect to the
+     *            first and second variable at indices 1 and 2; must have room for three values.
+     * @throws IllegalArgumentException if the function has more than two variables.
+     * @throws IllegalStateException if the expression can only be evaluated by exp4j and has no
+     *                               symbolic form to differentiate.
+     */
+    public void evaluateWithGradient(double x, double y, double[] out) {
+        if (variables.length > 2) {
+            throw new IllegalArgumentException("Function has " + variables.length + " variables, expected at most 2");
+        }
+        if (tree == null) {
+            throw new IllegalStateException("Function has no symbolic form to differentiate.");
+        }
+        CompiledFunction fused = gradient;
+        if (fused == null) {
+            // Racing threads may both build it; either result is equivalent
+            fused = compileGradient();
+            gradient = fused;
+        }
+        fused.applyAll(x, y, out);
+    }
+
+    /**
+     * Builds the fused value-and-gradient evaluator, interpreting the trees if they cannot be compiled.
+     *
+     * @return an evaluator whose {@code applyAll} writes the value and both partial derivatives
+     */
+    private CompiledFunction compileGradient() {
+        final ExpressionNode[] outputs = new ExpressionNode[3];
+        outputs[0] = tree;
+        for (int i = 0; i < 2; i++) {
+            outputs[i + 1] = i < variables.length
+                    ? ExpressionDifferentiator.differentiate(tree, i)
+                    : ExpressionNode.constant(0);
+        }
+        try {
+            return FunctionCompiler.compile(outputs, 2);
+        } catch (RuntimeException | LinkageError e) {
+            return new CompiledFunction() {
+                @Override
+                public double apply(double[] values) {
+                    return outputs[0].evaluate(values);
+                }
+
+                @Override
+                public void applyAll(double x, double y, double[] out) {
+                    double[] values = {x, y};
+                    for (int i = 0; i < outputs.length; i++) {
+                        out[i] = outputs[i].evaluate(values);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the partial derivative of this function with respect to one of its variables,
+     * computed symbolically from the parsed expression. The derivative is itself a compiled
+     * {@code Function} over the same variables and is cached, so repeated calls are cheap.
+     *
+     * <p>Example usage:</p>
+     * <pre>{@code
+     * Function h = new Function("sin(x) * y^2", "x", "y");
+     * Function hx = h.derivative("x");  // cos(x) * y^2
+     * Function hxy = hx.derivative("y"); // 2 * cos(x) * y
+     * }</pre>
+     *
+     * @param variable the name of the variable to differentiate by.
+     * @return the derivative, or {@code null} if the expression can only be evaluated by exp4j
+     *         and has no symbolic form.
+     * @throws IllegalArgumentException if {@code variable} is not a variable of this function.
+     */
+    public Function derivative(String variable) {
+        int index = -1;
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                index = i;
+            }
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown variable: " + variable);
+        }
+        if (tree == null) {
+            return null;
+        }
+        final int slot = index;
+        return derivatives.computeIfAbsent(variable, name -> {
+            ExpressionNode derivativeTree = ExpressionDifferentiator.differentiate(tree, slot);
+            try {
+                return new Function(derivativeTree.toExpressionString(variables), variables);
+            } catch (RuntimeException e) {
+                return null;
             }
-            expression.setVariable(variable, values.get(variable));
+        });
+    }
+
+    /**
+     * Returns the expression in a canonical form: simplified and fully parenthesised, so
+     * expressions that differ only in whitespace, redundant brackets or constant arithmetic
+     * give the same string. Useful as a cache key.
+     *
+     * @return the normalized expression, or the original expression with its whitespace removed
+     *         if it can only be evaluated by exp4j.
+     */
+    public String getNormalizedExpression() {
+        if (tree != null) {
+            return tree.toExpressionString(variables);
         }
-        return expression.evaluate();
+        return expressionString.replaceAll("\\s+", "");
+    }
+
+    /**
+     * Checks whether the function was compiled to bytecode or is evaluated by exp4j.
+     *
+     * @return true if evaluation runs through compiled bytecode
+     */
+    public boolean isCompiled() {
+        return compiled != null;
     }
 }
@@ -0,0 +1,247 @@
+package com.example.golfgame.utils.functionUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer for JVM class files, just large enough to emit the straight-line
+ * floating point methods produced by {@link FunctionCompiler}. Generated code has no
+ * branches, so no stack map frames are needed.
+ */
+class ClassFileBuilder {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CLASS_FILE_VERSION = 52; // Java 8
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndices = new HashMap<>();
+    private int poolCount = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * Starts a new public final class.
+     *
+     * @param className the internal name of the class, e.g. {@code a/b/C}
+     * @param superName the internal name of the super class
+     * @param interfaceNames the internal names of the implemented interfaces
+     */
+    ClassFileBuilder(String className, String superName, String... interfaceNames) {
+        this.thisClass = classRef(className);
+        this.superClass = classRef(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, 1, out -> out.writeUTF(value), 1);
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, 7, out -> out.writeShort(name), 1);
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return entry("D" + bits, 6, out -> out.writeLong(bits), 2);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + descriptor, 12, out -> {
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        }, 1);
+        return entry("M" + owner + "." + name + descriptor, 10, out -> {
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        }, 1);
+    }
+
+    /**
+     * Starts a new public method. The method is added to the class by {@link Code#end()}.
+     *
+     * @param name the method name
+     * @param descriptor the JVM method descriptor
+     * @param maxLocals the number of local variable slots, including {@code this} and the parameters
+     * @return a builder for the method's bytecode
+     */
+    Code method(String name, String descriptor, int maxLocals) {
+        return new Code(utf8(name), utf8(descriptor), maxLocals);
+    }
+
+    /**
+     * Serialises the class.
+     *
+     * @return the class file bytes
+     */
+    byte[] toByteArray() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            pool.flush();
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces) {
+                out.writeShort(index);
+            }
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write class file.", e);
+        }
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, int tag, EntryWriter writer, int slots) {
+        Integer existing = poolIndices.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            pool.writeByte(tag);
+            writer.write(pool);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write constant pool entry.", e);
+        }
+        int index = poolCount;
+        poolCount += slots;
+        if (poolCount > 0xFFFF) {
+            throw new IllegalStateException("Constant pool overflow.");
+        }
+        poolIndices.put(key, index);
+        return index;
+    }
+
+    /**
+     * Collects the bytecode of one method and tracks the operand stack depth.
+     */
+    class Code {
+        private final int name;
+        private final int descriptor;
+        private final int maxLocals;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private int stack;
+        private int maxStack;
+
+        private Code(int name, int descriptor, int maxLocals) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * Emits a single-byte instruction.
+         *
+         * @param opcode the instruction opcode
+         * @param stackChange the change in operand stack slots caused by the instruction
+         * @return this builder
+         */
+        Code op(int opcode, int stackChange) {
+            code.write(opcode);
+            adjustStack(stackChange);
+            return this;
+        }
+
+        /**
+         * Emits an instruction with a one-byte operand.
+         *
+         * @param opcode the instruction opcode
+         * @param operand the operand byte
+         * @param stackChange the change in operand stack slots caused by the instruction
+         * @return this builder
+         */
+        Code op1(int opcode, int operand, int stackChange) {
+            code.write(opcode);
+            code.write(operand);
+            adjustStack(stackChange);
+            return this;
+        }
+
+        /**
+         * Emits an instruction with a two-byte operand.
+         *
+         * @param opcode the instruction opcode
+         * @param operand the operand, typically a constant pool index
+         * @param stackChange the change in operand stack slots caused by the instruction
+         * @return this builder
+         */
+        Code op2(int opcode, int operand, int stackChange) {
+            code.write(opcode);
+            code.write(operand >> 8);
+            code.write(operand);
+            adjustStack(stackChange);
+            return this;
+        }
+
+        /**
+         * Finishes the method and adds it to the class.
+         */
+        void end() {
+            byte[] bytecode = code.toByteArray();
+            if (bytecode.length > 0xFFFF) {
+                throw new IllegalStateException("Method too large: " + bytecode.length + " bytes.");
+            }
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeShort(ACC_PUBLIC);
+                out.writeShort(name);
+                out.writeShort(descriptor);
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + bytecode.length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(bytecode.length);
+                out.write(bytecode);
+                out.writeShort(0); // exception table
+                out.writeShort(0); // attributes
+                out.flush();
+                methods.add(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write method.", e);
+            }
+        }
+
+        private void adjustStack(int change) {
+            stack += change;
+            if (stack < 0) {
+                throw new IllegalStateException("Operand stack underflow.");
+            }
+            maxStack = Math.max(maxStack, stack);
+        }
+    }
+}
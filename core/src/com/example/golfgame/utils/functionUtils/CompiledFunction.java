@@ -0,0 +1,43 @@
+package com.example.golfgame.utils.functionUtils;
+
+/**
+ * A mathematical expression compiled to JVM bytecode by {@link FunctionCompiler}.
+ * Implementations are generated at runtime and evaluate the expression with plain
+ * primitive arithmetic, so the JIT can inline them into the calling loop.
+ */
+public interface CompiledFunction {
+
+    /**
+     * Evaluates the expression with the variables bound by slot index.
+     *
+     * @param values the variable values, in the order the variables were declared
+     * @return the value of the expression
+     */
+    double apply(double[] values);
+
+    /**
+     * Evaluates an expression of at most two variables, the first bound to {@code x}
+     * and the second to {@code y}.
+     *
+     * @param x the value of the first variable
+     * @param y the value of the second variable
+     * @return the value of the expression
+     * @throws UnsupportedOperationException if the expression has more than two variables
+     */
+    default double apply(double x, double y) {
+        throw new UnsupportedOperationException("Expression has more than two variables.");
+    }
+
+    /**
+     * Evaluates every expression the function was compiled from in one pass, sharing
+     * their common sub-expressions. See {@link FunctionCompiler#compile(ExpressionNode[], int)}.
+     *
+     * @param x the value of the first variable
+     * @param y the value of the second variable
+     * @param out receives the value of the i-th compiled expression at index i
+     * @throws UnsupportedOperationException if the expressions have more than two variables
+     */
+    default void applyAll(double x, double y, double[] out) {
+        throw new UnsupportedOperationException("Expression has more than two variables.");
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.golfgame.utils.functionUtils;
+
+/**
+ * Differentiates {@link ExpressionNode} trees symbolically.
+ * Every node of the result is folded by {@link ExpressionOptimizer} as it is built, so
+ * derivatives of typical terrain expressions stay close in size to the original expression.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ExpressionNode h = ExpressionParser.parse("sin(x) * y^2", "x", "y");
+ * ExpressionNode hx = ExpressionDifferentiator.differentiate(h, 0); // cos(x) * y^2
+ * }</pre>
+ */
+public final class ExpressionDifferentiator {
+
+    private ExpressionDifferentiator() {
+    }
+
+    /**
+     * Returns the partial derivative of an expression with respect to one variable.
+     *
+     * @param node the expression to differentiate
+     * @param variable the slot index of the variable to differentiate by
+     * @return the derivative expression
+     */
+    public static ExpressionNode differentiate(ExpressionNode node, int variable) {
+        ExpressionNode a = node.getLeft();
+        ExpressionNode b = node.getRight();
+        switch (node.getOperation()) {
+            case CONSTANT:
+                return zero();
+            case VARIABLE:
+                return node.getVariable() == variable ? one() : zero();
+            case ADD:
+                return add(differentiate(a, variable), differentiate(b, variable));
+            case SUBTRACT:
+                return subtract(differentiate(a, variable), differentiate(b, variable));
+            case MULTIPLY:
+                return add(multiply(differentiate(a, variable), b), multiply(a, differentiate(b, variable)));
+            case DIVIDE:
+                return divide(subtract(multiply(differentiate(a, variable), b), multiply(a, differentiate(b, variable))),
+                        power(b, constant(2)));
+            case MODULO: {
+                // a % b = a - b * trunc(a / b), and trunc is piecewise constant
+                ExpressionNode quotient = divide(a, b);
+                ExpressionNode truncated = multiply(unary(Operation.SIGNUM, quotient),
+                        unary(Operation.FLOOR, unary(Operation.ABS, quotient)));
+                return subtract(differentiate(a, variable), multiply(differentiate(b, variable), truncated));
+            }
+            case POWER:
+                return differentiatePower(a, b, variable);
+            case NEGATE:
+                return negate(differentiate(a, variable));
+            default:
+                return multiply(outerDerivative(node.getOperation(), a), differentiate(a, variable));
+        }
+    }
+
+    private static ExpressionNode differentiatePower(ExpressionNode base, ExpressionNode exponent, int variable) {
+        ExpressionNode baseDerivative = differentiate(base, variable);
+        ExpressionNode exponentDerivative = differentiate(exponent, variable);
+        if (exponent.getOperation() == Operation.CONSTANT) {
+            // d(a^c) = c * a^(c-1) * da
+            double c = exponent.getValue();
+            return multiply(multiply(constant(c), power(base, constant(c - 1))), baseDerivative);
+        }
+        if (base.getOperation() == Operation.CONSTANT) {
+            // d(k^b) = k^b * ln(k) * db
+            return multiply(multiply(ExpressionNode.binary(Operation.POWER, base, exponent), constant(Math.log(base.getValue()))),
+                    exponentDerivative);
+        }
+        // d(a^b) = a^b * (db * ln(a) + b * da / a)
+        return multiply(ExpressionNode.binary(Operation.POWER, base, exponent),
+                add(multiply(exponentDerivative, unary(Operation.LOG, base)),
+                        divide(multiply(exponent, baseDerivative), base)));
+    }
+
+    /**
+     * Returns the derivative of a one-argument function with respect to its argument.
+     */
+    private static ExpressionNode outerDerivative(Operation function, ExpressionNode a) {
+        switch (function) {
+            case SIN:
+                return unary(Operation.COS, a);
+            case COS:
+                return negate(unary(Operation.SIN, a));
+            case TAN:
+                return divide(one(), power(unary(Operation.COS, a), constant(2)));
+            case COT:
+                return negate(divide(one(), power(unary(Operation.SIN, a), constant(2))));
+            case ASIN:
+                return divide(one(), unary(Operation.SQRT, subtract(one(), power(a, constant(2)))));
+            case ACOS:
+                return negate(divide(one(), unary(Operation.SQRT, subtract(one(), power(a, constant(2))))));
+            case ATAN:
+                return divide(one(), add(one(), power(a, constant(2))));
+            case SINH:
+                return unary(Operation.COSH, a);
+            case COSH:
+                return unary(Operation.SINH, a);
+            case TANH:
+                return divide(one(), power(unary(Operation.COSH, a), constant(2)));
+            case EXP:
+            case EXPM1:
+                return unary(Operation.EXP, a);
+            case LOG:
+                return divide(one(), a);
+            case LOG2:
+                return divide(one(), multiply(a, constant(Math.log(2.0))));
+            case LOG10:
+                return divide(one(), multiply(a, constant(Math.log(10.0))));
+            case LOG1P:
+                return divide(one(), add(one(), a));
+            case SQRT:
+                return divide(one(), multiply(constant(2), unary(Operation.SQRT, a)));
+            case CBRT:
+                return divide(one(), multiply(constant(3), power(unary(Operation.CBRT, a), constant(2))));
+            case ABS:
+                return unary(Operation.SIGNUM, a);
+            case SIGNUM:
+            case FLOOR:
+            case CEIL:
+                return zero();
+            default:
+                throw new IllegalArgumentException("Cannot differentiate " + function);
+        }
+    }
+
+    private static ExpressionNode zero() {
+        return ExpressionNode.constant(0);
+    }
+
+    private static ExpressionNode one() {
+        return ExpressionNode.constant(1);
+    }
+
+    private static ExpressionNode constant(double value) {
+        return ExpressionNode.constant(value);
+    }
+
+    private static ExpressionNode unary(Operation operation, ExpressionNode a) {
+        return ExpressionOptimizer.fold(operation, a, null);
+    }
+
+    private static ExpressionNode negate(ExpressionNode a) {
+        return ExpressionOptimizer.fold(Operation.NEGATE, a, null);
+    }
+
+    private static ExpressionNode add(ExpressionNode a, ExpressionNode b) {
+        return ExpressionOptimizer.fold(Operation.ADD, a, b);
+    }
+
+    private static ExpressionNode subtract(ExpressionNode a, ExpressionNode b) {
+        return ExpressionOptimizer.fold(Operation.SUBTRACT, a, b);
+    }
+
+    private static ExpressionNode multiply(ExpressionNode a, ExpressionNode b) {
+        return ExpressionOptimizer.fold(Operation.MULTIPLY, a, b);
+    }
+
+    private static ExpressionNode divide(ExpressionNode a, ExpressionNode b) {
+        return ExpressionOptimizer.fold(Operation.DIVIDE, a, b);
+    }
+
+    private static ExpressionNode power(ExpressionNode a, ExpressionNode b) {
+        return ExpressionOptimizer.fold(Operation.POWER, a, b);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.golfgame.utils.functionUtils;
+
+import java.math.BigDecimal;
+
+/**
+ * An immutable node of a parsed mathematical expression.
+ * Leaves are constants or variables (referenced by their slot index), inner nodes apply
+ * an {@link Operation} to one or two child nodes. Nodes compare structurally, so equal
+ * sub-trees can be recognised and shared.
+ */
+public final class ExpressionNode {
+    private final Operation operation;
+    private final double value;
+    private final int variable;
+    private final ExpressionNode left;
+    private final ExpressionNode right;
+    private final int hash;
+
+    private ExpressionNode(Operation operation, double value, int variable, ExpressionNode left, ExpressionNode right) {
+        this.operation = operation;
+        this.value = value;
+        this.variable = variable;
+        this.left = left;
+        this.right = right;
+        int h = operation.hashCode();
+        h = 31 * h + Double.hashCode(value);
+        h = 31 * h + variable;
+        h = 31 * h + (left == null ? 0 : left.hash);
+        h = 31 * h + (right == null ? 0 : right.hash);
+        this.hash = h;
+    }
+
+    /**
+     * Creates a constant leaf.
+     *
+     * @param value the constant value
+     * @return the constant node
+     */
+    public static ExpressionNode constant(double value) {
+        return new ExpressionNode(Operation.CONSTANT, value, -1, null, null);
+    }
+
+    /**
+     * Creates a variable leaf.
+     *
+     * @param index the slot index of the variable in the function's variable list
+     * @return the variable node
+     */
+    public static ExpressionNode variable(int index) {
+        return new ExpressionNode(Operation.VARIABLE, 0, index, null, null);
+    }
+
+    /**
+     * Creates a unary node such as a negation or a function call.
+     *
+     * @param operation the unary operation
+     * @param operand the operand
+     * @return the unary node
+     */
+    public static ExpressionNode unary(Operation operation, ExpressionNode operand) {
+        if (operation.getArity() != 1) {
+            throw new IllegalArgumentException(operation + " is not a unary operation.");
+        }
+        return new ExpressionNode(operation, 0, -1, operand, null);
+    }
+
+    /**
+     * Creates a binary operator node.
+     *
+     * @param operation the binary operation
+     * @param left the left operand
+     * @param right the right operand
+     * @return the binary node
+     */
+    public static ExpressionNode binary(Operation operation, ExpressionNode left, ExpressionNode right) {
+        if (operation.getArity() != 2) {
+            throw new IllegalArgumentException(operation + " is not a binary operation.");
+        }
+        return new ExpressionNode(operation, 0, -1, left, right);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public int getVariable() {
+        return variable;
+    }
+
+    public ExpressionNode getLeft() {
+        return left;
+    }
+
+    public ExpressionNode getRight() {
+        return right;
+    }
+
+    /**
+     * Checks whether this node is a constant equal to the given value.
+     *
+     * @param constant the value to compare against
+     * @return true if the node is a constant leaf with exactly that value
+     */
+    public boolean isConstant(double constant) {
+        return operation == Operation.CONSTANT && Double.compare(value, constant) == 0;
+    }
+
+    /**
+     * Evaluates the tree by walking it recursively. Used where no compiled form is available.
+     *
+     * @param values the variable values, indexed by slot
+     * @return the value of the expression
+     */
+    public double evaluate(double[] values) {
+        switch (operation) {
+            case CONSTANT:
+                return value;
+            case VARIABLE:
+                return values[variable];
+            default:
+                double a = left.evaluate(values);
+                double b = right == null ? 0 : right.evaluate(values);
+                return operation.apply(a, b);
+        }
+    }
+
+    /**
+     * Evaluates the tree in interval arithmetic, giving bounds on its value over a whole box of inputs.
+     *
+     * @param values the range of each variable, indexed by slot
+     * @return an interval containing the value of the expression for every combination of inputs
+     */
+    public Interval evaluateInterval(Interval[] values) {
+        switch (operation) {
+            case CONSTANT:
+                return Interval.of(value, value);
+            case VARIABLE:
+                return values[variable];
+            default:
+                Interval a = left.evaluateInterval(values);
+                Interval b = right == null ? null : right.evaluateInterval(values);
+                return a.apply(operation, b);
+        }
+    }
+
+    /**
+     * Returns the highest variable slot referenced by this tree.
+     *
+     * @return the highest slot index, or -1 if the tree is constant
+     */
+    public int maxVariable() {
+        if (operation == Operation.VARIABLE) {
+            return variable;
+        }
+        int max = -1;
+        if (left != null) {
+            max = Math.max(max, left.maxVariable());
+        }
+        if (right != null) {
+            max = Math.max(max, right.maxVariable());
+        }
+        return max;
+    }
+
+    /**
+     * Writes the tree back as an exp4j compatible expression string. Every operator is
+     * parenthesised, so the result parses back into the same tree. Constants folded to an
+     * infinity or NaN are written as {@code 1/0}, {@code -1/0} and {@code 0/0}, which exp4j
+     * parses but refuses to evaluate, since it throws on division by zero.
+     *
+     * @param variableNames the variable names, indexed by slot
+     * @return the expression string
+     */
+    public String toExpressionString(String[] variableNames) {
+        StringBuilder builder = new StringBuilder();
+        appendTo(builder, variableNames);
+        return builder.toString();
+    }
+
+    private void appendTo(StringBuilder builder, String[] variableNames) {
+        switch (operation) {
+            case CONSTANT:
+                if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+                    builder.append('(').append(formatConstant(value)).append(')');
+                } else {
+                    builder.append(formatConstant(value));
+                }
+                break;
+            case VARIABLE:
+                builder.append(variableNames[variable]);
+                break;
+            case NEGATE:
+                builder.append("(-");
+                left.appendTo(builder, variableNames);
+                builder.append(')');
+                break;
+            default:
+                if (operation.isFunction()) {
+                    builder.append(operation.getSymbol()).append('(');
+                    left.appendTo(builder, variableNames);
+                    builder.append(')');
+                } else {
+                    builder.append('(');
+                    left.appendTo(builder, variableNames);
+                    builder.append(operation.getSymbol());
+                    right.appendTo(builder, variableNames);
+                    builder.append(')');
+                }
+        }
+    }
+
+    private static String formatConstant(double value) {
+        if (Double.isNaN(value)) {
+            return "0/0";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "1/0" : "-1/0";
+        }
+        // BigDecimal avoids the "E" exponent notation of Double.toString, which the
+        // expression syntax would read as Euler's number.
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ExpressionNode)) {
+            return false;
+        }
+        ExpressionNode node = (ExpressionNode) other;
+        return hash == node.hash
+                && operation == node.operation
+                && Double.compare(value, node.value) == 0
+                && variable == node.variable
+                && (left == null ? node.left == null : left.equals(node.left))
+                && (right == null ? node.right == null : right.equals(node.right));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        String[] names = new String[maxVariable() + 1];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "v" + i;
+        }
+        return toExpressionString(names);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.golfgame.utils.functionUtils;
+
+/**
+ * Simplifies {@link ExpressionNode} trees before they are compiled.
+ * Sub-trees without variables are folded into constants, neutral operations such as
+ * {@code x + 0}, {@code x * 1} or {@code x ^ 1} are removed and powers of {@code e} become
+ * calls to {@code exp}. Common sub-expressions are shared later by {@link FunctionCompiler},
+ * which keys them on structural equality.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ExpressionNode tree = ExpressionParser.parse("(2 * 3) * x + 0", "x", "y");
+ * ExpressionNode optimized = ExpressionOptimizer.optimize(tree); // 6 * x
+ * }</pre>
+ */
+public final class ExpressionOptimizer {
+
+    private ExpressionOptimizer() {
+    }
+
+    /**
+     * Returns a simplified tree that evaluates to the same value as {@code root}.
+     *
+     * @param root the expression to simplify
+     * @return the simplified expression
+     */
+    public static ExpressionNode optimize(ExpressionNode root) {
+        switch (root.getOperation().getArity()) {
+            case 0:
+                return root;
+            case 1:
+                return fold(root.getOperation(), optimize(root.getLeft()), null);
+            default:
+                return fold(root.getOperation(), optimize(root.getLeft()), optimize(root.getRight()));
+        }
+    }
+
+    /**
+     * Builds a single node from already simplified operands, folding it where possible.
+     *
+     * @param operation the unary or binary operation
+     * @param a the first operand
+     * @param b the second operand, or {@code null} for unary operations
+     * @return the folded node
+     */
+    static ExpressionNode fold(Operation operation, ExpressionNode a, ExpressionNode b) {
+        boolean constantOperands = isConstant(a) && (b == null || isConstant(b));
+        if (constantOperands) {
+            return ExpressionNode.constant(operation.apply(a.getValue(), b == null ? 0 : b.getValue()));
+        }
+        switch (operation) {
+            case NEGATE:
+                if (a.getOperation() == Operation.NEGATE) {
+                    return a.getLeft();
+                }
+                break;
+            case ADD:
+                if (a.isConstant(0)) {
+                    return b;
+                }
+                if (b.isConstant(0)) {
+                    return a;
+                }
+                break;
+            case SUBTRACT:
+                if (b.isConstant(0)) {
+                    return a;
+                }
+                if (a.isConstant(0)) {
+                    return fold(Operation.NEGATE, b, null);
+                }
+                break;
+            case MULTIPLY:
+                // 0 * x is not folded: it is NaN when x is NaN or infinite, as in the exp4j fallback
+                if (a.isConstant(1)) {
+                    return b;
+                }
+                if (b.isConstant(1)) {
+                    return a;
+                }
+                if (a.isConstant(-1)) {
+                    return fold(Operation.NEGATE, b, null);
+                }
+                if (b.isConstant(-1)) {
+                    return fold(Operation.NEGATE, a, null);
+                }
+                break;
+            case DIVIDE:
+                // Nor is 0 / x, which is NaN when x is 0 or NaN
+                if (b.isConstant(1)) {
+                    return a;
+                }
+                break;
+            case POWER:
+                if (b.isConstant(0)) {
+                    return ExpressionNode.constant(1);
+                }
+                if (b.isConstant(1)) {
+                    return a;
+                }
+                if (a.isConstant(Math.E)) {
+                    // Math.exp is considerably cheaper than Math.pow
+                    return ExpressionNode.unary(Operation.EXP, b);
+                }
+                break;
+            default:
+                break;
+        }
+        return b == null ? ExpressionNode.unary(operation, a) : ExpressionNode.binary(operation, a, b);
+    }
+
+    private static boolean isConstant(ExpressionNode node) {
+        return node.getOperation() == Operation.CONSTANT;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.golfgame.utils.functionUtils;
+
+/**
+ * Parses expression strings in the syntax accepted by exp4j into {@link ExpressionNode} trees.
+ * Supports the arithmetic operators {@code + - * / % ^}, unary signs, implicit multiplication
+ * (e.g. {@code 2x}), the constants {@code pi}, {@code e} and the golden ratio, and the common exp4j
+ * functions. Operator precedence matches exp4j: unary minus binds tighter than {@code *} but
+ * looser than {@code ^}, and {@code ^} is right-associative.
+ */
+public class ExpressionParser {
+    private final String input;
+    private final String[] variables;
+    private int position;
+
+    private ExpressionParser(String input, String[] variables) {
+        this.input = input;
+        this.variables = variables;
+    }
+
+    /**
+     * Parses an expression string into a tree whose variable leaves refer to slots in {@code variables}.
+     *
+     * @param expression the expression string, e.g. {@code "e^(-(x^2+y^2)/500)+0.6"}
+     * @param variables the variable names, in slot order
+     * @return the root of the parsed tree
+     * @throws IllegalArgumentException if the expression uses syntax this parser does not support
+     */
+    public static ExpressionNode parse(String expression, String... variables) {
+        ExpressionParser parser = new ExpressionParser(expression, variables);
+        ExpressionNode root = parser.parseSum();
+        parser.skipWhitespace();
+        if (parser.position < parser.input.length()) {
+            throw parser.error("Unexpected character '" + parser.input.charAt(parser.position) + "'");
+        }
+        return root;
+    }
+
+    private ExpressionNode parseSum() {
+        ExpressionNode node = parseProduct();
+        while (true) {
+            if (consume('+')) {
+                node = ExpressionNode.binary(Operation.ADD, node, parseProduct());
+            } else if (consume('-')) {
+                node = ExpressionNode.binary(Operation.SUBTRACT, node, parseProduct());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseProduct() {
+        ExpressionNode node = parseSigned();
+        while (true) {
+            if (consume('*')) {
+                node = ExpressionNode.binary(Operation.MULTIPLY, node, parseSigned());
+            } else if (consume('/')) {
+                node = ExpressionNode.binary(Operation.DIVIDE, node, parseSigned());
+            } else if (consume('%')) {
+                node = ExpressionNode.binary(Operation.MODULO, node, parseSigned());
+            } else if (startsOperand()) {
+                // Implicit multiplication, e.g. "2x" or "(x+1)(y-1)"
+                node = ExpressionNode.binary(Operation.MULTIPLY, node, parseSigned());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private ExpressionNode parseSigned() {
+        if (consume('-')) {
+            return ExpressionNode.unary(Operation.NEGATE, parseSigned());
+        }
+        if (consume('+')) {
+            return parseSigned();
+        }
+        return parsePower();
+    }
+
+    private ExpressionNode parsePower() {
+        ExpressionNode base = parsePrimary();
+        if (consume('^')) {
+            return ExpressionNode.binary(Operation.POWER, base, parseSigned());
+        }
+        return base;
+    }
+
+    private ExpressionNode parsePrimary() {
+        skipWhitespace();
+        if (position >= input.length()) {
+            throw error("Unexpected end of expression");
+        }
+        char c = input.charAt(position);
+        if (c == '(') {
+            position++;
+            ExpressionNode inner = parseSum();
+            expect(')');
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return ExpressionNode.constant(parseNumber());
+        }
+        if (isNameStart(c)) {
+            return parseName();
+        }
+        throw error("Unexpected character '" + c + "'");
+    }
+
+    private double parseNumber() {
+        int start = position;
+        while (position < input.length() && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+            position++;
+        }
+        // Scientific notation is only read when digits follow, so "2e" stays 2 * e
+        if (position < input.length() && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+            int exponent = position + 1;
+            if (exponent < input.length() && (input.charAt(exponent) == '+' || input.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < input.length() && Character.isDigit(input.charAt(exponent))) {
+                position = exponent;
+                while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                    position++;
+                }
+            }
+        }
+        try {
+            return Double.parseDouble(input.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + input.substring(start, position) + "'");
+        }
+    }
+
+    private ExpressionNode parseName() {
+        int end = position;
+        while (end < input.length() && isNamePart(input.charAt(end))) {
+            end++;
+        }
+        // Names are matched longest-first against known symbols, so "xy" reads as x * y
+        for (int candidateEnd = end; candidateEnd > position; candidateEnd--) {
+            String name = input.substring(position, candidateEnd);
+            int variable = indexOfVariable(name);
+            if (variable >= 0) {
+                position = candidateEnd;
+                return ExpressionNode.variable(variable);
+            }
+            Double constant = constantValue(name);
+            if (constant != null) {
+                position = candidateEnd;
+                return ExpressionNode.constant(constant);
+            }
+            if (name.equals("pow") && nextNonWhitespaceIs(candidateEnd, '(')) {
+                position = candidateEnd;
+                expect('(');
+                ExpressionNode base = parseSum();
+                expect(',');
+                ExpressionNode exponent = parseSum();
+                expect(')');
+                return ExpressionNode.binary(Operation.POWER, base, exponent);
+            }
+            Operation function = Operation.forFunctionName(name);
+            if (function != null && nextNonWhitespaceIs(candidateEnd, '(')) {
+                position = candidateEnd;
+                expect('(');
+                ExpressionNode argument = parseSum();
+                expect(')');
+                return ExpressionNode.unary(function, argument);
+            }
+        }
+        throw error("Unknown name '" + input.substring(position, end) + "'");
+    }
+
+    private int indexOfVariable(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Double constantValue(String name) {
+        switch (name) {
+            case "pi":
+            case "\u03c0":
+                return Math.PI;
+            case "e":
+                return Math.E;
+            case "\u03c6":
+                return 1.61803398874;
+            default:
+                return null;
+        }
+    }
+
+    private boolean startsOperand() {
+        skipWhitespace();
+        if (position >= input.length()) {
+            return false;
+        }
+        char c = input.charAt(position);
+        return c == '(' || c == '.' || Character.isDigit(c) || isNameStart(c);
+    }
+
+    private boolean nextNonWhitespaceIs(int from, char expected) {
+        int i = from;
+        while (i < input.length() && Character.isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        return i < input.length() && input.charAt(i) == expected;
+    }
+
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (position < input.length() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (!consume(expected)) {
+            throw error("Expected '" + expected + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isNameStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " in expression: " + input);
+    }
+}
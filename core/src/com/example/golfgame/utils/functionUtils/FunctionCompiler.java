@@ -0,0 +1,302 @@
+package com.example.golfgame.utils.functionUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles {@link ExpressionNode} trees into JVM classes implementing {@link CompiledFunction}.
+ * The generated methods are straight-line double arithmetic and calls to {@link Math}, so
+ * evaluating a compiled terrain function costs about as much as the hand-written formula.
+ * Sub-expressions that occur more than once are computed once and kept in a local variable.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ExpressionNode tree = ExpressionParser.parse("sin(x) * cos(y)", "x", "y");
+ * CompiledFunction f = FunctionCompiler.compile(tree, 2);
+ * double value = f.apply(1.0, 2.0);
+ * }</pre>
+ */
+public final class FunctionCompiler {
+    private static final String PACKAGE = "com/example/golfgame/utils/functionUtils/";
+    private static final String INTERFACE = PACKAGE + "CompiledFunction";
+    private static final String MATH = "java/lang/Math";
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    // JVM opcodes used by the generated code
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DALOAD = 0x31;
+    private static final int DSTORE = 0x39;
+    private static final int DASTORE = 0x52;
+    private static final int DUP2 = 0x5c;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DREM = 0x73;
+    private static final int DNEG = 0x77;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    private FunctionCompiler() {
+    }
+
+    /**
+     * Compiles an expression tree into a new class and returns an instance of it.
+     *
+     * @param root the expression to compile
+     * @param variableCount the number of variable slots of the function
+     * @return the compiled function
+     * @throws IllegalStateException if the expression or its variable list is too large for a single JVM method
+     */
+    public static CompiledFunction compile(ExpressionNode root, int variableCount) {
+        return compile(new ExpressionNode[]{root}, variableCount);
+    }
+
+    /**
+     * Compiles several expressions over the same variables into one class. The first
+     * expression backs {@link CompiledFunction#apply(double[])}; for functions of at most two
+     * variables, {@link CompiledFunction#applyAll(double, double, double[])} evaluates all of
+     * them in a single pass that computes their shared sub-expressions only once.
+     *
+     * @param outputs the expressions to compile, e.g. a height and its partial derivatives
+     * @param variableCount the number of variable slots of the function
+     * @return the compiled function
+     * @throws IllegalStateException if the expressions or the variable list are too large for a single JVM method
+     */
+    public static CompiledFunction compile(ExpressionNode[] outputs, int variableCount) {
+        if (2 + 2 * variableCount > 0xFF) {
+            throw new IllegalStateException("Too many variables to compile: " + variableCount);
+        }
+        String className = PACKAGE + "GeneratedFunction" + classCounter.incrementAndGet();
+        ClassFileBuilder builder = new ClassFileBuilder(className, "java/lang/Object", INTERFACE);
+
+        ClassFileBuilder.Code constructor = builder.method("<init>", "()V", 1);
+        constructor.op(ALOAD_0, 1)
+                .op2(INVOKESPECIAL, builder.methodRef("java/lang/Object", "<init>", "()V"), -1)
+                .op(RETURN, 0)
+                .end();
+
+        // apply(double[]): copy the array into locals once, then run the expression
+        int[] arraySlots = new int[variableCount];
+        for (int i = 0; i < variableCount; i++) {
+            arraySlots[i] = 2 + 2 * i;
+        }
+        MethodEmitter array = new MethodEmitter(builder, "apply", "([D)D", arraySlots, 2 + 2 * variableCount, outputs[0]);
+        for (int i = 0; i < variableCount; i++) {
+            array.code.op(ALOAD_1, 1);
+            pushInt(array.code, i);
+            array.code.op(DALOAD, 0).op1(DSTORE, arraySlots[i], -2);
+        }
+        array.emit(outputs[0]);
+        array.code.op(DRETURN, -2).end();
+
+        if (variableCount <= 2) {
+            int[] pairSlots = {1, 3};
+            MethodEmitter pair = new MethodEmitter(builder, "apply", "(DD)D", pairSlots, 5, outputs[0]);
+            pair.emit(outputs[0]);
+            pair.code.op(DRETURN, -2).end();
+
+            // applyAll(double, double, double[]): out[i] = outputs[i], locals shared across outputs
+            MethodEmitter all = new MethodEmitter(builder, "applyAll", "(DD[D)V", pairSlots, 6, outputs);
+            for (int i = 0; i < outputs.length; i++) {
+                all.code.op1(ALOAD, 5, 1);
+                pushInt(all.code, i);
+                all.emit(outputs[i]);
+                all.code.op(DASTORE, -4);
+            }
+            all.code.op(RETURN, 0).end();
+        }
+
+        byte[] classFile = builder.toByteArray();
+        try {
+            Class<?> generated = new GeneratedClassLoader(FunctionCompiler.class.getClassLoader())
+                    .define(className.replace('/', '.'), classFile);
+            return (CompiledFunction) generated.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not instantiate compiled function.", e);
+        }
+    }
+
+    /**
+     * Emits the body of one generated method. Inner nodes that occur more than once in the
+     * method's expressions are stored in a local variable the first time they are computed
+     * and loaded from there afterwards. Generated code has no branches, so the first
+     * computation always runs before any later use.
+     */
+    private static final class MethodEmitter {
+        private final ClassFileBuilder builder;
+        private final ClassFileBuilder.Code code;
+        private final int[] slots;
+        private final Map<ExpressionNode, Integer> occurrences = new HashMap<>();
+        private final Map<ExpressionNode, Integer> stored = new HashMap<>();
+        private int nextLocal;
+
+        MethodEmitter(ClassFileBuilder builder, String name, String descriptor, int[] slots, int firstFreeLocal,
+                      ExpressionNode... roots) {
+            for (ExpressionNode root : roots) {
+                countOccurrences(root);
+            }
+            int shared = 0;
+            for (int count : occurrences.values()) {
+                if (count > 1) {
+                    shared++;
+                }
+            }
+            this.builder = builder;
+            this.slots = slots;
+            this.nextLocal = firstFreeLocal;
+            this.code = builder.method(name, descriptor, Math.min(firstFreeLocal + 2 * shared, 0x100));
+        }
+
+        private void countOccurrences(ExpressionNode node) {
+            if (node.getOperation().getArity() == 0) {
+                return;
+            }
+            // Children of a repeated node are only counted once, as the node is only computed once
+            if (occurrences.merge(node, 1, Integer::sum) > 1) {
+                return;
+            }
+            countOccurrences(node.getLeft());
+            if (node.getRight() != null) {
+                countOccurrences(node.getRight());
+            }
+        }
+
+        void emit(ExpressionNode node) {
+            Integer local = stored.get(node);
+            if (local != null) {
+                code.op1(DLOAD, local, 2);
+                return;
+            }
+            FunctionCompiler.emit(this, node);
+            Integer count = occurrences.get(node);
+            // DSTORE takes a one-byte slot index; once those run out, repeats are recomputed
+            if (count != null && count > 1 && nextLocal + 1 < 0x100) {
+                code.op(DUP2, 2).op1(DSTORE, nextLocal, -2);
+                stored.put(node, nextLocal);
+                nextLocal += 2;
+            }
+        }
+    }
+
+    private static void emit(MethodEmitter method, ExpressionNode node) {
+        ClassFileBuilder builder = method.builder;
+        ClassFileBuilder.Code code = method.code;
+        Operation operation = node.getOperation();
+        switch (operation) {
+            case CONSTANT:
+                pushDouble(builder, code, node.getValue());
+                return;
+            case VARIABLE:
+                code.op1(DLOAD, method.slots[node.getVariable()], 2);
+                return;
+            case ADD:
+                emitBinary(method, node, DADD);
+                return;
+            case SUBTRACT:
+                emitBinary(method, node, DSUB);
+                return;
+            case MULTIPLY:
+                emitBinary(method, node, DMUL);
+                return;
+            case DIVIDE:
+                emitBinary(method, node, DDIV);
+                return;
+            case MODULO:
+                emitBinary(method, node, DREM);
+                return;
+            case POWER:
+                emitPower(method, node);
+                return;
+            case NEGATE:
+                method.emit(node.getLeft());
+                code.op(DNEG, 0);
+                return;
+            case COT:
+                code.op(DCONST_1, 2);
+                method.emit(node.getLeft());
+                invokeMath(builder, code, "tan");
+                code.op(DDIV, -2);
+                return;
+            case LOG2:
+                method.emit(node.getLeft());
+                invokeMath(builder, code, "log");
+                pushDouble(builder, code, Math.log(2.0));
+                code.op(DDIV, -2);
+                return;
+            default:
+                method.emit(node.getLeft());
+                invokeMath(builder, code, operation.getSymbol());
+        }
+    }
+
+    private static void emitBinary(MethodEmitter method, ExpressionNode node, int opcode) {
+        method.emit(node.getLeft());
+        method.emit(node.getRight());
+        method.code.op(opcode, -2);
+    }
+
+    private static void emitPower(MethodEmitter method, ExpressionNode node) {
+        ClassFileBuilder.Code code = method.code;
+        ExpressionNode exponent = node.getRight();
+        if (exponent.isConstant(2)) {
+            method.emit(node.getLeft());
+            code.op(DUP2, 2).op(DMUL, -2);
+            return;
+        }
+        if (exponent.isConstant(3)) {
+            method.emit(node.getLeft());
+            code.op(DUP2, 2).op(DUP2, 2).op(DMUL, -2).op(DMUL, -2);
+            return;
+        }
+        method.emit(node.getLeft());
+        method.emit(exponent);
+        code.op2(INVOKESTATIC, method.builder.methodRef(MATH, "pow", "(DD)D"), -2);
+    }
+
+    private static void invokeMath(ClassFileBuilder builder, ClassFileBuilder.Code code, String method) {
+        code.op2(INVOKESTATIC, builder.methodRef(MATH, method, "(D)D"), 0);
+    }
+
+    private static void pushDouble(ClassFileBuilder builder, ClassFileBuilder.Code code, double value) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            code.op(DCONST_0, 2);
+        } else if (value == 1.0) {
+            code.op(DCONST_1, 2);
+        } else {
+            code.op2(LDC2_W, builder.doubleConstant(value), 2);
+        }
+    }
+
+    private static void pushInt(ClassFileBuilder.Code code, int value) {
+        if (value < 128) {
+            code.op1(BIPUSH, value, 1);
+        } else {
+            code.op2(SIPUSH, value, 1);
+        }
+    }
+
+    /**
+     * Defines each generated class in its own loader, so classes of discarded functions can be unloaded.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.golfgame.utils.functionUtils;
+
+/**
+ * An immutable closed interval of doubles used for interval arithmetic.
+ * Every operation returns an interval that contains the result of the operation for all
+ * values in its operands. The bounds are rounded outwards by one ulp, so floating point
+ * rounding in {@link Math} cannot make a bound too tight.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * Interval x = Interval.of(-1, 2);
+ * Interval square = x.apply(Operation.POWER, Interval.of(2, 2)); // contains [0, 4]
+ * }</pre>
+ */
+public final class Interval {
+    /**
+     * The interval of all values, used when nothing tighter can be guaranteed.
+     */
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double HALF_PI = Math.PI / 2;
+
+    private final double lower;
+    private final double upper;
+
+    private Interval(double lower, double upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    /**
+     * Creates the interval {@code [lower, upper]}.
+     *
+     * @param lower the lower bound
+     * @param upper the upper bound
+     * @return the interval, or {@link #ENTIRE} if a bound is NaN
+     * @throws IllegalArgumentException if {@code lower > upper}
+     */
+    public static Interval of(double lower, double upper) {
+        if (Double.isNaN(lower) || Double.isNaN(upper)) {
+            return ENTIRE;
+        }
+        if (lower > upper) {
+            throw new IllegalArgumentException("Lower bound " + lower + " is greater than upper bound " + upper);
+        }
+        return new Interval(lower, upper);
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    /**
+     * Checks whether a value lies within the interval.
+     *
+     * @param value the value to check
+     * @return true if {@code lower <= value <= upper}
+     */
+    public boolean contains(double value) {
+        return lower <= value && value <= upper;
+    }
+
+    /**
+     * Returns the smallest interval containing both this interval and another one.
+     *
+     * @param other the other interval
+     * @return the hull of both intervals
+     */
+    public Interval union(Interval other) {
+        return new Interval(Math.min(lower, other.lower), Math.max(upper, other.upper));
+    }
+
+    /**
+     * Returns the intersection of this interval and another one that is known to overlap it.
+     * Both intervals must contain the same quantity, so they cannot be disjoint.
+     *
+     * @param other the other interval
+     * @return the common part of both intervals
+     */
+    public Interval intersect(Interval other) {
+        double newLower = Math.max(lower, other.lower);
+        double newUpper = Math.min(upper, other.upper);
+        return newLower <= newUpper ? new Interval(newLower, newUpper) : this;
+    }
+
+    /**
+     * Applies an operation to this interval and, for binary operations, a second interval.
+     *
+     * @param operation the unary or binary operation
+     * @param other the second operand, ignored by unary operations
+     * @return an interval containing every possible result
+     */
+    public Interval apply(Operation operation, Interval other) {
+        double a = lower;
+        double b = upper;
+        switch (operation) {
+            case ADD:
+                return outward(a + other.lower, b + other.upper);
+            case SUBTRACT:
+                return outward(a - other.upper, b - other.lower);
+            case MULTIPLY:
+                return multiply(other);
+            case DIVIDE:
+                if (other.lower <= 0 && other.upper >= 0) {
+                    return ENTIRE;
+                }
+                return multiply(outward(1 / other.upper, 1 / other.lower));
+            case MODULO:
+                return modulo(other);
+            case POWER:
+                return power(other);
+            case NEGATE:
+                return new Interval(-b, -a);
+            case SIN:
+                return sine(a, b);
+            case COS:
+                return sine(a + HALF_PI, b + HALF_PI).widen();
+            case TAN:
+                return crossesMultiple(a - HALF_PI, b - HALF_PI, Math.PI) ? ENTIRE : outward(Math.tan(a), Math.tan(b));
+            case COT:
+                return crossesMultiple(a, b, Math.PI) ? ENTIRE : outward(1.0 / Math.tan(b), 1.0 / Math.tan(a));
+            case ASIN:
+                return a < -1 || b > 1 ? ENTIRE : outward(Math.asin(a), Math.asin(b));
+            case ACOS:
+                return a < -1 || b > 1 ? ENTIRE : outward(Math.acos(b), Math.acos(a));
+            case COSH:
+                if (a <= 0 && b >= 0) {
+                    return outward(1, Math.cosh(Math.max(-a, b)));
+                }
+                return a > 0 ? outward(Math.cosh(a), Math.cosh(b)) : outward(Math.cosh(b), Math.cosh(a));
+            case LOG:
+            case LOG2:
+            case LOG10:
+            case SQRT:
+                return a < 0 ? ENTIRE : increasing(operation);
+            case LOG1P:
+                return a < -1 ? ENTIRE : increasing(operation);
+            case ABS:
+                if (a <= 0 && b >= 0) {
+                    return new Interval(0, Math.max(-a, b));
+                }
+                return a > 0 ? this : new Interval(-b, -a);
+            default:
+                // atan, sinh, tanh, exp, expm1, cbrt, signum, floor and ceil never decrease
+                return increasing(operation);
+        }
+    }
+
+    private Interval increasing(Operation operation) {
+        return outward(operation.apply(lower, 0), operation.apply(upper, 0));
+    }
+
+    private Interval multiply(Interval other) {
+        double p1 = product(lower, other.lower);
+        double p2 = product(lower, other.upper);
+        double p3 = product(upper, other.lower);
+        double p4 = product(upper, other.upper);
+        return outward(Math.min(Math.min(p1, p2), Math.min(p3, p4)), Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    /**
+     * Multiplies two bounds, taking {@code 0 * infinity} as 0 as interval arithmetic requires.
+     */
+    private static double product(double a, double b) {
+        return a == 0 || b == 0 ? 0 : a * b;
+    }
+
+    private Interval modulo(Interval other) {
+        // The result has the sign of the dividend and a magnitude below that of the divisor
+        double limit = Math.max(Math.abs(other.lower), Math.abs(other.upper));
+        if (lower >= 0) {
+            return new Interval(0, Math.min(upper, limit));
+        }
+        if (upper <= 0) {
+            return new Interval(Math.max(lower, -limit), 0);
+        }
+        return new Interval(Math.max(lower, -limit), Math.min(upper, limit));
+    }
+
+    private Interval power(Interval exponent) {
+        if (exponent.lower == exponent.upper) {
+            double n = exponent.lower;
+            if (n == Math.rint(n) && Math.abs(n) < (1L << 53)) {
+                return integerPower(n);
+            }
+            if (lower < 0) {
+                return ENTIRE;
+            }
+            return n > 0 ? outward(Math.pow(lower, n), Math.pow(upper, n)) : outward(Math.pow(upper, n), Math.pow(lower, n));
+        }
+        if (lower <= 0) {
+            return ENTIRE;
+        }
+        // a^b = exp(b * ln(a)) for positive bases
+        return exponent.multiply(increasing(Operation.LOG)).increasing(Operation.EXP);
+    }
+
+    private Interval integerPower(double n) {
+        if (n == 0) {
+            return new Interval(1, 1);
+        }
+        if (n < 0) {
+            if (lower <= 0 && upper >= 0) {
+                return ENTIRE;
+            }
+            Interval positivePower = integerPower(-n);
+            if (positivePower.contains(0)) {
+                // Only reachable through underflow of tiny bases
+                return ENTIRE;
+            }
+            return outward(1 / positivePower.upper, 1 / positivePower.lower);
+        }
+        boolean even = n % 2 == 0;
+        if (!even || lower >= 0) {
+            return outward(Math.pow(lower, n), Math.pow(upper, n));
+        }
+        if (upper <= 0) {
+            return outward(Math.pow(upper, n), Math.pow(lower, n));
+        }
+        return new Interval(0, Math.nextUp(Math.pow(Math.max(-lower, upper), n)));
+    }
+
+    private static Interval sine(double a, double b) {
+        if (Double.isInfinite(a) || Double.isInfinite(b) || b - a >= TWO_PI) {
+            return new Interval(-1, 1);
+        }
+        double lowerValue = Math.min(Math.sin(a), Math.sin(b));
+        double upperValue = Math.max(Math.sin(a), Math.sin(b));
+        // Maxima lie at pi/2 + 2k*pi, minima at -pi/2 + 2k*pi
+        if (crossesMultiple(a - HALF_PI, b - HALF_PI, TWO_PI)) {
+            upperValue = 1;
+        }
+        if (crossesMultiple(a + HALF_PI, b + HALF_PI, TWO_PI)) {
+            lowerValue = -1;
+        }
+        return outward(lowerValue, upperValue).clamp(-1, 1);
+    }
+
+    /**
+     * Checks whether {@code [a, b]} contains an integer multiple of {@code period}.
+     * Widened by a small margin so rounding in the shift cannot hide a multiple.
+     */
+    private static boolean crossesMultiple(double a, double b, double period) {
+        double margin = 1e-12 * Math.max(1, Math.max(Math.abs(a), Math.abs(b)));
+        return Math.floor((b + margin) / period) >= Math.ceil((a - margin) / period);
+    }
+
+    private Interval clamp(double min, double max) {
+        return new Interval(Math.max(lower, min), Math.min(upper, max));
+    }
+
+    private Interval widen() {
+        return new Interval(Math.nextDown(lower), Math.nextUp(upper));
+    }
+
+    private static Interval outward(double lower, double upper) {
+        if (Double.isNaN(lower) || Double.isNaN(upper)) {
+            return ENTIRE;
+        }
+        return new Interval(Math.nextDown(lower), Math.nextUp(upper));
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + upper + "]";
+    }
+}
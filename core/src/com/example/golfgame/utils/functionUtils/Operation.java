@@ -0,0 +1,136 @@
+package com.example.golfgame.utils.functionUtils;
+
+/**
+ * Enumerates the operations that can appear in a parsed {@link ExpressionNode} tree.
+ * Each operation knows its arity, the name it is written with in an expression string
+ * and how to apply itself to already evaluated operands.
+ */
+public enum Operation {
+    CONSTANT(0, null),
+    VARIABLE(0, null),
+    ADD(2, "+"),
+    SUBTRACT(2, "-"),
+    MULTIPLY(2, "*"),
+    DIVIDE(2, "/"),
+    MODULO(2, "%"),
+    POWER(2, "^"),
+    NEGATE(1, "-"),
+    SIN(1, "sin"),
+    COS(1, "cos"),
+    TAN(1, "tan"),
+    COT(1, "cot"),
+    ASIN(1, "asin"),
+    ACOS(1, "acos"),
+    ATAN(1, "atan"),
+    SINH(1, "sinh"),
+    COSH(1, "cosh"),
+    TANH(1, "tanh"),
+    EXP(1, "exp"),
+    EXPM1(1, "expm1"),
+    LOG(1, "log"),
+    LOG2(1, "log2"),
+    LOG10(1, "log10"),
+    LOG1P(1, "log1p"),
+    SQRT(1, "sqrt"),
+    CBRT(1, "cbrt"),
+    ABS(1, "abs"),
+    SIGNUM(1, "signum"),
+    FLOOR(1, "floor"),
+    CEIL(1, "ceil");
+
+    private final int arity;
+    private final String symbol;
+
+    Operation(int arity, String symbol) {
+        this.arity = arity;
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the number of operands this operation takes.
+     *
+     * @return 0 for leaves, 1 for unary operations and functions, 2 for binary operators
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * Returns the operator symbol or function name used to write this operation.
+     *
+     * @return the symbol, or {@code null} for constants and variables
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Checks whether this operation is written as a named function call, e.g. {@code sin(x)}.
+     *
+     * @return true if the operation is a one-argument function
+     */
+    public boolean isFunction() {
+        return arity == 1 && this != NEGATE;
+    }
+
+    /**
+     * Looks up the one-argument function with the given name.
+     *
+     * @param name the function name as written in an expression
+     * @return the matching operation, or {@code null} if no function has that name
+     */
+    public static Operation forFunctionName(String name) {
+        for (Operation operation : values()) {
+            if (operation.isFunction() && operation.symbol.equals(name)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies the operation to evaluated operands. Unary operations ignore {@code b}.
+     * The functions match exp4j's, but division and modulo follow IEEE 754 arithmetic: a zero
+     * divisor gives an infinity or NaN, where exp4j throws an {@link ArithmeticException}. Compiled
+     * and interpreted results therefore only agree where exp4j returns a value.
+     *
+     * @param a the first operand
+     * @param b the second operand
+     * @return the result of the operation
+     */
+    public double apply(double a, double b) {
+        switch (this) {
+            case ADD: return a + b;
+            case SUBTRACT: return a - b;
+            case MULTIPLY: return a * b;
+            case DIVIDE: return a / b;
+            case MODULO: return a % b;
+            case POWER: return Math.pow(a, b);
+            case NEGATE: return -a;
+            case SIN: return Math.sin(a);
+            case COS: return Math.cos(a);
+            case TAN: return Math.tan(a);
+            case COT: return 1.0 / Math.tan(a);
+            case ASIN: return Math.asin(a);
+            case ACOS: return Math.acos(a);
+            case ATAN: return Math.atan(a);
+            case SINH: return Math.sinh(a);
+            case COSH: return Math.cosh(a);
+            case TANH: return Math.tanh(a);
+            case EXP: return Math.exp(a);
+            case EXPM1: return Math.expm1(a);
+            case LOG: return Math.log(a);
+            case LOG2: return Math.log(a) / Math.log(2.0);
+            case LOG10: return Math.log10(a);
+            case LOG1P: return Math.log1p(a);
+            case SQRT: return Math.sqrt(a);
+            case CBRT: return Math.cbrt(a);
+            case ABS: return Math.abs(a);
+            case SIGNUM: return Math.signum(a);
+            case FLOOR: return Math.floor(a);
+            case CEIL: return Math.ceil(a);
+            default:
+                throw new IllegalStateException("Operation " + this + " has no operands to apply.");
+        }
+    }
+}
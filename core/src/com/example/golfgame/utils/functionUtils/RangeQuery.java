@@ -0,0 +1,187 @@
+package com.example.golfgame.utils.functionUtils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.PriorityQueue;
+
+/**
+ * Answers range questions about two-variable expressions over rectangles using interval
+ * arithmetic and quadtree refinement. A cell whose interval bound already decides the
+ * question is pruned as a whole, so only cells near the level set or near the extrema
+ * are subdivided, instead of sampling every point of the rectangle.
+ *
+ * <p>Plain interval evaluation overestimates expressions that use a variable more than once,
+ * such as the difference of two similar exponentials. Cells are therefore also bounded with
+ * the mean value form {@code f(c) + grad f(cell) . (p - c)} around the cell centre, whose
+ * error shrinks quadratically with the cell size, and the tighter of both bounds is used.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * ExpressionNode height = ExpressionParser.parse("0.4*(0.9-e^(-(x^2+y^2)/8))", "x", "y");
+ * boolean water = RangeQuery.anyBelow(height, 0, -5, -5, 5, 5, 0.01);
+ * Interval range = RangeQuery.range(height, -5, -5, 5, 5, 1e-3);
+ * }</pre>
+ */
+public final class RangeQuery {
+    // Upper limit on the number of cells refined by a single query
+    private static final int MAX_CELLS = 1 << 16;
+
+    private RangeQuery() {
+    }
+
+    /**
+     * Returns interval bounds of an expression over a rectangle, without refinement.
+     *
+     * @param tree the expression, with the x variable in slot 0 and y in slot 1
+     * @param xMin the lower x bound of the rectangle
+     * @param yMin the lower y bound of the rectangle
+     * @param xMax the upper x bound of the rectangle
+     * @param yMax the upper y bound of the rectangle
+     * @return an interval containing every value of the expression on the rectangle
+     */
+    public static Interval bounds(ExpressionNode tree, double xMin, double yMin, double xMax, double yMax) {
+        return tree.evaluateInterval(new Interval[]{Interval.of(xMin, xMax), Interval.of(yMin, yMax)});
+    }
+
+    /**
+     * Bounds an expression over a cell with both the natural interval extension and the mean value form.
+     */
+    private static Interval cellBound(ExpressionNode tree, ExpressionNode[] gradient, double xMin, double yMin,
+                                      double xMax, double yMax) {
+        Interval natural = bounds(tree, xMin, yMin, xMax, yMax);
+        double centerX = (xMin + xMax) / 2;
+        double centerY = (yMin + yMax) / 2;
+        // The centre value is bounded in interval arithmetic too, so its rounding errors are covered
+        Interval center = bounds(tree, centerX, centerY, centerX, centerY);
+        Interval slopeX = bounds(gradient[0], xMin, yMin, xMax, yMax);
+        Interval slopeY = bounds(gradient[1], xMin, yMin, xMax, yMax);
+        Interval offsetX = Interval.of(xMin - centerX, xMax - centerX);
+        Interval offsetY = Interval.of(yMin - centerY, yMax - centerY);
+        Interval meanValue = center
+                .apply(Operation.ADD, slopeX.apply(Operation.MULTIPLY, offsetX))
+                .apply(Operation.ADD, slopeY.apply(Operation.MULTIPLY, offsetY));
+        return natural.intersect(meanValue);
+    }
+
+    private static ExpressionNode[] gradient(ExpressionNode tree) {
+        return new ExpressionNode[]{
+                ExpressionDifferentiator.differentiate(tree, 0),
+                ExpressionDifferentiator.differentiate(tree, 1)
+        };
+    }
+
+    /**
+     * Checks whether an expression drops below a level anywhere on a rectangle. Cells are
+     * subdivided until their bound decides the question, a sample below the level is found,
+     * or they are smaller than {@code resolution}. A {@code false} answer is therefore
+     * guaranteed except for dips narrower than the resolution. An expression too rough to
+     * decide within the cell budget is answered with {@code true}, as the safe side.
+     *
+     * @param tree the expression, with the x variable in slot 0 and y in slot 1
+     * @param level the level to compare against, e.g. 0 for water
+     * @param xMin the lower x bound of the rectangle
+     * @param yMin the lower y bound of the rectangle
+     * @param xMax the upper x bound of the rectangle
+     * @param yMax the upper y bound of the rectangle
+     * @param resolution the cell size below which cells are no longer subdivided
+     * @return true if some point of the rectangle is below the level, or if that could not be ruled out
+     */
+    public static boolean anyBelow(ExpressionNode tree, double level, double xMin, double yMin, double xMax, double yMax,
+                                   double resolution) {
+        ExpressionNode[] gradient = gradient(tree);
+        double[] values = new double[2];
+        Deque<double[]> cells = new ArrayDeque<>();
+        cells.push(new double[]{xMin, yMin, xMax, yMax});
+        int processed = 0;
+        while (!cells.isEmpty() && processed++ < MAX_CELLS) {
+            double[] cell = cells.pop();
+            Interval bound = cellBound(tree, gradient, cell[0], cell[1], cell[2], cell[3]);
+            if (bound.getLower() >= level) {
+                continue;
+            }
+            if (bound.getUpper() < level) {
+                return true;
+            }
+            values[0] = (cell[0] + cell[2]) / 2;
+            values[1] = (cell[1] + cell[3]) / 2;
+            if (tree.evaluate(values) < level) {
+                return true;
+            }
+            if (cell[2] - cell[0] > resolution || cell[3] - cell[1] > resolution) {
+                split(cell, cells);
+            }
+        }
+        // Cells still waiting when the budget ran out are undecided
+        return !cells.isEmpty();
+    }
+
+    /**
+     * Encloses the range of an expression over a rectangle. The lower and upper ends are each
+     * refined by branch and bound until they are within {@code tolerance} of a sampled value,
+     * so the result is both guaranteed and tight.
+     *
+     * @param tree the expression, with the x variable in slot 0 and y in slot 1
+     * @param xMin the lower x bound of the rectangle
+     * @param yMin the lower y bound of the rectangle
+     * @param xMax the upper x bound of the rectangle
+     * @param yMax the upper y bound of the rectangle
+     * @param tolerance how far each end may lie outside the true minimum or maximum
+     * @return an interval containing every value of the expression on the rectangle
+     */
+    public static Interval range(ExpressionNode tree, double xMin, double yMin, double xMax, double yMax, double tolerance) {
+        ExpressionNode[] gradient = gradient(tree);
+        double lower = -refineMaximum(tree, gradient, -1, xMin, yMin, xMax, yMax, tolerance);
+        double upper = refineMaximum(tree, gradient, 1, xMin, yMin, xMax, yMax, tolerance);
+        return Interval.of(lower, upper);
+    }
+
+    /**
+     * Finds an upper bound on the maximum of {@code sign * tree} that is within {@code tolerance}
+     * of the best sampled value. Cells are refined best-bound first.
+     */
+    private static double refineMaximum(ExpressionNode tree, ExpressionNode[] gradient, double sign, double xMin, double yMin, double xMax, double yMax,
+                                        double tolerance) {
+        double[] values = new double[2];
+        // Cells are {xMin, yMin, xMax, yMax, bound}, largest bound first
+        PriorityQueue<double[]> cells = new PriorityQueue<>((a, b) -> Double.compare(b[4], a[4]));
+        double best = Double.NEGATIVE_INFINITY;
+        cells.add(boundedCell(tree, gradient, sign, xMin, yMin, xMax, yMax));
+        int processed = 0;
+        while (!cells.isEmpty()) {
+            double[] cell = cells.peek();
+            if (cell[4] <= best + tolerance || processed++ >= MAX_CELLS) {
+                return Math.max(cell[4], best);
+            }
+            cells.poll();
+            values[0] = (cell[0] + cell[2]) / 2;
+            values[1] = (cell[1] + cell[3]) / 2;
+            double sample = sign * tree.evaluate(values);
+            if (!Double.isNaN(sample)) {
+                best = Math.max(best, sample);
+            }
+            double midX = values[0];
+            double midY = values[1];
+            cells.add(boundedCell(tree, gradient, sign, cell[0], cell[1], midX, midY));
+            cells.add(boundedCell(tree, gradient, sign, midX, cell[1], cell[2], midY));
+            cells.add(boundedCell(tree, gradient, sign, cell[0], midY, midX, cell[3]));
+            cells.add(boundedCell(tree, gradient, sign, midX, midY, cell[2], cell[3]));
+        }
+        return best;
+    }
+
+    private static double[] boundedCell(ExpressionNode tree, ExpressionNode[] gradient, double sign, double xMin, double yMin,
+                                        double xMax, double yMax) {
+        Interval bound = cellBound(tree, gradient, xMin, yMin, xMax, yMax);
+        double upper = sign > 0 ? bound.getUpper() : -bound.getLower();
+        return new double[]{xMin, yMin, xMax, yMax, upper};
+    }
+
+    private static void split(double[] cell, Deque<double[]> cells) {
+        double midX = (cell[0] + cell[2]) / 2;
+        double midY = (cell[1] + cell[3]) / 2;
+        cells.push(new double[]{cell[0], cell[1], midX, midY});
+        cells.push(new double[]{midX, cell[1], cell[2], midY});
+        cells.push(new double[]{cell[0], midY, midX, cell[3]});
+        cells.push(new double[]{midX, midY, cell[2], cell[3]});
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.golfgame.utils.gameUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.example.golfgame.utils.Function;
+
+/**
+ * A content-addressed cache for terrain artifacts such as height grids and normalized height maps.
+ * Artifacts are keyed by a SHA-256 fingerprint of the normalized height expression, the sand
+ * areas and the grid parameters they were computed from, so a course that was seen before,
+ * in this run or an earlier one, does not have to be sampled again. Recently used artifacts are
+ * kept in memory up to a byte budget; every artifact is also written to a directory on disk, which
+ * is held to a byte budget of its own by deleting the least recently used files. Compiled height
+ * functions are cached in memory as well, keyed by their expression.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * TerrainCache cache = TerrainCache.getShared();
+ * String key = TerrainCache.fingerprint("heights", heightFunction, sandAreas, -100, -100, 1, 200, 200);
+ * double[] heights = cache.computeIfAbsentReadOnly(key, () -> sampleHeights());
+ * }</pre>
+ *
+ * <p>{@link #get} and {@link #computeIfAbsent} hand out copies that the caller may change. Callers that only
+ * read an artifact, such as a surface lattice that several engines sample, use {@link #getReadOnly} and
+ * {@link #computeIfAbsentReadOnly} instead, which hand out the cached array itself.</p>
+ */
+public class TerrainCache {
+    private static final long DEFAULT_MEMORY_BYTES = 64L * 1024 * 1024; // In-memory budget of the shared cache
+    private static final long DEFAULT_DISK_BYTES = 256L * 1024 * 1024; // On-disk budget of the shared cache
+    private static final int MAX_FUNCTIONS = 32; // Number of compiled height functions kept in memory
+    private static final int FILE_MAGIC = 0x47524944; // "GRID"
+    private static final int FILE_VERSION = 1;
+    private static final long ENTRY_OVERHEAD = 64; // Approximate per-entry bookkeeping cost in bytes
+
+    private static final TerrainCache shared = new TerrainCache(DEFAULT_MEMORY_BYTES,
+            new File(System.getProperty("user.home"), ".golfsimulator" + File.separator + "terrain-cache"), DEFAULT_DISK_BYTES);
+
+    private final long maxMemoryBytes;
+    private final File directory;
+    private final long maxDiskBytes;
+    private final Object diskLock = new Object(); // Serializes trimming of the directory
+    private final LinkedHashMap<String, double[]> artifacts = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Function> functions = new LinkedHashMap<String, Function>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Function> eldest) {
+            return size() > MAX_FUNCTIONS;
+        }
+    };
+    private long memoryBytes;
+
+    /**
+     * Constructs a TerrainCache.
+     *
+     * @param maxMemoryBytes the number of bytes of artifacts to keep in memory before the least recently used are evicted
+     * @param directory the directory artifacts are persisted to, or {@code null} to keep them in memory only
+     */
+    public TerrainCache(long maxMemoryBytes, File directory) {
+        this(maxMemoryBytes, directory, DEFAULT_DISK_BYTES);
+    }
+
+    /**
+     * Constructs a TerrainCache with a limit on the disk space it uses.
+     *
+     * @param maxMemoryBytes the number of bytes of artifacts to keep in memory before the least recently used are evicted
+     * @param directory the directory artifacts are persisted to, or {@code null} to keep them in memory only
+     * @param maxDiskBytes the number of bytes of artifact files to keep on disk before the least recently used are deleted
+     */
+    public TerrainCache(long maxMemoryBytes, File directory, long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * Returns the cache shared by the game, which persists up to 256 MB to {@code ~/.golfsimulator/terrain-cache}.
+     *
+     * @return the shared cache
+     */
+    public static TerrainCache getShared() {
+        return shared;
+    }
+
+    /**
+     * Computes the key of an artifact.
+     *
+     * @param kind the kind of artifact, e.g. {@code "heights"}
+     * @param heightFunction the height function the artifact is derived from
+     * @param sandAreas the sand areas the artifact depends on, or {@code null} if it does not depend on them
+     * @param parameters the grid parameters, such as origin, spacing and size
+     * @return a hexadecimal SHA-256 fingerprint
+     */
+    public static String fingerprint(String kind, Function heightFunction, List<float[]> sandAreas, Object... parameters) {
+        StringBuilder description = new StringBuilder(kind).append('|').append(heightFunction.getNormalizedExpression());
+        description.append("|sand:");
+        if (sandAreas != null) {
+            for (float[] area : sandAreas) {
+                for (float value : area) {
+                    description.append(Float.floatToIntBits(value)).append(',');
+                }
+                description.append(';');
+            }
+        }
+        description.append("|grid:");
+        for (Object parameter : parameters) {
+            if (parameter instanceof Float) {
+                description.append("f").append(Float.floatToIntBits((Float) parameter));
+            } else if (parameter instanceof Double) {
+                description.append("d").append(Double.doubleToLongBits((Double) parameter));
+            } else {
+                description.append(parameter);
+            }
+            description.append(',');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(description.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Returns a height function of {@code x} and {@code y} for an expression, compiling it only
+     * if it is not already cached.
+     *
+     * @param expression the height expression
+     * @return the cached or newly created function
+     */
+    public Function getFunction(String expression) {
+        String key = expression.replaceAll("\\s+", "");
+        synchronized (functions) {
+            Function function = functions.get(key);
+            if (function != null) {
+                return function;
+            }
+        }
+        Function function = new Function(expression, "x", "y");
+        synchronized (functions) {
+            Function existing = functions.putIfAbsent(key, function);
+            return existing != null ? existing : function;
+        }
+    }
+
+    /**
+     * Looks up an artifact in memory and then on disk.
+     *
+     * @param key the artifact's fingerprint
+     * @return a copy of the artifact, or {@code null} if it is not cached
+     */
+    public double[] get(String key) {
+        double[] data = getReadOnly(key);
+        return data == null ? null : data.clone();
+    }
+
+    /**
+     * Looks up an artifact in memory and then on disk, without copying it.
+     *
+     * @param key the artifact's fingerprint
+     * @return the cached artifact, shared with the cache and every other caller and not to be modified,
+     *         or {@code null} if it is not cached
+     */
+    public double[] getReadOnly(String key) {
+        double[] data;
+        synchronized (artifacts) {
+            data = artifacts.get(key);
+        }
+        if (data == null) {
+            data = readFromDisk(key);
+            if (data == null) {
+                return null;
+            }
+            remember(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * Stores an artifact in memory and on disk.
+     *
+     * @param key the artifact's fingerprint
+     * @param data the artifact; a copy is stored
+     */
+    public void put(String key, double[] data) {
+        double[] copy = data.clone();
+        remember(key, copy);
+        writeToDisk(key, copy);
+    }
+
+    /**
+     * Returns a cached artifact, or computes, stores and returns it if it is not cached.
+     *
+     * @param key the artifact's fingerprint
+     * @param producer computes the artifact on a cache miss
+     * @return a copy of the artifact
+     */
+    public double[] computeIfAbsent(String key, Supplier<double[]> producer) {
+        double[] data = get(key);
+        if (data != null) {
+            return data;
+        }
+        data = producer.get();
+        put(key, data);
+        return data;
+    }
+
+    /**
+     * Returns a cached artifact, or computes, stores and returns it if it is not cached, without copying it.
+     *
+     * @param key the artifact's fingerprint
+     * @param producer computes the artifact on a cache miss
+     * @return the cached artifact, shared with the cache and every other caller and not to be modified
+     */
+    public double[] computeIfAbsentReadOnly(String key, Supplier<double[]> producer) {
+        double[] data = getReadOnly(key);
+        if (data != null) {
+            return data;
+        }
+        data = producer.get();
+        remember(key, data);
+        writeToDisk(key, data);
+        return data;
+    }
+
+    /**
+     * Removes every artifact from memory. Artifacts on disk are kept.
+     */
+    public void clearMemory() {
+        synchronized (artifacts) {
+            artifacts.clear();
+            memoryBytes = 0;
+        }
+    }
+
+    private void remember(String key, double[] data) {
+        long size = sizeOf(data);
+        if (size > maxMemoryBytes) {
+            return;
+        }
+        synchronized (artifacts) {
+            double[] previous = artifacts.put(key, data);
+            if (previous != null) {
+                memoryBytes -= sizeOf(previous);
+            }
+            memoryBytes += size;
+            // Evict least recently used artifacts until the budget is met
+            Iterator<Map.Entry<String, double[]>> eldest = artifacts.entrySet().iterator();
+            while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                memoryBytes -= sizeOf(eldest.next().getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long sizeOf(double[] data) {
+        return 8L * data.length + ENTRY_OVERHEAD;
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + ".grid");
+    }
+
+    private double[] readFromDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                System.err.println("Ignoring terrain cache file with unknown format: " + file);
+                return null;
+            }
+            double[] data = new double[in.readInt()];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = in.readDouble();
+            }
+            // The modification time marks when a file was last used, for trimDisk
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (IOException e) {
+            System.err.println("Error reading terrain cache file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, double[] data) {
+        if (directory == null) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.err.println("Could not create terrain cache directory: " + directory);
+            return;
+        }
+        File file = fileFor(key);
+        File temporary = new File(directory, key + ".tmp" + Thread.currentThread().getId());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeInt(data.length);
+                for (double value : data) {
+                    out.writeDouble(value);
+                }
+            }
+            // Readers never see a partially written file
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing terrain cache file " + file + ": " + e.getMessage());
+            temporary.delete();
+            return;
+        }
+        trimDisk();
+    }
+
+    /**
+     * Deletes the least recently used artifact files until the directory is within its byte budget.
+     */
+    private void trimDisk() {
+        synchronized (diskLock) {
+            File[] files = directory.listFiles((dir, name) -> name.endsWith(".grid"));
+            if (files == null) {
+                return;
+            }
+            long total = 0;
+            long[] lengths = new long[files.length];
+            long[] lastUsed = new long[files.length]; // Read once, as other threads may touch files while sorting
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < files.length; i++) {
+                lengths[i] = files[i].length();
+                lastUsed[i] = files[i].lastModified();
+                order[i] = i;
+                total += lengths[i];
+            }
+            if (total <= maxDiskBytes) {
+                return;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> lastUsed[i]));
+            for (int i = 0; i < order.length && total > maxDiskBytes; i++) {
+                if (files[order[i]].delete()) {
+                    total -= lengths[order[i]];
+                }
+            }
+        }
+    }
+}
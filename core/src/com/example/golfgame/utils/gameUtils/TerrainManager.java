@@ -1,9 +1,7 @@
 package com.example.golfgame.utils.gameUtils;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -22,9 +20,11 @@ import com.badlogic.gdx.graphics.g3d.utils.MeshPartBuilder;
 import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
+import com.example.golfgame.physics.TrajectoryRecorder;
 import com.example.golfgame.screens.GolfGameScreen;
 import com.example.golfgame.utils.Function;
 import com.example.golfgame.utils.MatrixUtils;
+import com.example.golfgame.utils.functionUtils.Interval;
 
 /**
  * Manages the terrain generation and properties in the golf game.
@@ -32,6 +32,9 @@ import com.example.golfgame.utils.MatrixUtils;
  * as well as determining terrain heights and sand areas.
  */
 public class TerrainManager {
+    private static final double WATER_LEVEL = 0; // Ground below this height is water
+    private static final double WATER_RESOLUTION = 0.01; // Size of the smallest pond a region check is sure to find
+    private static final double RANGE_TOLERANCE = 1e-2; // How far the height range used for normalization may exceed the true one
     private Function heightFunction;
     private Texture grassTexture, sandTexture, holeTexture;
     private int gridWidth, gridHeight;
@@ -39,6 +42,7 @@ public class TerrainManager {
     private float[] holeArea;
     private float scale;
     private int parts;
+    private TerrainCache cache = TerrainCache.getShared();
 
     /**
      * Constructs a TerrainManager with specified parameters.
@@ -113,6 +117,11 @@ public class TerrainManager {
         float halfTotalWidth = gridWidth * scale * 0.5f;
         float halfTotalHeight = gridHeight * scale * 0.5f;
 
+        // Sample all vertex heights at once; neighbouring parts share their edge rows and columns
+        int verticesX = parts * partWidth + 1;
+        int verticesZ = parts * partHeight + 1;
+        double[] heights = sampleHeights(centerX - halfTotalWidth, centerZ - halfTotalHeight, scale, verticesX, verticesZ);
+
         for (int pz = 0; pz < parts; pz++) {
             for (int px = 0; px < parts; px++) {
                 modelBuilder.begin();
@@ -123,7 +132,7 @@ public class TerrainManager {
                     for (int x = 0; x <= partWidth; x++) {
                         float worldX = centerX + (x + px * partWidth) * scale - halfTotalWidth;
                         float worldZ = centerZ + (z + pz * partHeight) * scale - halfTotalHeight;
-                        float height = getTerrainHeight(worldX, worldZ);
+                        float height = (float) heights[(z + pz * partHeight) * verticesX + x + px * partWidth];
                         float textureU = (worldX + gridWidth * scale / 2) / (gridWidth * scale);
                         float textureV = (worldZ + gridHeight * scale / 2) / (gridHeight * scale);
 
@@ -190,12 +199,14 @@ public class TerrainManager {
         int numX = (int)((x2 - x1) / scale) + 1;
         int numZ = (int)((z2 - z1) / scale) + 1;
 
+        double[] heights = sampleHeights(x1, z1, scale, numX, numZ);
+
         // Generate vertices and store heights for indexing
         for (int ix = 0; ix < numX; ix++) {
             for (int iz = 0; iz < numZ; iz++) {
                 float x = x1 + ix * scale;
                 float z = z1 + iz * scale;
-                float height = getTerrainHeight(x, z) + 0.1f;
+                float height = (float) heights[iz * numX + ix] + 0.1f;
                 float u = (float)(x - x1) / (x2 - x1);  // Adjusted to use relative position within clipped area
                 float v = (float)(z - z1) / (z2 - z1);
                 meshBuilder.vertex(new float[]{x, height, z, 0, 1, 0, u, v});
@@ -258,12 +269,14 @@ public class TerrainManager {
             int numX = (int)((x2 - x1) / scale) + 1;
             int numZ = (int)((z2 - z1) / scale) + 1;
 
+            double[] heights = sampleHeights(x1, z1, scale, numX, numZ);
+
             // Generate vertices and store heights for indexing
             for (int ix = 0; ix < numX; ix++) {
                 for (int iz = 0; iz < numZ; iz++) {
                     float x = x1 + ix * scale;
                     float z = z1 + iz * scale;
-                    float height = getTerrainHeight(x, z) + 0.1f;
+                    float height = (float) heights[iz * numX + ix] + 0.1f;
                     float u = (float)(x - x1) / (x2 - x1);  // Adjusted to use relative position within clipped area
                     float v = (float)(z - z1) / (z2 - z1);
                     meshBuilder.vertex(new float[]{x, height, z, 0, 1, 0, u, v});
@@ -297,6 +310,32 @@ public class TerrainManager {
      * @return A ModelInstance representing the red line.
      */
     public ModelInstance createRedLineModel(List<Vector2> points) {
+        float[] coordinates = new float[2 * points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            coordinates[2 * i] = points.get(i).x;
+            coordinates[2 * i + 1] = points.get(i).y;
+        }
+        return createRedLineModel(coordinates, points.size());
+    }
+
+    /**
+     * Creates a red line model from the path held by a trajectory recorder, read straight from its buffer.
+     *
+     * @param path The recorder holding the points of the red line.
+     * @return A ModelInstance representing the red line.
+     */
+    public ModelInstance createRedLineModel(TrajectoryRecorder path) {
+        return createRedLineModel(path.getPoints(), path.size());
+    }
+
+    /**
+     * Creates a red line model from points stored as x, y pairs.
+     *
+     * @param coordinates The coordinates of the points, as x0, y0, x1, y1, ...
+     * @param count The number of points.
+     * @return A ModelInstance representing the red line.
+     */
+    private ModelInstance createRedLineModel(float[] coordinates, int count) {
         final int MAX_VERTICES = 65536 / 7; // Adjust this if needed based on your usage
         ModelBuilder modelBuilder = new ModelBuilder();
 
@@ -306,17 +345,17 @@ public class TerrainManager {
         // Define a simple red material
         Material redMaterial = new Material(ColorAttribute.createDiffuse(Color.RED));
 
-        for (int start = 0; start < points.size(); start += MAX_VERTICES) {
-            int end = Math.min(start + MAX_VERTICES, points.size());
+        // Consecutive parts share a point so that the line has no gaps between them
+        for (int start = 0; start < count && (start == 0 || start < count - 1); start += MAX_VERTICES - 1) {
+            int end = Math.min(start + MAX_VERTICES, count);
 
             // Define usage for position and color
             MeshPartBuilder meshBuilder = modelBuilder.part("red_line_part_" + start, GL20.GL_LINES, Usage.Position | Usage.ColorUnpacked, redMaterial);
 
             // Add vertices for each point in the current segment
             for (int i = start; i < end; i++) {
-                Vector2 point = points.get(i);
-                float x = point.x;
-                float z = point.y;
+                float x = coordinates[2 * i];
+                float z = coordinates[2 * i + 1];
                 float y = getTerrainHeight(x, z) + 0.1f; // Use getTerrainHeight method to determine the y value
 
                 // Add vertex with position and color
@@ -389,11 +428,22 @@ public class TerrainManager {
      * @return True if the position is water, false otherwise.
      */
     public boolean isWater(float x, float y) {
-        // Logic to determine if the position (x, y) is water
-        // This is a placeholder. Replace with actual implementation.
-        // Example: check if the height at (x, y) is below water level.
-        float height = getTerrainHeight(x, y);
-        return height < 0; // Assuming waterLevel is defined
+        return getTerrainHeight(x, y) < WATER_LEVEL;
+    }
+
+    /**
+     * Determines if there is water anywhere in a rectangle. Parts of the rectangle that interval
+     * arithmetic proves to lie above or below the water level are decided without sampling, so
+     * only the shore is refined.
+     *
+     * @param minX The lower x-coordinate of the rectangle.
+     * @param minY The lower y-coordinate of the rectangle.
+     * @param maxX The upper x-coordinate of the rectangle.
+     * @param maxY The upper y-coordinate of the rectangle.
+     * @return True if some point of the rectangle may be water, false if none is.
+     */
+    public boolean isWaterInRegion(float minX, float minY, float maxX, float maxY) {
+        return heightFunction.anyBelow(WATER_LEVEL, minX, minY, maxX, maxY, WATER_RESOLUTION);
     }
 
     /**
@@ -404,10 +454,7 @@ public class TerrainManager {
      * @return The height of the terrain at the specified coordinates.
      */
     public float getTerrainHeight(float x, float z) {
-        Map<String, Double> args = new HashMap<>();
-        args.put("x", (double) x);
-        args.put("y", (double) z);
-        return (float) heightFunction.evaluate(args);
+        return (float) heightFunction.evaluate(x, z);
     }
 
     /**
@@ -447,24 +494,62 @@ public class TerrainManager {
      * @return A 2D array representing the normalized heightmap with marked ball, goal, and sand positions.
      */
     public double[][] getNormalizedMarkedHeightMap(float ballX, float ballY, float goalX, float goalY) {
+        // Steps 1 to 3 only depend on the course, so their result is cached
+        String key = TerrainCache.fingerprint("normalized-height-map", heightFunction, sandAreas, gridWidth, gridHeight, scale);
+        double[] normalized = cache.computeIfAbsentReadOnly(key, this::computeNormalizedHeightMap);
+        double[][] heightMap = new double[gridWidth][gridHeight];
+        for (int x = 0; x < gridWidth; x++) {
+            System.arraycopy(normalized, x * gridHeight, heightMap[x], 0, gridHeight);
+        }
+
+        // Step 4: Mark the ball and goal positions
+        int ballPosX = (int) ((ballX / scale) + gridWidth / 2);
+        int ballPosY = (int) ((ballY / scale) + gridHeight / 2);
+        int goalPosX = (int) ((goalX / scale) + gridWidth / 2);
+        int goalPosY = (int) ((goalY / scale) + gridHeight / 2);
+
+        // Assuming 3 for ball and 5 for goal to mark on the map
+        if (ballPosX >= 0 && ballPosX < gridWidth && ballPosY >= 0 && ballPosY < gridHeight) {
+            heightMap[ballPosX][ballPosY] = 3;
+        }
+
+        if (goalPosX >= 0 && goalPosX < gridWidth && goalPosY >= 0 && goalPosY < gridHeight) {
+            heightMap[goalPosX][goalPosY] = 5;
+        }
+
+        return heightMap;
+    }
+
+    /**
+     * Computes the normalized heightmap with the sand areas marked, flattened as {@code x * gridHeight + y}.
+     *
+     * @return The flattened normalized heightmap without ball and goal marks.
+     */
+    private double[] computeNormalizedHeightMap() {
         double[][] heightMap = new double[gridWidth][gridHeight];
 
         // Step 1: Calculate the height map and find min and max heights
-        float minHeight = Float.MAX_VALUE;
-        float maxHeight = Float.MIN_VALUE;
+        float x0 = -(gridWidth / 2) * scale;
+        float y0 = -(gridHeight / 2) * scale;
+        double[] heights = sampleHeights(x0, y0, scale, gridWidth, gridHeight);
 
         for (int x = 0; x < gridWidth; x++) {
             for (int y = 0; y < gridHeight; y++) {
-                float worldX = (x - gridWidth / 2) * scale; 
-                float worldZ = (y - gridHeight / 2) * scale;
-                float height = getTerrainHeight(worldX, worldZ);
-                heightMap[x][y] = height;
-                if (height < minHeight) {
-                    minHeight = height;
-                }
-                if (height > maxHeight) {
-                    maxHeight = height;
-                }
+                heightMap[x][y] = (float) heights[y * gridWidth + x];
+            }
+        }
+
+        // The range over the whole rectangle, refined where the extremes lie instead of scanned from the samples
+        Interval range = heightFunction.findRange(x0, y0, x0 + (gridWidth - 1) * scale, y0 + (gridHeight - 1) * scale, RANGE_TOLERANCE);
+        float minHeight = (float) range.getLower();
+        float maxHeight = (float) range.getUpper();
+        if (Double.isInfinite(range.getLower()) || Double.isInfinite(range.getUpper())) {
+            // Only exp4j can evaluate the surface, so the range comes from the samples
+            minHeight = Float.MAX_VALUE;
+            maxHeight = -Float.MAX_VALUE;
+            for (double height : heights) {
+                minHeight = Math.min(minHeight, (float) height);
+                maxHeight = Math.max(maxHeight, (float) height);
             }
         }
 
@@ -505,22 +590,35 @@ public class TerrainManager {
             }
         }
 
-        // Step 4: Mark the ball and goal positions
-        int ballPosX = (int) ((ballX / scale) + gridWidth / 2);
-        int ballPosY = (int) ((ballY / scale) + gridHeight / 2);
-        int goalPosX = (int) ((goalX / scale) + gridWidth / 2);
-        int goalPosY = (int) ((goalY / scale) + gridHeight / 2);
-
-        // Assuming 3 for ball and 5 for goal to mark on the map
-        if (ballPosX >= 0 && ballPosX < gridWidth && ballPosY >= 0 && ballPosY < gridHeight) {
-            heightMap[ballPosX][ballPosY] = 3;
-        }
+        return MatrixUtils.flattenArray(heightMap);
+    }
 
-        if (goalPosX >= 0 && goalPosX < gridWidth && goalPosY >= 0 && goalPosY < gridHeight) {
-            heightMap[goalPosX][goalPosY] = 5;
-        }
+    /**
+     * Samples the terrain height on a square grid, reusing a cached grid if the same course was sampled before.
+     *
+     * @param x0    The x-coordinate of the first column.
+     * @param z0    The z-coordinate of the first row.
+     * @param step  The spacing between grid points.
+     * @param numX  The number of columns.
+     * @param numZ  The number of rows.
+     * @return The heights, row by row, at index {@code iz * numX + ix}.
+     */
+    private double[] sampleHeights(double x0, double z0, double step, int numX, int numZ) {
+        String key = TerrainCache.fingerprint("heights", heightFunction, null, x0, z0, step, numX, numZ);
+        return cache.computeIfAbsentReadOnly(key, () -> {
+            double[] heights = new double[numX * numZ];
+            heightFunction.evaluateGrid(x0, z0, step, step, numX, numZ, heights);
+            return heights;
+        });
+    }
 
-        return heightMap;
+    /**
+     * Sets the cache used for terrain artifacts, e.g. a memory-only cache for headless runs.
+     *
+     * @param cache The cache to use.
+     */
+    public void setCache(TerrainCache cache) {
+        this.cache = cache;
     }
 
     /**